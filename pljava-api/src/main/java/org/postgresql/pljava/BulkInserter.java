@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Inserts many rows into one table with the semantics, and close to the
+ * throughput, of {@code COPY FROM}: rows are inserted in batches, indexes are
+ * maintained, and constraints and triggers fire as they would for
+ * {@code COPY}.
+ *<p>
+ * Obtain one by unwrapping the default connection:
+ *<pre>
+ * Connection c = DriverManager.getConnection("jdbc:default:connection");
+ * try ( BulkInserter bi = c.unwrap(BulkInserter.Factory.class)
+ *         .newBulkInserter("myschema.mytable", "id", "name", "score") )
+ * {
+ *     for ( ... )
+ *         bi.putLong(id).putString(name).putDouble(score).endRow();
+ * }
+ *</pre>
+ *<p>
+ * Each row is given as a sequence of values, one per column named when the
+ * inserter was made, in that order, followed by {@link #endRow endRow}. Rows
+ * are buffered and handed to PostgreSQL whenever the buffered data exceeds
+ * the {@link #setBatchSize batch size}, and when {@link #flush flush} or
+ * {@link #close close} is called. Rows already handed to PostgreSQL are
+ * inserted in the current transaction, and will be visible to subsequent
+ * queries in it; buffered rows are not, until flushed.
+ *<p>
+ * Values are transferred in {@code COPY} text form, so any value is acceptable
+ * whose text form the column's type input function accepts. For a column of
+ * type {@code timestamp with time zone}, pass an
+ * {@link java.time.OffsetDateTime OffsetDateTime}, not a
+ * {@link java.sql.Timestamp}, to avoid interpretation in the session time
+ * zone.
+ *<p>
+ * A {@code BulkInserter} requires {@code INSERT} privilege on the named
+ * columns, as {@code COPY FROM} does, and cannot be used in a function that is not {@code VOLATILE}, or on a table
+ * with row-level security enabled.
+ */
+public interface BulkInserter extends AutoCloseable
+{
+	/**
+	 * Obtained by {@link Connection#unwrap unwrapping} PL/Java's
+	 * {@code jdbc:default:connection}.
+	 */
+	interface Factory
+	{
+		/**
+		 * Returns a new {@code BulkInserter} for the named table and columns.
+		 * @param table Name of the target table, optionally schema-qualified;
+		 * an identifier that needs quoting must be given with double quotes,
+		 * as in SQL.
+		 * @param columns Names of the columns to be supplied in each row, in
+		 * order; columns not named receive their defaults.
+		 */
+		BulkInserter newBulkInserter(String table, String... columns)
+		throws SQLException;
+	}
+
+	/**
+	 * Sets the approximate number of bytes of buffered row data that will
+	 * cause a batch to be handed to PostgreSQL at the end of a row.
+	 * @param bytes A positive number of bytes.
+	 * @return this inserter
+	 */
+	BulkInserter setBatchSize(int bytes) throws SQLException;
+
+	/**
+	 * Supplies a null value for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putNull() throws SQLException;
+
+	/**
+	 * Supplies a {@code boolean} for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putBoolean(boolean value) throws SQLException;
+
+	/**
+	 * Supplies an {@code int} for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putInt(int value) throws SQLException;
+
+	/**
+	 * Supplies a {@code long} for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putLong(long value) throws SQLException;
+
+	/**
+	 * Supplies a {@code float} for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putFloat(float value) throws SQLException;
+
+	/**
+	 * Supplies a {@code double} for the next column.
+	 * @return this inserter
+	 */
+	BulkInserter putDouble(double value) throws SQLException;
+
+	/**
+	 * Supplies a string for the next column, or null if {@code value} is null.
+	 * @return this inserter
+	 */
+	BulkInserter putString(CharSequence value) throws SQLException;
+
+	/**
+	 * Supplies binary data for the next column (which should be a
+	 * {@code bytea}), or null if {@code value} is null.
+	 * @return this inserter
+	 */
+	BulkInserter putBytes(byte[] value) throws SQLException;
+
+	/**
+	 * Supplies any value for the next column: null, a {@code Boolean},
+	 * a {@code Number}, a {@code byte[]}, or any other object whose
+	 * {@code toString} is acceptable input for the column's type.
+	 * @return this inserter
+	 */
+	BulkInserter putObject(Object value) throws SQLException;
+
+	/**
+	 * Ends the current row, which must have had a value supplied for every
+	 * column.
+	 */
+	void endRow() throws SQLException;
+
+	/**
+	 * Supplies the values of one whole row, as if by {@link #putObject
+	 * putObject} for each, followed by {@link #endRow endRow}.
+	 */
+	default void insertRow(Object... values) throws SQLException
+	{
+		for ( Object v : values )
+			putObject(v);
+		endRow();
+	}
+
+	/**
+	 * Hands any buffered complete rows to PostgreSQL.
+	 * @return The number of rows inserted by this call.
+	 * @throws SQLException if a row is incomplete, or PostgreSQL reports an
+	 * error, in which case none of the buffered rows is inserted.
+	 */
+	long flush() throws SQLException;
+
+	/**
+	 * Returns the number of rows inserted by this {@code BulkInserter} so far,
+	 * not counting rows still buffered.
+	 */
+	long getInsertedCount();
+
+	/**
+	 * Flushes any buffered rows and releases resources; further use of this
+	 * {@code BulkInserter} is an error.
+	 */
+	@Override
+	void close() throws SQLException;
+}
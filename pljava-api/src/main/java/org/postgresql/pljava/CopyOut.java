@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.io.InputStream;
+
+import java.nio.channels.ReadableByteChannel;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The result of a query, delivered as the byte stream that
+ * {@code COPY (query) TO} would produce, in large chunks, without any Java
+ * object per row or per value.
+ *<p>
+ * Obtain one by unwrapping the default connection:
+ *<pre>
+ * Connection c = DriverManager.getConnection("jdbc:default:connection");
+ * try ( CopyOut co = c.unwrap(CopyOut.Factory.class)
+ *         .copyOut("SELECT * FROM big_table", CopyOut.Format.TEXT) )
+ * {
+ *     digest.update(co.asInputStream().readAllBytes()); // or read in chunks
+ * }
+ *</pre>
+ *<p>
+ * In {@link Format#TEXT TEXT} format, the stream is exactly what
+ * {@code COPY ... TO} with default options would produce (tab-delimited,
+ * newline-terminated rows, {@code \N} for null), encoded in UTF-8 regardless
+ * of the server encoding. In {@link Format#BINARY BINARY} format, it is
+ * {@code COPY}'s binary format, including the file header and trailer.
+ *<p>
+ * Rows are fetched from a cursor as the stream is read, so the whole result
+ * is never held in memory. The stream is usable only during the function call
+ * that created it, and only on the thread that may enter PostgreSQL.
+ */
+public interface CopyOut extends ReadableByteChannel
+{
+	/**
+	 * Format of the produced stream.
+	 */
+	enum Format
+	{
+		/** {@code COPY}'s default text format, encoded in UTF-8. */
+		TEXT,
+		/** {@code COPY}'s binary format. */
+		BINARY
+	}
+
+	/**
+	 * Obtained by {@link Connection#unwrap unwrapping} PL/Java's
+	 * {@code jdbc:default:connection}.
+	 */
+	interface Factory
+	{
+		/**
+		 * Runs a query and returns its result as a {@code COPY} stream.
+		 * @param query A query (such as a {@code SELECT}) that returns rows.
+		 * @param format Format of the stream.
+		 */
+		CopyOut copyOut(String query, Format format) throws SQLException;
+	}
+
+	/**
+	 * Returns an {@code InputStream} view of this channel. Closing the stream
+	 * closes the channel.
+	 */
+	InputStream asInputStream();
+
+	/**
+	 * Returns the number of rows delivered into the stream so far.
+	 */
+	long getRowCount();
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Executes the batch of a {@code PreparedStatement} with each entry in its own
+ * subtransaction, so that an entry that fails is rolled back alone and the
+ * rest of the batch still runs.
+ *<p>
+ * Obtain one by unwrapping a statement prepared on PL/Java's
+ * {@code jdbc:default:connection}:
+ *<pre>
+ * PreparedStatement ps = c.prepareStatement("INSERT INTO t VALUES (?, ?)");
+ * for ( ... )
+ * {
+ *     ps.setInt(1, id);
+ *     ps.setString(2, name);
+ *     ps.addBatch();
+ * }
+ * IsolatedBatch.Result r =
+ *     ps.unwrap(IsolatedBatch.class).executeIsolatedBatch();
+ * for ( int i = 0; i &lt; r.size(); ++ i )
+ *     if ( ! r.succeeded(i) )
+ *         log(r.sqlState(i), r.message(i));
+ *</pre>
+ *<p>
+ * This has the effect of setting a savepoint before each entry, and releasing
+ * it or rolling back to it after, but the subtransactions are begun and ended
+ * in native code, and an entry's failure is recorded only by its SQLState and
+ * message: no savepoint object or Java exception is made for it. A query
+ * cancel or statement timeout is not treated as an entry's failure; it ends
+ * the whole batch with an exception, as usual.
+ *<p>
+ * As with {@link PreparedStatement#executeBatch executeBatch}, the batch is
+ * cleared when executed.
+ */
+public interface IsolatedBatch
+{
+	/**
+	 * Executes the batch, each entry in its own subtransaction.
+	 * @throws SQLException if the batch could not be run at all, or was
+	 * cancelled; not for the failure of an entry.
+	 */
+	Result executeIsolatedBatch() throws SQLException;
+
+	/**
+	 * The outcomes of the entries of a batch, by index from zero in the order
+	 * they were added.
+	 */
+	interface Result
+	{
+		/**
+		 * The number of entries.
+		 */
+		int size();
+
+		/**
+		 * The number of entries that failed.
+		 */
+		int failures();
+
+		/**
+		 * Whether the entry succeeded.
+		 */
+		boolean succeeded(int entry);
+
+		/**
+		 * The number of rows affected by the entry; for an entry that
+		 * returned rows, {@link java.sql.Statement#SUCCESS_NO_INFO
+		 * SUCCESS_NO_INFO}, and for one that failed,
+		 * {@link java.sql.Statement#EXECUTE_FAILED EXECUTE_FAILED}.
+		 */
+		long updateCount(int entry);
+
+		/**
+		 * The SQLState of the entry's error, or null if it succeeded.
+		 */
+		String sqlState(int entry);
+
+		/**
+		 * The message of the entry's error, or null if it succeeded.
+		 */
+		String message(int entry);
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.math.BigDecimal;
+
+import java.sql.SQLException;
+
+import java.util.List;
+
+/**
+ * A read-only view of a PostgreSQL {@code jsonb} value, or of any object,
+ * array, or scalar within one.
+ *<p>
+ * A Java function parameter or result of this type is mapped to
+ * {@code jsonb}. The view reads the binary form of the value directly, and
+ * only the parts actually navigated to: looking up one key of a large
+ * document does not convert the rest of the document to text or to Java
+ * objects. A member of an object is found by binary search.
+ *<p>
+ * A view obtained from a function argument is valid until the end of the
+ * transaction. Views within it, obtained by {@link #get(String) get}, share
+ * that lifetime. A value built with a {@link Builder Builder}, obtained from
+ * {@link Session#jsonbBuilder Session.jsonbBuilder}, lives in Java memory and
+ * can be used as a function result, as can any view, including one within
+ * another value.
+ *<p>
+ * The methods that read the value throw {@code SQLException} if it is no
+ * longer valid.
+ */
+public interface Jsonb
+{
+	/**
+	 * The kinds of JSON value.
+	 */
+	enum Kind { OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL }
+
+	/**
+	 * The kind of this value.
+	 */
+	Kind kind() throws SQLException;
+
+	/**
+	 * The number of members of an object or elements of an array, or zero
+	 * for a scalar.
+	 */
+	int size() throws SQLException;
+
+	/**
+	 * The member named <var>key</var> of an object, or null if this is not
+	 * an object or has no such member.
+	 */
+	Jsonb get(String key) throws SQLException;
+
+	/**
+	 * The element at <var>index</var> of an array, or null if this is not an
+	 * array or has no such element.
+	 */
+	Jsonb get(int index) throws SQLException;
+
+	/**
+	 * The member names of an object, in the order {@code jsonb} keeps them:
+	 * shorter names first, names of the same length in order of their bytes.
+	 * Empty if this is not an object.
+	 */
+	List<String> keys() throws SQLException;
+
+	/**
+	 * The value of a string.
+	 * @throws SQLException with SQLState {@code 22023} if this is not a string
+	 */
+	String stringValue() throws SQLException;
+
+	/**
+	 * The value of a number.
+	 * @throws SQLException with SQLState {@code 22023} if this is not a number
+	 */
+	BigDecimal numberValue() throws SQLException;
+
+	/**
+	 * The value of a boolean.
+	 * @throws SQLException with SQLState {@code 22023} if this is not a
+	 * boolean
+	 */
+	boolean booleanValue() throws SQLException;
+
+	/**
+	 * The value as JSON text, in the form PostgreSQL would produce.
+	 */
+	String toJson() throws SQLException;
+
+	/**
+	 * Builds a {@code jsonb} value, directly in its binary form.
+	 *<p>
+	 * Values are added in document order: {@code beginObject}, then
+	 * alternating {@code key} and a value for each member, then
+	 * {@code endObject}; arrays likewise, without keys. A value at the top
+	 * level may also be a scalar. As in PostgreSQL, if an object is given the
+	 * same key twice, the last value is kept.
+	 *<p>
+	 * Methods throw {@code IllegalStateException} if called out of order.
+	 */
+	interface Builder
+	{
+		Builder beginObject();
+
+		Builder endObject();
+
+		Builder beginArray();
+
+		Builder endArray();
+
+		/**
+		 * Supplies the name of the next member of the current object.
+		 */
+		Builder key(String key);
+
+		Builder value(String value);
+
+		Builder value(BigDecimal value);
+
+		Builder value(long value);
+
+		/**
+		 * Adds a number; {@code NaN} and infinities are not allowed in JSON.
+		 */
+		Builder value(double value);
+
+		Builder value(boolean value);
+
+		Builder nullValue();
+
+		/**
+		 * Adds a copy of another {@code jsonb} value or view. An object or
+		 * array is copied in its binary form, without being decoded.
+		 */
+		Builder value(Jsonb value) throws SQLException;
+
+		/**
+		 * Returns the completed value.
+		 */
+		Jsonb build() throws SQLException;
+	}
+}
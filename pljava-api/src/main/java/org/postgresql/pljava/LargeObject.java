@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A {@link Blob} or {@link Clob} whose content is a PostgreSQL large object,
+ * read and written in bounded chunks as it is used, and never held in memory
+ * all at once.
+ *<p>
+ * A {@code Blob} or {@code Clob} obtained from
+ * {@link Connection#createBlob createBlob} or
+ * {@link Connection#createClob createClob} on PL/Java's
+ * {@code jdbc:default:connection}, or from the {@link Factory Factory}, is
+ * one of these; the {@link #getOid Oid} of the large object can be stored
+ * in a table column of type {@code oid} to refer to it later.
+ *<p>
+ * The large object stays open until {@link Blob#free free} (or
+ * {@link Clob#free free}) is called or the transaction ends, whichever is
+ * first. The server checks privileges when the object is opened.
+ *<p>
+ * A {@code Clob} stores its characters encoded in UTF-8, regardless of the
+ * server encoding. Character positions are found by scanning the encoded
+ * bytes, so operations at a character position far into a large
+ * {@code Clob}, and {@code length()}, take time proportional to that
+ * position.
+ */
+public interface LargeObject
+{
+	/**
+	 * Obtained by {@link Connection#unwrap unwrapping} PL/Java's
+	 * {@code jdbc:default:connection}.
+	 */
+	interface Factory
+	{
+		/**
+		 * Opens an existing large object as a {@code Blob}.
+		 * @param oid The large object's Oid.
+		 * @param writable Whether the object will be written, as well as
+		 * read.
+		 */
+		Blob openBlob(long oid, boolean writable) throws SQLException;
+
+		/**
+		 * Opens an existing large object, holding UTF-8 text, as a
+		 * {@code Clob}.
+		 * @param oid The large object's Oid.
+		 * @param writable Whether the object will be written, as well as
+		 * read.
+		 */
+		Clob openClob(long oid, boolean writable) throws SQLException;
+
+		/**
+		 * Deletes a large object.
+		 * @param oid The large object's Oid.
+		 */
+		void unlinkLargeObject(long oid) throws SQLException;
+	}
+
+	/**
+	 * Returns the Oid of the large object.
+	 */
+	long getOid();
+}
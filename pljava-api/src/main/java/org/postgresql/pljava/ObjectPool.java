@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -9,16 +9,32 @@
  * Contributors:
  *   Tada AB
  *   Purdue University
+ *   Chapman Flack
  */
 package org.postgresql.pljava;
 
 import java.sql.SQLException;
 
+import java.time.Duration;
+
 /**
  * A pool of objects of a single class.
  * Obtain an <code>ObjectPool</code> from the {@link Session} by calling
  * {@link Session#getObjectPool getObjectPool} with a {@link Class} object
  * for the class to be pooled, which must implement {@link PooledObject}.
+ *<p>
+ * Unless limits are set, the pool keeps every instance passivated, as long as
+ * the session lasts. With {@link #setMaxIdle maxIdle} set, the pool keeps at
+ * most that many passive instances; an instance passivated when the pool
+ * already holds that many is removed instead. With an
+ * {@link #setIdleTimeout idle timeout} set, an instance left passive longer
+ * than that is removed the next time the pool is used. Removal calls the instance's {@link PooledObject#remove remove}
+ * method, on whichever thread is using the pool at the time.
+ *<p>
+ * A pool may be used from any Java thread, though what an instance does in
+ * its {@code activate}, {@code passivate}, and {@code remove} methods is
+ * subject to the usual limits on using PostgreSQL from threads other than
+ * the one running the function.
  * @author Thomas Hallgren
  */
 public interface ObjectPool<T extends PooledObject>
@@ -47,4 +63,77 @@ public interface ObjectPool<T extends PooledObject>
 	 */
 	void removeInstance(T instance)
 	throws SQLException;
+
+	/**
+	 * The maximum number of passive instances the pool will keep.
+	 *<p>
+	 * Initially {@code Integer.MAX_VALUE}, that is, no limit.
+	 */
+	int getMaxIdle();
+
+	/**
+	 * Set the maximum number of passive instances the pool will keep,
+	 * removing any beyond the new maximum.
+	 * @param maxIdle The new maximum, which may be zero.
+	 * @throws IllegalArgumentException if negative.
+	 */
+	void setMaxIdle(int maxIdle);
+
+	/**
+	 * The time an instance may remain passive in the pool before it is
+	 * removed, or null if there is no such limit.
+	 *<p>
+	 * Initially null.
+	 */
+	Duration getIdleTimeout();
+
+	/**
+	 * Set the time an instance may remain passive in the pool before it is
+	 * removed.
+	 * @param timeout The new timeout, which must be positive, or null for no
+	 * limit.
+	 * @throws IllegalArgumentException if not positive.
+	 */
+	void setIdleTimeout(Duration timeout);
+
+	/**
+	 * Return a snapshot of counts of what the pool has done since it was
+	 * created.
+	 */
+	Statistics getStatistics();
+
+	/**
+	 * Counts of what a pool has done, as of the time the snapshot was taken.
+	 */
+	interface Statistics
+	{
+		/**
+		 * Number of instances returned by {@link ObjectPool#activateInstance}.
+		 */
+		long getActivations();
+
+		/**
+		 * Number of instances constructed because none was passive in the
+		 * pool.
+		 */
+		long getCreations();
+
+		/**
+		 * Number of instances returned to the pool by
+		 * {@link ObjectPool#passivateInstance}.
+		 */
+		long getPassivations();
+
+		/**
+		 * Number of instances removed because they exceeded the
+		 * {@linkplain ObjectPool#getIdleTimeout idle timeout} or would have
+		 * exceeded {@linkplain ObjectPool#getMaxIdle maxIdle}.
+		 */
+		long getEvictions();
+
+		/**
+		 * Number of passive instances in the pool.
+		 */
+		int getIdle();
+	}
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -18,6 +18,11 @@ import java.sql.Connection;
 import java.sql.SQLException;
 
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * A Session brings together some useful methods and data for the current
@@ -31,7 +36,8 @@ import java.util.Properties;
  * 
  * {@code TransactionListeners} and {@code SavepointListeners} are available for
  * use by any code that needs to synchronize some state with PostgreSQL
- * transactions.
+ * transactions. For per-session storage of computed values, a bounded
+ * {@link SessionCache} can be built from {@link #cacheBuilder cacheBuilder}.
  * 
  * @author Thomas Hallgren
  */
@@ -98,6 +104,75 @@ public interface Session
 	 */
 	<T extends PooledObject> ObjectPool<T> getObjectPool(Class<T> cls);
 
+	/**
+	 * Return a builder for a new {@link SessionCache}.
+	 */
+	<K,V> SessionCache.Builder<K,V> cacheBuilder();
+
+	/**
+	 * Return the {@link SharedStore} shared by all backends of the cluster.
+	 * @throws SQLException with SQLState {@code 0A000} if PL/Java was not
+	 * preloaded with a nonzero {@code pljava.shared_store_size}.
+	 */
+	SharedStore sharedStore() throws SQLException;
+
+	/**
+	 * Return a builder for a new {@code jsonb} value, to be returned from
+	 * a function as {@link Jsonb}.
+	 */
+	Jsonb.Builder jsonbBuilder();
+
+	/**
+	 * Arrange for <var>task</var> to be run on the thread that may call into
+	 * PostgreSQL, returning a future for its result.
+	 *<p>
+	 * Other Java threads, such as those of an executor to which a function
+	 * hands CPU-heavy work, can use this to have queries run for them, under
+	 * any setting of {@code pljava.java_thread_pg_entry}. The task is queued,
+	 * and run only while that thread waits in {@link #awaitInPG awaitInPG};
+	 * called on that thread itself, this method runs the task at once. A
+	 * function that submits work from other threads should wait for it with
+	 * {@code awaitInPG} before it returns; work still queued when the function
+	 * that waited returns is cancelled.
+	 *<p>
+	 * Work is accepted from another thread only while a function has waited in
+	 * {@code awaitInPG}, or obtained a {@link #computeExecutor compute
+	 * executor}, and has not returned. Otherwise the future returned is
+	 * already completed with an {@code IllegalStateException}.
+	 */
+	<T> CompletableFuture<T> submitToPG(Callable<T> task);
+
+	/**
+	 * Wait for <var>future</var> and return its result.
+	 *<p>
+	 * On the thread that may call into PostgreSQL, work queued by
+	 * {@link #submitToPG submitToPG} is run while waiting, so that other
+	 * threads waiting on that work cannot deadlock with this one. That thread
+	 * also watches for a query cancel or statement timeout while waiting; if
+	 * one occurs, the work in flight on the
+	 * {@link #computeExecutor compute executors} is cancelled, and the
+	 * resulting {@code SQLException} thrown. On any other thread, this is
+	 * simply {@code future.get()}.
+	 */
+	<T> T awaitInPG(Future<T> future)
+	throws InterruptedException, ExecutionException, SQLException;
+
+	/**
+	 * Return an executor for parallel computation in Java on behalf of the
+	 * current function call, using a pool of threads managed by PL/Java and
+	 * sized by {@code pljava.compute_pool_size}.
+	 *<p>
+	 * The tasks may not call into PostgreSQL, though they may use
+	 * {@link #submitToPG submitToPG}. The function should wait for their
+	 * results with {@link #awaitInPG awaitInPG}, so that a query cancel or
+	 * statement timeout will cancel, with interruption, the work in flight.
+	 * A cancel is only noticed there: a function that waits some other way,
+	 * such as with {@code Future.get}, waits for its tasks to finish before
+	 * the cancel takes effect. Work not finished when the function call
+	 * returns is cancelled also.
+	 */
+	ExecutorService computeExecutor();
+
 	/**
 	 * Return the current <em>effective</em> database user name.
 	 *<p>
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.sql.SQLException;
+
+import java.time.Duration;
+
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A bounded, typed cache that lives as long as the backend session, for
+ * remembering the results of expensive computations.
+ *<p>
+ * Obtain a {@link Builder Builder} from {@link Session#cacheBuilder}, set the
+ * bounds and policies wanted, and {@link Builder#build build} the cache. Keep
+ * a reference to the cache (in a static field, say) for as long as it should
+ * be used; the cache is not registered anywhere under a name.
+ *<p>
+ * Neither keys nor values may be null. Keys are compared with
+ * {@code equals}, and should be immutable. A cache may be used from any Java
+ * thread.
+ *<p>
+ * A {@code @Function} annotation with a nonzero
+ * {@link org.postgresql.pljava.annotation.Function#memoize memoize} element
+ * uses one of these to remember the results of an {@code IMMUTABLE}
+ * function.
+ */
+public interface SessionCache<K,V>
+{
+	/**
+	 * Which entry is evicted when the cache is full.
+	 */
+	enum Policy
+	{
+		/** The entry least recently read or written. */
+		LRU,
+		/**
+		 * The entry read or written the fewest times, and least recently among
+		 * entries with the same count.
+		 */
+		LFU
+	}
+
+	/**
+	 * Events upon which every entry is removed from the cache.
+	 */
+	enum Invalidation
+	{
+		/** The end (by commit, abort, or prepare) of each transaction. */
+		TRANSACTION_END,
+		/** Any {@code sqlj.replace_jar} in the session. */
+		JAR_REPLACEMENT
+	}
+
+	/**
+	 * Computes a value to be cached for a key that is not present.
+	 */
+	@FunctionalInterface
+	interface Loader<K,V>
+	{
+		/**
+		 * Returns the value for {@code key}, or null to cache nothing.
+		 */
+		V load(K key) throws SQLException;
+	}
+
+	/**
+	 * Returns the value cached for {@code key}, or null if none (or if it has
+	 * expired).
+	 */
+	V get(K key);
+
+	/**
+	 * Returns the value cached for {@code key}, first obtaining it from
+	 * {@code loader} and caching it if it is not present.
+	 *<p>
+	 * The loader is not called while the cache is locked, so another thread
+	 * may load a value for the same key at the same time; the value cached
+	 * last is kept.
+	 */
+	V get(K key, Loader<? super K, ? extends V> loader) throws SQLException;
+
+	/**
+	 * Caches {@code value} for {@code key}, replacing any earlier value.
+	 */
+	void put(K key, V value);
+
+	/**
+	 * Removes any value cached for {@code key}.
+	 */
+	void invalidate(K key);
+
+	/**
+	 * Removes every entry.
+	 */
+	void invalidateAll();
+
+	/**
+	 * Number of entries currently cached.
+	 */
+	long size();
+
+	/**
+	 * Total weight of the entries currently cached, which is the same as
+	 * {@link #size} if no weigher was given.
+	 */
+	long weight();
+
+	/**
+	 * Return a snapshot of counts of what the cache has done since it was
+	 * built.
+	 */
+	Statistics getStatistics();
+
+	/**
+	 * Counts of what a cache has done, as of the time the snapshot was taken.
+	 */
+	interface Statistics
+	{
+		/** Lookups that found a value. */
+		long getHits();
+
+		/** Lookups that found no value, or an expired one. */
+		long getMisses();
+
+		/** Entries removed to stay within the size or weight bound. */
+		long getEvictions();
+
+		/** Entries found to have outlived the time to live. */
+		long getExpirations();
+
+		/** Times every entry was removed for an {@link Invalidation}. */
+		long getInvalidations();
+	}
+
+	/**
+	 * Collects the settings for a new cache.
+	 *<p>
+	 * With no bound set, a cache holds at most 1000 entries.
+	 */
+	interface Builder<K,V>
+	{
+		/**
+		 * Bound the number of entries.
+		 * @throws IllegalArgumentException if not positive.
+		 */
+		Builder<K,V> maximumSize(long entries);
+
+		/**
+		 * Bound the total weight of entries, as computed by {@code weigher}
+		 * when each is added. An entry heavier than the bound is not cached.
+		 * @throws IllegalArgumentException if not positive.
+		 */
+		Builder<K,V> maximumWeight(long weight,
+			ToLongBiFunction<? super K, ? super V> weigher);
+
+		/**
+		 * Choose the eviction policy; {@link Policy#LRU LRU} if not set.
+		 */
+		Builder<K,V> policy(Policy policy);
+
+		/**
+		 * Treat an entry as absent once this long has passed since it was
+		 * written.
+		 * @throws IllegalArgumentException if not positive.
+		 */
+		Builder<K,V> timeToLive(Duration ttl);
+
+		/**
+		 * Remove every entry when any of the given events occurs.
+		 */
+		Builder<K,V> invalidateOn(Invalidation... events);
+
+		/**
+		 * Build the cache.
+		 */
+		SessionCache<K,V> build();
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava;
+
+import java.nio.ByteBuffer;
+
+import java.sql.SQLException;
+
+/**
+ * A key/value store in PostgreSQL shared memory, seen alike by every backend
+ * (and so every JVM) in the cluster, for data that is costly to build and
+ * would otherwise be built again in each session.
+ *<p>
+ * Obtained from {@link Session#sharedStore}. The store exists only when
+ * PL/Java is named in {@code shared_preload_libraries} and
+ * {@code pljava.shared_store_size} is set to the size wanted.
+ *<p>
+ * Each database has its own key space. Any role may read any key in its
+ * database, but a key belongs to the role that first stored it, and only that
+ * role or a superuser may replace or remove it.
+ *<p>
+ * Values are bytes; a value read is a
+ * read-only direct {@code ByteBuffer} over the shared memory itself, not a
+ * copy. Storing a value never changes one already stored: it copies the new
+ * value to fresh space and gives the key a new <em>version</em>, a number
+ * that increases with every store in the cluster. So a buffer already
+ * obtained keeps its contents when the key is given a new value or removed.
+ *<p>
+ * The store is append-only: the space of replaced and removed values is not
+ * reclaimed, even when the whole store is {@link #clear cleared}, until the
+ * server restarts, so the store suits data loaded once and read often, not
+ * data often replaced. Buffers obtained before a {@code clear} keep their
+ * contents.
+ */
+public interface SharedStore
+{
+	/**
+	 * A value and its version.
+	 */
+	interface Entry
+	{
+		/**
+		 * The value, as a read-only buffer positioned at zero with a limit of
+		 * its length.
+		 */
+		ByteBuffer value();
+
+		/**
+		 * The version of the value, which is positive.
+		 */
+		long version();
+	}
+
+	/**
+	 * Returns the entry for {@code key}, or null if none.
+	 */
+	Entry get(String key) throws SQLException;
+
+	/**
+	 * Stores the remaining bytes of {@code value} for {@code key}, returning
+	 * the new version.
+	 * @throws SQLException if {@code key} is present and belongs to another
+	 * role, or the store is full
+	 */
+	long put(String key, ByteBuffer value) throws SQLException;
+
+	/**
+	 * Stores the remaining bytes of {@code value} for {@code key} only if the
+	 * key's current version is {@code expectedVersion}, or if the key is
+	 * absent and {@code expectedVersion} is zero.
+	 * @return the new version, or zero if nothing was stored
+	 */
+	long replace(String key, ByteBuffer value, long expectedVersion)
+	throws SQLException;
+
+	/**
+	 * Removes {@code key}, returning whether it was present.
+	 * @throws SQLException if {@code key} belongs to another role
+	 */
+	boolean remove(String key) throws SQLException;
+
+	/**
+	 * Size in bytes of the space for keys and values.
+	 */
+	long capacity();
+
+	/**
+	 * Bytes of that space used so far, including space of replaced and
+	 * removed values.
+	 */
+	long used() throws SQLException;
+
+	/**
+	 * Removes every key in every database. The space they used is not made
+	 * available again, as buffers obtained earlier may still be read. Only a
+	 * superuser may do this.
+	 */
+	void clear() throws SQLException;
+}
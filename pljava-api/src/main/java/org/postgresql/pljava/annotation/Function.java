@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2022 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -249,6 +249,27 @@ category</a>
 	 */
 	String[] settings() default {};
 
+	/**
+	 * If positive, the number of results of this function to remember in each
+	 * backend, keyed by the argument values, so that a call with arguments
+	 * seen before returns the remembered result without executing the Java
+	 * method.
+	 *<p>
+	 * Only for a function with {@link #effects effects} {@code IMMUTABLE}
+	 * that returns a single value (not a set, composite, or trigger result),
+	 * and not of a type that can be used only once, such as {@code SQLXML},
+	 * {@code Jsonb}, or a stream. The parameters must be of primitive types, boxed primitives,
+	 * {@code String}, {@code BigDecimal}, {@code BigInteger}, the
+	 * {@code java.time} local and offset types, or arrays of those; arguments
+	 * are compared with {@code equals}, or by content for arrays.
+	 * The least recently used result is forgotten when the limit is reached,
+	 * and all are forgotten on {@code sqlj.replace_jar}. A null result is
+	 * never remembered.
+	 *<p>
+	 * The results are held in a {@link org.postgresql.pljava.SessionCache}.
+	 */
+	int memoize() default 0;
+
 	/**
 	 * The Triggers that will call this function (if any).
 	 */
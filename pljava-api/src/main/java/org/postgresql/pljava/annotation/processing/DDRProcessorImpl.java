@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -107,6 +107,7 @@ import static javax.lang.model.util.ElementFilter.methodsIn;
 
 import static javax.tools.Diagnostic.Kind;
 
+import org.postgresql.pljava.Jsonb;
 import org.postgresql.pljava.ResultSetHandle;
 import org.postgresql.pljava.ResultSetProvider;
 import org.postgresql.pljava.TriggerData;
@@ -157,17 +158,25 @@ class DDRProcessorImpl
 	
 	// Certain known types that need to be recognized in the processed code
 	//
+	final DeclaredType TY_INPUTSTREAM;
 	final DeclaredType TY_ITERATOR;
+	final DeclaredType TY_JSONB;
 	final DeclaredType TY_OBJECT;
+	final DeclaredType TY_READER;
 	final DeclaredType TY_RESULTSET;
 	final DeclaredType TY_RESULTSETPROVIDER;
 	final DeclaredType TY_RESULTSETHANDLE;
 	final DeclaredType TY_SQLDATA;
 	final DeclaredType TY_SQLINPUT;
 	final DeclaredType TY_SQLOUTPUT;
+	final DeclaredType TY_SQLXML;
 	final DeclaredType TY_STRING;
 	final DeclaredType TY_TRIGGERDATA;
 	final       NoType TY_VOID;
+
+	// Known types whose instances are immutable and compare by value
+	//
+	final List<DeclaredType> TYS_BY_VALUE;
 	
 	// Our own annotations
 	//
@@ -256,18 +265,31 @@ class DDRProcessorImpl
 
 		snippetTiebreaker = reproducible ? new SnippetTiebreaker() : null;
 		
+		TY_INPUTSTREAM       = declaredTypeForClass(java.io.InputStream.class);
 		TY_ITERATOR          = declaredTypeForClass(java.util.Iterator.class);
+		TY_JSONB             = declaredTypeForClass(Jsonb.class);
 		TY_OBJECT            = declaredTypeForClass(Object.class);
+		TY_READER            = declaredTypeForClass(java.io.Reader.class);
 		TY_RESULTSET         = declaredTypeForClass(java.sql.ResultSet.class);
 		TY_RESULTSETPROVIDER = declaredTypeForClass(ResultSetProvider.class);
 		TY_RESULTSETHANDLE   = declaredTypeForClass(ResultSetHandle.class);
 		TY_SQLDATA           = declaredTypeForClass(SQLData.class);
 		TY_SQLINPUT          = declaredTypeForClass(SQLInput.class);
 		TY_SQLOUTPUT         = declaredTypeForClass(SQLOutput.class);
+		TY_SQLXML            = declaredTypeForClass(java.sql.SQLXML.class);
 		TY_STRING            = declaredTypeForClass(String.class);
 		TY_TRIGGERDATA       = declaredTypeForClass(TriggerData.class);
 		TY_VOID              = typu.getNoType(TypeKind.VOID);
 
+		TYS_BY_VALUE = Stream.of(
+			Boolean.class, Byte.class, Character.class, Short.class,
+			Integer.class, Long.class, Float.class, Double.class, String.class,
+			java.math.BigDecimal.class, java.math.BigInteger.class,
+			java.time.LocalDate.class, java.time.LocalTime.class,
+			java.time.LocalDateTime.class, java.time.OffsetTime.class,
+			java.time.OffsetDateTime.class)
+			.map(this::declaredTypeForClass).collect(toList());
+
 		AN_FUNCTION    = elmu.getTypeElement( Function.class.getName());
 		AN_SQLTYPE     = elmu.getTypeElement( SQLType.class.getName());
 		AN_TRIGGER     = elmu.getTypeElement( Trigger.class.getName());
@@ -357,6 +379,24 @@ class DDRProcessorImpl
 		return t;
 	}
 
+	/**
+	 * Whether values of type <var>tm</var> compare by value and are not
+	 * changed once made: a primitive type, one of {@code TYS_BY_VALUE}, or an
+	 * array of those (as arrays are compared and copied by content).
+	 *<p>
+	 * An unresolved type is given the benefit of the doubt, as an error will be
+	 * reported for it anyway.
+	 */
+	boolean comparesByValue(TypeMirror tm)
+	{
+		while ( TypeKind.ARRAY == tm.getKind() )
+			tm = ((ArrayType)tm).getComponentType();
+		if ( tm.getKind().isPrimitive()  ||  TypeKind.ERROR == tm.getKind() )
+			return true;
+		TypeMirror t = tm;
+		return TYS_BY_VALUE.stream().anyMatch(v -> typu.isSameType(t, v));
+	}
+
 	/**
 	 * Key usable in a mapping from (Object, Snippet-subtype) to Snippet.
 	 * Because there's no telling in which order a Map implementation will
@@ -1836,6 +1876,7 @@ hunt:	for ( ExecutableElement ee : ees )
 		public int                cost() { return _cost; }
 		public int                rows() { return _rows; }
 		public String[]       settings() { return _settings; }
+		public int             memoize() { return _memoize; }
 		public String[]       provides() { return _provides; }
 		public String[]       requires() { return _requires; }
 		public Trigger[]      triggers() { return _triggers; }
@@ -1860,6 +1901,7 @@ hunt:	for ( ExecutableElement ee : ees )
 		int                _cost;
 		int                _rows;
 		public String[]    _settings;
+		int                _memoize;
 		public String[]    _provides;
 		public String[]    _requires;
 		Trigger[]          _triggers;
@@ -1925,6 +1967,14 @@ hunt:	for ( ExecutableElement ee : ees )
 				throw new IllegalArgumentException( "rows must be nonnegative");
 		}
 
+		public void setMemoize( Object o, boolean explicit, Element e)
+		{
+			_memoize = ((Integer)o).intValue();
+			if ( _memoize < 0 && explicit )
+				throw new IllegalArgumentException(
+					"memoize must be nonnegative");
+		}
+
 		public void setTriggers( Object o, boolean explicit, Element e)
 		{
 			AnnotationMirror[] ams = avToArray( o, AnnotationMirror.class);
@@ -2038,6 +2088,35 @@ hunt:	for ( ExecutableElement ee : ees )
 				msg( Kind.ERROR, func,
 					"ROWS specified on a function not returning SETOF");
 
+			if ( 0 != _memoize  &&  ( setof || trigger || complexViaInOut
+				|| Effects.IMMUTABLE != _effects ) )
+				msg( Kind.ERROR, func,
+					"memoize applies only to an IMMUTABLE function " +
+					"returning a single value");
+
+			/*
+			 * A value of one of these types can be returned only once: it is
+			 * read, or its native memory adopted, as it is returned.
+			 */
+			if ( 0 != _memoize  &&  ! ret.getKind().equals( TypeKind.ERROR)
+				&&  Stream.of(TY_INPUTSTREAM, TY_JSONB, TY_READER, TY_SQLXML)
+					.anyMatch(t -> typu.isAssignable( ret, t)) )
+				msg( Kind.ERROR, func,
+					"memoize cannot apply to a function returning " +
+					"a value that can be used only once, as %s", ret);
+
+			/*
+			 * The arguments are the key for a remembered result, so each must
+			 * compare by value, and not change once the call returns.
+			 */
+			if ( 0 != _memoize )
+				for ( TypeMirror tm : ptms )
+					if ( ! comparesByValue( tm) )
+						msg( Kind.ERROR, func,
+							"memoize cannot apply to a function with " +
+							"a parameter of type %s, which does not " +
+							"compare by value", tm);
+
 			if ( ! trigger && 0 != _triggers.length )
 				msg( Kind.ERROR, func,
 					"a function with triggers needs void return and " +
@@ -2418,9 +2497,20 @@ hunt:	for ( ExecutableElement ee : ees )
 				sb.setLength(sb.length() - 1); // that last pesky comma
 		}
 
-		String makeAS()
+		/**
+		 * Make the AS string, with a bracketed prefix if any of the given
+		 * transformations (nulls ignored) or memoization applies.
+		 */
+		String makeAS(String... transforms)
 		{
-			StringBuilder sb = new StringBuilder();
+			StringBuilder sb = new StringBuilder(
+				Stream.concat(
+					Stream.of(transforms),
+					Stream.of(0 < _memoize ? "memoize=" + _memoize : null))
+				.filter(Objects::nonNull)
+				.collect(joining(",", "[", "]")));
+			if ( 2 == sb.length() )
+				sb.setLength(0);
 			if ( ! ( complexViaInOut || setof || trigger ) )
 				sb.append( typu.erasure( func.getReturnType())).append( '=');
 			Element e = func.getEnclosingElement();
@@ -2660,12 +2750,9 @@ hunt:	for ( ExecutableElement ee : ees )
 			@Override
 			public String[] deployStrings()
 			{
-				String as = Stream.of(
+				String as = FunctionImpl.this.makeAS(
 					m_commute ? "commute" : (String)null,
-					m_negate  ? "negate"  : (String)null)
-					.filter(Objects::nonNull)
-					.collect(joining(",", "[", "]"))
-					+ FunctionImpl.this.makeAS();
+					m_negate  ? "negate"  : (String)null);
 
 				return FunctionImpl.this.deployStrings(
 					m_qname, parameterInfo(), as, m_comment);
@@ -5465,6 +5552,7 @@ hunt:	for ( ExecutableElement ee : ees )
 			this.addMap(Time.class, "pg_catalog", "time");
 			this.addMap(java.sql.Date.class, "pg_catalog", "date");
 			this.addMap(java.sql.SQLXML.class, "pg_catalog", "xml");
+			this.addMap(org.postgresql.pljava.Jsonb.class, "pg_catalog", "jsonb");
 			this.addMap(BigInteger.class, "pg_catalog", "numeric");
 			this.addMap(BigDecimal.class, "pg_catalog", "numeric");
 			this.addMap(ResultSet.class, DT_RECORD);
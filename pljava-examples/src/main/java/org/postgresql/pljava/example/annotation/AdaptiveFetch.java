@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Example confirming that a result set read with a fetch size of zero, which
+ * fetches blocks of growing size and releases the tuples of each block as it
+ * is passed, delivers every row with its values intact.
+ *<p>
+ * The digest computed in Java over such a result set is compared with the same
+ * digest computed by aggregates in SQL.
+ */
+@SQLAction(requires="adaptive fetch fn", install=
+"   SELECT " +
+"    CASE WHEN " +
+"     javatest.adaptive_fetch_digest(" +
+"      'SELECT i, CASE WHEN i % 13 = 0 THEN NULL " +
+"        ELSE repeat(chr(120), i % 100) END " +
+"       FROM generate_series(1, 100000) AS i') " +
+"     = count(*) || ' ' || sum(i) || ' ' || " +
+"       count(*) FILTER (WHERE t IS NULL) || ' ' || sum(length(t)) " +
+"    THEN javatest.logmessage('INFO', 'adaptive fetch ok') " +
+"    ELSE javatest.logmessage('WARNING', 'adaptive fetch not ok') " +
+"    END " +
+"    FROM ( " +
+"     SELECT i, CASE WHEN i % 13 = 0 THEN NULL " +
+"      ELSE repeat(chr(120), i % 100) END " +
+"     FROM generate_series(1, 100000) AS i " +
+"    ) AS q(i, t)"
+)
+public class AdaptiveFetch
+{
+	private AdaptiveFetch()
+	{
+	}
+
+	/**
+	 * Reads the result of <var>query</var>, whose columns are an integer and a
+	 * text, with a fetch size of zero, and returns the row count, the sum of
+	 * the integers, the number of null texts, and the total length of the
+	 * texts, separated by spaces; or null if a negative fetch size is not
+	 * rejected.
+	 */
+	@Function(schema="javatest", provides="adaptive fetch fn")
+	public static String adaptive_fetch_digest(String query)
+	throws SQLException
+	{
+		long count = 0;
+		long sum = 0;
+		long nulls = 0;
+		long length = 0;
+
+		try (
+			Statement s = DriverManager
+				.getConnection("jdbc:default:connection").createStatement()
+		)
+		{
+			boolean rejected = false;
+			try
+			{
+				s.setFetchSize(-1);
+			}
+			catch ( SQLException e )
+			{
+				rejected = true;
+			}
+			if ( ! rejected )
+				return null;
+			s.setFetchSize(0);
+
+			try ( ResultSet rs = s.executeQuery(query) )
+			{
+				while ( rs.next() )
+				{
+					++ count;
+					sum += rs.getLong(1);
+					String t = rs.getString(2);
+					if ( null == t )
+						++ nulls;
+					else
+						length += t.length();
+				}
+			}
+		}
+
+		return count + " " + sum + " " + nulls + " " + length;
+	}
+}
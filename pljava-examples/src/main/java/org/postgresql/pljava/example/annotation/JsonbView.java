@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.math.BigDecimal;
+
+import java.sql.SQLException;
+
+import org.postgresql.pljava.Jsonb;
+import org.postgresql.pljava.SessionManager;
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+import static
+	org.postgresql.pljava.annotation.Function.Effects.IMMUTABLE;
+
+/**
+ * Examples reading {@code jsonb} through the {@link Jsonb} view, and making it
+ * with a {@link Jsonb.Builder}.
+ *<p>
+ * The test compares the results with PostgreSQL's own operators and
+ * functions for the same values.
+ */
+@SQLAction(requires={"jsonb member fn", "jsonb pair fn"}, install=
+"   WITH " +
+"    d(doc) AS (SELECT " +
+"     '{\"a\": [1, 2.50, -3e-2], \"bb\": {\"c\": \"x\\ny\"}, \"e\": null}'" +
+"     ::jsonb) " +
+"   SELECT " +
+"    CASE WHEN " +
+"     javatest.jsonb_member(doc, 'a') = doc -> 'a' " +
+"     AND javatest.jsonb_member(doc, 'bb') = doc -> 'bb' " +
+"     AND javatest.jsonb_member(doc, 'zz') IS NULL " +
+"     AND javatest.jsonb_pair('k', 12345678.9, doc -> 'bb') " +
+"      = jsonb_build_object('k', 12345678.9, 'v', doc -> 'bb') " +
+"     AND javatest.jsonb_pair('k', -0.001, NULL)::text " +
+"      = jsonb_build_object('k', -0.001, 'v', NULL)::text " +
+"    THEN javatest.logmessage('INFO', 'jsonb view ok') " +
+"    ELSE javatest.logmessage('WARNING', 'jsonb view not ok') " +
+"    END " +
+"    FROM d"
+)
+public class JsonbView
+{
+	/**
+	 * Returns the member of <var>doc</var> named <var>key</var>, without
+	 * converting the rest of the document.
+	 */
+	@Function(schema="javatest", effects=IMMUTABLE, provides="jsonb member fn")
+	public static Jsonb jsonb_member(Jsonb doc, String key) throws SQLException
+	{
+		return doc.get(key);
+	}
+
+	/**
+	 * Returns an object with members named <var>key</var>, with value
+	 * <var>n</var>, and {@code v}, with value <var>v</var> or JSON null.
+	 */
+	@Function(schema="javatest", effects=IMMUTABLE, provides="jsonb pair fn")
+	public static Jsonb jsonb_pair(String key, BigDecimal n, Jsonb v)
+	throws SQLException
+	{
+		return SessionManager.current().jsonbBuilder()
+			.beginObject()
+				.key("v").value(v)
+				.key(key).value(n)
+			.endObject()
+			.build();
+	}
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import org.postgresql.pljava.LargeObject;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Example using PostgreSQL large objects as JDBC {@link Blob} and
+ * {@link Clob} values, through {@link LargeObject}.
+ *<p>
+ * The first test writes a {@code Blob} longer than one 64 KiB transfer, then
+ * compares what Java reads and finds in it with what {@code lo_get} reads.
+ * It then truncates and unlinks the object. The second writes a {@code Clob}
+ * with characters outside ASCII and one outside the Basic Multilingual Plane,
+ * whose positions count two UTF-16 code units; it is only run in a UTF-8
+ * database, so the literal can be written in SQL.
+ */
+@SQLAction(requires={"blob fns", "large object unlink fn"}, install={
+"   CREATE TEMPORARY TABLE largeobjects_blob AS " +
+"    SELECT content, javatest.blob_write(content) AS lo " +
+"    FROM (SELECT convert_to(repeat('PL/Java large object ', 4000), 'UTF8')) " +
+"     AS c(content)",
+
+"   SELECT javatest.blob_set_bytes(lo, 70001, decode('fffefd', 'hex')) " +
+"    FROM largeobjects_blob",
+
+"   SELECT " +
+"    CASE WHEN " +
+"     lo_get(lo::oid) = " +
+"      overlay(content placing decode('fffefd', 'hex') from 70001) " +
+"     AND javatest.blob_bytes(lo, 69999, 6) = " +
+"      substring(lo_get(lo::oid) from 69999 for 6) " +
+"     AND javatest.blob_position(lo, decode('fffefd', 'hex'), 1) = 70001 " +
+"     AND javatest.blob_position(lo, convert_to('large object', 'UTF8'), " +
+"      65530) = 65529 + position(convert_to('large object', 'UTF8') " +
+"      in substring(content from 65530)) " +
+"    THEN javatest.logmessage('INFO', 'large object Blob ok') " +
+"    ELSE javatest.logmessage('WARNING', 'large object Blob not ok') " +
+"    END " +
+"    FROM largeobjects_blob",
+
+"   SELECT javatest.blob_truncate(lo, 100) FROM largeobjects_blob",
+
+"   SELECT " +
+"    CASE WHEN length(lo_get(lo::oid)) = 100 " +
+"    THEN javatest.logmessage('INFO', 'large object truncate ok') " +
+"    ELSE javatest.logmessage('WARNING', 'large object truncate not ok') " +
+"    END " +
+"    FROM largeobjects_blob",
+
+"   SELECT javatest.large_object_unlink(lo) FROM largeobjects_blob",
+
+"   SELECT " +
+"    CASE WHEN NOT EXISTS ( " +
+"      SELECT 1 FROM pg_catalog.pg_largeobject_metadata AS m " +
+"      JOIN largeobjects_blob AS b ON m.oid = b.lo::oid) " +
+"    THEN javatest.logmessage('INFO', 'large object unlink ok') " +
+"    ELSE javatest.logmessage('WARNING', 'large object unlink not ok') " +
+"    END",
+
+"   DROP TABLE largeobjects_blob"
+})
+@SQLAction(requires={"clob fns", "large object unlink fn"},
+	implementor="postgresql_unicodetest", install={
+"   CREATE TEMPORARY TABLE largeobjects_clob AS " +
+"    SELECT s, javatest.clob_write(s) AS lo " +
+"    FROM (SELECT U&'h\\00E9llo w\\00F6rld \\+01F600 ok') AS c(s)",
+
+"   SELECT " +
+"    CASE WHEN " +
+"     lo_get(lo::oid) = convert_to(s, 'UTF8') " +
+"     AND javatest.clob_length(lo) = 17 " +
+"     AND javatest.clob_substring(lo, 2, 4) = substr(s, 2, 4) " +
+"     AND javatest.clob_substring(lo, 13, 2) = U&'\\+01F600' " +
+"     AND javatest.clob_position(lo, 'ok', 1) = 16 " +
+"    THEN javatest.logmessage('INFO', 'large object Clob ok') " +
+"    ELSE javatest.logmessage('WARNING', 'large object Clob not ok') " +
+"    END " +
+"    FROM largeobjects_clob",
+
+"   SELECT javatest.large_object_unlink(lo) FROM largeobjects_clob",
+
+"   DROP TABLE largeobjects_clob"
+})
+public class LargeObjects
+{
+	private LargeObjects()
+	{
+	}
+
+	private static Connection connection() throws SQLException
+	{
+		return DriverManager.getConnection("jdbc:default:connection");
+	}
+
+	private static LargeObject.Factory factory() throws SQLException
+	{
+		return connection().unwrap(LargeObject.Factory.class);
+	}
+
+	/**
+	 * Creates a large object holding <var>content</var>, written through the
+	 * stream of a new {@code Blob}, and returns its Oid.
+	 */
+	@Function(schema="javatest", provides="blob fns")
+	public static long blob_write(byte[] content) throws SQLException
+	{
+		Blob b = connection().createBlob();
+		try ( OutputStream os = b.setBinaryStream(1) )
+		{
+			os.write(content);
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), "58030", e);
+		}
+		long oid = ((LargeObject)b).getOid();
+		b.free();
+		return oid;
+	}
+
+	/**
+	 * Writes <var>bytes</var> into large object <var>oid</var> at
+	 * <var>pos</var>, returning the number written.
+	 */
+	@Function(schema="javatest", provides="blob fns")
+	public static int blob_set_bytes(long oid, long pos, byte[] bytes)
+	throws SQLException
+	{
+		Blob b = factory().openBlob(oid, true);
+		try
+		{
+			return b.setBytes(pos, bytes);
+		}
+		finally
+		{
+			b.free();
+		}
+	}
+
+	/**
+	 * Returns up to <var>len</var> bytes of large object <var>oid</var> from
+	 * <var>pos</var>.
+	 */
+	@Function(schema="javatest", provides="blob fns")
+	public static byte[] blob_bytes(long oid, long pos, int len)
+	throws SQLException
+	{
+		Blob b = factory().openBlob(oid, false);
+		try
+		{
+			return b.getBytes(pos, len);
+		}
+		finally
+		{
+			b.free();
+		}
+	}
+
+	/**
+	 * Returns the position of <var>pattern</var> in large object
+	 * <var>oid</var> at or after <var>start</var>, or -1.
+	 */
+	@Function(schema="javatest", provides="blob fns")
+	public static long blob_position(long oid, byte[] pattern, long start)
+	throws SQLException
+	{
+		Blob b = factory().openBlob(oid, false);
+		try
+		{
+			return b.position(pattern, start);
+		}
+		finally
+		{
+			b.free();
+		}
+	}
+
+	/**
+	 * Truncates large object <var>oid</var> to <var>len</var> bytes.
+	 */
+	@Function(schema="javatest", provides="blob fns")
+	public static void blob_truncate(long oid, long len) throws SQLException
+	{
+		Blob b = factory().openBlob(oid, true);
+		try
+		{
+			b.truncate(len);
+		}
+		finally
+		{
+			b.free();
+		}
+	}
+
+	/**
+	 * Creates a large object holding <var>s</var> through a new {@code Clob},
+	 * and returns its Oid.
+	 */
+	@Function(schema="javatest", provides="clob fns")
+	public static long clob_write(String s) throws SQLException
+	{
+		Clob c = connection().createClob();
+		c.setString(1, s);
+		long oid = ((LargeObject)c).getOid();
+		c.free();
+		return oid;
+	}
+
+	/**
+	 * Returns the length, in UTF-16 code units, of the text in large object
+	 * <var>oid</var>.
+	 */
+	@Function(schema="javatest", provides="clob fns")
+	public static long clob_length(long oid) throws SQLException
+	{
+		Clob c = factory().openClob(oid, false);
+		try
+		{
+			return c.length();
+		}
+		finally
+		{
+			c.free();
+		}
+	}
+
+	/**
+	 * Returns up to <var>len</var> UTF-16 code units of the text in large
+	 * object <var>oid</var> from <var>pos</var>.
+	 */
+	@Function(schema="javatest", provides="clob fns")
+	public static String clob_substring(long oid, long pos, int len)
+	throws SQLException
+	{
+		Clob c = factory().openClob(oid, false);
+		try
+		{
+			return c.getSubString(pos, len);
+		}
+		finally
+		{
+			c.free();
+		}
+	}
+
+	/**
+	 * Returns the position of <var>s</var> in the text in large object
+	 * <var>oid</var> at or after <var>start</var>, or -1.
+	 */
+	@Function(schema="javatest", provides="clob fns")
+	public static long clob_position(long oid, String s, long start)
+	throws SQLException
+	{
+		Clob c = factory().openClob(oid, false);
+		try
+		{
+			return c.position(s, start);
+		}
+		finally
+		{
+			c.free();
+		}
+	}
+
+	/**
+	 * Deletes large object <var>oid</var>.
+	 */
+	@Function(schema="javatest", provides="large object unlink fn")
+	public static void large_object_unlink(long oid) throws SQLException
+	{
+		factory().unlinkLargeObject(oid);
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.net.URL;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.sql.SQLException;
+
+import java.util.Enumeration;
+
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Example confirming that a schema's class loader finds an entry present in
+ * more than one jar in the first jar on the schema's class path, enumerates
+ * every copy in class path order, and finds entries present in only one jar.
+ *<p>
+ * Two small jars are built with {@link ReplaceJar#jar_image jar_image}. The
+ * jar given first on the path is installed last, so the order seen cannot come
+ * from the order of installation. The jar holding this class is also placed on
+ * the path, so {@link #loaderResources loaderResources}, declared in the test
+ * schema, runs in that schema's loader.
+ */
+@SQLAction(requires="jar image fn", install={
+"   SELECT sqlj.install_jar(" +
+"    javatest.jar_image(ARRAY['loader_order.txt', 'only_one.txt'], " +
+"     ARRAY['one', '1']), " +
+"    'javatest_loader_one', false)",
+
+"   SELECT sqlj.install_jar(" +
+"    javatest.jar_image(ARRAY['loader_order.txt', 'only_two.txt'], " +
+"     ARRAY['two', '2']), " +
+"    'javatest_loader_two', false)",
+
+"   CREATE SCHEMA javatest_loader_test",
+
+"   SELECT sqlj.set_classpath('javatest_loader_test', " +
+"    'javatest_loader_two:javatest_loader_one:' || ( " +
+"     SELECT r.jarName " +
+"     FROM sqlj.jar_entry AS e JOIN sqlj.jar_repository AS r " +
+"      ON e.jarId = r.jarId " +
+"     WHERE e.entryName = " +
+"      'org/postgresql/pljava/example/annotation/LoaderOrder.class' " +
+"     ORDER BY r.jarId LIMIT 1))",
+
+"   CREATE FUNCTION javatest_loader_test.resources(text) " +
+"    RETURNS text LANGUAGE java " +
+"    AS 'org.postgresql.pljava.example.annotation.LoaderOrder.loaderResources'",
+
+"   SELECT " +
+"    CASE WHEN " +
+"     javatest_loader_test.resources('loader_order.txt') = 'two;two,one' " +
+"     AND javatest_loader_test.resources('only_one.txt') = '1;1' " +
+"     AND javatest_loader_test.resources('only_two.txt') = '2;2' " +
+"    THEN javatest.logmessage('INFO', 'loader order ok') " +
+"    ELSE javatest.logmessage('WARNING', 'loader order not ok') " +
+"    END",
+
+"   SELECT sqlj.set_classpath('javatest_loader_test', '')",
+
+"   DROP SCHEMA javatest_loader_test CASCADE",
+
+"   SELECT sqlj.remove_jar('javatest_loader_two', false)",
+
+"   SELECT sqlj.remove_jar('javatest_loader_one', false)"
+})
+public class LoaderOrder
+{
+	private LoaderOrder()
+	{
+	}
+
+	/**
+	 * Returns the content of the resource <var>name</var> as found by this
+	 * class's loader, then a semicolon, then the contents of all resources of
+	 * that name the loader enumerates, separated by commas.
+	 *<p>
+	 * Not declared to SQL in the {@code javatest} schema; the
+	 * {@code SQLAction} above declares it in a schema with its own class path.
+	 */
+	public static String loaderResources(String name) throws SQLException
+	{
+		ClassLoader loader = LoaderOrder.class.getClassLoader();
+		StringBuilder sb = new StringBuilder();
+		try
+		{
+			sb.append(resourceContent(loader.getResource(name))).append(';');
+			Enumeration<URL> e = loader.getResources(name);
+			while ( e.hasMoreElements() )
+			{
+				sb.append(resourceContent(e.nextElement()));
+				if ( e.hasMoreElements() )
+					sb.append(',');
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), "58030", e);
+		}
+		return sb.toString();
+	}
+
+	private static String resourceContent(URL url) throws IOException
+	{
+		if ( null == url )
+			return null;
+		try ( InputStream is = url.openStream() )
+		{
+			return new String(is.readAllBytes(), UTF_8);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+import static
+	org.postgresql.pljava.annotation.Function.Effects.IMMUTABLE;
+
+/**
+ * Example of an {@code IMMUTABLE} function whose results are remembered by
+ * PL/Java, using the {@link Function#memoize memoize} element.
+ *<p>
+ * The test calls the function a hundred times with five distinct arguments,
+ * and expects the Java method to have run five times.
+ */
+@SQLAction(requires={"memoized fn", "memoized calls fn"}, install=
+"   WITH " +
+"    calls AS ( " +
+"     SELECT sum(javatest.memoized_square(g % 5)) AS total " +
+"     FROM generate_series(1, 100) AS g " +
+"    ) " +
+"   SELECT " +
+"    CASE WHEN total = 600 AND javatest.memoized_calls() = 5 THEN " +
+"     javatest.logmessage('INFO', 'memoized function ok') " +
+"    ELSE " +
+"     javatest.logmessage('WARNING', 'memoized function ran ' || " +
+"      javatest.memoized_calls() || ' times for 5 distinct arguments') " +
+"    END " +
+"    FROM calls"
+)
+public class Memoized
+{
+	private static int s_calls;
+
+	/**
+	 * Returns the square of its argument, counting how many times it actually
+	 * runs.
+	 */
+	@Function(schema="javatest", effects=IMMUTABLE, memoize=100,
+		provides="memoized fn")
+	public static long memoized_square(int x)
+	{
+		++ s_calls;
+		return (long)x * x;
+	}
+
+	/**
+	 * Returns the number of times {@code memoized_square} has run.
+	 */
+	@Function(schema="javatest", provides="memoized calls fn")
+	public static int memoized_calls()
+	{
+		return s_calls;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Example confirming that repeated {@code getColumns} and
+ * {@code getPrimaryKeys} calls, whose rows {@code DatabaseMetaData} keeps for
+ * reuse, return the same rows, and that a column added to the table is seen by
+ * the next {@code getColumns} call.
+ */
+@SQLAction(requires="metadata list fns", install={
+"   CREATE TABLE javatest.metadata_cache_test (a integer PRIMARY KEY)",
+
+"   SELECT " +
+"    CASE WHEN " +
+"     javatest.column_list('javatest', 'metadata_cache_test') = 'a int4' " +
+"     AND javatest.column_list('javatest', 'metadata_cache_test') = 'a int4' " +
+"     AND javatest.primary_key_list('javatest', 'metadata_cache_test') = 'a' " +
+"     AND javatest.primary_key_list('javatest', 'metadata_cache_test') = 'a' " +
+"    THEN javatest.logmessage('INFO', 'metadata cache repeat ok') " +
+"    ELSE javatest.logmessage('WARNING', 'metadata cache repeat not ok') " +
+"    END",
+
+"   ALTER TABLE javatest.metadata_cache_test ADD COLUMN b text",
+
+"   SELECT " +
+"    CASE WHEN " +
+"     javatest.column_list('javatest', 'metadata_cache_test') = " +
+"      'a int4,b text' " +
+"    THEN javatest.logmessage('INFO', 'metadata cache refresh ok') " +
+"    ELSE javatest.logmessage('WARNING', 'metadata cache refresh not ok') " +
+"    END",
+
+"   DROP TABLE javatest.metadata_cache_test"
+})
+public class MetaDataCache
+{
+	private MetaDataCache()
+	{
+	}
+
+	private static DatabaseMetaData metaData() throws SQLException
+	{
+		return DriverManager.getConnection("jdbc:default:connection")
+			.getMetaData();
+	}
+
+	/**
+	 * Returns the name and type name of each column of a table, in order,
+	 * separated by commas, as {@code getColumns} reports them.
+	 */
+	@Function(schema="javatest", provides="metadata list fns")
+	public static String column_list(String schema, String table)
+	throws SQLException
+	{
+		StringBuilder sb = new StringBuilder();
+		try ( ResultSet rs = metaData().getColumns(null, schema, table, null) )
+		{
+			while ( rs.next() )
+			{
+				if ( 0 < sb.length() )
+					sb.append(',');
+				sb.append(rs.getString("COLUMN_NAME")).append(' ')
+					.append(rs.getString("TYPE_NAME"));
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the column names of a table's primary key, separated by commas,
+	 * as {@code getPrimaryKeys} reports them.
+	 */
+	@Function(schema="javatest", provides="metadata list fns")
+	public static String primary_key_list(String schema, String table)
+	throws SQLException
+	{
+		StringBuilder sb = new StringBuilder();
+		try ( ResultSet rs = metaData().getPrimaryKeys(null, schema, table) )
+		{
+			while ( rs.next() )
+			{
+				if ( 0 < sb.length() )
+					sb.append(',');
+				sb.append(rs.getString("COLUMN_NAME"));
+			}
+		}
+		return sb.toString();
+	}
+}
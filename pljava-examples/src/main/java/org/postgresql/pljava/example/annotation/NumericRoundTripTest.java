@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.math.BigDecimal;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+import org.postgresql.pljava.annotation.SQLType;
+import static
+	org.postgresql.pljava.annotation.Function.Effects.IMMUTABLE;
+
+/**
+ * Test that {@code numeric} values pass to and from Java as
+ * {@code BigDecimal} without change of value or scale, and compare the time
+ * taken by the direct conversion with converting through a string.
+ *<p>
+ * The test values include zero with and without scale, values on either side
+ * of the four-digit groups {@code numeric} stores, values with scale that does
+ * not fall on a group boundary, and values too wide for the unscaled value to
+ * fit in a {@code long}.
+ */
+@SQLAction(requires="numeric roundtrip fn", install=
+"   WITH " +
+"    test_inputs ( x ) AS ( VALUES " +
+"     (0::numeric), (0.000), (1), (-1), (9999), (10000), (-10001), " +
+"     (0.0001), (0.00001), (-0.1), (1.5000), (123456789.123456789), " +
+"     (100000000000000000000), (-1e-30), (1e30), (12345678901234567.89), " +
+"     (9223372036854775807), (-9223372036854775808), " +
+"     (9223372036854775808), (99999999999999999999.99999999999999999999)" +
+"    ), " +
+"    test_failures AS ( " +
+"     SELECT x FROM test_inputs " +
+"     WHERE x::text IS DISTINCT FROM javatest.numeric_roundtrip(x)::text " +
+"    ) " +
+"   SELECT " +
+"    CASE WHEN count(*) > 0 THEN " +
+"     javatest.logmessage('WARNING', count(*) || " +
+"      ' numeric values did not round trip, first ' || min(x)) " +
+"    ELSE " +
+"     javatest.logmessage('INFO', 'numeric values round trip ok') " +
+"    END " +
+"    FROM test_failures"
+)
+public class NumericRoundTripTest
+{
+	/**
+	 * Returns its argument, after conversion to {@code BigDecimal} and back.
+	 */
+	@Function(schema="javatest", effects=IMMUTABLE,
+		provides="numeric roundtrip fn")
+	public static BigDecimal numeric_roundtrip(BigDecimal x)
+	{
+		return x;
+	}
+
+	/**
+	 * Times fetching {@code n} {@code numeric} values as {@code BigDecimal}
+	 * directly, and as strings then parsed.
+	 *<p>
+	 * By default the values have ten integer and ten fractional digits, so the
+	 * direct conversion takes its wide path; pass {@code digits} of seven or
+	 * less to time the path for values whose unscaled value fits in a
+	 * {@code long}.
+	 * @param n how many values to fetch
+	 * @param digits digits in the integer and in the fractional part
+	 * @param rs OUT (binary_micros, text_micros)
+	 * @return true to indicate the OUT tuple is not null
+	 */
+	@Function(schema="javatest",
+		out={"binary_micros bigint", "text_micros bigint"})
+	public static boolean numeric_conversion_benchmark(
+		int n, @SQLType(defaultValue="10") int digits, ResultSet rs)
+	throws SQLException
+	{
+		String query =
+			"SELECT (repeat('7', " + digits + ") || '.' ||" +
+			" lpad(g::text, " + digits + ", '0'))::numeric" +
+			" FROM generate_series(1, " + n + ") AS g";
+
+		long sink = 0;
+		long binary;
+		long text;
+
+		try (
+			Connection c = DriverManager.getConnection("jdbc:default:connection");
+			Statement s = c.createStatement()
+		)
+		{
+			long start = System.nanoTime();
+			try ( ResultSet r = s.executeQuery(query) )
+			{
+				while ( r.next() )
+					sink += r.getBigDecimal(1).scale();
+			}
+			binary = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			try ( ResultSet r = s.executeQuery(query) )
+			{
+				while ( r.next() )
+					sink += new BigDecimal(r.getString(1)).scale();
+			}
+			text = System.nanoTime() - start;
+		}
+
+		if ( sink < 0 ) // never; keeps the conversions from being elided
+			throw new SQLException("negative scale");
+
+		rs.updateLong("binary_micros", binary / 1000);
+		rs.updateLong("text_micros", text / 1000);
+		return true;
+	}
+}
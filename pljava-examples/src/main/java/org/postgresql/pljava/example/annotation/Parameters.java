@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -50,6 +50,17 @@ import org.postgresql.pljava.annotation.SQLType;
 	},
 	remove = "DROP FUNCTION javatest.java_getTimestamptz()"
 )
+@SQLAction(requires = "countNulls record", install =
+	"SELECT" +
+	" CASE WHEN 3 = javatest.countNulls(ROW(" +
+	"   1, NULL::text, 'x'::text, NULL::numeric, NULL::varchar," +
+	"   ROW(NULL::text, 2)))" +
+	"  AND 2 = javatest.countNulls(ROW(NULL::text, ROW(1, NULL::text)," +
+	"   NULL::int4))" +
+	" THEN javatest.logmessage('INFO', 'countNulls(record) ok')" +
+	" ELSE javatest.logmessage('WARNING', 'countNulls(record) not ok')" +
+	" END"
+)
 public class Parameters {
 	public static double addNumbers(short a, int b, long c, BigDecimal d,
 			BigDecimal e, float f, double g) {
@@ -80,7 +91,7 @@ public class Parameters {
 		return nullCount;
 	}
 
-	@Function(schema = "javatest")
+	@Function(schema = "javatest", provides = "countNulls record")
 	public static int countNulls(ResultSet input) throws SQLException {
 		int nullCount = 0;
 		int top = input.getMetaData().getColumnCount();
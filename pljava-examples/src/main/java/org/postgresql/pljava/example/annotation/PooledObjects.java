@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.sql.SQLException;
+
+import java.time.Duration;
+
+import org.postgresql.pljava.ObjectPool;
+import org.postgresql.pljava.PooledObject;
+import org.postgresql.pljava.SessionManager;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Exercise the limits of an {@link ObjectPool}: the instances it keeps
+ * passive are bounded by {@link ObjectPool#getMaxIdle maxIdle}, and an
+ * instance left passive beyond the
+ * {@link ObjectPool#getIdleTimeout idle timeout} is removed.
+ */
+@SQLAction(requires = "pooled objects fn", install =
+"   SELECT " +
+"    CASE WHEN javatest.pooled_objects_test() = " +
+"     'activations=5 creations=4 passivations=4 evictions=3 removed=3 idle=0'" +
+"    THEN javatest.logmessage('INFO', 'object pool ok') " +
+"    ELSE javatest.logmessage('WARNING', 'object pool not ok') " +
+"    END"
+)
+public class PooledObjects
+{
+	/**
+	 * An instance to be pooled, counting how many instances the pool has
+	 * removed.
+	 */
+	public static class Pooled implements PooledObject
+	{
+		static int s_removed;
+
+		public Pooled(ObjectPool<Pooled> pool)
+		{
+		}
+
+		@Override
+		public void activate()
+		{
+		}
+
+		@Override
+		public void passivate()
+		{
+		}
+
+		@Override
+		public void remove()
+		{
+			++ s_removed;
+		}
+	}
+
+	/**
+	 * Passivate three instances into a pool that keeps two, then let the two
+	 * outlast a short idle timeout, and report what the pool counted.
+	 *<p>
+	 * The pool lasts as long as the session, so the counts reported are the
+	 * changes made by this call, and the pool's settings are restored before
+	 * returning.
+	 */
+	@Function(schema = "javatest", name = "pooled_objects_test",
+		provides = "pooled objects fn")
+	public static String pooledObjectsTest()
+	throws SQLException, InterruptedException
+	{
+		ObjectPool<Pooled> pool =
+			SessionManager.current().getObjectPool(Pooled.class);
+		int maxIdle = pool.getMaxIdle();
+		Duration timeout = pool.getIdleTimeout();
+
+		pool.setMaxIdle(0);
+		pool.setMaxIdle(2);
+		pool.setIdleTimeout(Duration.ofHours(1));
+		ObjectPool.Statistics before = pool.getStatistics();
+		int removedBefore = Pooled.s_removed;
+
+		Pooled a = pool.activateInstance();
+		Pooled b = pool.activateInstance();
+		Pooled c = pool.activateInstance();
+		pool.passivateInstance(a);
+		pool.passivateInstance(b);
+		pool.passivateInstance(c); // beyond maxIdle, so removed
+
+		pool.passivateInstance(pool.activateInstance()); // one kept passive
+
+		pool.setIdleTimeout(Duration.ofMillis(1));
+		Thread.sleep(20);
+		Pooled d = pool.activateInstance(); // both passive ones now expired
+
+		ObjectPool.Statistics after = pool.getStatistics();
+		String result = String.format(
+			"activations=%d creations=%d passivations=%d evictions=%d " +
+			"removed=%d idle=%d",
+			after.getActivations() - before.getActivations(),
+			after.getCreations() - before.getCreations(),
+			after.getPassivations() - before.getPassivations(),
+			after.getEvictions() - before.getEvictions(),
+			Pooled.s_removed - removedBefore,
+			after.getIdle());
+
+		pool.removeInstance(d);
+		pool.setIdleTimeout(timeout);
+		pool.setMaxIdle(maxIdle);
+		return result;
+	}
+}
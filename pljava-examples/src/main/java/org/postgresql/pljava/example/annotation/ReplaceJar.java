@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.example.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.sql.SQLException;
+
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.postgresql.pljava.annotation.Function;
+import org.postgresql.pljava.annotation.SQLAction;
+
+/**
+ * Example confirming that {@code sqlj.replace_jar} keeps the {@code entryId}
+ * of each entry whose content is unchanged, gives a changed entry a new one,
+ * drops an entry the new jar does not contain, and adds a new one.
+ *<p>
+ * The jars are built by {@link #jar_image jar_image}, which other examples
+ * can also use to install small jars of their own.
+ */
+@SQLAction(requires="jar image fn", install={
+"   SELECT sqlj.install_jar(" +
+"    javatest.jar_image(ARRAY['a.txt', 'b.txt', 'c.txt'], " +
+"     ARRAY['one', 'two', 'three']), " +
+"    'javatest_replace_jar_test', false)",
+
+"   CREATE TEMPORARY TABLE replacejar_before AS " +
+"    SELECT e.entryName, e.entryId " +
+"    FROM sqlj.jar_entry AS e JOIN sqlj.jar_repository AS r " +
+"     ON e.jarId = r.jarId " +
+"    WHERE r.jarName = 'javatest_replace_jar_test'",
+
+"   SELECT sqlj.replace_jar(" +
+"    javatest.jar_image(ARRAY['a.txt', 'b.txt', 'd.txt'], " +
+"     ARRAY['one', 'TWO', 'four']), " +
+"    'javatest_replace_jar_test', false)",
+
+"   WITH " +
+"    after AS ( " +
+"     SELECT e.entryName, e.entryId " +
+"     FROM sqlj.jar_entry AS e JOIN sqlj.jar_repository AS r " +
+"      ON e.jarId = r.jarId " +
+"     WHERE r.jarName = 'javatest_replace_jar_test'), " +
+"    compared AS ( " +
+"     SELECT entryName, " +
+"      CASE " +
+"       WHEN b.entryId IS NULL THEN 'added' " +
+"       WHEN a.entryId IS NULL THEN 'dropped' " +
+"       WHEN b.entryId = a.entryId THEN 'kept' " +
+"       ELSE 'changed' " +
+"      END AS fate " +
+"     FROM replacejar_before AS b FULL JOIN after AS a USING (entryName)) " +
+"   SELECT " +
+"    CASE WHEN " +
+"     array_agg(entryName || ' ' || fate ORDER BY entryName) = " +
+"     ARRAY['a.txt kept', 'b.txt changed', 'c.txt dropped', 'd.txt added'] " +
+"    THEN javatest.logmessage('INFO', 'replace_jar entries ok') " +
+"    ELSE javatest.logmessage('WARNING', 'replace_jar entries not ok') " +
+"    END " +
+"    FROM compared",
+
+"   SELECT sqlj.remove_jar('javatest_replace_jar_test', false)",
+
+"   DROP TABLE replacejar_before"
+})
+public class ReplaceJar
+{
+	private ReplaceJar()
+	{
+	}
+
+	/**
+	 * Returns the image of a jar holding an entry for each of
+	 * <var>names</var>, with the UTF-8 encoding of the corresponding member
+	 * of <var>contents</var>.
+	 */
+	@Function(schema="javatest", provides="jar image fn")
+	public static byte[] jar_image(String[] names, String[] contents)
+	throws SQLException
+	{
+		if ( names.length != contents.length )
+			throw new SQLException(
+				"jar_image needs as many contents as names", "22023");
+
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		try ( JarOutputStream jos = new JarOutputStream(baos) )
+		{
+			for ( int i = 0; i < names.length; ++ i )
+			{
+				jos.putNextEntry(new ZipEntry(names[i]));
+				jos.write(contents[i].getBytes(UTF_8));
+				jos.closeEntry();
+			}
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), "58030", e);
+		}
+		return baos.toByteArray();
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -12,20 +12,32 @@
  */
 package org.postgresql.pljava.example.annotation;
 
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Time;
+import java.util.Arrays;
 import java.util.logging.Logger;
 
+import org.postgresql.pljava.BulkInserter;
+import org.postgresql.pljava.CopyOut;
+import org.postgresql.pljava.IsolatedBatch;
 import org.postgresql.pljava.SavepointListener;
 import org.postgresql.pljava.Session;
 import org.postgresql.pljava.SessionManager;
+import org.postgresql.pljava.SharedStore;
 import org.postgresql.pljava.TransactionListener;
 
 import org.postgresql.pljava.annotation.Function;
@@ -59,6 +71,24 @@ import org.postgresql.pljava.annotation.SQLAction;
 }
 )
 @SQLAction(requires = "issue228", install = "SELECT javatest.issue228()")
+@SQLAction(requires = "isolated batch", install =
+	"SELECT javatest.isolatedBatch()")
+@SQLAction(requires = "bulk insert", install =
+	"SELECT javatest.bulkInsert()")
+@SQLAction(requires = "shared store", install =
+	"SELECT javatest.sharedStore()")
+@SQLAction(requires = "copy out", install =
+	"SELECT" +
+	" CASE WHEN javatest.copyOutText(" +
+	"  'SELECT g, CASE WHEN g % 7 = 0 THEN NULL ELSE ''v'' || chr(9) || g END,"+
+	"  g::float8 / 4 FROM generate_series(1, 20000) AS g ORDER BY g')" +
+	"  = string_agg(" +
+	"   g || chr(9) || CASE WHEN g % 7 = 0 THEN '\\N' ELSE 'v\\t' || g END" +
+	"   || chr(9) || (g::float8 / 4)::text || chr(10), '' ORDER BY g)" +
+	" THEN javatest.logmessage('INFO', 'copy out ok')" +
+	" ELSE javatest.logmessage('WARNING', 'copy out not ok')" +
+	" END" +
+	" FROM generate_series(1, 20000) AS g")
 public class SPIActions {
 	private static final String SP_CHECKSTATE = "sp.checkState";
 
@@ -233,6 +263,197 @@ public class SPIActions {
 		session.setAttribute(SP_CHECKSTATE, next);
 	}
 
+	/**
+	 * Confirm that a {@link BulkInserter} loads rows, in several batches,
+	 * with nulls, defaults, and text needing escapes in {@code COPY} form.
+	 */
+	@Function(schema="javatest", provides="bulk insert")
+	public static void bulkInsert() throws SQLException
+	{
+		Connection conn =
+			DriverManager.getConnection("jdbc:default:connection");
+		try ( Statement s = conn.createStatement() )
+		{
+			s.execute("CREATE TEMPORARY TABLE bulk_insert (" +
+				"id int PRIMARY KEY, name text, score float8, " +
+				"note text DEFAULT 'default')");
+
+			try (
+				BulkInserter bi = conn.unwrap(BulkInserter.Factory.class)
+					.newBulkInserter("pg_temp.bulk_insert",
+						"id", "name", "score")
+			)
+			{
+				bi.setBatchSize(1024);
+				for ( int id = 1; id <= 1000; ++ id )
+				{
+					bi.putInt(id);
+					if ( 0 == id % 10 )
+						bi.putNull();
+					else
+						bi.putString("row\t" + id + "\n\\");
+					bi.putDouble(id / 4.0).endRow();
+				}
+			}
+
+			boolean ok = false;
+			try (
+				ResultSet rs = s.executeQuery(
+					"SELECT count(*), sum(id), count(name), sum(score), " +
+					" bool_and(note = 'default'), " +
+					" max(name) FILTER (WHERE id = 7) " +
+					"FROM pg_temp.bulk_insert")
+			)
+			{
+				if ( rs.next() )
+					ok = 1000 == rs.getInt(1)  &&  500500 == rs.getLong(2)
+						&&  900 == rs.getInt(3)  &&  125125.0 == rs.getDouble(4)
+						&&  rs.getBoolean(5)
+						&&  "row\t7\n\\".equals(rs.getString(6));
+			}
+			s.execute("DROP TABLE pg_temp.bulk_insert");
+
+			if ( ok )
+				log("bulk insert ok");
+			else
+				warn("bulk insert: rows not loaded as expected");
+		}
+	}
+
+	/**
+	 * Return the result of <var>query</var> as {@link CopyOut} delivers it in
+	 * text format, or null if the row count it reports is not the number of
+	 * lines, or if the binary form of one {@code int4} is not as {@code COPY}
+	 * would write it.
+	 */
+	@Function(schema="javatest", provides="copy out")
+	public static String copyOutText(String query) throws SQLException
+	{
+		Connection conn =
+			DriverManager.getConnection("jdbc:default:connection");
+		CopyOut.Factory f = conn.unwrap(CopyOut.Factory.class);
+
+		try ( CopyOut co = f.copyOut("SELECT 1::int4", CopyOut.Format.BINARY) )
+		{
+			byte[] expected = {
+				'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte)0377, '\r', '\n', 0,
+				0, 0, 0, 0, /* flags */  0, 0, 0, 0, /* header extension */
+				0, 1, /* fields */  0, 0, 0, 4, /* length */  0, 0, 0, 1,
+				(byte)0xff, (byte)0xff /* trailer */
+			};
+			if ( ! Arrays.equals(expected, co.asInputStream().readAllBytes()) )
+				return null;
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), "58030", e);
+		}
+
+		try ( CopyOut co = f.copyOut(query, CopyOut.Format.TEXT) )
+		{
+			String text =
+				new String(co.asInputStream().readAllBytes(), UTF_8);
+			long lines = text.chars().filter(c -> '\n' == c).count();
+			return lines == co.getRowCount() ? text : null;
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), "58030", e);
+		}
+	}
+
+	/**
+	 * Confirm that the {@link SharedStore} keeps a replaced value intact for
+	 * a reader already holding it, refuses a replacement expecting the wrong
+	 * version, and forgets a removed key. Skipped when the store has not been
+	 * configured.
+	 */
+	@Function(schema="javatest", provides="shared store")
+	public static void sharedStore() throws SQLException
+	{
+		SharedStore store;
+		try
+		{
+			store = SessionManager.current().sharedStore();
+		}
+		catch ( SQLFeatureNotSupportedException e )
+		{
+			log("shared store not configured; test skipped");
+			return;
+		}
+
+		String key = "javatest.sharedStore";
+		store.remove(key);
+
+		long v1 = store.put(key, ByteBuffer.wrap("one".getBytes(UTF_8)));
+		SharedStore.Entry first = store.get(key);
+		boolean ok = null != first  &&  v1 == first.version()
+			&&  "one".equals(UTF_8.decode(first.value()).toString());
+
+		ok = ok  &&  0 == store.replace(key,
+			ByteBuffer.wrap("wrong".getBytes(UTF_8)), v1 + 1);
+		long v2 =
+			store.replace(key, ByteBuffer.wrap("two".getBytes(UTF_8)), v1);
+		SharedStore.Entry second = store.get(key);
+		ok = ok  &&  v2 > v1  &&  null != second  &&  v2 == second.version()
+			&&  "two".equals(UTF_8.decode(second.value()).toString())
+			&&  "one".equals(UTF_8.decode(first.value()).toString());
+
+		ok = ok  &&  store.remove(key)  &&  null == store.get(key)
+			&&  ! store.remove(key);
+
+		if ( ok )
+			log("shared store ok");
+		else
+			warn("shared store: values not kept as expected");
+	}
+
+	/**
+	 * Confirm that an {@link IsolatedBatch} rolls back only its failing
+	 * entries: of ten inserts, two repeat a key.
+	 */
+	@Function(schema="javatest", provides="isolated batch")
+	public static void isolatedBatch() throws SQLException
+	{
+		Connection conn =
+			DriverManager.getConnection("jdbc:default:connection");
+		try (
+			Statement s = conn.createStatement();
+			PreparedStatement ps = conn.prepareStatement(
+				"INSERT INTO pg_temp.isolated_batch VALUES (?)")
+		)
+		{
+			s.execute("CREATE TEMPORARY TABLE isolated_batch (id int UNIQUE)");
+			for ( int id : new int[] { 1, 2, 3, 3, 4, 5, 6, 7, 7, 8 } )
+			{
+				ps.setInt(1, id);
+				ps.addBatch();
+			}
+			IsolatedBatch.Result r =
+				ps.unwrap(IsolatedBatch.class).executeIsolatedBatch();
+
+			int rows = 0;
+			try (
+				ResultSet rs = s.executeQuery(
+					"SELECT count(*) FROM pg_temp.isolated_batch")
+			)
+			{
+				if ( rs.next() )
+					rows = rs.getInt(1);
+			}
+			s.execute("DROP TABLE pg_temp.isolated_batch");
+
+			if ( 2 == r.failures()  &&  8 == rows
+				&&  "23505".equals(r.sqlState(3))
+				&&  "23505".equals(r.sqlState(8))
+				&&  1 == r.updateCount(9) )
+				log("isolated batch ok");
+			else
+				warn("isolated batch: " + r.failures() + " failures, " +
+					rows + " rows");
+		}
+	}
+
 	@Function(schema="javatest", effects=IMMUTABLE)
 	@SuppressWarnings("removal") // setAttribute
 	public static int testSavepointSanity() throws SQLException {
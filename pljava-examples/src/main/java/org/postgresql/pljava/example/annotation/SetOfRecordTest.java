@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -26,6 +26,12 @@ import org.postgresql.pljava.annotation.SQLAction;
  * Example implementing the {@code ResultSetHandle} interface, to return
  * the {@link ResultSet} from any SQL {@code SELECT} query passed as a string
  * to the {@link #executeSelect executeSelect} function.
+ *<p>
+ * The first test query produces columns of types differing from those declared
+ * for the result, so its values are converted through Java objects. The
+ * second and third produce exactly the declared types, so their rows are
+ * passed through as they are; the third reads them straight from a table, one
+ * of them with a value large enough to be stored out of line.
  */
 @SQLAction(requires="selecttorecords fn",
 install=
@@ -43,6 +49,43 @@ install=
 "  AS r(t_varchar varchar, t_integer integer, t_float float, " +
 "      t_decimal decimal(8,2), t_date date, t_time time, t_cidr cidr)"
 )
+@SQLAction(requires="selecttorecords fn",
+install=
+" SELECT " +
+"  CASE WHEN string_agg(r::text, ';' ORDER BY r.n) " +
+"       IS DISTINCT FROM '(1,one,);(2,two,2.5);(3,,3.5)' " +
+"  THEN javatest.logmessage('WARNING', 'SetOfRecordTest passthrough not ok') " +
+"  ELSE javatest.logmessage('INFO', 'SetOfRecordTest passthrough ok') " +
+"  END " +
+" FROM " +
+"  javatest.executeselecttorecords( " +
+"   'SELECT n, t, f FROM (VALUES " +
+"     (1, ''one''::text, NULL::float8), (2, ''two'', 2.5), " +
+"     (3, NULL, 3.5)) AS v(n, t, f)') " +
+"  AS r(n integer, t text, f float8)"
+)
+@SQLAction(requires="selecttorecords fn",
+install={
+" CREATE TEMPORARY TABLE setofrecordtest_tbl(n integer, t text, f float8)",
+" INSERT INTO setofrecordtest_tbl VALUES " +
+"  (1, 'one', NULL), (2, NULL, 2.5), " +
+"  (3, (SELECT string_agg(md5(i::text), '') " +
+"       FROM generate_series(1, 4000) AS i), 3.5)",
+" SELECT " +
+"  CASE WHEN count(*) = 3 " +
+"   AND bool_and((s.t, s.f) IS NOT DISTINCT FROM (r.t, r.f)) " +
+"  THEN javatest.logmessage('INFO', 'SetOfRecordTest table passthrough ok') " +
+"  ELSE javatest.logmessage('WARNING', " +
+"       'SetOfRecordTest table passthrough not ok') " +
+"  END " +
+" FROM " +
+"  javatest.executeselecttorecords( " +
+"   'SELECT * FROM setofrecordtest_tbl') " +
+"  AS r(n integer, t text, f float8) " +
+"  JOIN setofrecordtest_tbl AS s USING (n)",
+" DROP TABLE setofrecordtest_tbl"
+}
+)
 public class SetOfRecordTest implements ResultSetHandle {
 
 	@Function(schema="javatest", name="executeselecttorecords",
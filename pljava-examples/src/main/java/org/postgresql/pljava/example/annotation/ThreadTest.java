@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2015-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -19,8 +19,18 @@ import java.sql.Statement;
 
 import java.lang.reflect.UndeclaredThrowableException;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.postgresql.pljava.Session;
+import org.postgresql.pljava.SessionManager;
 import org.postgresql.pljava.annotation.SQLAction;
 import org.postgresql.pljava.annotation.Function;
+import static
+	org.postgresql.pljava.annotation.Function.Trust.UNSANDBOXED;
 
 /**
  * Test control of access to 1-thread backend by n-thread JVM.
@@ -39,6 +49,22 @@ import org.postgresql.pljava.annotation.Function;
 	requires="strictlyNestedTest fn",
 	install="select strictlyNestedTest()"
 )
+@SQLAction(requires="computePoolTest fn", install=
+"   SELECT " +
+"    CASE WHEN javatest.compute_pool_test(1000) = 333833500 THEN " +
+"     javatest.logmessage('INFO', 'compute pool ok') " +
+"    ELSE " +
+"     javatest.logmessage('WARNING', 'compute pool not ok') " +
+"    END"
+)
+@SQLAction(requires="pgQueueTest fn", install=
+"   SELECT " +
+"    CASE WHEN javatest.pg_queue_test(8) = 204 THEN " +
+"     javatest.logmessage('INFO', 'PG entry queue ok') " +
+"    ELSE " +
+"     javatest.logmessage('WARNING', 'PG entry queue not ok') " +
+"    END"
+)
 public class ThreadTest implements Runnable {
 	/**
 	 * Test that another thread can enter SPI while the calling thread is out.
@@ -68,6 +94,96 @@ public class ThreadTest implements Runnable {
 		return tt.result;
 	}
 
+	/**
+	 * Test that threads of an executor can have queries run for them on the
+	 * PG thread with {@link Session#submitToPG submitToPG}.
+	 *
+	 * Each of <var>n</var> tasks has the PG thread count the rows of
+	 * {@code generate_series(1,i)}, and squares the count on its own thread,
+	 * so the result is the sum of the first <var>n</var> squares.
+	 */
+	@Function(schema="javatest", trust=UNSANDBOXED, provides="pgQueueTest fn")
+	public static long pg_queue_test(int n)
+	throws Exception
+	{
+		Session session = SessionManager.current();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<CompletableFuture<Long>> parts = new ArrayList<>();
+			for ( int i = 1; i <= n; ++ i )
+			{
+				int k = i;
+				parts.add(CompletableFuture.supplyAsync(() ->
+				{
+					long count = session.submitToPG(() -> countTo(k)).join();
+					return count * count;
+				}, pool));
+			}
+
+			session.awaitInPG(CompletableFuture.allOf(
+				parts.toArray(new CompletableFuture<?>[0])));
+
+			long sum = 0;
+			for ( CompletableFuture<Long> part : parts )
+				sum += part.join();
+			return sum;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Test the compute pool by summing the first <var>n</var> squares in
+	 * tasks of a hundred terms each, waiting with
+	 * {@link Session#awaitInPG awaitInPG} so a cancel would stop them.
+	 */
+	@Function(schema="javatest", provides="computePoolTest fn")
+	public static long compute_pool_test(int n)
+	throws Exception
+	{
+		Session session = SessionManager.current();
+		ExecutorService compute = session.computeExecutor();
+		List<CompletableFuture<Long>> parts = new ArrayList<>();
+		for ( int lo = 1; lo <= n; lo += 100 )
+		{
+			int from = lo;
+			int to = Math.min(n, lo + 99);
+			parts.add(CompletableFuture.supplyAsync(() ->
+			{
+				long sum = 0;
+				for ( long i = from; i <= to; ++ i )
+					sum += i * i;
+				return sum;
+			}, compute));
+		}
+
+		session.awaitInPG(CompletableFuture.allOf(
+			parts.toArray(new CompletableFuture<?>[0])));
+
+		long sum = 0;
+		for ( CompletableFuture<Long> part : parts )
+			sum += part.join();
+		return sum;
+	}
+
+	private static long countTo(int k)
+	throws SQLException
+	{
+		Connection c = DriverManager.getConnection("jdbc:default:connection");
+		try (
+			Statement s = c.createStatement();
+			ResultSet rs = s.executeQuery(
+				"SELECT count(*) FROM generate_series(1, " + k + ")")
+		)
+		{
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
 	String result;
 
 	public void run()
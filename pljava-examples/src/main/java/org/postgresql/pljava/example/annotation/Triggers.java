@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -19,6 +19,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 
 import org.postgresql.pljava.TriggerData;
 import org.postgresql.pljava.annotation.Function;
@@ -35,7 +36,9 @@ import static org.postgresql.pljava.example.LoggerTest.logMessage;
 /**
  * Example creating a couple of tables, and a function to be called when
  * triggered by insertion into either table. In PostgreSQL 10 or later,
- * also create a function and trigger that uses transition tables.
+ * also create a function and trigger that uses transition tables. Another
+ * table has a trigger that changes a new row through the typed updaters of
+ * {@code ResultSet}.
  *<p>
  * This example relies on {@code implementor} tags reflecting the PostgreSQL
  * version, set up in the {@link ConditionalDDR} example. Transition tables
@@ -45,13 +48,33 @@ import static org.postgresql.pljava.example.LoggerTest.logMessage;
 	provides = "foobar tables",
 	install = {
 		"CREATE TABLE javatest.foobar_1 ( username text, stuff text )",
-		"CREATE TABLE javatest.foobar_2 ( username text, value numeric )"
+		"CREATE TABLE javatest.foobar_2 ( username text, value numeric )",
+		"CREATE TABLE javatest.foobar_3 ( id int, i2 int2, i4 int4," +
+		" i8 int8, f4 float4, f8 float8, b boolean, ts timestamp," +
+		" n numeric, t text )"
 	},
 	remove = {
+		"DROP TABLE javatest.foobar_3",
 		"DROP TABLE javatest.foobar_2",
 		"DROP TABLE javatest.foobar_1"
 	}
 )
+@SQLAction(
+	requires = "typed update trigger",
+	install = {
+		"INSERT INTO javatest.foobar_3 (id, t) VALUES (1, 'unchanged')",
+		"SELECT" +
+		" CASE WHEN" +
+		"  i2 = 12 AND i4 = 42 AND i8 = 1099511627776 AND f4 = 1.5" +
+		"  AND f8 = 2.25 AND b AND ts = '2026-01-02 03:04:05'" +
+		"  AND n = 7 AND t = 'unchanged'" +
+		" THEN javatest.logmessage('INFO', 'trigger typed updates ok')" +
+		" ELSE javatest.logmessage('WARNING', 'trigger typed updates not ok')" +
+		" END" +
+		" FROM javatest.foobar_3 WHERE id = 1",
+		"DELETE FROM javatest.foobar_3"
+	}
+)
 @SQLAction(
 	requires = "constraint triggers",
 	install = "INSERT INTO javatest.foobar_2(value) VALUES (45)"
@@ -100,6 +123,35 @@ public class Triggers
 		nrs.updateString( "username", "bob");
 	}
 
+	/**
+	 * Set columns of the new row with the typed updaters, each to a column of
+	 * its natural type except for {@code n}, a {@code numeric} set with
+	 * {@code updateInt}, which takes the coercion path.
+	 */
+	@Function(
+		requires = "foobar tables",
+		provides = "typed update trigger",
+		schema = "javatest",
+		security = INVOKER,
+		triggers = {
+			@Trigger(called = BEFORE, scope = ROW, table = "foobar_3",
+					 events = { INSERT } )
+		})
+
+	public static void updateTyped(TriggerData td)
+	throws SQLException
+	{
+		ResultSet nrs = td.getNew();
+		nrs.updateShort("i2", (short)12);
+		nrs.updateInt("i4", 42);
+		nrs.updateLong("i8", 1L << 40);
+		nrs.updateFloat("f4", 1.5f);
+		nrs.updateDouble("f8", 2.25);
+		nrs.updateBoolean("b", true);
+		nrs.updateTimestamp("ts", Timestamp.valueOf("2026-01-02 03:04:05"));
+		nrs.updateInt("n", 7);
+	}
+
 	/**
 	 * Examine old and new rows in reponse to a trigger.
 	 * Transition tables first became available in PostgreSQL 10.
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2019-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,6 +15,11 @@ import java.sql.SQLXML;
 
 import java.sql.SQLException;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import javax.xml.transform.stax.StAXSource;
+
 import org.postgresql.pljava.annotation.Function;
 import org.postgresql.pljava.annotation.SQLAction;
 import org.postgresql.pljava.annotation.SQLType;
@@ -38,6 +43,18 @@ import static org.postgresql.pljava.example.LoggerTest.logMessage;
 "   END" +
 "  FROM a"
 )
+@SQLAction(implementor="postgresql_xml",
+	requires={"pgNodeTreeAsXML", "pgNodeTreeTopNode"}, install=
+"WITH" +
+"  a(t) AS (SELECT adbin FROM pg_catalog.pg_attrdef LIMIT 1)" +
+" SELECT" +
+"   CASE WHEN pgNodeTreeTopNode(t) =" +
+"     (xpath('local-name(/*)', pgNodeTreeAsXML(t)))[1]::text" +
+"    THEN javatest.logmessage('INFO', 'pgNodeTreeTopNode ok')" +
+"    ELSE javatest.logmessage('WARNING', 'pgNodeTreeTopNode ng')" +
+"   END" +
+"  FROM a"
+)
 public class XMLRenderedTypes
 {
 	@Function(
@@ -49,4 +66,33 @@ public class XMLRenderedTypes
 	{
 		return pgt;
 	}
+
+	/**
+	 * Return the name of the top node of a {@code pg_node_tree}, reading it
+	 * through StAX, which renders no more of the tree than that.
+	 */
+	@Function(
+		schema="javatest", implementor="postgresql_xml",
+		provides="pgNodeTreeTopNode"
+	)
+	public static String pgNodeTreeTopNode(
+		@SQLType("pg_node_tree") SQLXML pgt)
+	throws SQLException
+	{
+		XMLStreamReader xsr =
+			pgt.getSource(StAXSource.class).getXMLStreamReader();
+		try
+		{
+			return xsr.nextTag() == XMLStreamReader.START_ELEMENT
+				? xsr.getLocalName() : null;
+		}
+		catch ( XMLStreamException e )
+		{
+			throw new SQLException(e.getMessage(), e);
+		}
+		finally
+		{
+			pgt.free();
+		}
+	}
 }
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.pgxs;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compiles only those C sources whose compilation would differ from the last
+ * successful one, several at a time.
+ *<p>
+ * The platform's {@link AbstractPGXS#compile compile} method is called once for
+ * each source file, with the commands it would run captured rather than run.
+ * A digest is made of those commands (so every flag, define, and include
+ * directory counts, including any the platform rules add), and of the contents
+ * of the source and of every header it includes, directly or indirectly, that
+ * can be found in its own directory or the include directories (those given,
+ * and any named by {@code -I} options in the commands). Headers from
+ * {@code pg_config}'s include directories are among those, so building against
+ * a different PostgreSQL changes the digest.
+ *<p>
+ * A file whose digest matches the one recorded in the manifest, and whose
+ * object file exists, is not compiled again. The others are compiled in
+ * parallel, and the digests of those that succeed are recorded.
+ *<p>
+ * The scan for headers does not evaluate conditional compilation, so it may
+ * find headers that are not really used, causing an unneeded recompilation,
+ * but not the reverse. Headers included through a macro are not found.
+ */
+final class IncrementalCompile
+{
+	static final String MANIFEST = "pljava-pgxs-manifest.properties";
+
+	private static final Pattern INCLUDE = Pattern.compile(
+		"^\\s*+#\\s*+include\\s*+([<\"])([^>\"]++)[>\"]", Pattern.MULTILINE);
+
+	private final Log log;
+	private final List<Path> includeDirs = new ArrayList<>();
+	private final Map<Path,byte[]> contentDigests = new HashMap<>();
+	private final Map<Path,List<Path>> directIncludes = new HashMap<>();
+
+	IncrementalCompile(Log log, List<String> includes)
+	{
+		this.log = log;
+		for ( String s : includes )
+			addIncludeDir(s);
+	}
+
+	/**
+	 * Adds a directory to search for headers, as the platform rules may add
+	 * {@code -I} options of their own.
+	 */
+	private void addIncludeDir(String dir)
+	{
+		if ( dir.isEmpty() )
+			return;
+		Path p = Paths.get(dir).toAbsolutePath().normalize();
+		if ( ! includeDirs.contains(p) )
+			includeDirs.add(p);
+	}
+
+	/**
+	 * Compiles the stale files among <var>files</var>.
+	 * @param pgxs the platform rules
+	 * @param capture runs the supplied action, returning the commands it would
+	 * have run
+	 * @param run runs a command and returns its exit status
+	 * @return zero, or the exit status of a failed compilation
+	 */
+	int compile(AbstractPGXS pgxs, CommandCapture capture,
+		ToIntFunction<ProcessBuilder> run,
+		String compiler, List<String> files, Path targetPath,
+		List<String> includes, Map<String,String> defines, List<String> flags,
+		String objectExtension, int jobs)
+	throws IOException
+	{
+		Path manifestPath = targetPath.resolve(MANIFEST);
+		Properties manifest = new Properties();
+		if ( Files.exists(manifestPath) )
+			try ( Reader r = Files.newBufferedReader(manifestPath, UTF_8) )
+			{
+				manifest.load(r);
+			}
+
+		List<String> stale = new ArrayList<>();
+		List<String> digests = new ArrayList<>();
+		List<List<ProcessBuilder>> commands = new ArrayList<>();
+
+		for ( String file : files )
+		{
+			int[] status = new int[1];
+			List<ProcessBuilder> captured = capture.capture(() ->
+				status[0] = pgxs.compile(compiler, List.of(file), targetPath,
+					new ArrayList<>(includes), new HashMap<>(defines),
+					new ArrayList<>(flags)));
+			if ( 0 != status[0] )
+				return status[0];
+
+			String digest = digest(Paths.get(file), captured);
+			if ( digest.equals(manifest.getProperty(file))
+				&& Files.exists(objectFile(targetPath, file, objectExtension)) )
+				continue;
+
+			stale.add(file);
+			digests.add(digest);
+			commands.add(captured);
+		}
+
+		int result = 0;
+		if ( stale.isEmpty() )
+			log.info(String.format(
+				"All %d C files are unchanged since last compiled", files.size()));
+		else
+		{
+			if ( 0 >= jobs )
+				jobs = Runtime.getRuntime().availableProcessors();
+			jobs = Math.max(1, Math.min(jobs, stale.size()));
+
+			log.info(String.format(
+				"Compiling %d of %d C files (%d unchanged), %d at a time",
+				stale.size(), files.size(), files.size() - stale.size(), jobs));
+
+			ExecutorService pool = Executors.newFixedThreadPool(jobs);
+			try
+			{
+				List<Future<Integer>> outcomes = new ArrayList<>();
+				for ( List<ProcessBuilder> cmds : commands )
+					outcomes.add(pool.submit(() ->
+					{
+						for ( ProcessBuilder pb : cmds )
+						{
+							int status = run.applyAsInt(pb);
+							if ( 0 != status )
+								return status;
+						}
+						return 0;
+					}));
+
+				for ( int i = 0; i < stale.size(); ++ i )
+				{
+					int status;
+					try
+					{
+						status = outcomes.get(i).get();
+					}
+					catch ( ExecutionException | InterruptedException e )
+					{
+						log.error(e);
+						status = -1;
+					}
+					if ( 0 == status )
+						manifest.setProperty(stale.get(i), digests.get(i));
+					else
+					{
+						manifest.remove(stale.get(i));
+						if ( 0 == result )
+							result = status;
+					}
+				}
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+
+		Files.createDirectories(targetPath);
+		try ( Writer w = Files.newBufferedWriter(manifestPath, UTF_8) )
+		{
+			manifest.store(w, "PL/Java PGXS compilation digests");
+		}
+		return result;
+	}
+
+	/**
+	 * Runs an action, returning the commands it would have run.
+	 */
+	interface CommandCapture
+	{
+		List<ProcessBuilder> capture(Runnable action);
+	}
+
+	private static Path objectFile(Path targetPath, String file, String ext)
+	{
+		String name = Paths.get(file).getFileName().toString();
+		int dot = name.lastIndexOf('.');
+		if ( 0 <= dot )
+			name = name.substring(0, dot);
+		return targetPath.resolve(name + ext);
+	}
+
+	/**
+	 * Digest of the commands, working directory included, and of the source
+	 * file and everything it includes.
+	 */
+	private String digest(Path source, List<ProcessBuilder> commands)
+	throws IOException
+	{
+		MessageDigest md = sha256();
+		for ( ProcessBuilder pb : commands )
+		{
+			update(md, String.valueOf(pb.directory()));
+			for ( String arg : pb.command() )
+			{
+				update(md, arg);
+				if ( arg.startsWith("-I")  ||  arg.startsWith("/I") )
+					addIncludeDir(arg.substring(2));
+			}
+			update(md, "");
+		}
+
+		TreeSet<Path> closure = new TreeSet<>();
+		collect(source.toAbsolutePath().normalize(), closure);
+		for ( Path p : closure )
+		{
+			update(md, p.toString());
+			md.update(contentDigest(p));
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for ( byte b : md.digest() )
+			sb.append(String.format("%02x", b));
+		return sb.toString();
+	}
+
+	private void collect(Path file, TreeSet<Path> closure) throws IOException
+	{
+		if ( ! closure.add(file) )
+			return;
+		for ( Path p : includesOf(file) )
+			collect(p, closure);
+	}
+
+	/**
+	 * The files that can be found for the {@code #include} lines of
+	 * <var>file</var>.
+	 */
+	private List<Path> includesOf(Path file) throws IOException
+	{
+		List<Path> found = directIncludes.get(file);
+		if ( null != found )
+			return found;
+
+		found = new ArrayList<>();
+		String text = new String(Files.readAllBytes(file), UTF_8);
+		Matcher m = INCLUDE.matcher(text);
+		while ( m.find() )
+		{
+			String name = m.group(2);
+			Path p = null;
+			if ( "\"".equals(m.group(1)) )
+				p = existing(file.getParent(), name);
+			for ( int i = 0; null == p  &&  i < includeDirs.size(); ++ i )
+				p = existing(includeDirs.get(i), name);
+			if ( null != p )
+				found.add(p);
+		}
+		directIncludes.put(file, found);
+		return found;
+	}
+
+	private static Path existing(Path dir, String name)
+	{
+		if ( null == dir )
+			return null;
+		Path p = dir.resolve(name).normalize();
+		return Files.isRegularFile(p) ? p : null;
+	}
+
+	private byte[] contentDigest(Path p) throws IOException
+	{
+		byte[] d = contentDigests.get(p);
+		if ( null == d )
+		{
+			d = sha256().digest(Files.readAllBytes(p));
+			contentDigests.put(p, d);
+		}
+		return d;
+	}
+
+	private static void update(MessageDigest md, String s)
+	{
+		md.update(s.getBytes(UTF_8));
+		md.update((byte)0);
+	}
+
+	private static MessageDigest sha256()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch ( NoSuchAlgorithmException e )
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2020-2024 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2020-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -64,6 +64,12 @@ public final class PGXSUtils
 	 */
 	private final Log log;
 
+	/**
+	 * When not null, commands passed to {@link #runCommand runCommand} are
+	 * added here instead of being run.
+	 */
+	private List<ProcessBuilder> captured;
+
 	private static final Pattern mustBeQuotedForC = Pattern.compile(
 		"([\"\\\\]|(?<=\\?)\\?(?=[=(/)'<!>-]))|" +  // (just insert backslash)
 		"([\\a\b\\f\\n\\r\\t\\x0B])|" +             // (use specific escapes)
@@ -471,6 +477,66 @@ public final class PGXSUtils
 	 * during execution
 	 */
 	public int runCommand(ProcessBuilder processBuilder)
+	{
+		if ( null != captured )
+		{
+			captured.add(processBuilder);
+			return 0;
+		}
+		return execute(processBuilder);
+	}
+
+	/**
+	 * Compiles C source files as
+	 * {@link AbstractPGXS#compile AbstractPGXS.compile} would, but several at
+	 * a time, and only those whose compilation would differ from the last
+	 * successful one.
+	 *<p>
+	 * The <var>pgxs</var> {@code compile} method is called once per file, on
+	 * the calling thread, with the commands it would run captured; only
+	 * running them happens on other threads, so a script engine implementing
+	 * {@code pgxs} is never entered concurrently. A file is skipped when its
+	 * object file exists and a digest of those commands and of the contents
+	 * of the file and the headers it includes matches the one recorded when
+	 * it was last compiled.
+	 *
+	 * @param pgxs the platform rules
+	 * @param compiler as for {@code AbstractPGXS.compile}
+	 * @param files as for {@code AbstractPGXS.compile}
+	 * @param targetPath as for {@code AbstractPGXS.compile}
+	 * @param includes as for {@code AbstractPGXS.compile}
+	 * @param defines as for {@code AbstractPGXS.compile}
+	 * @param flags as for {@code AbstractPGXS.compile}
+	 * @param objectExtension extension, including the dot, of object files
+	 * @param jobs how many compilations to run at once, or zero (or less) for
+	 * the number of available processors
+	 * @return zero, or the nonzero exit status of a failed compilation
+	 */
+	public int compileIncrementally(AbstractPGXS pgxs, String compiler,
+		List<String> files, Path targetPath, List<String> includes,
+		Map<String, String> defines, List<String> flags,
+		String objectExtension, int jobs)
+	throws IOException
+	{
+		return new IncrementalCompile(log, includes).compile(pgxs,
+			action ->
+			{
+				captured = new ArrayList<>();
+				try
+				{
+					action.run();
+					return captured;
+				}
+				finally
+				{
+					captured = null;
+				}
+			},
+			this::execute, compiler, files, targetPath, includes, defines,
+			flags, objectExtension, jobs);
+	}
+
+	private int execute(ProcessBuilder processBuilder)
 	{
 		Path outputDirectoryPath = processBuilder.directory().toPath();
 		try
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -13,6 +13,7 @@
  */
 #include <postgres.h>
 #include <miscadmin.h>
+#include <access/xact.h>
 #ifndef WIN32
 #include <libpq/pqsignal.h>
 #endif
@@ -20,6 +21,7 @@
 #include <commands/trigger.h>
 #include <utils/elog.h>
 #include <utils/guc.h>
+#include <utils/inval.h>
 #include <fmgr.h>
 #include <access/heapam.h>
 #include <utils/syscache.h>
@@ -42,6 +44,8 @@
 
 #include <storage/ipc.h>
 #include <storage/proc.h>
+#include <portability/instr_time.h>
+#include <replication/walsender.h>
 #include <stdio.h>
 #include <ctype.h>
 #include <unistd.h>
@@ -56,6 +60,7 @@
 #include "pljava/Exception.h"
 #include "pljava/Backend.h"
 #include "pljava/Session.h"
+#include "pljava/SharedStore.h"
 #include "pljava/SPI.h"
 #include "pljava/type/String.h"
 
@@ -116,16 +121,58 @@ static char* modulepath;
 static char* implementors;
 static char* policy_urls;
 static char* allow_unenforced;
+static char* preload_classes;
 static int   statementCacheSize;
+static int   computePoolSize;
+static int   resourceCacheSizeKB;
 static bool  allow_unenforced_udt;
 static bool  pljavaDebug;
 static bool  pljavaReleaseLingeringSavepoints;
 static bool  pljavaEnabled;
+static bool  lazyWorkerInit;
 
 static int   java_thread_pg_entry;
 
 static int   s_javaLogLevel;
 
+/*
+ * Durations in microseconds of the startup phases, indexed as the STARTUP_
+ * constants in Backend.java; -1 for a phase not yet completed.
+ */
+static int64 s_startupMicros[org_postgresql_pljava_internal_Backend_STARTUP_PHASES] =
+	{ -1, -1, -1, -1, -1 };
+
+/*
+ * Set when pljava.lazy_worker_init has caused initJavaSession to be skipped
+ * during startup, so Backend_completeLazyInit knows to call it.
+ */
+static bool s_sessionInitPending = false;
+
+/*
+ * Incremented whenever PostgreSQL invalidates a relcache entry or a cached
+ * namespace or type, so Java code keeping results of catalog queries can tell
+ * when they may be stale.
+ */
+static uint32 s_catalogGeneration = 0;
+
+static void catalogRelcacheCB(Datum arg, Oid relid)
+{
+	++ s_catalogGeneration;
+}
+
+static void catalogSyscacheCB(Datum arg, int cacheid, uint32 hashvalue)
+{
+	++ s_catalogGeneration;
+}
+
+static void recordStartupPhase(int phase, instr_time *start)
+{
+	instr_time end;
+	INSTR_TIME_SET_CURRENT(end);
+	INSTR_TIME_SUBTRACT(end, *start);
+	s_startupMicros[phase] = (int64)INSTR_TIME_GET_MICROSEC(end);
+}
+
 #if PG_VERSION_NUM < 100000
 bool integerDateTimes = false;
 static void checkIntTimeType(void);
@@ -148,6 +195,9 @@ extern void SQLChunkIOOrder_initialize(void);
 extern void SQLInputFromChunk_initialize(void);
 extern void SQLOutputToChunk_initialize(void);
 extern void SQLOutputToTuple_initialize(void);
+extern void pljava_BulkCopy_initialize(void);
+extern void pljava_LargeObjects_initialize(void);
+extern void pljava_SharedStore_initialize(void);
 
 
 /*
@@ -244,6 +294,13 @@ static char const unenforcedGUC[] = "pljava.allow_unenforced";
  */
 static bool deferInit = false;
 
+/*
+ * Set while _PG_init starts PL/Java ahead of demand, having been loaded through
+ * session_preload_libraries; only then are pljava.preload_classes loaded, so
+ * no call waits for them.
+ */
+static bool s_preloadingSession = false;
+
 /*
  * Whether Backend_warnJEP411() should emit a warning when called.
  * Initially true, because it may be called very early from the deferInit check,
@@ -576,6 +633,7 @@ ASSIGNENUMHOOK(java_thread_pg_entry)
  */
 static void initsequencer(enum initstage is, bool tolerant)
 {
+	instr_time phaseStart;
 	JVMOptList optList;
 	Invocation ctx;
 	jint JNIresult;
@@ -714,6 +772,7 @@ static void initsequencer(enum initstage is, bool tolerant)
 		 */
 		on_proc_exit(_destroyJavaVM, 0);
 		s_startingVM = true;
+		INSTR_TIME_SET_CURRENT(phaseStart);
 		JNIresult = initializeJavaVM(&optList); /* frees the optList */
 		s_startingVM = false;
 		if( JNI_OK != JNIresult )
@@ -734,6 +793,9 @@ static void initsequencer(enum initstage is, bool tolerant)
 			goto check_tolerant;
 		}
 		jvmStartedAtLeastOnce = true;
+		recordStartupPhase(
+			org_postgresql_pljava_internal_Backend_STARTUP_JVM_CREATE,
+			&phaseStart);
 		elog(DEBUG2, "successfully created Java virtual machine");
 		initstage = IS_JAVAVM_STARTED;
 		/*FALLTHROUGH*/
@@ -751,8 +813,27 @@ static void initsequencer(enum initstage is, bool tolerant)
 		Invocation_pushBootContext(&ctx);
 		PG_TRY();
 		{
+			INSTR_TIME_SET_CURRENT(phaseStart);
 			initPLJavaClasses();
-			initJavaSession();
+			recordStartupPhase(
+				org_postgresql_pljava_internal_Backend_STARTUP_MODULE_INIT,
+				&phaseStart);
+			/*
+			 * A background or parallel worker may well be gone again after
+			 * one short query, so with pljava.lazy_worker_init, the session
+			 * setup (logging configuration, management beans) waits until a
+			 * function is actually created. See Backend_completeLazyInit.
+			 */
+			if ( lazyWorkerInit  &&  InstallHelper_isWorkerProcess() )
+				s_sessionInitPending = true;
+			else
+			{
+				INSTR_TIME_SET_CURRENT(phaseStart);
+				initJavaSession();
+				recordStartupPhase(
+					org_postgresql_pljava_internal_Backend_STARTUP_SESSION_INIT,
+					&phaseStart);
+			}
 			Invocation_popBootContext();
 			initstage = IS_PLJAVA_FOUND;
 		}
@@ -799,7 +880,10 @@ static void initsequencer(enum initstage is, bool tolerant)
 		/*FALLTHROUGH*/
 
 	case IS_PLJAVA_FOUND:
+		INSTR_TIME_SET_CURRENT(phaseStart);
 		greeting = InstallHelper_hello(); /*adjusts, freezes system properties*/
+		recordStartupPhase(
+			org_postgresql_pljava_internal_Backend_STARTUP_POLICY, &phaseStart);
 		ereport(NULL != pljavaLoadPath ? NOTICE : DEBUG1, (
 				errmsg("PL/Java loaded"),
 				errdetail("versions:\n%s", greeting)));
@@ -812,8 +896,15 @@ static void initsequencer(enum initstage is, bool tolerant)
 		{
 			warnJEP411 = javaGT11;
 			InstallHelper_groundwork(); /* sqlj schema, language handlers, ...*/
+			initstage = IS_COMPLETE;
+		}
+		else
+		{
+			initstage = IS_COMPLETE;
+			if ( s_preloadingSession
+				&&  NULL != preload_classes  &&  '\0' != *preload_classes )
+				InstallHelper_preload(); /* warm up for the calls to come */
 		}
-		initstage = IS_COMPLETE;
 		/*FALLTHROUGH*/
 
 	case IS_COMPLETE:
@@ -950,6 +1041,62 @@ static void reLogWithChangedLevel(int level)
 	FreeErrorData(edata);
 }
 
+/*
+ * Whether _PG_init is running because session_preload_libraries named PL/Java,
+ * in a session with classes to preload. The list is not searched for PL/Java's
+ * own name, which it may spell in several ways; but outside of a transaction, a
+ * client backend connected to a database loads a library only from that list
+ * or local_preload_libraries, as the session starts. A walsender also loads
+ * them, and is excluded, as is a session where only local_preload_libraries is
+ * set. The pljava.preload_classes variable is not defined until initsequencer
+ * runs, so its placeholder is consulted.
+ */
+static bool wantSessionPreload(void)
+{
+	char const *classes;
+
+	if ( IsTransactionState()  ||  ! IsUnderPostmaster  ||  am_walsender
+		||  NULL == MyProcPort  ||  ! OidIsValid(MyDatabaseId) )
+		return false;
+
+	if ( NULL == session_preload_libraries_string
+		||  '\0' == *session_preload_libraries_string )
+		return false;
+
+	classes = GetConfigOption("pljava.preload_classes", true, false);
+	return NULL != classes  &&  '\0' != *classes;
+}
+
+/*
+ * Loaded through session_preload_libraries, as a session starts and outside of
+ * any transaction: start PL/Java now, in a transaction of its own, and preload
+ * classes, so the first call finds it ready. There is no error handler yet to
+ * catch an ERROR here (it would end the session), so a failure is reported as
+ * a warning, and the first call will try again as usual.
+ */
+static void sessionPreloadInit(void)
+{
+	MemoryContext mcxt = CurrentMemoryContext;
+
+	s_preloadingSession = true;
+	StartTransactionCommand();
+	PG_TRY();
+	{
+		initsequencer( initstage, true);
+		CommitTransactionCommand();
+	}
+	PG_CATCH();
+	{
+		MemoryContextSwitchTo(mcxt); /* leave ErrorContext */
+		s_preloadingSession = false;
+		reLogWithChangedLevel(WARNING);
+		AbortCurrentTransaction();
+	}
+	PG_END_TRY();
+	s_preloadingSession = false;
+	MemoryContextSwitchTo(mcxt);
+}
+
 void _PG_init()
 {
 	char *sep;
@@ -976,7 +1123,14 @@ void _PG_init()
 		deferInit = true;
 	else
 		pljavaCheckExtension( NULL);
-	initsequencer( initstage, true);
+
+	if ( ! deferInit  &&  wantSessionPreload() )
+		sessionPreloadInit();
+	else
+		initsequencer( initstage, true);
+
+	/* after initsequencer has registered the GUCs */
+	SharedStore_requestSpace();
 }
 
 static void initPLJavaClasses(void)
@@ -1035,6 +1189,31 @@ static void initPLJavaClasses(void)
 		"(Ljava/lang/Class;Ljava/lang/Object;)V",
 		Java_org_postgresql_pljava_internal_Backend__1pokeJEP411
 		},
+		{
+		"_startupTimings",
+		"()[J",
+		Java_org_postgresql_pljava_internal_Backend__1startupTimings
+		},
+		{
+		"_getComputePoolSize",
+		"()I",
+		Java_org_postgresql_pljava_internal_Backend__1getComputePoolSize
+		},
+		{
+		"_getResourceCacheSize",
+		"()I",
+		Java_org_postgresql_pljava_internal_Backend__1getResourceCacheSize
+		},
+		{
+		"_getCatalogGeneration",
+		"()I",
+		Java_org_postgresql_pljava_internal_Backend__1getCatalogGeneration
+		},
+		{
+		"_checkForInterrupts",
+		"()V",
+		Java_org_postgresql_pljava_internal_Backend__1checkForInterrupts
+		},
 		{ 0, 0, 0 }
 	};
 
@@ -1099,10 +1278,39 @@ static void initPLJavaClasses(void)
 	SQLInputFromChunk_initialize();
 	SQLOutputToChunk_initialize();
 	SQLOutputToTuple_initialize();
+	pljava_BulkCopy_initialize();
+	pljava_LargeObjects_initialize();
+	pljava_SharedStore_initialize();
+
+	CacheRegisterRelcacheCallback(catalogRelcacheCB, (Datum)0);
+	CacheRegisterSyscacheCallback(NAMESPACEOID, catalogSyscacheCB, (Datum)0);
+	CacheRegisterSyscacheCallback(TYPEOID, catalogSyscacheCB, (Datum)0);
 
 	InstallHelper_initialize();
 }
 
+void Backend_completeLazyInit(void)
+{
+	instr_time start;
+
+	if ( ! s_sessionInitPending )
+		return;
+	INSTR_TIME_SET_CURRENT(start);
+	initJavaSession();
+	s_sessionInitPending = false;
+	recordStartupPhase(
+		org_postgresql_pljava_internal_Backend_STARTUP_SESSION_INIT, &start);
+}
+
+void Backend_recordFirstClassLoad(instr_time *start)
+{
+	if ( -1 == s_startupMicros[
+		org_postgresql_pljava_internal_Backend_STARTUP_FIRST_CLASS_LOAD] )
+		recordStartupPhase(
+			org_postgresql_pljava_internal_Backend_STARTUP_FIRST_CLASS_LOAD,
+			start);
+}
+
 int Backend_setJavaLogLevel(int logLevel)
 {
 	int oldLevel = s_javaLogLevel;
@@ -1779,6 +1987,21 @@ static void registerGUCOptions(void)
 		assign_allow_unenforced,
 		NULL); /* show hook */
 
+	STRING_GUC(
+		"pljava.preload_classes",
+		"Classes to load when PL/Java starts in a session",
+		"List entries of the form schema:class, or schema:* for every class "
+		"on that schema's class path, separated by commas. The classes are "
+		"loaded, but not initialized, as the session starts, when PL/Java is "
+		"named in session_preload_libraries.",
+		&preload_classes,
+		NULL, /* boot value */
+		PGC_SUSET,
+		0,    /* flags */
+		NULL, /* check hook */
+		NULL, /* assign hook */
+		NULL); /* show hook */
+
 	BOOL_GUC(
 		"pljava.debug",
 		"Stop the backend to attach a debugger",
@@ -1802,6 +2025,32 @@ static void registerGUCOptions(void)
 		NULL, /* check hook */
 		NULL, NULL); /* assign hook, show hook */
 
+	INT_GUC(
+		"pljava.compute_pool_size",
+		"Number of threads for parallel computation in Java functions",
+		"Zero, the default, uses one thread per available processor. "
+		"The pool is created when a session first uses it.",
+		&computePoolSize,
+		0,    /* boot value */
+		0, 32767,   /* min, max values */
+		PGC_SUSET,
+		0,    /* flags */
+		NULL, /* check hook */
+		NULL, NULL); /* assign hook, show hook */
+
+	INT_GUC(
+		"pljava.resource_cache_size",
+		"Memory for caching the contents of resources in installed jars",
+		"Zero disables the cache. A resource larger than a quarter of this "
+		"is not cached, and is read from the database each time it is opened.",
+		&resourceCacheSizeKB,
+		4096, /* boot value */
+		0, 1024 * 1024,   /* min, max values */
+		PGC_USERSET,
+		GUC_UNIT_KB,    /* flags */
+		NULL, /* check hook */
+		NULL, NULL); /* assign hook, show hook */
+
 	BOOL_GUC(
 		"pljava.release_lingering_savepoints",
 		"If true, lingering savepoints will be released on function exit. "
@@ -1828,6 +2077,34 @@ static void registerGUCOptions(void)
 		assign_enabled,
 		NULL); /* show hook */
 
+	BOOL_GUC(
+		"pljava.lazy_worker_init",
+		"In background and parallel workers, defer what session setup can be "
+		"deferred until a PL/Java function is first used",
+		"The Java VM must still be started in each worker that uses PL/Java, "
+		"but setting up logging and management beans waits until the first "
+		"PL/Java function is created. The durations of the startup phases "
+		"can be seen with sqlj.startup_timings().",
+		&lazyWorkerInit,
+		true, /* boot value */
+		PGC_SUSET,
+		0,    /* flags */
+		NULL, /* check hook */
+		NULL, NULL); /* assign hook, show hook */
+
+	INT_GUC(
+		"pljava.shared_store_size",
+		"Size of the shared memory key/value store for Java functions",
+		"Takes effect only when PL/Java is in shared_preload_libraries. "
+		"Zero, the default, reserves no shared memory.",
+		&SharedStore_sizeKB,
+		0,    /* boot value */
+		0, 1024 * 1024,   /* min, max values */
+		PGC_POSTMASTER,
+		GUC_UNIT_KB,    /* flags */
+		NULL, /* check hook */
+		NULL, NULL); /* assign hook, show hook */
+
 	BOOL_GUC(
 		"pljava.allow_unenforced_udt",
 		"Whether PL/Java-based \"mapped UDT\" data conversion functions are "
@@ -2178,6 +2455,63 @@ Java_org_postgresql_pljava_internal_Backend__1getStatementCacheSize(JNIEnv* env,
 	return statementCacheSize;
 }
 
+/*
+ * Class:     org_postgresql_pljava_internal_Backend
+ * Method:    _getComputePoolSize
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_postgresql_pljava_internal_Backend__1getComputePoolSize(JNIEnv* env, jclass cls)
+{
+	return computePoolSize;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_Backend
+ * Method:    _getResourceCacheSize
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_postgresql_pljava_internal_Backend__1getResourceCacheSize(JNIEnv* env, jclass cls)
+{
+	return resourceCacheSizeKB;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_Backend
+ * Method:    _getCatalogGeneration
+ * Signature: ()I
+ */
+JNIEXPORT jint JNICALL
+Java_org_postgresql_pljava_internal_Backend__1getCatalogGeneration(JNIEnv* env, jclass cls)
+{
+	return (jint)s_catalogGeneration;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_Backend
+ * Method:    _checkForInterrupts
+ * Signature: ()V
+ *
+ * Lets PostgreSQL service any pending interrupt. A query cancel or statement
+ * timeout becomes an ERROR, and so a ServerException in Java.
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_Backend__1checkForInterrupts(JNIEnv* env, jclass cls)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		CHECK_FOR_INTERRUPTS();
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("CHECK_FOR_INTERRUPTS");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
+
 /*
  * Class:     org_postgresql_pljava_internal_Backend
  * Method:    _log
@@ -2252,6 +2586,30 @@ Java_org_postgresql_pljava_internal_Backend__1isCreatingExtension(JNIEnv *env, j
 	return inExtension ? JNI_TRUE : JNI_FALSE;
 }
 
+/*
+ * Class:     org_postgresql_pljava_internal_Backend
+ * Method:    _startupTimings
+ * Signature: ()[J
+ */
+JNIEXPORT jlongArray JNICALL
+Java_org_postgresql_pljava_internal_Backend__1startupTimings(JNIEnv *env, jclass cls)
+{
+	jlongArray result = NULL;
+	jlong values[org_postgresql_pljava_internal_Backend_STARTUP_PHASES];
+	int i;
+
+	for ( i = 0; i < org_postgresql_pljava_internal_Backend_STARTUP_PHASES; ++i )
+		values[i] = (jlong)s_startupMicros[i];
+
+	BEGIN_NATIVE_NO_ERRCHECK
+	result = JNI_newLongArray(
+		org_postgresql_pljava_internal_Backend_STARTUP_PHASES);
+	JNI_setLongArrayRegion(result, 0,
+		org_postgresql_pljava_internal_Backend_STARTUP_PHASES, values);
+	END_NATIVE
+	return result;
+}
+
 /*
  * Class:     org_postgresql_pljava_internal_Backend
  * Method:    _allowingUnenforcedUDT
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+#include <postgres.h>
+#include <miscadmin.h>
+#include <access/xact.h>
+#include <catalog/namespace.h>
+#include <nodes/makefuncs.h>
+#include <utils/acl.h>
+#include <utils/builtins.h>
+#include <utils/lsyscache.h>
+#include <utils/memutils.h>
+#include <utils/rel.h>
+#include <utils/snapmgr.h>
+
+#if PG_VERSION_NUM >= 120000
+#include <access/sysattr.h>
+#include <access/table.h>
+#include <commands/copy.h>
+#include <executor/executor.h>
+#include <nodes/bitmapset.h>
+#include <parser/parse_node.h>
+#include <parser/parse_relation.h>
+#include <tcop/utility.h>
+#include <utils/rls.h>
+#include <utils/varlena.h>
+#endif
+
+#include "org_postgresql_pljava_internal_BulkCopy.h"
+#include "pljava/Exception.h"
+#include "pljava/Function.h"
+#include "pljava/Invocation.h"
+#include "pljava/type/String.h"
+
+#if PG_VERSION_NUM >= 140000
+typedef CopyFromState pljava_CopyFromState;
+#elif PG_VERSION_NUM >= 120000
+typedef CopyState pljava_CopyFromState;
+#endif
+
+/*
+ * COPY's data source callback takes no argument for passing state, so the
+ * array being copied from, and the position in it, are kept here. Only one
+ * copy can be in progress, as it runs on the PG thread with no way to
+ * reenter Java code that could start another.
+ */
+static jbyteArray s_copyInData;
+static jint       s_copyInPos;
+static jint       s_copyInEnd;
+
+extern void pljava_BulkCopy_initialize(void);
+void pljava_BulkCopy_initialize(void)
+{
+	JNINativeMethod methods[] = {
+		{
+		"_copyIn",
+		"(Ljava/lang/String;[Ljava/lang/String;[BI)J",
+		Java_org_postgresql_pljava_internal_BulkCopy__1copyIn
+		},
+		{ 0, 0, 0 }};
+
+	PgObject_registerNatives("org/postgresql/pljava/internal/BulkCopy",
+		methods);
+}
+
+#if PG_VERSION_NUM >= 120000
+static int _copyInSource(void *outbuf, int minread, int maxread)
+{
+	jint avail = s_copyInEnd - s_copyInPos;
+	if ( avail > maxread )
+		avail = maxread;
+	if ( avail > 0 )
+	{
+		JNI_getByteArrayRegion(
+			s_copyInData, s_copyInPos, avail, (jbyte *)outbuf);
+		s_copyInPos += avail;
+	}
+	return (int)avail;
+}
+
+/*
+ * The attribute numbers of the named columns, or of all columns if attnames
+ * is NIL, with the checks CopyGetAttnums makes. That function is only exported
+ * from PG 14 on, so the same work is done here.
+ */
+static List *_copyInAttnums(Relation rel, List *attnames)
+{
+	TupleDesc tupDesc = RelationGetDescr(rel);
+	List *attnums = NIL;
+	ListCell *cur;
+	int i;
+
+	if ( NIL == attnames )
+	{
+		for ( i = 0; i < tupDesc->natts; ++ i )
+		{
+			Form_pg_attribute att = TupleDescAttr(tupDesc, i);
+			if ( att->attisdropped  ||  att->attgenerated )
+				continue;
+			attnums = lappend_int(attnums, i + 1);
+		}
+		return attnums;
+	}
+
+	foreach(cur, attnames)
+	{
+		char *name = strVal(lfirst(cur));
+		int attnum = attnameAttNum(rel, name, false);
+
+		if ( InvalidAttrNumber == attnum )
+			ereport(ERROR, (
+				errcode(ERRCODE_UNDEFINED_COLUMN),
+				errmsg("column \"%s\" of relation \"%s\" does not exist",
+					name, RelationGetRelationName(rel))));
+		if ( TupleDescAttr(tupDesc, attnum - 1)->attgenerated )
+			ereport(ERROR, (
+				errcode(ERRCODE_INVALID_COLUMN_REFERENCE),
+				errmsg("column \"%s\" is a generated column", name)));
+		if ( list_member_int(attnums, attnum) )
+			ereport(ERROR, (
+				errcode(ERRCODE_DUPLICATE_COLUMN),
+				errmsg("column \"%s\" specified more than once", name)));
+		attnums = lappend_int(attnums, attnum);
+	}
+	return attnums;
+}
+
+/*
+ * Add the range table entry for the relation to pstate, as DoCopy does, and
+ * make the same check of INSERT privilege on the columns to be copied. COPY's
+ * executor state refers to the relation as range table index 1.
+ */
+static void _addCopyInRTE(ParseState *pstate, Relation rel, List *attnames)
+{
+	List *attnums = _copyInAttnums(rel, attnames);
+	Bitmapset *inserted = NULL;
+	ListCell *cur;
+#if PG_VERSION_NUM >= 160000
+	RTEPermissionInfo *perminfo;
+#else
+	RangeTblEntry *rte;
+#endif
+
+	foreach(cur, attnums)
+	{
+		int attno = lfirst_int(cur) - FirstLowInvalidHeapAttributeNumber;
+		inserted = bms_add_member(inserted, attno);
+	}
+
+#if PG_VERSION_NUM >= 160000
+	perminfo = addRangeTableEntryForRelation(pstate, rel, RowExclusiveLock,
+		NULL, false, false)->p_perminfo;
+	perminfo->requiredPerms = ACL_INSERT;
+	perminfo->insertedCols = inserted;
+	ExecCheckPermissions(pstate->p_rtable, list_make1(perminfo), true);
+#else
+#if PG_VERSION_NUM >= 130000
+	rte = addRangeTableEntryForRelation(pstate, rel, RowExclusiveLock,
+		NULL, false, false)->p_rte;
+#else
+	rte = addRangeTableEntryForRelation(pstate, rel, RowExclusiveLock,
+		NULL, false, false);
+#endif
+	rte->requiredPerms = ACL_INSERT;
+	rte->insertedCols = inserted;
+	ExecCheckRTPerms(pstate->p_rtable, true);
+#endif
+}
+
+/*
+ * The other checks DoCopy would make for a COPY FROM into this relation.
+ */
+static void _checkCopyIn(Relation rel)
+{
+	Oid relid = RelationGetRelid(rel);
+
+	if ( Function_isCurrentReadOnly() )
+		ereport(ERROR, (
+			errcode(ERRCODE_FEATURE_NOT_SUPPORTED),
+			errmsg("bulk insert is not allowed in a non-volatile function")));
+
+	if ( RLS_ENABLED == check_enable_rls(relid, InvalidOid, false) )
+		ereport(ERROR, (
+			errcode(ERRCODE_FEATURE_NOT_SUPPORTED),
+			errmsg("bulk insert is not supported for table \"%s\" "
+				"with row-level security", RelationGetRelationName(rel))));
+
+	PreventCommandIfReadOnly("BULK INSERT");
+}
+#endif
+
+/****************************************
+ * JNI methods
+ ****************************************/
+
+/*
+ * Class:     org_postgresql_pljava_internal_BulkCopy
+ * Method:    _copyIn
+ * Signature: (Ljava/lang/String;[Ljava/lang/String;[BI)J
+ *
+ * Runs one complete COPY FROM, in text format with UTF8 encoding, reading from
+ * the supplied array through _copyInSource. Each call opens the relation and
+ * sets up COPY's executor state afresh, so the Java caller batches many rows
+ * per call.
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_BulkCopy__1copyIn(JNIEnv* env, jclass cls, jstring table, jobjectArray columns, jbyteArray data, jint length)
+{
+	jlong result = 0;
+
+	BEGIN_NATIVE
+#if PG_VERSION_NUM < 120000
+	Exception_featureNotSupported("BulkInserter", "12");
+#else
+	MemoryContext copyCxt = AllocSetContextCreate(CurrentMemoryContext,
+		"PL/Java bulk insert", ALLOCSET_DEFAULT_SIZES);
+	MemoryContext oldCxt = MemoryContextSwitchTo(copyCxt);
+	volatile bool snapshotPushed = false;
+	PG_TRY();
+	{
+		char* tableName = String_createNTS(table);
+		jsize ncols = JNI_getArrayLength(columns);
+		List* attnames = NIL;
+		List* options;
+		jsize i;
+		RangeVar* rv;
+		Oid relid;
+		Relation rel;
+		ParseState* pstate;
+		pljava_CopyFromState cstate;
+		uint64 processed;
+
+		for ( i = 0; i < ncols; ++ i )
+		{
+			jstring col = (jstring)JNI_getObjectArrayElement(columns, i);
+			attnames = lappend(attnames, makeString(String_createNTS(col)));
+			JNI_deleteLocalRef(col);
+		}
+
+		options = list_make2(
+			makeDefElem("format", (Node *)makeString(pstrdup("text")), -1),
+			makeDefElem("encoding", (Node *)makeString(pstrdup("UTF8")), -1));
+
+		rv = makeRangeVarFromNameList(
+			textToQualifiedNameList(cstring_to_text(tableName)));
+		relid = RangeVarGetRelid(rv, RowExclusiveLock, false);
+		rel = table_open(relid, NoLock);
+
+		_checkCopyIn(rel);
+
+		pstate = make_parsestate(NULL);
+		_addCopyInRTE(pstate, rel, attnames);
+
+		s_copyInData = data;
+		s_copyInPos = 0;
+		s_copyInEnd = length;
+
+		CommandCounterIncrement();
+		PushActiveSnapshot(GetTransactionSnapshot());
+		snapshotPushed = true;
+
+#if PG_VERSION_NUM >= 140000
+		cstate = BeginCopyFrom(pstate, rel, NULL, NULL, false,
+			_copyInSource, attnames, options);
+#else
+		cstate = BeginCopyFrom(pstate, rel, NULL, false,
+			_copyInSource, attnames, options);
+#endif
+		processed = CopyFrom(cstate);
+		EndCopyFrom(cstate);
+
+		snapshotPushed = false;
+		PopActiveSnapshot();
+		CommandCounterIncrement();
+
+		table_close(rel, NoLock);
+		s_copyInData = NULL;
+		result = (jlong)processed;
+
+		MemoryContextSwitchTo(oldCxt);
+		MemoryContextDelete(copyCxt);
+	}
+	PG_CATCH();
+	{
+		s_copyInData = NULL;
+		if ( snapshotPushed )
+			PopActiveSnapshot();
+		MemoryContextSwitchTo(oldCxt);
+		Exception_throw_ERROR("CopyFrom");
+	}
+	PG_END_TRY();
+#endif
+	END_NATIVE
+	return result;
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -13,8 +13,10 @@
  * @author Thomas Hallgren
  */
 #include <postgres.h>
+#include <access/xact.h>
 #include <executor/tuptable.h>
 #include <utils/guc.h>
+#include <utils/memutils.h>
 
 #include "org_postgresql_pljava_internal_ExecutionPlan.h"
 #include "pljava/DualState.h"
@@ -40,6 +42,11 @@
 #define SPI_READONLY_CLEARED \
 		org_postgresql_pljava_internal_ExecutionPlan_SPI_READONLY_CLEARED
 
+#define BATCH_SUCCESS_NO_INFO \
+		org_postgresql_pljava_internal_ExecutionPlan_BATCH_SUCCESS_NO_INFO
+#define BATCH_EXECUTE_FAILED \
+		org_postgresql_pljava_internal_ExecutionPlan_BATCH_EXECUTE_FAILED
+
 static jclass s_ExecutionPlan_class;
 static jmethodID s_ExecutionPlan_init;
 
@@ -66,6 +73,11 @@ void pljava_ExecutionPlan_initialize(void)
 		Java_org_postgresql_pljava_internal_ExecutionPlan__1execute
 		},
 		{
+		"_executeIsolated",
+		"(J[[Ljava/lang/Object;SI[J[Ljava/lang/String;[Ljava/lang/String;)V",
+		Java_org_postgresql_pljava_internal_ExecutionPlan__1executeIsolated
+		},
+		{
 		"_prepare",
 		"(Ljava/lang/Object;Ljava/lang/String;[Lorg/postgresql/pljava/internal/Oid;)Lorg/postgresql/pljava/internal/ExecutionPlan;",
 		Java_org_postgresql_pljava_internal_ExecutionPlan__1prepare
@@ -266,6 +278,144 @@ Java_org_postgresql_pljava_internal_ExecutionPlan__1execute(JNIEnv* env, jclass
 	return result;
 }
 
+/*
+ * Class:     org_postgresql_pljava_internal_ExecutionPlan
+ * Method:    _executeIsolated
+ * Signature: (J[[Ljava/lang/Object;SI[J[Ljava/lang/String;[Ljava/lang/String;)V
+ *
+ * Execute the plan for each entry of jbatch in its own subtransaction, as
+ * PL/pgSQL does for a block with an exception handler. An entry's error is
+ * recorded in jstates and jmessages and its subtransaction rolled back, and
+ * the loop goes on; only a query cancel is rethrown, as it would not be
+ * caught by WHEN OTHERS either. The parameter values of each entry are
+ * coerced in a memory context reset after the entry.
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_ExecutionPlan__1executeIsolated(JNIEnv* env, jclass clazz, jlong _this, jobjectArray jbatch, jshort readonly_spec, jint count, jlongArray jcounts, jobjectArray jstates, jobjectArray jmessages)
+{
+	if(_this == 0)
+		return;
+
+	BEGIN_NATIVE
+	STACK_BASE_VARS
+	MemoryContext callerCxt = CurrentMemoryContext;
+	/* volatile, so the outer PG_CATCH can free them if an error is rethrown */
+	MemoryContext volatile entryCxt = NULL;
+	jlong* volatile counts = NULL;
+	STACK_BASE_PUSH(env)
+	PG_TRY();
+	{
+		SPIPlanPtr plan = JLongGet(SPIPlanPtr, _this);
+		jsize entries = JNI_getArrayLength(jbatch);
+		ResourceOwner callerOwner = CurrentResourceOwner;
+		volatile bool stop = false;
+		bool read_only;
+		jsize i;
+
+		entryCxt = AllocSetContextCreate(callerCxt,
+			"PL/Java isolated batch", ALLOCSET_DEFAULT_SIZES);
+		counts = (jlong*)palloc((entries + 1) * sizeof(jlong));
+
+		Invocation_assertConnect();
+		if ( SPI_READONLY_DEFAULT == readonly_spec )
+			read_only = Function_isCurrentReadOnly();
+		else
+			read_only = (SPI_READONLY_FORCED == readonly_spec);
+
+		for ( i = 0; i < entries  &&  ! stop; ++ i )
+		{
+			jobjectArray jvalues = JNI_getObjectArrayElement(jbatch, i);
+
+			BeginInternalSubTransaction(NULL);
+			MemoryContextSwitchTo(entryCxt);
+
+			PG_TRY();
+			{
+				Datum* values = 0;
+				char*  nulls  = 0;
+				int    rc;
+
+				if ( coerceObjects(plan, jvalues, &values, &nulls) )
+				{
+					rc = SPI_execute_plan(
+						plan, values, nulls, read_only, (int)count);
+					if ( rc < 0 )
+						ereport(ERROR, (
+							errcode(ERRCODE_INTERNAL_ERROR),
+							errmsg("SPI_execute_plan failed: %s",
+								SPI_result_code_string(rc))));
+					counts[i] = (SPI_OK_SELECT == rc)
+						? BATCH_SUCCESS_NO_INFO : (jlong)SPI_processed;
+					SPI_freetuptable(SPI_tuptable);
+				}
+				else /* a Java exception is pending; end the batch */
+					stop = true;
+
+				ReleaseCurrentSubTransaction();
+				MemoryContextSwitchTo(callerCxt);
+				CurrentResourceOwner = callerOwner;
+#if PG_VERSION_NUM < 100000
+				SPI_restore_connection();
+#endif
+			}
+			PG_CATCH();
+			{
+				ErrorData* edata;
+				jstring js;
+
+				MemoryContextSwitchTo(entryCxt);
+				edata = CopyErrorData();
+				FlushErrorState();
+
+				RollbackAndReleaseCurrentSubTransaction();
+				MemoryContextSwitchTo(callerCxt);
+				CurrentResourceOwner = callerOwner;
+#if PG_VERSION_NUM < 100000
+				SPI_restore_connection();
+#endif
+
+				if ( ERRCODE_QUERY_CANCELED == edata->sqlerrcode )
+					ReThrowError(edata);
+
+				counts[i] = BATCH_EXECUTE_FAILED;
+				js = String_createJavaStringFromNTS(
+					unpack_sql_state(edata->sqlerrcode));
+				JNI_setObjectArrayElement(jstates, i, js);
+				JNI_deleteLocalRef(js);
+				js = String_createJavaStringFromNTS(edata->message);
+				JNI_setObjectArrayElement(jmessages, i, js);
+				JNI_deleteLocalRef(js);
+			}
+			PG_END_TRY();
+
+			JNI_deleteLocalRef(jvalues);
+			MemoryContextReset(entryCxt);
+		}
+
+		if ( ! stop )
+			JNI_setLongArrayRegion(jcounts, 0, entries, counts);
+		pfree(counts);
+		MemoryContextDelete(entryCxt);
+	}
+	PG_CATCH();
+	{
+		/*
+		 * Reached with a query cancel rethrown, or an error outside any one
+		 * entry. A rethrown error's strings have already been copied out of
+		 * entryCxt into ErrorContext, so entryCxt can go.
+		 */
+		MemoryContextSwitchTo(callerCxt);
+		if ( NULL != counts )
+			pfree(counts);
+		if ( NULL != entryCxt )
+			MemoryContextDelete(entryCxt);
+		Exception_throw_ERROR("SPI_execute_plan");
+	}
+	PG_END_TRY();
+	STACK_BASE_POP()
+	END_NATIVE
+}
+
 /*
  * Class:     org_postgresql_pljava_internal_ExecutionPlan
  * Method:    _prepare
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -13,6 +13,7 @@
 #include "org_postgresql_pljava_internal_Function.h"
 #include "org_postgresql_pljava_internal_Function_EarlyNatives.h"
 #include "pljava/PgObject_priv.h"
+#include "pljava/Backend.h"
 #include "pljava/Exception.h"
 #include "pljava/InstallHelper.h"
 #include "pljava/Invocation.h"
@@ -711,6 +712,7 @@ static Function Function_create(
 	jstring schemaName;
 	Datum d;
 	jobject invocable;
+	instr_time start;
 
 	if ( trusted != ltrust )
 		elog(ERROR,
@@ -727,6 +729,8 @@ static Function Function_create(
 
 	PG_TRY();
 	{
+		Backend_completeLazyInit();
+		INSTR_TIME_SET_CURRENT(start);
 		invocable =
 			JNI_callStaticObjectMethod(s_Function_class, s_Function_create,
 			PointerGetJLong(self), Type_coerceDatum(s_pgproc_Type, d), lname,
@@ -746,6 +750,7 @@ static Function Function_create(
 	}
 	PG_END_TRY();
 
+	Backend_recordFirstClassLoad(&start);
 	JNI_deleteLocalRef(schemaName);
 	ReleaseSysCache(lngTup);
 	ReleaseSysCache(procTup);
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015-2024 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2015-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -71,6 +71,7 @@
 static jclass s_InstallHelper_class;
 static jmethodID s_InstallHelper_hello;
 static jmethodID s_InstallHelper_groundwork;
+static jmethodID s_InstallHelper_preload;
 static jfieldID  s_InstallHelper_MANAGE_CONTEXT_LOADER;
 
 static bool extensionExNihilo = false;
@@ -361,6 +362,14 @@ bool InstallHelper_shouldDeferInit()
 	if ( AmAutoVacuumWorkerProcess() || AmBackgroundWorkerProcess() )
 			return true;
 
+	/*
+	 * Loaded through shared_preload_libraries: in the postmaster (or, with
+	 * EXEC_BACKEND, early in a child) there is no transaction or database to
+	 * start the JVM in; it will be started on first use, as usual.
+	 */
+	if ( process_shared_preload_libraries_in_progress )
+		return true;
+
 	if ( ! IsBinaryUpgrade )
 		return false;
 
@@ -368,6 +377,11 @@ bool InstallHelper_shouldDeferInit()
 	return true;
 }
 
+bool InstallHelper_isWorkerProcess()
+{
+	return AmAutoVacuumWorkerProcess() || AmBackgroundWorkerProcess();
+}
+
 bool InstallHelper_isPLJavaFunction(Oid fn, char **langName, bool *trusted)
 {
 	char *itsPath;
@@ -567,6 +581,38 @@ void InstallHelper_groundwork()
 	PG_END_TRY();
 }
 
+void InstallHelper_preload()
+{
+	Invocation ctx;
+	bool snapshot_set = false;
+	Invocation_pushInvocation(&ctx);
+	ctx.function = Function_INIT_WRITER;
+	if ( ! ActiveSnapshotSet() )
+	{
+		PushActiveSnapshot(GetTransactionSnapshot());
+		snapshot_set = true;
+	}
+	PG_TRY();
+	{
+		JNI_callStaticVoidMethod(s_InstallHelper_class, s_InstallHelper_preload);
+		if ( snapshot_set )
+		{
+			PopActiveSnapshot();
+		}
+		Invocation_popInvocation(false);
+	}
+	PG_CATCH();
+	{
+		if ( snapshot_set )
+		{
+			PopActiveSnapshot();
+		}
+		Invocation_popInvocation(true);
+		PG_RE_THROW();
+	}
+	PG_END_TRY();
+}
+
 void InstallHelper_initialize()
 {
 	s_InstallHelper_class = (jclass)JNI_newGlobalRef(PgObject_getJavaClass(
@@ -582,4 +628,6 @@ void InstallHelper_initialize()
 	s_InstallHelper_groundwork = PgObject_getStaticJavaMethod(
 		s_InstallHelper_class, "groundwork",
 		"(Ljava/lang/String;Ljava/lang/String;Ljava/lang/String;ZZ)V");
+	s_InstallHelper_preload = PgObject_getStaticJavaMethod(
+		s_InstallHelper_class, "preload", "()V");
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+#include <postgres.h>
+#include <fmgr.h>
+#include <libpq/be-fsstubs.h>
+#include <libpq/libpq-fs.h>
+
+#if PG_VERSION_NUM >= 110000
+#include <utils/fmgrprotos.h>
+#define LO_FN(name) be_##name
+#else
+#define LO_FN(name) name
+#endif
+
+#include "org_postgresql_pljava_internal_LargeObjects.h"
+#include "pljava/Exception.h"
+#include "pljava/Invocation.h"
+
+/*
+ * The server-side large object descriptors used here are the ones the SQL
+ * functions lo_open, loread, lo_lseek64 and so on use, so the server takes
+ * care of privilege checks at open time and of closing at end of transaction.
+ * The fmgr-callable functions are invoked directly, and lo_read/lo_write,
+ * which the server exports for C callers, move the data without a bytea copy.
+ */
+
+extern void pljava_LargeObjects_initialize(void);
+void pljava_LargeObjects_initialize(void)
+{
+	JNINativeMethod methods[] = {
+		{
+		"_create",
+		"()J",
+		Java_org_postgresql_pljava_internal_LargeObjects__1create
+		},
+		{
+		"_open",
+		"(JI)I",
+		Java_org_postgresql_pljava_internal_LargeObjects__1open
+		},
+		{
+		"_close",
+		"(I)V",
+		Java_org_postgresql_pljava_internal_LargeObjects__1close
+		},
+		{
+		"_read",
+		"(IJ[BII)I",
+		Java_org_postgresql_pljava_internal_LargeObjects__1read
+		},
+		{
+		"_write",
+		"(IJ[BII)V",
+		Java_org_postgresql_pljava_internal_LargeObjects__1write
+		},
+		{
+		"_length",
+		"(I)J",
+		Java_org_postgresql_pljava_internal_LargeObjects__1length
+		},
+		{
+		"_truncate",
+		"(IJ)V",
+		Java_org_postgresql_pljava_internal_LargeObjects__1truncate
+		},
+		{
+		"_unlink",
+		"(J)V",
+		Java_org_postgresql_pljava_internal_LargeObjects__1unlink
+		},
+		{ 0, 0, 0 }};
+
+	StaticAssertStmt(
+		org_postgresql_pljava_internal_LargeObjects_INV_READ == INV_READ &&
+		org_postgresql_pljava_internal_LargeObjects_INV_WRITE == INV_WRITE,
+		"LargeObjects.java mode bits do not match libpq-fs.h");
+
+	PgObject_registerNatives("org/postgresql/pljava/internal/LargeObjects",
+		methods);
+}
+
+static int64 _seek(jint fd, int64 offset, int whence)
+{
+	return DatumGetInt64(DirectFunctionCall3(LO_FN(lo_lseek64),
+		Int32GetDatum(fd), Int64GetDatum(offset), Int32GetDatum(whence)));
+}
+
+/****************************************
+ * JNI methods
+ ****************************************/
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _create
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1create(JNIEnv* env, jclass cls)
+{
+	jlong result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		result = (jlong)DatumGetObjectId(
+			DirectFunctionCall1(LO_FN(lo_creat), Int32GetDatum(-1)));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_creat");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _open
+ * Signature: (JI)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1open(JNIEnv* env, jclass cls, jlong oid, jint mode)
+{
+	jint result = -1;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		result = DatumGetInt32(DirectFunctionCall2(LO_FN(lo_open),
+			ObjectIdGetDatum((Oid)oid), Int32GetDatum(mode)));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_open");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _close
+ * Signature: (I)V
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1close(JNIEnv* env, jclass cls, jint fd)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		DirectFunctionCall1(LO_FN(lo_close), Int32GetDatum(fd));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_close");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _read
+ * Signature: (IJ[BII)I
+ */
+JNIEXPORT jint JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1read(JNIEnv* env, jclass cls, jint fd, jlong pos, jbyteArray buf, jint off, jint len)
+{
+	jint result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		char *data = palloc(len > 0 ? len : 1);
+		_seek(fd, pos, SEEK_SET);
+		result = lo_read(fd, data, len);
+		if ( 0 < result )
+			JNI_setByteArrayRegion(buf, off, result, (jbyte *)data);
+		pfree(data);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_read");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _write
+ * Signature: (IJ[BII)V
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1write(JNIEnv* env, jclass cls, jint fd, jlong pos, jbyteArray buf, jint off, jint len)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		char *data = palloc(len > 0 ? len : 1);
+		JNI_getByteArrayRegion(buf, off, len, (jbyte *)data);
+		_seek(fd, pos, SEEK_SET);
+		lo_write(fd, data, len);
+		pfree(data);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_write");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _length
+ * Signature: (I)J
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1length(JNIEnv* env, jclass cls, jint fd)
+{
+	jlong result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		result = (jlong)_seek(fd, 0, SEEK_END);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_lseek64");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _truncate
+ * Signature: (IJ)V
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1truncate(JNIEnv* env, jclass cls, jint fd, jlong len)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		DirectFunctionCall2(LO_FN(lo_truncate64),
+			Int32GetDatum(fd), Int64GetDatum(len));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_truncate64");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_LargeObject
+ * Method:    _unlink
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_LargeObjects__1unlink(JNIEnv* env, jclass cls, jlong oid)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		DirectFunctionCall1(LO_FN(lo_unlink), ObjectIdGetDatum((Oid)oid));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("lo_unlink");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
@@ -0,0 +1,649 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+#include <postgres.h>
+#include <miscadmin.h>
+#include <storage/ipc.h>
+#include <storage/lwlock.h>
+#include <storage/shmem.h>
+
+#if PG_VERSION_NUM >= 130000
+#include <common/hashfn.h>
+#else
+#include <access/hash.h>
+#endif
+
+#include "org_postgresql_pljava_internal_SharedStoreImpl.h"
+#include "pljava/Exception.h"
+#include "pljava/Invocation.h"
+#include "pljava/JNICalls.h"
+#include "pljava/PgObject.h"
+#include "pljava/SharedStore.h"
+
+/*
+ * The store is one fixed region of the main shared memory segment, reserved
+ * at postmaster start, so it needs PL/Java in shared_preload_libraries. It
+ * holds a header, an open-addressing hash table of buckets, and an arena into
+ * which keys and values are copied. The arena is append-only: space is
+ * allocated by bumping a pointer and is never reused, not even when the whole
+ * store is cleared, so the space of a replaced or removed value is only
+ * recovered when the server restarts. That is what lets a value, once
+ * written, never change, so Java can read it through a direct ByteBuffer over
+ * the arena without holding the lock. Suited to data loaded once and read
+ * often, not to data often replaced.
+ *
+ * Keys are prefixed with the database Oid, so each database has its own key
+ * space. Any role may read any key of its database, but a key belongs to the
+ * role that first stored it, and only that role or a superuser may replace or
+ * remove it. One LWLock guards the header and buckets; lookups take it shared.
+ *
+ * The region is set up by the postmaster, from a shmem_startup_hook, before
+ * any backend starts; a backend only attaches to it.
+ */
+
+#define SHAREDSTORE_NAME "PL/Java shared store"
+#define SHAREDSTORE_MAGIC 0x504a5353 /* 'PJSS' */
+
+typedef enum
+{
+	BUCKET_EMPTY = 0,
+	BUCKET_LIVE,
+	BUCKET_DEAD
+} BucketState;
+
+typedef struct
+{
+	uint32 hash;
+	uint32 state;
+	uint64 keyOffset;
+	uint32 keyLen;
+	Oid owner;         /* role that stored the key first */
+	uint64 valueOffset;
+	uint64 valueLen;
+	uint64 version;
+} Bucket;
+
+typedef struct
+{
+	uint32 magic;
+	uint32 nbuckets;   /* a power of two */
+	uint32 nused;      /* buckets not BUCKET_EMPTY */
+	uint32 nlive;
+	uint64 arenaSize;
+	uint64 arenaUsed;
+	uint64 nextVersion;
+	Bucket buckets[FLEXIBLE_ARRAY_MEMBER];
+} Header;
+
+int SharedStore_sizeKB = 0;
+
+static bool s_requested = false;
+static Header *s_header = NULL;
+static char *s_arena = NULL;
+static LWLock *s_lock = NULL;
+
+#if PG_VERSION_NUM >= 150000
+static shmem_request_hook_type s_prevShmemRequestHook = NULL;
+#endif
+static shmem_startup_hook_type s_prevShmemStartupHook = NULL;
+
+/*
+ * One bucket for each 256 bytes of the store, on the notion that a typical
+ * key and value together take about that; the table is full at 3/4.
+ */
+static uint32 _bucketCount(void)
+{
+	Size total = (Size)SharedStore_sizeKB * 1024;
+	uint32 n = 64;
+	while ( n < total / 256  &&  n < (1U << 30) )
+		n <<= 1;
+	return n;
+}
+
+static Size _headerSize(void)
+{
+	return MAXALIGN(
+		offsetof(Header, buckets) + _bucketCount() * sizeof (Bucket));
+}
+
+static Size _totalSize(void)
+{
+	return add_size(_headerSize(), (Size)SharedStore_sizeKB * 1024);
+}
+
+static void _requestShmem(void)
+{
+	RequestAddinShmemSpace(_totalSize());
+	RequestNamedLWLockTranche(SHAREDSTORE_NAME, 1);
+}
+
+#if PG_VERSION_NUM >= 150000
+static void _shmemRequest(void)
+{
+	if ( NULL != s_prevShmemRequestHook )
+		s_prevShmemRequestHook();
+	_requestShmem();
+}
+#endif
+
+/*
+ * Create and initialize the region, or, in an EXEC_BACKEND child, find the one
+ * the postmaster created. Runs as the shmem_startup_hook.
+ */
+static void _shmemStartup(void)
+{
+	bool found;
+	Header *h;
+
+	if ( NULL != s_prevShmemStartupHook )
+		s_prevShmemStartupHook();
+
+	LWLockAcquire(AddinShmemInitLock, LW_EXCLUSIVE);
+	h = ShmemInitStruct(SHAREDSTORE_NAME, _totalSize(), &found);
+	if ( ! found )
+	{
+		h->magic = SHAREDSTORE_MAGIC;
+		h->nbuckets = _bucketCount();
+		h->nused = 0;
+		h->nlive = 0;
+		h->arenaSize = (uint64)SharedStore_sizeKB * 1024;
+		h->arenaUsed = 0;
+		h->nextVersion = 1;
+		memset(h->buckets, 0, h->nbuckets * sizeof (Bucket));
+	}
+	LWLockRelease(AddinShmemInitLock);
+}
+
+void SharedStore_requestSpace(void)
+{
+	if ( ! process_shared_preload_libraries_in_progress
+		||  0 == SharedStore_sizeKB )
+		return;
+
+	s_requested = true;
+#if PG_VERSION_NUM >= 150000
+	s_prevShmemRequestHook = shmem_request_hook;
+	shmem_request_hook = _shmemRequest;
+#else
+	_requestShmem();
+#endif
+	s_prevShmemStartupHook = shmem_startup_hook;
+	shmem_startup_hook = _shmemStartup;
+}
+
+/*
+ * Attach to the store the postmaster created. Returns false if there is none.
+ */
+static bool _attach(void)
+{
+	bool found;
+	Header *h;
+
+	if ( NULL != s_header )
+		return true;
+	if ( ! s_requested )
+		return false;
+
+	LWLockAcquire(AddinShmemInitLock, LW_EXCLUSIVE);
+	h = ShmemInitStruct(SHAREDSTORE_NAME, _totalSize(), &found);
+	LWLockRelease(AddinShmemInitLock);
+
+	if ( ! found  ||  SHAREDSTORE_MAGIC != h->magic )
+		elog(ERROR, "PL/Java shared store has unexpected contents");
+
+	s_lock = &(GetNamedLWLockTranche(SHAREDSTORE_NAME))->lock;
+	s_arena = (char *)h + _headerSize();
+	s_header = h;
+	return true;
+}
+
+static void _requireStore(void)
+{
+	if ( ! _attach() )
+		ereport(ERROR, (
+			errcode(ERRCODE_FEATURE_NOT_SUPPORTED),
+			errmsg("PL/Java shared store is not available"),
+			errhint("Add PL/Java to shared_preload_libraries and set "
+				"pljava.shared_store_size, then restart the server.")));
+}
+
+/*
+ * Copy a Java byte array into palloc'd memory after the database Oid, making
+ * the stored form of a key.
+ */
+static char *_makeKey(jbyteArray key, uint32 *lenp)
+{
+	jsize n = JNI_getArrayLength(key);
+	char *k = palloc(sizeof (Oid) + n);
+	memcpy(k, &MyDatabaseId, sizeof (Oid));
+	JNI_getByteArrayRegion(key, 0, n, (jbyte *)(k + sizeof (Oid)));
+	*lenp = (uint32)(sizeof (Oid) + n);
+	return k;
+}
+
+/*
+ * Find the live bucket for a key, or NULL. If insertAt is not NULL, set it to
+ * the bucket where the key would be inserted if absent: the first dead bucket
+ * passed, or else the empty bucket that ended the search. Caller holds the
+ * lock.
+ */
+static Bucket *_find(char *key, uint32 keyLen, uint32 hash, Bucket **insertAt)
+{
+	uint32 mask = s_header->nbuckets - 1;
+	uint32 i = hash & mask;
+	Bucket *firstDead = NULL;
+
+	for ( ;; )
+	{
+		Bucket *b = &s_header->buckets[i];
+		if ( BUCKET_EMPTY == b->state )
+		{
+			if ( NULL != insertAt )
+				*insertAt = NULL != firstDead ? firstDead : b;
+			return NULL;
+		}
+		if ( BUCKET_DEAD == b->state )
+		{
+			if ( NULL == firstDead )
+				firstDead = b;
+		}
+		else if ( b->hash == hash  &&  b->keyLen == keyLen
+			&&  0 == memcmp(s_arena + b->keyOffset, key, keyLen) )
+			return b;
+		i = (i + 1) & mask;
+	}
+}
+
+/*
+ * Whether the role me may replace or remove the key in bucket b; mayAny is
+ * whether me is a superuser, found before taking the lock, as superuser() can
+ * ereport. Caller holds the lock.
+ */
+static bool _mayChange(Bucket *b, Oid me, bool mayAny)
+{
+	return mayAny  ||  b->owner == me;
+}
+
+static void _notOwner(void)
+{
+	ereport(ERROR, (
+		errcode(ERRCODE_INSUFFICIENT_PRIVILEGE),
+		errmsg("PL/Java shared store key belongs to another role"),
+		errdetail("Only the role that stored a key first, or a superuser, "
+			"may replace or remove it.")));
+}
+
+/*
+ * Whether len more bytes (after alignment) fit in the arena. Caller holds the
+ * lock.
+ */
+static bool _fits(uint64 len)
+{
+	return MAXALIGN(len) <= s_header->arenaSize - s_header->arenaUsed;
+}
+
+/*
+ * Allocate arena space that _fits, returning its offset. Caller holds the lock
+ * exclusively.
+ */
+static uint64 _allocate(uint64 len)
+{
+	uint64 offset = s_header->arenaUsed;
+	s_header->arenaUsed += MAXALIGN(len);
+	return offset;
+}
+
+extern void pljava_SharedStore_initialize(void);
+void pljava_SharedStore_initialize(void)
+{
+	JNINativeMethod methods[] = {
+		{
+		"_region",
+		"()Ljava/nio/ByteBuffer;",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1region
+		},
+		{
+		"_lookup",
+		"([B)[J",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1lookup
+		},
+		{
+		"_put",
+		"([B[BJZ)J",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1put
+		},
+		{
+		"_remove",
+		"([B)Z",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1remove
+		},
+		{
+		"_used",
+		"()J",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1used
+		},
+		{
+		"_clear",
+		"()V",
+		Java_org_postgresql_pljava_internal_SharedStoreImpl__1clear
+		},
+		{ 0, 0, 0 }};
+
+	PgObject_registerNatives("org/postgresql/pljava/internal/SharedStoreImpl",
+		methods);
+}
+
+/****************************************
+ * JNI methods
+ ****************************************/
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _region
+ * Signature: ()Ljava/nio/ByteBuffer;
+ */
+JNIEXPORT jobject JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1region(JNIEnv* env, jclass cls)
+{
+	jobject result = NULL;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		if ( _attach() )
+			result = JNI_newDirectByteBuffer(
+				s_arena, (jlong)s_header->arenaSize);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_region");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _lookup
+ * Signature: ([B)[J
+ */
+JNIEXPORT jlongArray JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1lookup(JNIEnv* env, jclass cls, jbyteArray key)
+{
+	jlongArray result = NULL;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		uint32 keyLen;
+		char *k;
+		uint32 hash;
+		Bucket *b;
+		jlong found[3];
+		bool isFound = false;
+
+		_requireStore();
+		k = _makeKey(key, &keyLen);
+		hash = DatumGetUInt32(hash_any((unsigned char *)k, (int)keyLen));
+
+		LWLockAcquire(s_lock, LW_SHARED);
+		b = _find(k, keyLen, hash, NULL);
+		if ( NULL != b )
+		{
+			found[0] = (jlong)b->valueOffset;
+			found[1] = (jlong)b->valueLen;
+			found[2] = (jlong)b->version;
+			isFound = true;
+		}
+		LWLockRelease(s_lock);
+		pfree(k);
+
+		if ( isFound )
+		{
+			result = JNI_newLongArray(3);
+			JNI_setLongArrayRegion(result, 0, 3, found);
+		}
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_lookup");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _put
+ * Signature: ([B[BJZ)J
+ *
+ * When conditional, the value is stored only if the key's current version is
+ * expected (zero meaning absent); otherwise zero is returned.
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1put(JNIEnv* env, jclass cls, jbyteArray key, jbyteArray value, jlong expected, jboolean conditional)
+{
+	jlong result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		enum { STORED, MISMATCH, NOT_OWNER, TOO_MANY_KEYS, FULL }
+			outcome = STORED;
+		Oid me = GetUserId();
+		bool mayAny;
+		uint32 keyLen;
+		char *k;
+		uint32 hash;
+		jsize valueLen = JNI_getArrayLength(value);
+		char *v;
+		Bucket *b;
+		Bucket *insertAt;
+		uint64 used;
+
+		_requireStore();
+		k = _makeKey(key, &keyLen);
+		hash = DatumGetUInt32(hash_any((unsigned char *)k, (int)keyLen));
+		v = palloc(valueLen > 0 ? valueLen : 1);
+		JNI_getByteArrayRegion(value, 0, valueLen, (jbyte *)v);
+		mayAny = superuser();
+
+		/*
+		 * Nothing in here may ereport, as the lock would stay held until the
+		 * transaction aborted; the outcome is reported after release.
+		 */
+		LWLockAcquire(s_lock, LW_EXCLUSIVE);
+		b = _find(k, keyLen, hash, &insertAt);
+		if ( NULL != b  &&  ! _mayChange(b, me, mayAny) )
+			outcome = NOT_OWNER;
+		else if ( conditional
+			&&  expected != (NULL == b ? 0 : (jlong)b->version) )
+			outcome = MISMATCH;
+		else if ( NULL == b )
+		{
+			bool reusing = BUCKET_DEAD == insertAt->state;
+			if ( ! reusing
+				&&  s_header->nused + 1 > s_header->nbuckets / 4 * 3 )
+				outcome = TOO_MANY_KEYS;
+			else if ( ! _fits(MAXALIGN(keyLen) + MAXALIGN(valueLen)) )
+				outcome = FULL;
+			else
+			{
+				insertAt->keyOffset = _allocate(keyLen);
+				memcpy(s_arena + insertAt->keyOffset, k, keyLen);
+				insertAt->keyLen = keyLen;
+				insertAt->owner = me;
+				insertAt->hash = hash;
+				if ( ! reusing )
+					++ s_header->nused;
+				++ s_header->nlive;
+				b = insertAt;
+			}
+		}
+		else if ( ! _fits(valueLen) )
+			outcome = FULL;
+
+		if ( STORED == outcome )
+		{
+			uint64 valueOffset = _allocate(valueLen);
+			memcpy(s_arena + valueOffset, v, valueLen);
+			b->valueOffset = valueOffset;
+			b->valueLen = (uint64)valueLen;
+			b->version = s_header->nextVersion++;
+			b->state = BUCKET_LIVE;
+			result = (jlong)b->version;
+		}
+		used = s_header->arenaUsed;
+		LWLockRelease(s_lock);
+		pfree(v);
+		pfree(k);
+
+		if ( NOT_OWNER == outcome )
+			_notOwner();
+		if ( TOO_MANY_KEYS == outcome )
+			ereport(ERROR, (
+				errcode(ERRCODE_OUT_OF_MEMORY),
+				errmsg("PL/Java shared store has too many keys"),
+				errhint("Increase pljava.shared_store_size, or clear "
+					"the store.")));
+		if ( FULL == outcome )
+			ereport(ERROR, (
+				errcode(ERRCODE_OUT_OF_MEMORY),
+				errmsg("PL/Java shared store is full"),
+				errdetail("%llu of %llu bytes are in use.",
+					(unsigned long long)used,
+					(unsigned long long)s_header->arenaSize),
+				errhint("Increase pljava.shared_store_size, or clear "
+					"the store.")));
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_put");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _remove
+ * Signature: ([B)Z
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1remove(JNIEnv* env, jclass cls, jbyteArray key)
+{
+	jboolean result = JNI_FALSE;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		uint32 keyLen;
+		char *k;
+		uint32 hash;
+		Bucket *b;
+		Oid me = GetUserId();
+		bool mayAny;
+		bool notOwner = false;
+
+		_requireStore();
+		k = _makeKey(key, &keyLen);
+		hash = DatumGetUInt32(hash_any((unsigned char *)k, (int)keyLen));
+		mayAny = superuser();
+
+		LWLockAcquire(s_lock, LW_EXCLUSIVE);
+		b = _find(k, keyLen, hash, NULL);
+		if ( NULL != b  &&  ! _mayChange(b, me, mayAny) )
+			notOwner = true;
+		else if ( NULL != b )
+		{
+			b->state = BUCKET_DEAD;
+			-- s_header->nlive;
+			result = JNI_TRUE;
+		}
+		LWLockRelease(s_lock);
+		pfree(k);
+
+		if ( notOwner )
+			_notOwner();
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_remove");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _used
+ * Signature: ()J
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1used(JNIEnv* env, jclass cls)
+{
+	jlong result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		_requireStore();
+		LWLockAcquire(s_lock, LW_SHARED);
+		result = (jlong)s_header->arenaUsed;
+		LWLockRelease(s_lock);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_used");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_SharedStoreImpl
+ * Method:    _clear
+ * Signature: ()V
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_internal_SharedStoreImpl__1clear(JNIEnv* env, jclass cls)
+{
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		_requireStore();
+		if ( ! superuser() )
+			ereport(ERROR, (
+				errcode(ERRCODE_INSUFFICIENT_PRIVILEGE),
+				errmsg("only a superuser may clear the PL/Java shared store")));
+		LWLockAcquire(s_lock, LW_EXCLUSIVE);
+		memset(s_header->buckets, 0, s_header->nbuckets * sizeof (Bucket));
+		s_header->nused = 0;
+		s_header->nlive = 0;
+		/*
+		 * arenaUsed is left as it is: buffers handed out earlier are still
+		 * read without the lock, so their space must never be written again.
+		 */
+		LWLockRelease(s_lock);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("SharedStore_clear");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
@@ -7,35 +7,341 @@
  * @author Thomas Hallgren
  */
 #include <postgres.h>
+#include <lib/stringinfo.h>
+#include <utils/builtins.h>
 #include <utils/memutils.h>
 #include <utils/numeric.h>
 
 #include "pljava/type/String_priv.h"
 
 /*
- * BigDecimal type. We use String conversions here. Perhaps there's
- * room for optimizations such as creating a 2's complement byte
- * array directly from the digits. Don't think we'd gain much though.
+ * BigDecimal type. Converted without going through decimal strings, using the
+ * layout of numeric's binary send/receive format, which is stable across
+ * PostgreSQL versions (unlike the on-disk layout, which numeric.c keeps
+ * private): int16 ndigits, weight, sign, dscale, then ndigits base-10000
+ * digits, most significant first. The value is the sum of
+ * digit[i] * 10000^(weight - i), and dscale is the number of decimal digits
+ * shown after the point, which becomes the BigDecimal's scale.
+ *
+ * A value of up to four base-10000 digits has an unscaled value that fits in
+ * a jlong, and is built with BigDecimal.valueOf(long, int). A wider one has its
+ * magnitude built up in 32-bit limbs, and is passed to Java as a byte array
+ * for BigInteger.
  */
 static jclass    s_BigDecimal_class;
-static jmethodID s_BigDecimal_init;
-static jmethodID s_BigDecimal_toString;
+static jmethodID s_BigDecimal_valueOf;
+static jmethodID s_BigDecimal_initBigInteger;
+static jmethodID s_BigDecimal_setScale;
+static jmethodID s_BigDecimal_scale;
+static jmethodID s_BigDecimal_unscaledValue;
+static jclass    s_BigInteger_class;
+static jmethodID s_BigInteger_init;
+static jmethodID s_BigInteger_bitLength;
+static jmethodID s_BigInteger_longValue;
+static jmethodID s_BigInteger_toByteArray;
+static jmethodID s_BigInteger_signum;
 static TypeClass s_BigDecimalClass;
 
+#define NBASE           10000
+#define NUMERIC_POS     0x0000
+#define NUMERIC_NEG     0x4000
+#define NUMERIC_NAN     0xC000
+#define NUMERIC_PINF    0xD000
+#define NUMERIC_NINF    0xF000
+
+static const int64 s_pow10[] =
+{
+	INT64CONST(1), INT64CONST(10), INT64CONST(100), INT64CONST(1000),
+	INT64CONST(10000), INT64CONST(100000), INT64CONST(1000000),
+	INT64CONST(10000000), INT64CONST(100000000), INT64CONST(1000000000),
+	INT64CONST(10000000000), INT64CONST(100000000000),
+	INT64CONST(1000000000000), INT64CONST(10000000000000),
+	INT64CONST(100000000000000), INT64CONST(1000000000000000),
+	INT64CONST(10000000000000000), INT64CONST(100000000000000000),
+	INT64CONST(1000000000000000000)
+};
+
+static uint16 _getUint16(const unsigned char *p)
+{
+	return (uint16)((p[0] << 8) | p[1]);
+}
+
+static void _appendInt16(StringInfo buf, int v)
+{
+	appendStringInfoCharMacro(buf, (char)((v >> 8) & 0xff));
+	appendStringInfoCharMacro(buf, (char)(v & 0xff));
+}
+
+/*
+ * Divide a little-endian array of 32-bit limbs in place by a small divisor,
+ * returning the remainder and adjusting *nlimbs to drop a high zero limb.
+ */
+static uint32 _divSmall(uint32 *limbs, int *nlimbs, uint32 divisor)
+{
+	uint64 rem = 0;
+	int i;
+	for ( i = *nlimbs - 1; i >= 0; -- i )
+	{
+		uint64 cur = (rem << 32) | limbs[i];
+		limbs[i] = (uint32)(cur / divisor);
+		rem = cur % divisor;
+	}
+	while ( 0 < *nlimbs  &&  0 == limbs[*nlimbs - 1] )
+		-- *nlimbs;
+	return (uint32)rem;
+}
+
 static jvalue _BigDecimal_coerceDatum(Type self, Datum arg)
 {
-	jvalue result = _String_coerceDatum(self, arg);
-	if(result.l != 0)
-		result.l = JNI_newObject(s_BigDecimal_class, s_BigDecimal_init, result.l);
+	jvalue result;
+	bytea *b =
+		DatumGetByteaPP(DirectFunctionCall1(numeric_send, arg));
+	const unsigned char *p = (const unsigned char *)VARDATA_ANY(b);
+	int ndigits = _getUint16(p);
+	int weight  = (int16)_getUint16(p + 2);
+	uint16 sign = _getUint16(p + 4);
+	int dscale  = _getUint16(p + 6);
+	int scale4  = 4 * (ndigits - 1 - weight);
+	const unsigned char *digits = p + 8;
+	int i;
+
+	if ( NUMERIC_POS != sign  &&  NUMERIC_NEG != sign )
+		ereport(ERROR, (
+			errcode(ERRCODE_NUMERIC_VALUE_OUT_OF_RANGE),
+			errmsg("cannot represent numeric %s as java.math.BigDecimal",
+				NUMERIC_NAN == sign ? "NaN" :
+				NUMERIC_PINF == sign ? "Infinity" : "-Infinity")));
+
+	if ( 0 == ndigits )
+	{
+		result.l = JNI_callStaticObjectMethod(s_BigDecimal_class,
+			s_BigDecimal_valueOf, (jlong)0, (jint)dscale);
+		pfree(b);
+		return result;
+	}
+
+	if ( ndigits <= 4 )
+	{
+		int64 unscaled = 0;
+		int adjust;
+
+		for ( i = 0; i < ndigits; ++ i )
+			unscaled = unscaled * NBASE + _getUint16(digits + 2 * i);
+
+		/*
+		 * Digits beyond dscale in the last base-10000 digit are zeros and can
+		 * be divided out; a dscale beyond the last digit is made up by
+		 * multiplying, if the result will fit.
+		 */
+		adjust = dscale - scale4;
+		if ( adjust < 0 )
+		{
+			unscaled /= s_pow10[-adjust];
+			scale4 = dscale;
+		}
+		else if ( 0 < adjust  &&  adjust < lengthof(s_pow10)
+			&&  unscaled <= PG_INT64_MAX / s_pow10[adjust] )
+		{
+			unscaled *= s_pow10[adjust];
+			scale4 = dscale;
+		}
+
+		if ( NUMERIC_NEG == sign )
+			unscaled = -unscaled;
+
+		result.l = JNI_callStaticObjectMethod(s_BigDecimal_class,
+			s_BigDecimal_valueOf, (jlong)unscaled, (jint)scale4);
+	}
+	else
+	{
+		/*
+		 * Each base-10000 digit adds under 14 bits, so this many limbs is
+		 * plenty.
+		 */
+		int maxLimbs = 1 + (ndigits * 14) / 32;
+		uint32 *limbs = palloc0(maxLimbs * sizeof (uint32));
+		int nlimbs = 0;
+		int nbytes;
+		jbyteArray magnitude;
+		jobject bigInteger;
+		jbyte *bytes;
+		int j;
+
+		for ( i = 0; i < ndigits; ++ i )
+		{
+			uint64 carry = _getUint16(digits + 2 * i);
+			for ( j = 0; j < nlimbs; ++ j )
+			{
+				uint64 cur = (uint64)limbs[j] * NBASE + carry;
+				limbs[j] = (uint32)cur;
+				carry = cur >> 32;
+			}
+			if ( 0 != carry )
+				limbs[nlimbs++] = (uint32)carry;
+		}
+
+		nbytes = 4 * nlimbs;
+		bytes = palloc(nbytes);
+		for ( j = 0; j < nlimbs; ++ j )
+		{
+			uint32 limb = limbs[nlimbs - 1 - j];
+			bytes[4*j    ] = (jbyte)(limb >> 24);
+			bytes[4*j + 1] = (jbyte)(limb >> 16);
+			bytes[4*j + 2] = (jbyte)(limb >> 8);
+			bytes[4*j + 3] = (jbyte)limb;
+		}
+		magnitude = JNI_newByteArray(nbytes);
+		JNI_setByteArrayRegion(magnitude, 0, nbytes, bytes);
+		pfree(bytes);
+		pfree(limbs);
+
+		bigInteger = JNI_newObject(s_BigInteger_class, s_BigInteger_init,
+			(jint)(NUMERIC_NEG == sign ? -1 : 1), magnitude);
+		JNI_deleteLocalRef(magnitude);
+		result.l = JNI_newObject(s_BigDecimal_class,
+			s_BigDecimal_initBigInteger, bigInteger, (jint)scale4);
+		JNI_deleteLocalRef(bigInteger);
+	}
+
+	if ( scale4 != dscale )
+	{
+		/* exact: only trailing zeros are added or removed */
+		jobject scaled = JNI_callObjectMethod(
+			result.l, s_BigDecimal_setScale, (jint)dscale);
+		JNI_deleteLocalRef(result.l);
+		result.l = scaled;
+	}
+
+	pfree(b);
 	return result;
 }
 
 static Datum _BigDecimal_coerceObject(Type self, jobject value)
 {
-	jstring jstr = (jstring)JNI_callObjectMethod(value, s_BigDecimal_toString);
-	Datum ret = _String_coerceObject(self, jstr);
-	JNI_deleteLocalRef(jstr);
-	return ret;
+	StringInfoData buf;
+	jint scale = JNI_callIntMethod(value, s_BigDecimal_scale);
+	jobject unscaled = JNI_callObjectMethod(value, s_BigDecimal_unscaledValue);
+	jint signum = JNI_callIntMethod(unscaled, s_BigInteger_signum);
+	int64 exponent = -(int64)scale; /* unscaled is in units of 10^exponent */
+	int64 groupExponent;             /* base-10000 exponent of lowest digit */
+	int lowShift;                    /* decimal digits to shift lowest digit */
+	uint16 *groups;
+	int ngroups = 0;
+	int maxGroups;
+	int weight = 0;
+	int dscale = scale > 0 ? scale : 0;
+	int i;
+	Datum result;
+
+	/*
+	 * The lowest base-10000 digit must line up with the decimal point, so
+	 * take groupExponent as exponent / 4 rounded down, and the unscaled value
+	 * is shifted left by lowShift decimal digits within that lowest digit.
+	 */
+	groupExponent = exponent >= 0 ? exponent / 4 : -((-exponent + 3) / 4);
+	lowShift = (int)(exponent - 4 * groupExponent);
+
+	if ( 0 == signum )
+	{
+		JNI_deleteLocalRef(unscaled);
+		groups = NULL;
+	}
+	else if ( JNI_callIntMethod(unscaled, s_BigInteger_bitLength) < 64 )
+	{
+		int64 v = JNI_callLongMethod(unscaled, s_BigInteger_longValue);
+		uint64 mag = v < 0 ? -(uint64)v : (uint64)v;
+		JNI_deleteLocalRef(unscaled);
+
+		maxGroups = 7; /* 2^63 has 19 decimal digits; one more for shift */
+		groups = palloc(maxGroups * sizeof (uint16));
+		if ( 0 != lowShift )
+		{
+			int64 lowMod = s_pow10[4 - lowShift];
+			groups[ngroups++] =
+				(uint16)((mag % lowMod) * s_pow10[lowShift]);
+			mag /= lowMod;
+		}
+		while ( 0 != mag )
+		{
+			groups[ngroups++] = (uint16)(mag % NBASE);
+			mag /= NBASE;
+		}
+	}
+	else
+	{
+		jbyteArray twos = (jbyteArray)
+			JNI_callObjectMethod(unscaled, s_BigInteger_toByteArray);
+		jsize nbytes = JNI_getArrayLength(twos);
+		jbyte *bytes = palloc(nbytes);
+		uint32 *limbs;
+		int nlimbs = (nbytes + 3) / 4;
+		int j;
+
+		JNI_deleteLocalRef(unscaled);
+		JNI_getByteArrayRegion(twos, 0, nbytes, bytes);
+		JNI_deleteLocalRef(twos);
+
+		/* two's complement big-endian bytes to little-endian magnitude */
+		if ( signum < 0 )
+		{
+			int carry = 1;
+			for ( j = nbytes - 1; j >= 0; -- j )
+			{
+				int v = (uint8)~bytes[j] + carry;
+				bytes[j] = (jbyte)v;
+				carry = v >> 8;
+			}
+		}
+		limbs = palloc0(nlimbs * sizeof (uint32));
+		for ( j = 0; j < nbytes; ++ j )
+		{
+			int fromEnd = nbytes - 1 - j;
+			limbs[fromEnd / 4] |= (uint32)(uint8)bytes[j] << (8 * (fromEnd % 4));
+		}
+		pfree(bytes);
+		while ( 0 < nlimbs  &&  0 == limbs[nlimbs - 1] )
+			-- nlimbs;
+
+		/* each 32-bit limb yields under 2.5 base-10000 digits */
+		maxGroups = 2 + (5 * nlimbs + 1) / 2;
+		groups = palloc(maxGroups * sizeof (uint16));
+		if ( 0 != lowShift )
+			groups[ngroups++] = (uint16)(
+				_divSmall(limbs, &nlimbs, (uint32)s_pow10[4 - lowShift])
+				* s_pow10[lowShift]);
+		while ( 0 < nlimbs )
+			groups[ngroups++] = (uint16)_divSmall(limbs, &nlimbs, NBASE);
+		pfree(limbs);
+	}
+
+	if ( 0 < ngroups )
+	{
+		int64 w = groupExponent + ngroups - 1;
+		if ( w > PG_INT16_MAX  ||  groupExponent < PG_INT16_MIN )
+			ereport(ERROR, (
+				errcode(ERRCODE_NUMERIC_VALUE_OUT_OF_RANGE),
+				errmsg("java.math.BigDecimal value out of range for numeric")));
+		weight = (int)w;
+	}
+
+	/*
+	 * Build the binary form, most significant digit first, and let
+	 * numeric_recv validate it and strip leading and trailing zero digits.
+	 */
+	initStringInfo(&buf);
+	_appendInt16(&buf, ngroups);
+	_appendInt16(&buf, weight);
+	_appendInt16(&buf, signum < 0 ? NUMERIC_NEG : NUMERIC_POS);
+	_appendInt16(&buf, dscale);
+	for ( i = ngroups - 1; i >= 0; -- i )
+		_appendInt16(&buf, groups[i]);
+	if ( NULL != groups )
+		pfree(groups);
+
+	result = DirectFunctionCall3(numeric_recv, PointerGetDatum(&buf),
+		ObjectIdGetDatum(InvalidOid), Int32GetDatum(-1));
+	pfree(buf.data);
+	return result;
 }
 
 static Type BigDecimal_obtain(Oid typeId)
@@ -48,9 +354,31 @@ static Type BigDecimal_obtain(Oid typeId)
 extern void BigDecimal_initialize(void);
 void BigDecimal_initialize(void)
 {
-	s_BigDecimal_class = JNI_newGlobalRef(PgObject_getJavaClass("java/math/BigDecimal"));
-	s_BigDecimal_init = PgObject_getJavaMethod(s_BigDecimal_class, "<init>", "(Ljava/lang/String;)V");
-	s_BigDecimal_toString = PgObject_getJavaMethod(s_BigDecimal_class, "toString", "()Ljava/lang/String;");
+	s_BigDecimal_class = (jclass)JNI_newGlobalRef(
+		PgObject_getJavaClass("java/math/BigDecimal"));
+	s_BigDecimal_valueOf = PgObject_getStaticJavaMethod(s_BigDecimal_class,
+		"valueOf", "(JI)Ljava/math/BigDecimal;");
+	s_BigDecimal_initBigInteger = PgObject_getJavaMethod(s_BigDecimal_class,
+		"<init>", "(Ljava/math/BigInteger;I)V");
+	s_BigDecimal_setScale = PgObject_getJavaMethod(s_BigDecimal_class,
+		"setScale", "(I)Ljava/math/BigDecimal;");
+	s_BigDecimal_scale = PgObject_getJavaMethod(s_BigDecimal_class,
+		"scale", "()I");
+	s_BigDecimal_unscaledValue = PgObject_getJavaMethod(s_BigDecimal_class,
+		"unscaledValue", "()Ljava/math/BigInteger;");
+
+	s_BigInteger_class = (jclass)JNI_newGlobalRef(
+		PgObject_getJavaClass("java/math/BigInteger"));
+	s_BigInteger_init = PgObject_getJavaMethod(s_BigInteger_class,
+		"<init>", "(I[B)V");
+	s_BigInteger_bitLength = PgObject_getJavaMethod(s_BigInteger_class,
+		"bitLength", "()I");
+	s_BigInteger_longValue = PgObject_getJavaMethod(s_BigInteger_class,
+		"longValue", "()J");
+	s_BigInteger_toByteArray = PgObject_getJavaMethod(s_BigInteger_class,
+		"toByteArray", "()[B");
+	s_BigInteger_signum = PgObject_getJavaMethod(s_BigInteger_class,
+		"signum", "()I");
 
 	s_BigDecimalClass = TypeClass_alloc2("type.BigDecimal", sizeof(struct TypeClass_), sizeof(struct String_));
 	s_BigDecimalClass->JNISignature   = "Ljava/math/BigDecimal;";
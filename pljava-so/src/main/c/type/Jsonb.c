@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+#include <postgres.h>
+
+#include "pljava/type/Type_priv.h"
+#include "pljava/VarlenaWrapper.h"
+
+/*
+ * The org.postgresql.pljava.Jsonb type, a view of the binary form of jsonb.
+ *
+ * An argument is handed to Java as a VarlenaWrapper.Input, not detoasted or
+ * copied until Java first reads it, and read there in place. A result is
+ * returned by Java as a byte array holding the JsonbContainer, which only
+ * needs the varlena header put in front.
+ *
+ * Like SQLXML, this is registered with an obtainer, so it is used only when
+ * asked for, and the default Java mapping of jsonb is left as String.
+ */
+static TypeClass s_JsonbClass;
+static jclass    s_JsonbImpl_class;
+static jmethodID s_JsonbImpl_init;
+static jmethodID s_JsonbImpl_toBytes;
+
+static bool _Jsonb_canReplaceType(Type self, Type other)
+{
+	return
+		Type_getClass(self) == Type_getClass(other)  ||
+		Type_getOid(other) == JSONBOID;
+}
+
+static jvalue _Jsonb_coerceDatum(Type self, Datum arg)
+{
+	jvalue result;
+	jobject vwi = pljava_VarlenaWrapper_Input(
+		arg, TopTransactionContext, TopTransactionResourceOwner);
+	result.l = JNI_newObject(s_JsonbImpl_class, s_JsonbImpl_init, vwi);
+	JNI_deleteLocalRef(vwi);
+	return result;
+}
+
+static Datum _Jsonb_coerceObject(Type self, jobject jsonb)
+{
+	jbyteArray bytes;
+	jsize length;
+	int32 size;
+	struct varlena *result;
+
+	if ( NULL == jsonb )
+		return 0;
+
+	bytes = JNI_callStaticObjectMethodLocked(
+		s_JsonbImpl_class, s_JsonbImpl_toBytes, jsonb);
+	length = JNI_getArrayLength(bytes);
+	size = length + VARHDRSZ;
+	result = (struct varlena *)palloc(size);
+	SET_VARSIZE(result, size);
+	JNI_getByteArrayRegion(bytes, 0, length, (jbyte *)VARDATA(result));
+	JNI_deleteLocalRef(bytes);
+	return PointerGetDatum(result);
+}
+
+static Type _Jsonb_obtain(Oid typeId)
+{
+	static Type instance;
+	if ( NULL == instance )
+		instance = TypeClass_allocInstance(s_JsonbClass, JSONBOID);
+	return instance;
+}
+
+extern void pljava_Jsonb_initialize(void);
+void pljava_Jsonb_initialize(void)
+{
+	TypeClass cls = TypeClass_alloc("type.Jsonb");
+	cls->JNISignature = "Lorg/postgresql/pljava/Jsonb;";
+	cls->javaTypeName = "org.postgresql.pljava.Jsonb";
+	cls->canReplaceType = _Jsonb_canReplaceType;
+	cls->coerceDatum  = _Jsonb_coerceDatum;
+	cls->coerceObject = _Jsonb_coerceObject;
+	s_JsonbClass = cls;
+
+	Type_registerType2(InvalidOid, "org.postgresql.pljava.Jsonb", _Jsonb_obtain);
+
+	s_JsonbImpl_class = JNI_newGlobalRef(PgObject_getJavaClass(
+		"org/postgresql/pljava/internal/JsonbImpl"));
+	s_JsonbImpl_init = PgObject_getJavaMethod(s_JsonbImpl_class, "<init>",
+		"(Lorg/postgresql/pljava/internal/VarlenaWrapper$Input;)V");
+	s_JsonbImpl_toBytes = PgObject_getStaticJavaMethod(s_JsonbImpl_class,
+		"toBytes", "(Lorg/postgresql/pljava/Jsonb;)[B");
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,6 +15,10 @@
 #include <commands/portalcmds.h>
 #include <executor/spi.h>
 #include <executor/tuptable.h>
+#include <access/htup_details.h>
+#include <lib/stringinfo.h>
+#include <mb/pg_wchar.h>
+#include <utils/lsyscache.h>
 
 #include "org_postgresql_pljava_internal_Portal.h"
 #include "pljava/Backend.h"
@@ -77,6 +81,11 @@ void pljava_Portal_initialize(void)
 	  	Java_org_postgresql_pljava_internal_Portal__1fetch
 		},
 		{
+		"_fetchCopyData",
+		"(JZJ)[B",
+	  	Java_org_postgresql_pljava_internal_Portal__1fetchCopyData
+		},
+		{
 		"_isAtEnd",
 	  	"(J)Z",
 	  	Java_org_postgresql_pljava_internal_Portal__1isAtEnd
@@ -100,6 +109,109 @@ void pljava_Portal_initialize(void)
 		"(Lorg/postgresql/pljava/internal/DualState$Key;JJLorg/postgresql/pljava/internal/ExecutionPlan;)V");
 }
 
+/*
+ * Append an int in network byte order, as the COPY binary format wants.
+ */
+static void _appendNetworkInt(StringInfo buf, uint32 v, int bytes)
+{
+	while ( 0 < bytes-- )
+		appendStringInfoCharMacro(buf, (char)(v >> (8 * bytes)));
+}
+
+/*
+ * Append the rows of tuptable to buf as COPY TO would write them, in text
+ * format (in the server encoding) or binary format (without the file header
+ * and trailer).
+ */
+static void _formatCopyRows(
+	StringInfo buf, SPITupleTable *tuptable, uint64 ntuples, bool binary)
+{
+	TupleDesc tupdesc = tuptable->tupdesc;
+	int natts = tupdesc->natts;
+	FmgrInfo *outFuncs = (FmgrInfo *)palloc(natts * sizeof(FmgrInfo));
+	Datum *values = (Datum *)palloc(natts * sizeof(Datum));
+	bool *nulls = (bool *)palloc(natts * sizeof(bool));
+	uint64 row;
+	int i;
+
+	for ( i = 0; i < natts; ++ i )
+	{
+		Oid typid = SPI_gettypeid(tupdesc, i + 1);
+		Oid func;
+		bool isVarlena;
+		if ( binary )
+			getTypeBinaryOutputInfo(typid, &func, &isVarlena);
+		else
+			getTypeOutputInfo(typid, &func, &isVarlena);
+		fmgr_info(func, outFuncs + i);
+	}
+
+	for ( row = 0; row < ntuples; ++ row )
+	{
+		heap_deform_tuple(tuptable->vals[row], tupdesc, values, nulls);
+
+		if ( binary )
+			_appendNetworkInt(buf, (uint32)natts, 2);
+
+		for ( i = 0; i < natts; ++ i )
+		{
+			if ( binary )
+			{
+				if ( nulls[i] )
+					_appendNetworkInt(buf, (uint32)-1, 4);
+				else
+				{
+					bytea *b = SendFunctionCall(outFuncs + i, values[i]);
+					_appendNetworkInt(buf, VARSIZE(b) - VARHDRSZ, 4);
+					appendBinaryStringInfo(
+						buf, VARDATA(b), VARSIZE(b) - VARHDRSZ);
+					pfree(b);
+				}
+				continue;
+			}
+
+			if ( 0 < i )
+				appendStringInfoCharMacro(buf, '\t');
+			if ( nulls[i] )
+			{
+				appendBinaryStringInfo(buf, "\\N", 2);
+				continue;
+			}
+			{
+				char *str = OutputFunctionCall(outFuncs + i, values[i]);
+				char *c;
+				for ( c = str; '\0' != *c; ++ c )
+				{
+					char esc;
+					switch ( *c )
+					{
+					case '\b': esc = 'b'; break;
+					case '\f': esc = 'f'; break;
+					case '\n': esc = 'n'; break;
+					case '\r': esc = 'r'; break;
+					case '\t': esc = 't'; break;
+					case '\v': esc = 'v'; break;
+					case '\\': esc = '\\'; break;
+					default:
+						appendStringInfoCharMacro(buf, *c);
+						continue;
+					}
+					appendStringInfoCharMacro(buf, '\\');
+					appendStringInfoCharMacro(buf, esc);
+				}
+				pfree(str);
+			}
+		}
+
+		if ( ! binary )
+			appendStringInfoCharMacro(buf, '\n');
+	}
+
+	pfree(nulls);
+	pfree(values);
+	pfree(outFuncs);
+}
+
 /****************************************
  * JNI methods
  ****************************************/
@@ -163,6 +275,68 @@ Java_org_postgresql_pljava_internal_Portal__1fetch(JNIEnv* env, jclass clazz, jl
 	return result;
 }
 
+/*
+ * Class:     org_postgresql_pljava_internal_Portal
+ * Method:    _fetchCopyData
+ * Signature: (JZJ)[B
+ *
+ * Fetches forward like _fetch, but returns the fetched rows formatted as
+ * COPY TO would, text format being converted to UTF-8, and frees the tuple
+ * table before returning. Returns null if no rows were fetched; the number of
+ * rows is left in SPI_processed.
+ */
+JNIEXPORT jbyteArray JNICALL
+Java_org_postgresql_pljava_internal_Portal__1fetchCopyData(JNIEnv* env, jclass clazz, jlong _this, jboolean binary, jlong count)
+{
+	jbyteArray result = 0;
+	if(_this != 0)
+	{
+		BEGIN_NATIVE
+		STACK_BASE_VARS
+		STACK_BASE_PUSH(env)
+
+		pljava_DualState_cleanEnqueuedInstances();
+
+		PG_TRY();
+		{
+			Invocation_assertConnect();
+			SPI_cursor_fetch(JLongGet(Portal, _this), true, (long)count);
+			if ( 0 < SPI_processed  &&  NULL != SPI_tuptable )
+			{
+				StringInfoData buf;
+				char *data;
+				int len;
+
+				initStringInfo(&buf);
+				_formatCopyRows(&buf, SPI_tuptable, SPI_processed,
+					JNI_TRUE == binary);
+				data = buf.data;
+				len = buf.len;
+				if ( JNI_FALSE == binary )
+				{
+					data = pg_server_to_any(data, len, PG_UTF8);
+					if ( data != buf.data )
+						len = strlen(data);
+				}
+				result = JNI_newByteArray(len);
+				JNI_setByteArrayRegion(result, 0, len, (jbyte *)data);
+				if ( data != buf.data )
+					pfree(data);
+				pfree(buf.data);
+			}
+			SPI_freetuptable(SPI_tuptable);
+		}
+		PG_CATCH();
+		{
+			Exception_throw_ERROR("SPI_cursor_fetch");
+		}
+		PG_END_TRY();
+		STACK_BASE_POP()
+		END_NATIVE
+	}
+	return result;
+}
+
 /*
  * Class:     org_postgresql_pljava_internal_Portal
  * Method:    _getName
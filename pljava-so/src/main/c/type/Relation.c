@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -13,6 +13,8 @@
  * @author Thomas Hallgren
  */
 #include <postgres.h>
+#include <access/htup_details.h>
+#include <catalog/pg_type.h>
 #include <executor/spi.h>
 
 #include "org_postgresql_pljava_internal_Relation.h"
@@ -25,6 +27,7 @@
 #include "pljava/type/TupleDesc.h"
 #include "pljava/type/Tuple.h"
 #include "pljava/type/Relation.h"
+#include "pljava/type/Timestamp.h"
 
 static jclass    s_Relation_class;
 static jmethodID s_Relation_init;
@@ -69,6 +72,11 @@ void pljava_Relation_initialize(void)
 		"(JJ[I[Ljava/lang/Object;)Lorg/postgresql/pljava/internal/Tuple;",
 		Java_org_postgresql_pljava_internal_Relation__1modifyTuple
 		},
+		{
+		"_formModifiedTuple",
+		"(JJI[I[B[J[Ljava/lang/Object;)J",
+		Java_org_postgresql_pljava_internal_Relation__1formModifiedTuple
+		},
 		{ 0, 0, 0 }
 	};
 
@@ -269,3 +277,172 @@ Java_org_postgresql_pljava_internal_Relation__1modifyTuple(JNIEnv* env, jclass c
 	}
 	return result;
 }
+
+/*
+ * Produce the Datum for one primitive change recorded by TriggerResultSet.
+ * When the column has the type that is natural for the kind of change, the
+ * conversion is direct. Otherwise, the value is boxed as the natural type
+ * would box it, and given the same coercion updateObject would have had.
+ */
+static Datum _primitiveChange(
+	jbyte kind, jlong prim, jobject obj, Oid colTypeId, Type colType)
+{
+	Oid   natural;
+	Datum d;
+	Type  naturalType;
+	jobject boxed;
+	union { jint i; jfloat f; } fbits;
+	union { jlong j; jdouble d; } dbits;
+
+	switch ( kind )
+	{
+	case org_postgresql_pljava_internal_Relation_CHANGE_BOOLEAN:
+		natural = BOOLOID;
+		d = BoolGetDatum(0 != prim);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_SHORT:
+		natural = INT2OID;
+		d = Int16GetDatum((int16)prim);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_INT:
+		natural = INT4OID;
+		d = Int32GetDatum((int32)prim);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_LONG:
+		natural = INT8OID;
+		d = Int64GetDatum((int64)prim);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_FLOAT:
+		natural = FLOAT4OID;
+		fbits.i = (jint)prim;
+		d = Float4GetDatum(fbits.f);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_DOUBLE:
+		natural = FLOAT8OID;
+		dbits.j = prim;
+		d = Float8GetDatum(dbits.d);
+		break;
+	case org_postgresql_pljava_internal_Relation_CHANGE_TIMESTAMP:
+		if ( TIMESTAMPOID == colTypeId  ||  TIMESTAMPTZOID == colTypeId )
+			return Timestamp_fromJavaMicros(
+				(int64)prim, TIMESTAMPOID == colTypeId);
+		return Type_coerceObjectBridged(colType, obj);
+	default:
+		ereport(ERROR, (
+			errcode(ERRCODE_INTERNAL_ERROR),
+			errmsg("unexpected tuple change kind %d", (int)kind)));
+		return 0; /* not reached */
+	}
+
+	if ( natural == colTypeId )
+		return d;
+
+	naturalType = Type_objectTypeFromOid(natural, Invocation_getTypeMap());
+	boxed = Type_coerceDatum(naturalType, d).l;
+	d = Type_coerceObjectBridged(colType, boxed);
+	JNI_deleteLocalRef(boxed);
+	return d;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_Relation
+ * Method:    _formModifiedTuple
+ * Signature: (JJI[I[B[J[Ljava/lang/Object;)J
+ *
+ * Replaces the columns recorded in the buffers of a TriggerResultSet with one
+ * heap_modify_tuple call. Unlike _modifyTuple, there is no need for SPI to be
+ * connected, and no Java Tuple is created for the result, which is allocated
+ * in the current memory context (the caller has selected the upper context)
+ * and returned as a bare pointer.
+ */
+JNIEXPORT jlong JNICALL
+Java_org_postgresql_pljava_internal_Relation__1formModifiedTuple(JNIEnv* env, jclass clazz, jlong _this, jlong _tuple, jint count, jintArray _indexes, jbyteArray _kinds, jlongArray _prims, jobjectArray _objects)
+{
+	jlong result = 0;
+	Relation self = JLongGet(Relation, _this);
+
+	if(self != 0 && _tuple != 0 && count > 0)
+	{
+		BEGIN_NATIVE
+		HeapTuple tuple = JLongGet(HeapTuple, _tuple);
+		PG_TRY();
+		{
+			jint idx;
+			TupleDesc tupleDesc = self->rd_att;
+			int    natts   = tupleDesc->natts;
+			jobject typeMap = Invocation_getTypeMap();
+			Datum* values  = (Datum*)palloc0(natts * sizeof(Datum));
+			bool*  nulls   = (bool*)palloc0(natts * sizeof(bool));
+			bool*  replace = (bool*)palloc0(natts * sizeof(bool));
+			jint*  indexes = (jint*)palloc(count * sizeof(jint));
+			jbyte* kinds   = (jbyte*)palloc(count * sizeof(jbyte));
+			jlong* prims   = (jlong*)palloc(count * sizeof(jlong));
+
+			JNI_getIntArrayRegion(_indexes, 0, count, indexes);
+			JNI_getByteArrayRegion(_kinds, 0, count, kinds);
+			JNI_getLongArrayRegion(_prims, 0, count, prims);
+
+			for(idx = 0; idx < count; ++idx)
+			{
+				int attIndex = (int)indexes[idx];
+				int i = attIndex - 1;
+				jbyte kind = kinds[idx];
+				Oid typeId;
+				Type type;
+				jobject value;
+
+				typeId = SPI_gettypeid(tupleDesc, attIndex);
+				if ( attIndex < 1  ||  !OidIsValid(typeId) )
+					ereport(ERROR, (
+						errcode(ERRCODE_INVALID_DESCRIPTOR_INDEX),
+						errmsg("Invalid attribute index \"%d\"", attIndex)));
+
+				replace[i] = true;
+				if ( org_postgresql_pljava_internal_Relation_CHANGE_NULL
+					== kind )
+				{
+					nulls[i] = true;
+					continue;
+				}
+
+				type = Type_fromOid(typeId, typeMap);
+
+				if ( org_postgresql_pljava_internal_Relation_CHANGE_OBJECT
+					== kind
+				||   org_postgresql_pljava_internal_Relation_CHANGE_TIMESTAMP
+					== kind )
+					value = JNI_getObjectArrayElement(_objects, idx);
+				else
+					value = 0;
+
+				if ( org_postgresql_pljava_internal_Relation_CHANGE_OBJECT
+					== kind )
+					values[i] = Type_coerceObjectBridged(type, value);
+				else
+					values[i] =
+						_primitiveChange(kind, prims[idx], value, typeId, type);
+
+				if ( 0 != value )
+					JNI_deleteLocalRef(value);
+			}
+
+			tuple = heap_modify_tuple(tuple, tupleDesc, values, nulls, replace);
+			result = PointerGetJLong(tuple);
+
+			pfree(prims);
+			pfree(kinds);
+			pfree(indexes);
+			pfree(replace);
+			pfree(nulls);
+			pfree(values);
+		}
+		PG_CATCH();
+		{
+			result = 0;
+			Exception_throw_ERROR("heap_modify_tuple");
+		}
+		PG_END_TRY();
+		END_NATIVE
+	}
+	return result;
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -16,6 +16,7 @@
 #include "pljava/type/Type_priv.h"
 #include "pljava/type/SingleRowReader.h"
 
+#include <access/htup_details.h>
 #include <executor/executor.h>
 #include <executor/spi.h>
 #include <utils/typcache.h>
@@ -27,6 +28,12 @@
 
 #include "org_postgresql_pljava_jdbc_SingleRowReader.h"
 
+#if PG_VERSION_NUM < 100000
+#define TupleDescAttr(tupdesc, i) ((tupdesc)->attrs[(i)])
+#endif
+
+#define KIND(k) org_postgresql_pljava_jdbc_SingleRowReader_KIND_##k
+
 static jclass s_SingleRowReader_class;
 static jmethodID s_SingleRowReader_init;
 
@@ -65,9 +72,14 @@ void pljava_SingleRowReader_initialize(void)
 {
 	JNINativeMethod methods[] =
 	{
+		{
+		"_deform",
+		"(JJ[J[B)V",
+		Java_org_postgresql_pljava_jdbc_SingleRowReader__1deform
+		},
 		{
 		"_getObject",
-		"(JJILjava/lang/Class;)Ljava/lang/Object;",
+		"(JJIJLjava/lang/Class;)Ljava/lang/Object;",
 	  	Java_org_postgresql_pljava_jdbc_SingleRowReader__1getObject
 		},
 		{ 0, 0, 0 }
@@ -86,13 +98,103 @@ void pljava_SingleRowReader_initialize(void)
  * JNI methods
  ****************************************/
 
+/*
+ * The kind of a column for the Java side: NULL for any null column (a dropped
+ * one is always null), a by-value column of one of the types Java can decode
+ * from the bare Datum, or OTHER. Nullness must be tested first: the Datum of
+ * a null column is 0, and must never reach _getObject, which would dereference
+ * it for a by-reference type.
+ */
+static jbyte kindOf(Form_pg_attribute att, bool isnull)
+{
+	if ( isnull )
+		return KIND(NULL);
+	if ( att->attisdropped  ||  ! att->attbyval )
+		return KIND(OTHER);
+	switch ( att->atttypid )
+	{
+	case BOOLOID:
+		return KIND(BOOL);
+	case INT2OID:
+		return KIND(INT2);
+	case INT4OID:
+		return KIND(INT4);
+	case INT8OID:
+		return KIND(INT8);
+	case FLOAT4OID:
+		return KIND(FLOAT4);
+	case FLOAT8OID:
+		return KIND(FLOAT8);
+	default:
+		return KIND(OTHER);
+	}
+}
+
+/*
+ * Class:     org_postgresql_pljava_jdbc_SingleRowReader
+ * Method:    _deform
+ * Signature: (JJ[J[B)V
+ *
+ * Deform the whole tuple once, storing each attribute's Datum in datums, and
+ * its kind (or KIND_NULL) in kinds. A by-reference Datum points into the
+ * tuple, and stays usable by _getObject as long as the tuple itself.
+ */
+JNIEXPORT void JNICALL
+Java_org_postgresql_pljava_jdbc_SingleRowReader__1deform(JNIEnv* env, jclass clazz, jlong hth, jlong jtd, jlongArray datums, jbyteArray kinds)
+{
+	if ( hth == 0  ||  jtd == 0 )
+		return;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		HeapTupleHeader hdr = JLongGet(HeapTupleHeader, hth);
+		TupleDesc td = JLongGet(TupleDesc, jtd);
+		int natts = td->natts;
+		HeapTupleData tuple;
+		Datum *values = (Datum *)palloc(natts * sizeof (Datum));
+		bool *nulls = (bool *)palloc(natts * sizeof (bool));
+		jlong *jdatums = (jlong *)palloc(natts * sizeof (jlong));
+		jbyte *jkinds = (jbyte *)palloc(natts * sizeof (jbyte));
+		int i;
+
+		tuple.t_len = HeapTupleHeaderGetDatumLength(hdr);
+		ItemPointerSetInvalid(&(tuple.t_self));
+		tuple.t_tableOid = InvalidOid;
+		tuple.t_data = hdr;
+		heap_deform_tuple(&tuple, td, values, nulls);
+
+		for ( i = 0; i < natts; ++ i )
+		{
+			jdatums[i] = nulls[i] ? 0 : (jlong)values[i];
+			jkinds[i] = kindOf(TupleDescAttr(td, i), nulls[i]);
+		}
+
+		JNI_setLongArrayRegion(datums, 0, natts, jdatums);
+		JNI_setByteArrayRegion(kinds, 0, natts, jkinds);
+
+		pfree(jkinds);
+		pfree(jdatums);
+		pfree(nulls);
+		pfree(values);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("heap_deform_tuple");
+	}
+	PG_END_TRY();
+	END_NATIVE
+}
+
 /*
  * Class:     org_postgresql_pljava_jdbc_SingleRowReader
  * Method:    _getObject
- * Signature: (JJILjava/lang/Class;)Ljava/lang/Object;
+ * Signature: (JJIJLjava/lang/Class;)Ljava/lang/Object;
+ *
+ * Coerce the non-null Datum of attribute attrNo, already found by _deform.
  */
 JNIEXPORT jobject JNICALL
-Java_org_postgresql_pljava_jdbc_SingleRowReader__1getObject(JNIEnv* env, jclass clazz, jlong hth, jlong jtd, jint attrNo, jclass rqcls)
+Java_org_postgresql_pljava_jdbc_SingleRowReader__1getObject(JNIEnv* env, jclass clazz, jlong hth, jlong jtd, jint attrNo, jlong datum, jclass rqcls)
 {
 	jobject result = 0;
 	if(hth != 0 && jtd != 0)
@@ -103,19 +205,11 @@ Java_org_postgresql_pljava_jdbc_SingleRowReader__1getObject(JNIEnv* env, jclass
 			Type type = pljava_TupleDesc_getColumnType(
 				JLongGet(TupleDesc, jtd), (int) attrNo);
 			if (type != 0)
-			{
-				Datum binVal;
-				bool wasNull = false;
-				binVal = GetAttributeByNum(
-							JLongGet(HeapTupleHeader, hth),
-							(AttrNumber)attrNo, &wasNull);
-				if(!wasNull)
-					result = Type_coerceDatumAs(type, binVal, rqcls).l;
-			}
+				result = Type_coerceDatumAs(type, (Datum)datum, rqcls).l;
 		}
 		PG_CATCH();
 		{
-			Exception_throw_ERROR("GetAttributeByNum");
+			Exception_throw_ERROR("Type_coerceDatumAs");
 		}
 		PG_END_TRY();
 		END_NATIVE
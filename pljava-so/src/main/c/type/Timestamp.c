@@ -360,6 +360,31 @@ static Datum Timestamp_coerceObjectTZ_dd(Type self, jobject jts, bool tzAdjust)
 }
 #endif
 
+/*
+ * Convert microseconds since the Java (Unix) epoch, as computed on the Java
+ * side from a java.sql.Timestamp, directly to a timestamp (tzAdjust true) or
+ * timestamptz (tzAdjust false) Datum. The result agrees with
+ * Timestamp_coerceObjectTZ for the same Timestamp, without calling back into
+ * Java for its fields.
+ */
+Datum Timestamp_fromJavaMicros(int64 micros, bool tzAdjust)
+{
+#if PG_VERSION_NUM < 100000
+	if ( !integerDateTimes )
+	{
+		double ts = ((double)micros) / 1000000.0 - EPOCH_DIFF;
+		if(tzAdjust)
+			ts -= Timestamp_getTimeZone_dd(ts);
+		return Float8GetDatum(ts);
+	}
+#endif
+	micros -= ((int64)EPOCH_DIFF) * INT64CONST(1000000);
+	if(tzAdjust) /* function expects halved ts */
+		micros -= ((int64)Timestamp_getTimeZone_id(micros / 2))
+			* INT64CONST(1000000);
+	return Int64GetDatum(micros);
+}
+
 static Datum Timestamp_coerceObjectTZ(Type self, jobject jts, bool tzAdjust)
 {
 	return
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -11,6 +11,12 @@
  *   Chapman Flack
  */
 #include <postgres.h>
+#include <access/htup_details.h>
+#if PG_VERSION_NUM < 130000
+#include <access/tuptoaster.h>
+#else
+#include <access/heaptoast.h>
+#endif
 #include <executor/spi.h>
 #include <funcapi.h>
 
@@ -25,6 +31,10 @@
 #include "pljava/type/TupleDesc.h"
 #include "pljava/type/Oid.h"
 
+#if PG_VERSION_NUM < 100000
+#define TupleDescAttr(tupdesc, i) ((tupdesc)->attrs[(i)])
+#endif
+
 static jclass    s_TupleDesc_class;
 static jmethodID s_TupleDesc_init;
 
@@ -117,6 +127,16 @@ void pljava_TupleDesc_initialize(void)
 		"(JI)Lorg/postgresql/pljava/internal/Oid;",
 		Java_org_postgresql_pljava_internal_TupleDesc__1getOid
 		},
+		{
+		"_acceptsTuplesOf",
+		"(JJ)Z",
+		Java_org_postgresql_pljava_internal_TupleDesc__1acceptsTuplesOf
+		},
+		{
+		"_relabel",
+		"(JJ)Lorg/postgresql/pljava/internal/Tuple;",
+		Java_org_postgresql_pljava_internal_TupleDesc__1relabel
+		},
 		{ 0, 0, 0 }};
 
 	s_TupleDesc_class = JNI_newGlobalRef(PgObject_getJavaClass("org/postgresql/pljava/internal/TupleDesc"));
@@ -291,3 +311,96 @@ Java_org_postgresql_pljava_internal_TupleDesc__1getOid(JNIEnv* env, jclass cls,
 
 	return result;
 }
+
+/*
+ * Class:     org_postgresql_pljava_internal_TupleDesc
+ * Method:    _acceptsTuplesOf
+ * Signature: (JJ)Z
+ *
+ * The test is the one PostgreSQL applies to the result of a function returning
+ * a row type: same number of attributes, same types, and a typmod in the
+ * source wherever the destination has one. A dropped attribute matches only
+ * a dropped attribute.
+ */
+JNIEXPORT jboolean JNICALL
+Java_org_postgresql_pljava_internal_TupleDesc__1acceptsTuplesOf(JNIEnv* env, jclass cls, jlong _this, jlong source)
+{
+	TupleDesc dst = JLongGet(TupleDesc, _this);
+	TupleDesc src = JLongGet(TupleDesc, source);
+	int i;
+
+	if(dst->natts != src->natts)
+		return JNI_FALSE;
+
+	for(i = 0; i < dst->natts; ++i)
+	{
+		Form_pg_attribute da = TupleDescAttr(dst, i);
+		Form_pg_attribute sa = TupleDescAttr(src, i);
+
+		if(da->attisdropped != sa->attisdropped)
+			return JNI_FALSE;
+		if(da->attisdropped)
+			continue;
+		if(da->atttypid != sa->atttypid)
+			return JNI_FALSE;
+		if(da->atttypmod != sa->atttypmod  &&  da->atttypmod >= 0)
+			return JNI_FALSE;
+	}
+	return JNI_TRUE;
+}
+
+/*
+ * Class:     org_postgresql_pljava_internal_TupleDesc
+ * Method:    _relabel
+ * Signature: (JJ)Lorg/postgresql/pljava/internal/Tuple;
+ *
+ * Copy a tuple, in JavaMemoryContext, with the datum length and the row type
+ * of this descriptor stamped into its header, as heap_form_tuple would have
+ * done, so it can be returned as a Datum of that type. The source tuple (which
+ * may belong to an SPI tuptable, and may have come straight from a table scan,
+ * with xmin where the datum length belongs) is left untouched. Any external
+ * TOAST pointers are expanded, as heap_copy_tuple_as_datum does; a composite
+ * Datum must not contain them.
+ *
+ * The tuple is copied once, straight into JavaMemoryContext, as one chunk
+ * holding the HeapTupleData and the data, as heap_freetuple expects when the
+ * Java Tuple is released. heap_copytuple makes such a chunk, and so does
+ * toast_flatten_tuple, which also carries over the source's header fields
+ * that a Datum uses otherwise, so they are stamped after either.
+ */
+JNIEXPORT jobject JNICALL
+Java_org_postgresql_pljava_internal_TupleDesc__1relabel(JNIEnv* env, jclass cls, jlong _this, jlong tuple)
+{
+	jobject result = 0;
+
+	BEGIN_NATIVE
+	PG_TRY();
+	{
+		TupleDesc self = JLongGet(TupleDesc, _this);
+		HeapTuple ht = JLongGet(HeapTuple, tuple);
+		MemoryContext curr;
+		HeapTuple copy;
+
+		curr = MemoryContextSwitchTo(JavaMemoryContext);
+		if ( HeapTupleHasExternal(ht) )
+			copy = toast_flatten_tuple(ht, self);
+		else
+			copy = heap_copytuple(ht);
+		MemoryContextSwitchTo(curr);
+
+		HeapTupleHeaderSetDatumLength(copy->t_data, copy->t_len);
+		HeapTupleHeaderSetTypeId(copy->t_data, self->tdtypeid);
+		HeapTupleHeaderSetTypMod(copy->t_data, self->tdtypmod);
+		ItemPointerSetInvalid(&(copy->t_self));
+		copy->t_tableOid = InvalidOid;
+
+		result = pljava_Tuple_internalCreate(copy, false);
+	}
+	PG_CATCH();
+	{
+		Exception_throw_ERROR("heap_copytuple");
+	}
+	PG_END_TRY();
+	END_NATIVE
+	return result;
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -44,13 +44,16 @@ jobject TupleTable_createFromSlot(TupleTableSlot* tts)
 
 	MemoryContextSwitchTo(curr);
 
-	return JNI_newObject(s_TupleTable_class, s_TupleTable_init, tupdesc, tuples);
+	return JNI_newObject(s_TupleTable_class, s_TupleTable_init,
+		tupdesc, tuples, (jlong)tuple->t_len);
 }
 
 jobject TupleTable_create(SPITupleTable* tts, jobject knownTD)
 {
 	jobjectArray tuples;
 	uint64 tupcount;
+	uint64 i;
+	jlong tupbytes = 0;
 	MemoryContext curr;
 
 	if(tts == 0)
@@ -67,6 +70,9 @@ jobject TupleTable_create(SPITupleTable* tts, jobject knownTD)
 				 errmsg("a PL/Java TupleTable cannot represent more than "
 					"INT32_MAX rows")));
 
+	for ( i = 0; i < tupcount; ++ i )
+		tupbytes += tts->vals[i]->t_len;
+
 	curr = MemoryContextSwitchTo(JavaMemoryContext);
 
 	if(knownTD == 0)
@@ -75,7 +81,8 @@ jobject TupleTable_create(SPITupleTable* tts, jobject knownTD)
 	tuples = pljava_Tuple_createArray(tts->vals, (jint)tupcount, true);
 	MemoryContextSwitchTo(curr);
 
-	return JNI_newObject(s_TupleTable_class, s_TupleTable_init, knownTD, tuples);
+	return JNI_newObject(s_TupleTable_class, s_TupleTable_init,
+		knownTD, tuples, tupbytes);
 }
 
 /* Make this datatype available to the postgres system.
@@ -86,5 +93,5 @@ void TupleTable_initialize(void)
 	s_TupleTable_class = JNI_newGlobalRef(PgObject_getJavaClass("org/postgresql/pljava/internal/TupleTable"));
 	s_TupleTable_init = PgObject_getJavaMethod(
 				s_TupleTable_class, "<init>",
-				"(Lorg/postgresql/pljava/internal/TupleDesc;[Lorg/postgresql/pljava/internal/Tuple;)V");
+				"(Lorg/postgresql/pljava/internal/TupleDesc;[Lorg/postgresql/pljava/internal/Tuple;J)V");
 }
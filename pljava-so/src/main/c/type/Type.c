@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -971,6 +971,7 @@ extern void TupleTable_initialize(void);
 extern void Composite_initialize(void);
 
 extern void pljava_SQLXMLImpl_initialize(void);
+extern void pljava_Jsonb_initialize(void);
 
 extern void Type_initialize(void);
 void Type_initialize(void)
@@ -1007,6 +1008,7 @@ void Type_initialize(void)
 
 	Composite_initialize();
 	pljava_SQLXMLImpl_initialize();
+	pljava_Jsonb_initialize();
 
 	s_Map_class = JNI_newGlobalRef(PgObject_getJavaClass("java/util/Map"));
 	s_Map_get = PgObject_getJavaMethod(
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -11,6 +11,7 @@
  *   Chapman Flack
  */
 #include "pljava/Exception.h"
+#include "pljava/VarlenaWrapper.h"
 #include "pljava/type/Type_priv.h"
 
 static jclass s_byteArray_class;
@@ -18,6 +19,8 @@ static jclass s_BlobValue_class;
 static jmethodID s_BlobValue_length;
 static jmethodID s_BlobValue_getContents;
 
+static TypeClass s_byteaInputClass;
+
 /*
  * byte[] type. Copies data to/from a bytea struct.
  */
@@ -70,6 +73,35 @@ static Datum _byte_array_coerceObject(Type self, jobject byteArray)
 	PG_RETURN_BYTEA_P(bytes);
 }
 
+/*
+ * bytea presented as a VarlenaWrapper.Input, not detoasted or copied until
+ * Java first reads it, then read in place. Only for internal use (as by the
+ * sqlj: URL handler for large jar entries); registered with an obtainer, so
+ * only used when that class is explicitly asked for.
+ */
+static bool _byteaInput_canReplaceType(Type self, Type other)
+{
+	return
+		Type_getClass(self) == Type_getClass(other)  ||
+		Type_getOid(other) == BYTEAOID;
+}
+
+static jvalue _byteaInput_coerceDatum(Type self, Datum arg)
+{
+	jvalue result;
+	result.l = pljava_VarlenaWrapper_Input(
+		arg, TopTransactionContext, TopTransactionResourceOwner);
+	return result;
+}
+
+static Type _byteaInput_obtain(Oid typeId)
+{
+	static Type instance;
+	if ( NULL == instance )
+		instance = TypeClass_allocInstance(s_byteaInputClass, BYTEAOID);
+	return instance;
+}
+
 /* Make this datatype available to the postgres system.
  */
 extern void byte_array_initialize(void);
@@ -82,6 +114,17 @@ void byte_array_initialize(void)
 	cls->coerceObject = _byte_array_coerceObject;
 	Type_registerType("byte[]", TypeClass_allocInstance(cls, BYTEAOID));
 
+	cls = TypeClass_alloc("type.byteaInput");
+	cls->JNISignature =
+		"Lorg/postgresql/pljava/internal/VarlenaWrapper$Input;";
+	cls->javaTypeName = "org.postgresql.pljava.internal.VarlenaWrapper.Input";
+	cls->canReplaceType = _byteaInput_canReplaceType;
+	cls->coerceDatum  = _byteaInput_coerceDatum;
+	s_byteaInputClass = cls;
+	Type_registerType2(InvalidOid,
+		"org.postgresql.pljava.internal.VarlenaWrapper.Input",
+		_byteaInput_obtain);
+
 	s_byteArray_class = JNI_newGlobalRef(PgObject_getJavaClass("[B"));
 	s_BlobValue_class = JNI_newGlobalRef(PgObject_getJavaClass("org/postgresql/pljava/jdbc/BlobValue"));
 	s_BlobValue_length = PgObject_getJavaMethod(s_BlobValue_class, "length", "()J");
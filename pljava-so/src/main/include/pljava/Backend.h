@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -16,6 +16,8 @@
 
 #include "pljava/Function.h"
 
+#include <portability/instr_time.h>
+
 #ifdef __cplusplus
 extern "C" {
 #endif
@@ -49,6 +51,19 @@ int Backend_setJavaLogLevel(int logLevel);
  */
 void Backend_warnJEP411(bool isCommit);
 
+/*
+ * Called by Function_create before creating each function. Completes the
+ * session initialization, if pljava.lazy_worker_init deferred it.
+ */
+void Backend_completeLazyInit(void);
+
+/*
+ * Called by Function_create after successfully creating a function, with the
+ * time creation began. Only the first call in the session is recorded, as the
+ * first-class-load phase of startup.
+ */
+void Backend_recordFirstClassLoad(instr_time *start);
+
 #ifdef PG_GETCONFIGOPTION
 #error The macro PG_GETCONFIGOPTION needs to be renamed.
 #endif
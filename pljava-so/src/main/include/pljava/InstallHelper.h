@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015-2021 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2015-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -130,6 +130,13 @@ extern bool pljavaViableXact(void);
  */
 extern bool InstallHelper_shouldDeferInit(void);
 
+/*
+ * Whether this is a background worker (including a parallel query worker) or
+ * autovacuum worker process, for which pljava.lazy_worker_init applies. Same
+ * visibility issues as above.
+ */
+extern bool InstallHelper_isWorkerProcess(void);
+
 /*
  * Emit a debug message as early as possible with the native code's version
  * and build information. A nicer message is produced later by hello and
@@ -153,4 +160,11 @@ extern char *InstallHelper_hello(void);
  */
 extern void InstallHelper_groundwork(void);
 
+/*
+ * Called when PL/Java has been started as a session begins, through
+ * session_preload_libraries, if pljava.preload_classes is set; loads the
+ * classes it names.
+ */
+extern void InstallHelper_preload(void);
+
 extern void InstallHelper_initialize(void);
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+#ifndef __pljava_SharedStore_h
+#define __pljava_SharedStore_h
+
+#ifdef __cplusplus
+extern "C" {
+#endif
+
+/*
+ * A key/value store in the main shared memory segment, visible to every
+ * backend of the cluster, available when PL/Java is loaded through
+ * shared_preload_libraries and pljava.shared_store_size is nonzero.
+ */
+
+/*
+ * The size in kilobytes, from the GUC pljava.shared_store_size.
+ */
+extern int SharedStore_sizeKB;
+
+/*
+ * Called from _PG_init, after the GUCs are registered. When the library is
+ * being preloaded, arranges for the shared memory and lock to be requested.
+ */
+extern void SharedStore_requestSpace(void);
+
+extern void pljava_SharedStore_initialize(void);
+
+#ifdef __cplusplus
+}
+#endif
+#endif
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2018 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -42,6 +42,13 @@ extern int Timestamp_getCurrentTimeZone(void);
  */
 extern int32 Timestamp_getTimeZone_id(int64 t);
 
+/*
+ * Returns a timestamp (tzAdjust true) or timestamptz (tzAdjust false) Datum
+ * for a count of microseconds since the Java (Unix) epoch, as computed on the
+ * Java side from a java.sql.Timestamp.
+ */
+extern Datum Timestamp_fromJavaMicros(int64 micros, bool tzAdjust);
+
 #ifdef __cplusplus
 }
 #endif
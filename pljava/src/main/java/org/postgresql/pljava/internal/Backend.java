@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,16 +15,30 @@ package org.postgresql.pljava.internal;
 import java.io.InputStream;
 import java.io.IOException;
 
+import java.security.AccessControlContext;
+import static java.security.AccessController.getContext;
+
 import java.sql.SQLException;
 import java.sql.SQLDataException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import static java.util.Objects.requireNonNull;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.postgresql.pljava.elog.ELogHandler; // for javadoc
 
+import org.postgresql.pljava.jdbc.Invocation;
+
+import static org.postgresql.pljava.internal.Privilege.doPrivileged;
+
 import org.postgresql.pljava.sqlgen.Lexicals.Identifier;
 import static org.postgresql.pljava.sqlgen.Lexicals.identifierFrom;
 import static
@@ -53,6 +67,23 @@ public class Backend
 	@SuppressWarnings("deprecation") // Java >= 10: .feature()
 	static final int JAVA_MAJOR = Runtime.version().major();
 
+	/*
+	 * Indices into the array returned by startupTimings(). The native code
+	 * records each phase as it completes.
+	 */
+	/** Creation of the Java VM. */
+	public static final int STARTUP_JVM_CREATE = 0;
+	/** Loading of PL/Java's classes and registration of native methods. */
+	public static final int STARTUP_MODULE_INIT = 1;
+	/** Session initialization (logging, management beans). */
+	public static final int STARTUP_SESSION_INIT = 2;
+	/** InstallHelper.hello: system properties and security policy. */
+	public static final int STARTUP_POLICY = 3;
+	/** Creation of the first function, which loads its class. */
+	public static final int STARTUP_FIRST_CLASS_LOAD = 4;
+	/** Number of startup phases recorded. */
+	public static final int STARTUP_PHASES = 5;
+
 	static
 	{
 		IAMPGTHREAD.set(Boolean.TRUE);
@@ -87,7 +118,7 @@ public class Backend
 	public static <T, E extends Throwable> T doInPG(Checked.Supplier<T,E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				return op.get();
@@ -105,7 +136,7 @@ public class Backend
 	public static <E extends Throwable> void doInPG(Checked.Runnable<E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				op.run();
@@ -126,7 +157,7 @@ public class Backend
 		Checked.BooleanSupplier<E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				return op.getAsBoolean();
@@ -146,7 +177,7 @@ public class Backend
 		Checked.DoubleSupplier<E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				return op.getAsDouble();
@@ -165,7 +196,7 @@ public class Backend
 	public static <E extends Throwable> int doInPG(Checked.IntSupplier<E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				return op.getAsInt();
@@ -184,7 +215,7 @@ public class Backend
 	public static <E extends Throwable> long doInPG(Checked.LongSupplier<E> op)
 	throws E
 	{
-		if ( null != THREADLOCK )
+		if ( null != THREADLOCK  &&  ! isComputeThread() )
 			synchronized(THREADLOCK)
 			{
 				return op.getAsLong();
@@ -193,6 +224,207 @@ public class Backend
 		return op.getAsLong();
 	}
 
+	/**
+	 * Work submitted by other threads with {@link #submitToPG submitToPG},
+	 * waiting to be run on the PG thread.
+	 */
+	private static final ConcurrentLinkedQueue<PGTask<?>> s_pgQueue =
+		new ConcurrentLinkedQueue<>();
+
+	/**
+	 * The invocation on whose behalf the PG thread has waited in
+	 * {@link #awaitInPG awaitInPG}, or obtained a compute executor, and on
+	 * whose exit any work still queued will be cancelled; null if none, in
+	 * which case {@link #submitToPG submitToPG} refuses work.
+	 *<p>
+	 * Guarded by {@code s_pgQueueSignal}.
+	 */
+	private static Invocation s_pgQueueOwner;
+
+	/**
+	 * Monitor on which the PG thread waits, in {@link #awaitInPG awaitInPG},
+	 * for either new work in the queue or completion of what it awaits; also
+	 * guards {@code s_pgQueueOwner}, so that no work is queued after the
+	 * owner's exit has emptied the queue.
+	 */
+	private static final Object s_pgQueueSignal = new Object();
+
+	/**
+	 * How long the PG thread waits, at most, before checking again for
+	 * PostgreSQL interrupts or completion of a {@code Future} that cannot
+	 * notify it.
+	 */
+	private static final long PG_QUEUE_POLL_MILLIS = 10;
+
+	/**
+	 * A task queued by {@link #submitToPG submitToPG}, with the future for its
+	 * result and the access control context of its submitter.
+	 */
+	@SuppressWarnings("removal")
+	private static final class PGTask<T> implements Runnable
+	{
+		final CompletableFuture<T> m_future = new CompletableFuture<>();
+		private final Callable<T> m_task;
+		private final AccessControlContext m_acc;
+
+		PGTask(Callable<T> task, AccessControlContext acc)
+		{
+			m_task = task;
+			m_acc = acc;
+		}
+
+		@Override
+		public void run()
+		{
+			if ( m_future.isDone() )
+				return;
+			try
+			{
+				m_future.complete(doPrivileged(m_task::call, m_acc));
+			}
+			catch ( Throwable t )
+			{
+				m_future.completeExceptionally(t);
+			}
+		}
+	}
+
+	/**
+	 * Arrange for <var>task</var> to be run on the PG thread, returning a
+	 * future for its result.
+	 *<p>
+	 * This works under any setting of {@code pljava.java_thread_pg_entry},
+	 * as the task runs on the PG thread itself. Called on the PG thread, the
+	 * task is simply run at once. Otherwise, it is queued, and run only while
+	 * the PG thread waits in {@link #awaitInPG awaitInPG}. Work still queued
+	 * when the invocation that waited exits is cancelled, not left to run in
+	 * whatever function waits next. A task cancelled before it is run is not
+	 * run. The task runs with the access control context of the caller of this
+	 * method.
+	 *<p>
+	 * Work is only accepted from another thread while some invocation owns the
+	 * queue, having waited in {@code awaitInPG} or obtained a compute
+	 * executor, and has not yet exited. Otherwise nothing would be sure to run
+	 * the task, and the returned future is completed at once with an
+	 * {@code IllegalStateException}.
+	 */
+	@SuppressWarnings("removal")
+	public static <T> CompletableFuture<T> submitToPG(Callable<T> task)
+	{
+		PGTask<T> t = new PGTask<>(requireNonNull(task), getContext());
+
+		if ( Boolean.TRUE == IAMPGTHREAD.get() )
+		{
+			t.run();
+			return t.m_future;
+		}
+
+		synchronized ( s_pgQueueSignal )
+		{
+			if ( null == s_pgQueueOwner )
+			{
+				t.m_future.completeExceptionally(new IllegalStateException(
+					"no PL/Java function is waiting to run work " +
+					"submitted to the PostgreSQL thread"));
+				return t.m_future;
+			}
+			s_pgQueue.add(t);
+			s_pgQueueSignal.notifyAll();
+		}
+		return t.m_future;
+	}
+
+	/**
+	 * Make the current invocation the owner of the queue of work for the PG
+	 * thread, if no invocation owns it; to be called on the PG thread.
+	 *<p>
+	 * Called by {@code awaitInPG}, and when a compute executor is obtained, so
+	 * that its tasks may submit work before the PG thread begins to wait.
+	 */
+	static void claimPGQueue()
+	{
+		synchronized ( s_pgQueueSignal )
+		{
+			if ( null == s_pgQueueOwner )
+				s_pgQueueOwner = Invocation.current();
+		}
+	}
+
+	/**
+	 * Wait for <var>future</var> and return its result, running any work
+	 * queued by {@link #submitToPG submitToPG} while waiting, if called on the
+	 * PG thread.
+	 *<p>
+	 * The queue is tied to the current invocation, unless an outer one waiting
+	 * here already holds it; when that invocation exits, work still queued is
+	 * cancelled.
+	 *<p>
+	 * While waiting, the PG thread also lets PostgreSQL service pending
+	 * interrupts. If a query cancel or statement timeout is found, all work in
+	 * flight on the {@link ComputePool} is cancelled, and the resulting
+	 * {@code ServerException} thrown.
+	 *<p>
+	 * On any other thread, this is simply {@code future.get()}.
+	 */
+	public static <T> T awaitInPG(Future<T> future)
+	throws InterruptedException, ExecutionException, SQLException
+	{
+		if ( Boolean.TRUE != IAMPGTHREAD.get() )
+			return future.get();
+
+		claimPGQueue();
+
+		if ( future instanceof CompletionStage )
+		{
+			((CompletionStage<?>)future).whenComplete((v, t) ->
+			{
+				synchronized ( s_pgQueueSignal )
+				{
+					s_pgQueueSignal.notifyAll();
+				}
+			});
+		}
+
+		for ( ;; )
+		{
+			for ( PGTask<?> t; null != (t = s_pgQueue.poll()); )
+				t.run();
+			if ( future.isDone() )
+				return future.get();
+			try
+			{
+				doInPG(Backend::_checkForInterrupts);
+			}
+			catch ( SQLException e )
+			{
+				ComputePool.cancelAll();
+				throw e;
+			}
+			synchronized ( s_pgQueueSignal )
+			{
+				if ( s_pgQueue.isEmpty()  &&  ! future.isDone() )
+					s_pgQueueSignal.wait(PG_QUEUE_POLL_MILLIS);
+			}
+		}
+	}
+
+	/**
+	 * Called on the PG thread when <var>invocation</var> exits; if it is the
+	 * one that waited in {@link #awaitInPG awaitInPG}, cancels any work still
+	 * queued by {@link #submitToPG submitToPG}.
+	 */
+	public static void onInvocationExit(Invocation invocation)
+	{
+		synchronized ( s_pgQueueSignal )
+		{
+			if ( invocation != s_pgQueueOwner )
+				return;
+			s_pgQueueOwner = null;
+		}
+		for ( PGTask<?> t; null != (t = s_pgQueue.poll()); )
+			t.m_future.cancel(false);
+	}
+
 	/**
 	 * Return true if the current thread may JNI-call into Postgres.
 	 *<p>
@@ -224,15 +456,33 @@ public class Backend
 	 *<p>
 	 * This method is only called in, and only correct for, the case where no
 	 * {@code THREADLOCK} is in use and only the one primordial thread is ever
-	 * allowed into PG.
+	 * allowed into PG, and the case of a {@link ComputePool} thread, which is
+	 * never allowed into PG whether or not there is a {@code THREADLOCK}.
 	 */
 	private static void assertThreadMayEnterPG()
 	{
+		if ( isComputeThread() )
+			throw new IllegalStateException(
+				"Attempt by PL/Java compute pool thread to enter PostgreSQL");
 		if ( null == IAMPGTHREAD.get() )
 			throw new IllegalStateException(
 				"Attempt by non-initial thread to enter PostgreSQL from Java");
 	}
 
+	/**
+	 * Whether the current thread belongs to the {@link ComputePool}, whose
+	 * threads must never enter PostgreSQL.
+	 *<p>
+	 * The {@code doInPG} methods send such a thread to
+	 * {@code assertThreadMayEnterPG} instead of letting it take the
+	 * {@code THREADLOCK}, so it is refused whatever the setting of
+	 * {@code pljava.java_thread_pg_entry}.
+	 */
+	private static boolean isComputeThread()
+	{
+		return Thread.currentThread() instanceof ComputePool.Worker;
+	}
+
 	/**
 	 * Returns the configuration option as read from the Global
 	 * Unified Config package (GUC).
@@ -276,6 +526,32 @@ public class Backend
 		return doInPG(Backend::_getStatementCacheSize);
 	}
 
+	/**
+	 * Returns the setting of {@code pljava.compute_pool_size}.
+	 */
+	static int getComputePoolSize()
+	{
+		return doInPG(Backend::_getComputePoolSize);
+	}
+
+	/**
+	 * Returns the setting of {@code pljava.resource_cache_size}, in kilobytes.
+	 */
+	public static int getResourceCacheSize()
+	{
+		return doInPG(Backend::_getResourceCacheSize);
+	}
+
+	/**
+	 * Returns a number that changes whenever PostgreSQL invalidates its
+	 * cached information on a relation, namespace, or type, so that results
+	 * of earlier catalog queries can be known to be possibly stale.
+	 */
+	public static int getCatalogGeneration()
+	{
+		return doInPG(Backend::_getCatalogGeneration);
+	}
+
 	/**
 	 * Log a message using the internal elog command.
 	 * @param logLevel The log level as defined in
@@ -302,6 +578,18 @@ public class Backend
 		return doInPG(Backend::_allowingUnenforcedUDT);
 	}
 
+	/**
+	 * Returns the durations, in microseconds, of the startup phases of PL/Java
+	 * in this backend, indexed by the {@code STARTUP_} constants.
+	 *<p>
+	 * A phase not (yet) completed in this backend has the value -1. A phase
+	 * deferred by lazy initialization is recorded when it finally completes.
+	 */
+	public static long[] startupTimings()
+	{
+		return doInPG(Backend::_startupTimings);
+	}
+
 	/**
 	 * Returns the path of PL/Java's shared library.
 	 * @throws SQLException if for some reason it can't be determined.
@@ -349,6 +637,11 @@ public class Backend
 	private static native String _myLibraryPath();
 	private static native void _pokeJEP411(Class<?> caller, Object token);
 	private static native boolean _allowingUnenforcedUDT();
+	private static native long[] _startupTimings();
+	private static native int  _getComputePoolSize();
+	private static native int  _getResourceCacheSize();
+	private static native int  _getCatalogGeneration();
+	private static native void _checkForInterrupts() throws SQLException;
 
 	private static class EarlyNatives
 	{
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import static org.postgresql.pljava.internal.Backend.doInPG;
+
+import java.sql.SQLException;
+
+/**
+ * Access to PostgreSQL's {@code COPY} machinery from within the backend,
+ * without going through SQL or the client protocol.
+ */
+public class BulkCopy
+{
+	private BulkCopy()
+	{
+	}
+
+	/**
+	 * Inserts rows into a table as {@code COPY ... FROM} would, reading the
+	 * rows in {@code COPY} text format (UTF-8 encoded, tab-delimited,
+	 * newline-terminated, {@code \N} for null) from an array.
+	 *<p>
+	 * Requires PostgreSQL 12 or later.
+	 * @param table Possibly schema-qualified name of the table, in SQL
+	 * syntax.
+	 * @param columns Names of the columns supplied in each row.
+	 * @param data Array holding the rows.
+	 * @param length Number of bytes of row data at the start of the array.
+	 * @return The number of rows inserted.
+	 */
+	public static long copyIn(
+		String table, String[] columns, byte[] data, int length)
+	throws SQLException
+	{
+		if ( length < 0  ||  length > data.length )
+			throw new IllegalArgumentException(
+				"copyIn length " + length + " out of range");
+		return doInPG(() -> _copyIn(table, columns, data, length));
+	}
+
+	private static native long _copyIn(
+		String table, String[] columns, byte[] data, int length)
+	throws SQLException;
+}
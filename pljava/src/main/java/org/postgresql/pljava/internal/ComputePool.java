@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.security.AccessControlContext;
+import static java.security.AccessController.getContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.TimeUnit;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import static org.postgresql.pljava.internal.Privilege.doPrivileged;
+
+/**
+ * A pool of threads, managed by PL/Java, for parallel computation in Java on
+ * behalf of a function call.
+ *<p>
+ * The pool is a {@code ForkJoinPool} created when first needed, with the
+ * parallelism given by {@code pljava.compute_pool_size}, or the number of
+ * available processors if that is zero. Its threads are never allowed into
+ * PostgreSQL; {@link Backend#doInPG Backend.doInPG} refuses them.
+ *<p>
+ * Work is submitted through a {@link #newScope scope}, an
+ * {@code ExecutorService} belonging to one invocation, that keeps track of
+ * the tasks it has submitted. A scope is shut down, and its unfinished tasks
+ * cancelled with interruption, when its invocation exits. When the PG thread,
+ * waiting in {@link Backend#awaitInPG Backend.awaitInPG}, finds a query cancel
+ * or statement timeout pending, the tasks of every scope are cancelled.
+ *<p>
+ * A query cancel reaches the tasks only that way. PostgreSQL notes the cancel
+ * in a signal handler and acts on it only where the PG thread checks for
+ * interrupts, which no pool thread can do. If the invocation waits for its
+ * tasks some other way, such as with {@code Future.get}, the cancel is not
+ * seen until the tasks finish, and then ends the query at the next check.
+ *<p>
+ * Each task runs with the access control context in effect where it was
+ * submitted, and the pool threads are created with only PL/Java's own, so no
+ * task sees the permissions of another.
+ */
+public final class ComputePool
+{
+	private ComputePool() // no instances
+	{
+	}
+
+	private static ForkJoinPool s_pool;
+
+	/**
+	 * Scopes not yet shut down.
+	 */
+	private static final Set<Scope> s_scopes = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Class of the pool's threads, which {@code Backend} recognizes and
+	 * refuses entry to PostgreSQL.
+	 */
+	static final class Worker extends ForkJoinWorkerThread
+	{
+		Worker(ForkJoinPool pool)
+		{
+			super(pool);
+			setName("PL/Java compute " + getPoolIndex());
+		}
+	}
+
+	/**
+	 * Return the pool, creating it if need be; to be called on the PG thread.
+	 */
+	private static ForkJoinPool pool()
+	{
+		ForkJoinPool pool = s_pool;
+		if ( null != pool )
+			return pool;
+
+		int parallelism = Backend.getComputePoolSize();
+		if ( 0 == parallelism )
+			parallelism = Runtime.getRuntime().availableProcessors();
+
+		return s_pool = new ForkJoinPool(parallelism,
+			p -> doPrivileged(() -> new Worker(p)), null, false);
+	}
+
+	/**
+	 * Return a new scope for the work of one invocation; to be called on the
+	 * PG thread.
+	 *<p>
+	 * The invocation is also made the owner of the queue of work for the PG
+	 * thread, so that its tasks may use {@link Backend#submitToPG submitToPG}
+	 * even before it waits in {@link Backend#awaitInPG awaitInPG}.
+	 */
+	public static ExecutorService newScope()
+	{
+		Backend.claimPGQueue();
+		Scope scope = new Scope(pool());
+		s_scopes.add(scope);
+		return scope;
+	}
+
+	/**
+	 * Cancel, with interruption, every task of every scope.
+	 */
+	static void cancelAll()
+	{
+		for ( Scope scope : s_scopes )
+			scope.cancelTasks();
+	}
+
+	/**
+	 * An {@code ExecutorService} submitting to the pool and keeping track of
+	 * the tasks not yet done.
+	 *<p>
+	 * As tasks are handed to the pool as they are submitted, none is ever
+	 * waiting in this executor, and {@code shutdownNow} returns an empty list.
+	 */
+	static final class Scope extends AbstractExecutorService
+	{
+		private final ForkJoinPool m_pool;
+		private final Set<Task<?>> m_live = ConcurrentHashMap.newKeySet();
+		private volatile boolean m_shutdown;
+
+		Scope(ForkJoinPool pool)
+		{
+			m_pool = pool;
+		}
+
+		private final class Task<T> extends FutureTask<T>
+		{
+			Task(Callable<T> callable)
+			{
+				super(callable);
+				m_live.add(this);
+			}
+
+			Task(Runnable runnable, T value)
+			{
+				super(runnable, value);
+				m_live.add(this);
+			}
+
+			@Override
+			protected void done()
+			{
+				m_live.remove(this);
+				if ( m_shutdown )
+					synchronized ( Scope.this )
+					{
+						Scope.this.notifyAll();
+					}
+			}
+		}
+
+		@Override
+		protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable)
+		{
+			return new Task<>(callable);
+		}
+
+		@Override
+		protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value)
+		{
+			return new Task<>(runnable, value);
+		}
+
+		@Override
+		@SuppressWarnings("removal")
+		public void execute(Runnable command)
+		{
+			if ( m_shutdown )
+				throw new RejectedExecutionException(
+					"PL/Java compute executor used after its invocation ended");
+			Runnable task = command instanceof Task
+				? command : new Task<Void>(command, null);
+			AccessControlContext acc = getContext();
+			m_pool.execute(() -> doPrivileged(task::run, acc));
+		}
+
+		void cancelTasks()
+		{
+			for ( Task<?> t : m_live )
+				t.cancel(true);
+		}
+
+		@Override
+		public void shutdown()
+		{
+			m_shutdown = true;
+			s_scopes.remove(this);
+		}
+
+		@Override
+		public List<Runnable> shutdownNow()
+		{
+			shutdown();
+			cancelTasks();
+			return Collections.emptyList();
+		}
+
+		@Override
+		public boolean isShutdown()
+		{
+			return m_shutdown;
+		}
+
+		@Override
+		public boolean isTerminated()
+		{
+			return m_shutdown  &&  m_live.isEmpty();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit)
+		throws InterruptedException
+		{
+			long deadline = System.nanoTime() + unit.toNanos(timeout);
+			synchronized ( this )
+			{
+				while ( ! isTerminated() )
+				{
+					long left = deadline - System.nanoTime();
+					if ( left <= 0 )
+						return false;
+					NANOSECONDS.timedWait(this, left);
+				}
+			}
+			return true;
+		}
+	}
+}
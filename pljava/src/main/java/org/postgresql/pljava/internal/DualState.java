@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2018-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -595,7 +595,19 @@ public abstract class DualState<T> extends WeakReference<T>
 		{
 			throw new ExceptionInInitializerError(e);
 		}
+	}
 
+	/**
+	 * Registers the {@link #s_stats statistics} bean with the platform MBean
+	 * server.
+	 *<p>
+	 * Not done in the static initializer, because obtaining the platform MBean
+	 * server for the first time is among the costlier steps in starting a JVM,
+	 * and a short-lived worker process may never need it. Called from
+	 * {@code Session.init}.
+	 */
+	static void registerStatistics()
+	{
 		try
 		{
 			ObjectName n = new ObjectName(
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,6 +15,7 @@ package org.postgresql.pljava.internal;
 import static org.postgresql.pljava.internal.Backend.doInPG;
 
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.Collections;
 import java.util.Map;
 import java.util.LinkedHashMap;
@@ -74,6 +75,10 @@ public class ExecutionPlan
 	public static final short SPI_READONLY_FORCED  = 1;
 	public static final short SPI_READONLY_CLEARED = 2;
 
+	/* Counts recorded by executeIsolated, used in ExecutionPlan.c */
+	private static final long BATCH_SUCCESS_NO_INFO = Statement.SUCCESS_NO_INFO;
+	private static final long BATCH_EXECUTE_FAILED  = Statement.EXECUTE_FAILED;
+
 	private final State m_state;
 
 	private static class State
@@ -283,6 +288,31 @@ public class ExecutionPlan
 				parameters, read_only, rowCount));
 	}
 
+	/**
+	 * Execute the plan once for each set of parameters, each in its own
+	 * subtransaction, recording each outcome instead of throwing an exception
+	 * for an execution that fails.
+	 *
+	 * @param batch Values for the parameters, for each execution.
+	 * @param read_only As for {@link #execute execute}.
+	 * @param rowCount As for {@link #execute execute}.
+	 * @param counts For each execution, the number of rows processed, or
+	 *     {@code Statement.SUCCESS_NO_INFO} for a query returning rows, or
+	 *     {@code Statement.EXECUTE_FAILED}.
+	 * @param sqlStates For each failed execution, the SQLState of the error.
+	 * @param messages For each failed execution, the message of the error.
+	 * @throws SQLException If the underlying native structure has gone stale,
+	 *     or the batch is cancelled.
+	 */
+	public void executeIsolated(Object[][] batch, short read_only,
+		int rowCount, long[] counts, String[] sqlStates, String[] messages)
+	throws SQLException
+	{
+		doInPG(() ->
+			_executeIsolated(m_state.getExecutionPlanPtr(), batch,
+				read_only, rowCount, counts, sqlStates, messages));
+	}
+
 	/**
 	 * Create an execution plan for a statement to be executed later using the
 	 * internal <code>SPI_prepare</code> function.
@@ -320,6 +350,11 @@ public class ExecutionPlan
 	private static native int _execute(long pointer,
 		Object[] parameters, short read_only, int rowCount) throws SQLException;
 
+	private static native void _executeIsolated(long pointer,
+		Object[][] batch, short read_only, int rowCount,
+		long[] counts, String[] sqlStates, String[] messages)
+	throws SQLException;
+
 	private static native ExecutionPlan _prepare(
 		Object key, String statement, Oid[] argTypes)
 	throws SQLException;
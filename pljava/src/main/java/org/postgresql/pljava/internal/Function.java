@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2016-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2016-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -1314,6 +1314,13 @@ public class Function
 	 * fields of the C {@code Function} structure, and returning an
 	 * {@code Invocable} for invoking the method, or null in the
 	 * case of a UDT.
+	 *<p>
+	 * The result is kept only by the calling backend, and is not saved for
+	 * other backends to reuse: the classes and method handles belong to this
+	 * backend's JVM, and the type coercions are set up in its C structures by
+	 * {@code _storeToNonUDT} and {@code _reconcileTypes}, so all of that would
+	 * be done again anyway, leaving only the parsing of the {@code AS} string,
+	 * which is cheap, to be saved.
 	 */
 	public static Invocable<?> create(
 		long wrappedPtr, ResultSet procTup, String langName, String schemaName,
@@ -1416,6 +1423,7 @@ public class Function
 		boolean retTypeIsOutParameter = false;
 		boolean commute = (null != info.group("com"));
 		boolean negate  = (null != info.group("neg"));
+		String memoize  = info.group("memo");
 
 		if ( forValidator )
 			calledAsTrigger = isTrigger(procTup);
@@ -1472,6 +1480,41 @@ public class Function
 			handle = filterReturnValue(handle, inverter);
 		}
 
+		if ( null != memoize )
+		{
+			int entries;
+			try
+			{
+				entries = Integer.parseInt(memoize);
+			}
+			catch ( NumberFormatException e )
+			{
+				entries = 0;
+			}
+			if ( 0 >= entries )
+				throw new SQLSyntaxErrorException(
+					"transformation [memoize] needs a positive number of " +
+					"entries", "42P13");
+			if ( (byte)'i' != procTup.getByte("provolatile")
+				||  calledAsTrigger  ||  isMultiCall  ||  retTypeIsOutParameter
+				||  void.class == mt.returnType() )
+				throw new SQLSyntaxErrorException(
+					"transformation [memoize] applies only to an IMMUTABLE " +
+					"function returning a single value", "42P13");
+			if ( Memoizer.isSingleUse(mt.returnType()) )
+				throw new SQLSyntaxErrorException(
+					"transformation [memoize] cannot apply to a function " +
+					"returning " + mt.returnType().getName() + ", which can " +
+					"be used only once", "42P13");
+			for ( Class<?> c : mt.parameterList() )
+				if ( ! Memoizer.comparesByValue(c) )
+					throw new SQLSyntaxErrorException(
+						"transformation [memoize] cannot apply to a function " +
+						"with a parameter of type " + c.getName() + ", which " +
+						"does not compare by value", "42P13");
+			handle = Memoizer.memoize(handle, entries);
+		}
+
 		handle = adaptHandle(handle);
 
 		if ( isMultiCall )
@@ -1902,8 +1945,10 @@ public class Function
 		/* or the non-UDT form (which can't begin, insensitively, with UDT) */
 		"|(?!(?i:udt\\[))" +
 		/* allow a prefix like [commute] or [negate] or [commute,negate] */
+		/* or [memoize=n], alone or with the others */
 		"(?:\\[(?:" +
-			"(?:(?:(?<com>commute)|(?<neg>negate))(?:(?=\\])|,(?!\\])))" +
+			"(?:(?:(?<com>commute)|(?<neg>negate)|memoize=(?<memo>\\d++))" +
+			"(?:(?=\\])|,(?!\\])))" +
 		")++\\])?+" +
 		/* and the long-standing method spec syntax */
 		"(?:(?<ret>%2$s)=)?+(?<cls>%1$s)\\.(?<meth>%3$s)" +
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2015-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2015-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -43,7 +43,9 @@ import org.postgresql.pljava.jdbc.SQLUtils;
 import org.postgresql.pljava.management.SQLDeploymentDescriptor;
 import org.postgresql.pljava.nopolicy.FrozenProperties;
 import org.postgresql.pljava.policy.TrialPolicy;
+import org.postgresql.pljava.sqlj.Loader;
 import static org.postgresql.pljava.annotation.processing.DDRWriter.eQuote;
+import static org.postgresql.pljava.elog.ELogHandler.LOG_DEBUG1;
 import static org.postgresql.pljava.elog.ELogHandler.LOG_WARNING;
 import static org.postgresql.pljava.internal.Backend.WITHOUT_ENFORCEMENT;
 import static org.postgresql.pljava.sqlgen.Lexicals.Identifier.Simple;
@@ -430,6 +432,68 @@ public class InstallHelper
 		}
 	}
 
+	/**
+	 * When PL/Java has been started ahead of demand, through
+	 * {@code session_preload_libraries}, and {@code pljava.preload_classes} is
+	 * set, load the classes it names, so the calls to come do not wait for them
+	 * to be loaded.
+	 *<p>
+	 * The setting is a comma-separated list of entries {@code schema:class},
+	 * the class being loaded with that schema's loader, or {@code schema:*},
+	 * for every class in the jars on that schema's class path. The schema name
+	 * is given as stored in the catalog. An entry without a schema uses the
+	 * {@code public} schema. Classes are not initialized: a class initializer
+	 * runs only when a function first uses its class, with the access control
+	 * context that goes with the function's language.
+	 *<p>
+	 * An entry that cannot be loaded is reported as a warning, not an error.
+	 * Each entry is loaded under its own savepoint, so an error from
+	 * PostgreSQL, in reading a schema's class path or jars, affects only that
+	 * entry.
+	 */
+	public static void preload()
+	throws SQLException
+	{
+		String setting = Backend.getConfigOption("pljava.preload_classes");
+		if ( null == setting )
+			return;
+
+		long start = System.nanoTime();
+		int loaded = 0;
+
+		try ( Connection c = SQLUtils.getDefaultConnection() )
+		{
+			for ( String entry : setting.split(",") )
+			{
+				entry = entry.trim();
+				if ( entry.isEmpty() )
+					continue;
+				int colon = entry.indexOf(':');
+				Simple schema = 0 > colon
+					? Loader.PUBLIC_SCHEMA
+					: Simple.fromCatalog(entry.substring(0, colon).trim());
+				String className = entry.substring(colon + 1).trim();
+				Savepoint p = c.setSavepoint();
+				try
+				{
+					loaded += Loader.preload(schema, className);
+					c.releaseSavepoint(p);
+				}
+				catch ( ClassNotFoundException | LinkageError | SQLException e )
+				{
+					c.rollback(p);
+					Backend.log(LOG_WARNING,
+						"pljava.preload_classes entry \"" + entry +
+						"\" not loaded: " + e);
+				}
+			}
+		}
+
+		Backend.log(LOG_DEBUG1, String.format(
+			"PL/Java preloaded %d classes in %d ms",
+			loaded, (System.nanoTime() - start) / 1000000));
+	}
+
 	/**
 	 * Absorb a few key objects into the extension, if they exist, before the
 	 * operations that CREATE OR REPLACE them.
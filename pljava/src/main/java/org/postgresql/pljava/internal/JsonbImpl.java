@@ -0,0 +1,1155 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import static java.nio.ByteOrder.nativeOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import static java.util.Objects.requireNonNull;
+
+import org.postgresql.pljava.Jsonb;
+
+/**
+ * Implementation of {@link Jsonb} reading, and writing, the binary form
+ * PostgreSQL uses for {@code jsonb} (a {@code JsonbContainer}, as described in
+ * PostgreSQL's {@code utils/jsonb.h}).
+ *<p>
+ * An instance is a node: a container (object or array) or a scalar, located
+ * by offset and length in a buffer supplied by a {@link Source}. The root
+ * node of a value from PostgreSQL is backed by a {@code VarlenaWrapper.Input},
+ * which is not detoasted until first read, and is pinned around each read.
+ * A value made by the {@link BuilderImpl builder} is backed by a heap buffer.
+ *<p>
+ * All multibyte fields of the format are in the server's native byte order,
+ * and the strings in the server encoding.
+ */
+public class JsonbImpl implements Jsonb
+{
+	/*
+	 * Constants from PostgreSQL's utils/jsonb.h.
+	 */
+	private static final int JB_CMASK           = 0x0FFFFFFF;
+	private static final int JB_FSCALAR         = 0x10000000;
+	private static final int JB_FOBJECT         = 0x20000000;
+	private static final int JB_FARRAY          = 0x40000000;
+
+	private static final int JENTRY_OFFLENMASK  = 0x0FFFFFFF;
+	private static final int JENTRY_TYPEMASK    = 0x70000000;
+	private static final int JENTRY_HAS_OFF     = 0x80000000;
+
+	private static final int JENTRY_ISSTRING    = 0x00000000;
+	private static final int JENTRY_ISNUMERIC   = 0x10000000;
+	private static final int JENTRY_ISBOOL_FALSE= 0x20000000;
+	private static final int JENTRY_ISBOOL_TRUE = 0x30000000;
+	private static final int JENTRY_ISNULL      = 0x40000000;
+	private static final int JENTRY_ISCONTAINER = 0x50000000;
+
+	private static final int JB_OFFSET_STRIDE   = 32;
+
+	/*
+	 * Constants from PostgreSQL's utils/adt/numeric.c.
+	 */
+	private static final int NUMERIC_SIGN_MASK  = 0xC000;
+	private static final int NUMERIC_NEG        = 0x4000;
+	private static final int NUMERIC_SHORT      = 0x8000;
+	private static final int NUMERIC_SPECIAL    = 0xC000;
+	private static final int NUMERIC_DSCALE_MASK= 0x3FFF;
+	private static final int NUMERIC_SHORT_SIGN_MASK         = 0x2000;
+	private static final int NUMERIC_SHORT_DSCALE_MASK       = 0x1F80;
+	private static final int NUMERIC_SHORT_DSCALE_SHIFT      = 7;
+	private static final int NUMERIC_SHORT_WEIGHT_SIGN_MASK  = 0x0040;
+	private static final int NUMERIC_SHORT_WEIGHT_MASK       = 0x003F;
+
+	private static final boolean LITTLE_ENDIAN =
+		ByteOrder.LITTLE_ENDIAN == nativeOrder();
+
+	/**
+	 * Marks a root node whose type, offset and length are not yet known
+	 * because the buffer has not yet been read.
+	 */
+	private static final int UNRESOLVED = -1;
+
+	private final Source m_src;
+	private final boolean m_isRoot;
+	private volatile int m_type;
+	private int m_offset;
+	private int m_length;
+
+	/**
+	 * Constructor used from native code for a {@code jsonb} argument.
+	 */
+	private JsonbImpl(VarlenaWrapper.Input vwi)
+	{
+		this(new Varlena(vwi));
+	}
+
+	private JsonbImpl(Source src)
+	{
+		m_src = src;
+		m_isRoot = true;
+		m_type = UNRESOLVED;
+	}
+
+	private JsonbImpl(Source src, int type, int offset, int length)
+	{
+		m_src = src;
+		m_isRoot = false;
+		m_offset = offset;
+		m_length = length;
+		m_type = type;
+	}
+
+	/**
+	 * Supplies the buffer holding a {@code JsonbContainer} at offset zero.
+	 */
+	abstract static class Source
+	{
+		/**
+		 * The buffer, in native byte order; to be called only while pinned.
+		 */
+		abstract ByteBuffer buffer() throws SQLException;
+
+		void pin() throws SQLException
+		{
+		}
+
+		void unpin()
+		{
+		}
+	}
+
+	/**
+	 * A source in Java memory.
+	 */
+	static final class Heap extends Source
+	{
+		final byte[] m_bytes;
+		private final ByteBuffer m_buf;
+
+		Heap(byte[] bytes)
+		{
+			m_bytes = bytes;
+			m_buf = ByteBuffer.wrap(bytes).asReadOnlyBuffer().order(nativeOrder());
+		}
+
+		@Override
+		ByteBuffer buffer()
+		{
+			return m_buf;
+		}
+	}
+
+	/**
+	 * A source in PostgreSQL memory.
+	 */
+	static final class Varlena extends Source
+	{
+		private final VarlenaWrapper.Input m_vwi;
+		private ByteBuffer m_buf;
+
+		Varlena(VarlenaWrapper.Input vwi)
+		{
+			m_vwi = vwi;
+		}
+
+		@Override
+		ByteBuffer buffer() throws SQLException
+		{
+			ByteBuffer b = m_buf;
+			if ( null == b )
+				m_buf = b = m_vwi.buffer().duplicate().order(nativeOrder());
+			return b;
+		}
+
+		@Override
+		void pin() throws SQLException
+		{
+			m_vwi.pin();
+		}
+
+		@Override
+		void unpin()
+		{
+			m_vwi.unpin();
+		}
+	}
+
+	/**
+	 * Apply <var>op</var> to the source's buffer while pinned, having resolved
+	 * this node if it is an unread root.
+	 */
+	private <R> R read(Checked.Function<ByteBuffer,R,SQLException> op)
+	throws SQLException
+	{
+		m_src.pin();
+		try
+		{
+			ByteBuffer b = m_src.buffer();
+			if ( UNRESOLVED == m_type )
+				resolve(b);
+			return op.apply(b);
+		}
+		finally
+		{
+			m_src.unpin();
+		}
+	}
+
+	/**
+	 * Locate the root value: the root container, or the lone element of the
+	 * one-element array in which {@code jsonb} stores a scalar.
+	 */
+	private void resolve(ByteBuffer b)
+	{
+		if ( 0 == (b.getInt(0) & JB_FSCALAR) )
+		{
+			m_offset = 0;
+			m_length = b.limit();
+			m_type = JENTRY_ISCONTAINER;
+			return;
+		}
+		JsonbImpl scalar = child(b, 0, 1, 0);
+		m_offset = scalar.m_offset;
+		m_length = scalar.m_length;
+		m_type = scalar.m_type;
+	}
+
+	/**
+	 * Child <var>i</var> of the container at <var>c</var>, which has
+	 * <var>nChildren</var> {@code JEntry}s (twice its count, for an object).
+	 */
+	private JsonbImpl child(ByteBuffer b, int c, int nChildren, int i)
+	{
+		int offset = 0;
+		for ( int j = i - 1; j >= 0; -- j )
+		{
+			int e = b.getInt(c + 4 + 4 * j);
+			offset += e & JENTRY_OFFLENMASK;
+			if ( 0 != (e & JENTRY_HAS_OFF) )
+				break;
+		}
+		int e = b.getInt(c + 4 + 4 * i);
+		int length = e & JENTRY_OFFLENMASK;
+		if ( 0 != (e & JENTRY_HAS_OFF) )
+			length -= offset;
+		return node(b, c + 4 + 4 * nChildren, e & JENTRY_TYPEMASK,
+			offset, length);
+	}
+
+	/**
+	 * All children of the container at <var>c</var>, in order, finding each
+	 * offset from the one before.
+	 */
+	private JsonbImpl[] children(ByteBuffer b, int c)
+	{
+		int header = b.getInt(c);
+		int n = (header & JB_CMASK) * (0 != (header & JB_FOBJECT) ? 2 : 1);
+		int dataStart = c + 4 + 4 * n;
+		JsonbImpl[] result = new JsonbImpl[n];
+		int offset = 0;
+		for ( int i = 0; i < n; ++ i )
+		{
+			int e = b.getInt(c + 4 + 4 * i);
+			int end = e & JENTRY_OFFLENMASK;
+			if ( 0 == (e & JENTRY_HAS_OFF) )
+				end += offset;
+			result[i] =
+				node(b, dataStart, e & JENTRY_TYPEMASK, offset, end - offset);
+			offset = end;
+		}
+		return result;
+	}
+
+	/**
+	 * A node of the given type at <var>offset</var> from the
+	 * <var>dataStart</var> of its container; numerics and containers begin
+	 * at the next multiple of four, and the padding is part of the length.
+	 */
+	private JsonbImpl node(
+		ByteBuffer b, int dataStart, int type, int offset, int length)
+	{
+		if ( JENTRY_ISNUMERIC == type  ||  JENTRY_ISCONTAINER == type )
+		{
+			int aligned = (offset + 3) & ~3;
+			length -= aligned - offset;
+			offset = aligned;
+		}
+		return new JsonbImpl(m_src, type, dataStart + offset, length);
+	}
+
+	private static Charset charset() throws SQLException
+	{
+		Charset cs = Session.implServerCharset();
+		if ( null == cs )
+			throw new SQLNonTransientException(
+				"No Java Charset found to match server encoding; perhaps set " +
+				"org.postgresql.server.encoding system property to a valid " +
+				"Java charset name for the same encoding?", "25P04");
+		return cs;
+	}
+
+	private static byte[] encode(String s) throws SQLException
+	{
+		try
+		{
+			ByteBuffer bb = charset().newEncoder().encode(CharBuffer.wrap(s));
+			byte[] bytes = new byte[bb.remaining()];
+			bb.get(bytes);
+			return bytes;
+		}
+		catch ( CharacterCodingException e )
+		{
+			throw new SQLDataException(
+				"string not representable in server encoding", "22P05", e);
+		}
+	}
+
+	private byte[] bytes(ByteBuffer b)
+	{
+		byte[] bytes = new byte[m_length];
+		b.duplicate().position(m_offset).get(bytes);
+		return bytes;
+	}
+
+	private SQLException notA(String what)
+	{
+		return new SQLDataException("jsonb value is not " + what, "22023");
+	}
+
+	@Override
+	public Kind kind() throws SQLException
+	{
+		return read(b ->
+		{
+			switch ( m_type )
+			{
+			case JENTRY_ISSTRING:
+				return Kind.STRING;
+			case JENTRY_ISNUMERIC:
+				return Kind.NUMBER;
+			case JENTRY_ISBOOL_FALSE:
+			case JENTRY_ISBOOL_TRUE:
+				return Kind.BOOLEAN;
+			case JENTRY_ISNULL:
+				return Kind.NULL;
+			default:
+				return 0 != (b.getInt(m_offset) & JB_FOBJECT)
+					? Kind.OBJECT : Kind.ARRAY;
+			}
+		});
+	}
+
+	@Override
+	public int size() throws SQLException
+	{
+		return read(b -> JENTRY_ISCONTAINER == m_type
+			? b.getInt(m_offset) & JB_CMASK : 0);
+	}
+
+	@Override
+	public Jsonb get(String key) throws SQLException
+	{
+		byte[] k = encode(key);
+		return read(b ->
+		{
+			if ( JENTRY_ISCONTAINER != m_type )
+				return null;
+			int header = b.getInt(m_offset);
+			if ( 0 == (header & JB_FOBJECT) )
+				return null;
+			int count = header & JB_CMASK;
+			int lo = 0;
+			int hi = count - 1;
+			while ( lo <= hi )
+			{
+				int mid = (lo + hi) >>> 1;
+				JsonbImpl candidate = child(b, m_offset, 2 * count, mid);
+				int cmp = candidate.compareKey(b, k);
+				if ( 0 == cmp )
+					return child(b, m_offset, 2 * count, mid + count);
+				if ( cmp < 0 )
+					lo = mid + 1;
+				else
+					hi = mid - 1;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Compare this string node to <var>key</var> in the order of object keys
+	 * in {@code jsonb}: by length, then by unsigned bytes.
+	 */
+	private int compareKey(ByteBuffer b, byte[] key)
+	{
+		if ( m_length != key.length )
+			return m_length < key.length ? -1 : 1;
+		for ( int i = 0; i < m_length; ++ i )
+		{
+			int cmp = Integer.compare(
+				b.get(m_offset + i) & 0xff, key[i] & 0xff);
+			if ( 0 != cmp )
+				return cmp;
+		}
+		return 0;
+	}
+
+	@Override
+	public Jsonb get(int index) throws SQLException
+	{
+		return read(b ->
+		{
+			if ( JENTRY_ISCONTAINER != m_type )
+				return null;
+			int header = b.getInt(m_offset);
+			if ( 0 == (header & JB_FARRAY) )
+				return null;
+			int count = header & JB_CMASK;
+			if ( index < 0  ||  index >= count )
+				return null;
+			return child(b, m_offset, count, index);
+		});
+	}
+
+	@Override
+	public List<String> keys() throws SQLException
+	{
+		Charset cs = charset();
+		return read(b ->
+		{
+			if ( JENTRY_ISCONTAINER != m_type
+				|| 0 == (b.getInt(m_offset) & JB_FOBJECT) )
+				return Collections.<String>emptyList();
+			JsonbImpl[] children = children(b, m_offset);
+			int count = children.length / 2;
+			List<String> keys = new ArrayList<>(count);
+			for ( int i = 0; i < count; ++ i )
+				keys.add(new String(children[i].bytes(b), cs));
+			return Collections.unmodifiableList(keys);
+		});
+	}
+
+	@Override
+	public String stringValue() throws SQLException
+	{
+		Charset cs = charset();
+		return read(b ->
+		{
+			if ( JENTRY_ISSTRING != m_type )
+				throw notA("a string");
+			return new String(bytes(b), cs);
+		});
+	}
+
+	@Override
+	public BigDecimal numberValue() throws SQLException
+	{
+		return read(b ->
+		{
+			if ( JENTRY_ISNUMERIC != m_type )
+				throw notA("a number");
+			return decodeNumeric(b, m_offset);
+		});
+	}
+
+	@Override
+	public boolean booleanValue() throws SQLException
+	{
+		return read(b ->
+		{
+			if ( JENTRY_ISBOOL_TRUE == m_type )
+				return true;
+			if ( JENTRY_ISBOOL_FALSE == m_type )
+				return false;
+			throw notA("a boolean");
+		});
+	}
+
+	@Override
+	public String toJson() throws SQLException
+	{
+		Charset cs = charset();
+		return read(b ->
+		{
+			StringBuilder sb = new StringBuilder();
+			appendJson(sb, b, cs);
+			return sb.toString();
+		});
+	}
+
+	@Override
+	public String toString()
+	{
+		try
+		{
+			return toJson();
+		}
+		catch ( SQLException e )
+		{
+			return super.toString();
+		}
+	}
+
+	private void appendJson(StringBuilder sb, ByteBuffer b, Charset cs)
+	{
+		switch ( m_type )
+		{
+		case JENTRY_ISSTRING:
+			appendString(sb, new String(bytes(b), cs));
+			return;
+		case JENTRY_ISNUMERIC:
+			sb.append(decodeNumeric(b, m_offset).toPlainString());
+			return;
+		case JENTRY_ISBOOL_FALSE:
+			sb.append("false");
+			return;
+		case JENTRY_ISBOOL_TRUE:
+			sb.append("true");
+			return;
+		case JENTRY_ISNULL:
+			sb.append("null");
+			return;
+		}
+
+		JsonbImpl[] children = children(b, m_offset);
+		if ( 0 != (b.getInt(m_offset) & JB_FARRAY) )
+		{
+			sb.append('[');
+			for ( int i = 0; i < children.length; ++ i )
+			{
+				if ( 0 < i )
+					sb.append(", ");
+				children[i].appendJson(sb, b, cs);
+			}
+			sb.append(']');
+			return;
+		}
+
+		int count = children.length / 2;
+		sb.append('{');
+		for ( int i = 0; i < count; ++ i )
+		{
+			if ( 0 < i )
+				sb.append(", ");
+			children[i].appendJson(sb, b, cs);
+			sb.append(": ");
+			children[i + count].appendJson(sb, b, cs);
+		}
+		sb.append('}');
+	}
+
+	/**
+	 * Append a JSON string literal, escaped as PostgreSQL's
+	 * {@code escape_json} does.
+	 */
+	private static void appendString(StringBuilder sb, String s)
+	{
+		sb.append('"');
+		for ( int i = 0; i < s.length(); ++ i )
+		{
+			char c = s.charAt(i);
+			switch ( c )
+			{
+			case '\b': sb.append("\\b");  break;
+			case '\f': sb.append("\\f");  break;
+			case '\n': sb.append("\\n");  break;
+			case '\r': sb.append("\\r");  break;
+			case '\t': sb.append("\\t");  break;
+			case '"':  sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			default:
+				if ( c < ' ' )
+					sb.append(String.format("\\u%04x", (int)c));
+				else
+					sb.append(c);
+			}
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * Decode the {@code numeric} varlena at <var>offset</var>, which may have
+	 * a one- or four-byte header, and be in the short or long format.
+	 */
+	private static BigDecimal decodeNumeric(ByteBuffer b, int offset)
+	{
+		int first = b.get(offset) & 0xff;
+		int headerSize;
+		int size;
+		if ( LITTLE_ENDIAN ? 1 == (first & 0x01) : 0 != (first & 0x80) )
+		{
+			headerSize = 1;
+			size = LITTLE_ENDIAN ? first >>> 1 : first & 0x7F;
+		}
+		else
+		{
+			headerSize = 4;
+			int word = b.getInt(offset);
+			size = (LITTLE_ENDIAN ? word >>> 2 : word) & 0x3FFFFFFF;
+		}
+
+		int p = offset + headerSize;
+		int nHeader = b.getShort(p) & 0xffff;
+		boolean negative;
+		int dscale;
+		int weight;
+
+		if ( NUMERIC_SHORT == (nHeader & NUMERIC_SIGN_MASK) )
+		{
+			negative = 0 != (nHeader & NUMERIC_SHORT_SIGN_MASK);
+			dscale = (nHeader & NUMERIC_SHORT_DSCALE_MASK)
+				>>> NUMERIC_SHORT_DSCALE_SHIFT;
+			weight = nHeader & NUMERIC_SHORT_WEIGHT_MASK;
+			if ( 0 != (nHeader & NUMERIC_SHORT_WEIGHT_SIGN_MASK) )
+				weight |= ~NUMERIC_SHORT_WEIGHT_MASK;
+			p += 2;
+		}
+		else if ( NUMERIC_SPECIAL == (nHeader & NUMERIC_SIGN_MASK) )
+			throw new ArithmeticException(
+				"jsonb numeric is NaN or infinite");
+		else
+		{
+			negative = NUMERIC_NEG == (nHeader & NUMERIC_SIGN_MASK);
+			dscale = nHeader & NUMERIC_DSCALE_MASK;
+			weight = b.getShort(p + 2);
+			p += 4;
+		}
+
+		int nDigits = (offset + size - p) / 2;
+		if ( 0 == nDigits )
+			return BigDecimal.ZERO.setScale(dscale);
+
+		BigInteger unscaled;
+		if ( nDigits <= 4 )
+		{
+			long acc = 0;
+			for ( int i = 0; i < nDigits; ++ i )
+				acc = acc * 10000 + b.getShort(p + 2 * i);
+			unscaled = BigInteger.valueOf(acc);
+		}
+		else
+		{
+			StringBuilder sb = new StringBuilder(4 * nDigits);
+			sb.append(b.getShort(p));
+			for ( int i = 1; i < nDigits; ++ i )
+			{
+				String d = Integer.toString(b.getShort(p + 2 * i));
+				for ( int pad = d.length(); pad < 4; ++ pad )
+					sb.append('0');
+				sb.append(d);
+			}
+			unscaled = new BigInteger(sb.toString());
+		}
+
+		BigDecimal value = new BigDecimal(
+			negative ? unscaled.negate() : unscaled, 4 * (nDigits - 1 - weight));
+		return value.setScale(dscale, RoundingMode.DOWN);
+	}
+
+	/**
+	 * Return the binary form of <var>value</var> as a root container; called
+	 * from native code to return a {@code jsonb} result.
+	 */
+	private static byte[] toBytes(Jsonb value) throws SQLException
+	{
+		if ( value instanceof JsonbImpl )
+		{
+			JsonbImpl j = (JsonbImpl)value;
+			if ( j.m_isRoot  &&  j.m_src instanceof Heap )
+				return ((Heap)j.m_src).m_bytes;
+			if ( j.m_isRoot )
+				return j.read(b ->
+				{
+					byte[] bytes = new byte[b.limit()];
+					b.duplicate().position(0).get(bytes);
+					return bytes;
+				});
+		}
+		return new Encoder().root(value);
+	}
+
+	/**
+	 * Marks a JSON null in a value under construction.
+	 */
+	private static final Object JSON_NULL = new Object();
+
+	/**
+	 * An object under construction, with its members in the order given.
+	 */
+	private static final class ObjectNode
+	{
+		final List<String> keys = new ArrayList<>();
+		final List<Object> values = new ArrayList<>();
+	}
+
+	/**
+	 * Writes values in the binary form, as PostgreSQL's
+	 * {@code convertToJsonb} does.
+	 *<p>
+	 * A value under construction is a {@code String}, {@code BigDecimal},
+	 * {@code Boolean}, {@code JSON_NULL}, {@code List} (for an array),
+	 * {@code ObjectNode}, or {@code Jsonb}. A {@code JsonbImpl} is copied
+	 * from its buffer without being decoded; that is correct because a
+	 * container's offsets are all relative to itself, and containers and
+	 * numerics are placed at offsets that are multiples of four.
+	 */
+	private static final class Encoder
+	{
+		private ByteBuffer m_buf = ByteBuffer.allocate(256).order(nativeOrder());
+
+		byte[] root(Object value) throws SQLException
+		{
+			if ( value instanceof Jsonb  &&  ! (value instanceof JsonbImpl) )
+				value = fromForeign((Jsonb)value);
+
+			boolean container = value instanceof List
+				|| value instanceof ObjectNode
+				|| value instanceof JsonbImpl
+					&& Kind.OBJECT == ((Jsonb)value).kind()
+				|| value instanceof JsonbImpl
+					&& Kind.ARRAY == ((Jsonb)value).kind();
+
+			if ( container )
+				value(value);
+			else
+				array(Collections.singletonList(value), JB_FSCALAR);
+
+			return Arrays.copyOf(m_buf.array(), m_buf.position());
+		}
+
+		private void ensure(int n)
+		{
+			if ( m_buf.remaining() >= n )
+				return;
+			int capacity =
+				Math.max(2 * m_buf.capacity(), m_buf.position() + n);
+			ByteBuffer b = ByteBuffer.allocate(capacity).order(nativeOrder());
+			m_buf.flip();
+			b.put(m_buf);
+			m_buf = b;
+		}
+
+		/**
+		 * Pad to a multiple of four, returning the number of bytes added.
+		 */
+		private int pad()
+		{
+			int p = m_buf.position();
+			int padlen = ((p + 3) & ~3) - p;
+			ensure(padlen);
+			for ( int i = 0; i < padlen; ++ i )
+				m_buf.put((byte)0);
+			return padlen;
+		}
+
+		private static int checkLength(int length) throws SQLException
+		{
+			if ( length > JENTRY_OFFLENMASK )
+				throw new SQLDataException(
+					"jsonb value exceeds the maximum size", "54000");
+			return length;
+		}
+
+		/**
+		 * Write one value, returning its {@code JEntry} type and length.
+		 */
+		private int value(Object v) throws SQLException
+		{
+			if ( JSON_NULL == v )
+				return JENTRY_ISNULL;
+			if ( v instanceof Boolean )
+				return (Boolean)v ? JENTRY_ISBOOL_TRUE : JENTRY_ISBOOL_FALSE;
+			if ( v instanceof String )
+			{
+				byte[] bytes = encode((String)v);
+				ensure(bytes.length);
+				m_buf.put(bytes);
+				return JENTRY_ISSTRING | checkLength(bytes.length);
+			}
+			if ( v instanceof BigDecimal )
+				return numeric((BigDecimal)v);
+			if ( v instanceof List )
+			{
+				@SuppressWarnings("unchecked")
+				List<Object> elements = (List<Object>)v;
+				return array(elements, 0);
+			}
+			if ( v instanceof ObjectNode )
+				return object((ObjectNode)v);
+			if ( v instanceof JsonbImpl )
+				return copy((JsonbImpl)v);
+			return value(fromForeign((Jsonb)v));
+		}
+
+		private int copy(JsonbImpl j) throws SQLException
+		{
+			return j.read(b ->
+			{
+				int padlen = 0;
+				switch ( j.m_type )
+				{
+				case JENTRY_ISBOOL_FALSE:
+				case JENTRY_ISBOOL_TRUE:
+				case JENTRY_ISNULL:
+					return j.m_type;
+				case JENTRY_ISNUMERIC:
+				case JENTRY_ISCONTAINER:
+					padlen = pad();
+				}
+				ensure(j.m_length);
+				m_buf.put(j.bytes(b));
+				return j.m_type | checkLength(padlen + j.m_length);
+			});
+		}
+
+		private int array(List<Object> elements, int flags) throws SQLException
+		{
+			int base = m_buf.position();
+			pad();
+			int n = elements.size();
+			ensure(4 + 4 * n);
+			m_buf.putInt(JB_FARRAY | flags | n);
+			int entries = m_buf.position();
+			m_buf.position(entries + 4 * n);
+
+			int total = 0;
+			for ( int i = 0; i < n; ++ i )
+			{
+				int meta = value(elements.get(i));
+				total = checkLength(total + (meta & JENTRY_OFFLENMASK));
+				if ( 0 == i % JB_OFFSET_STRIDE )
+					meta = (meta & JENTRY_TYPEMASK) | total | JENTRY_HAS_OFF;
+				m_buf.putInt(entries + 4 * i, meta);
+			}
+			return JENTRY_ISCONTAINER | checkLength(m_buf.position() - base);
+		}
+
+		private int object(ObjectNode o) throws SQLException
+		{
+			/*
+			 * Sort the members as jsonb requires, by key length and then key
+			 * bytes, and keep only the last-given value for a repeated key.
+			 */
+			int given = o.keys.size();
+			Object[][] members = new Object[given][];
+			for ( int i = 0; i < given; ++ i )
+				members[i] = new Object[] {
+					encode(o.keys.get(i)), o.values.get(i), i };
+			Comparator<Object[]> byKey = (a, b) ->
+			{
+				byte[] ka = (byte[])a[0];
+				byte[] kb = (byte[])b[0];
+				if ( ka.length != kb.length )
+					return ka.length < kb.length ? -1 : 1;
+				return Arrays.compareUnsigned(ka, kb);
+			};
+			Arrays.sort(members, byKey.thenComparing(
+				m -> (Integer)m[2], Comparator.reverseOrder()));
+			List<Object[]> unique = new ArrayList<>(given);
+			for ( Object[] m : members )
+				if ( unique.isEmpty()
+					|| 0 != byKey.compare(unique.get(unique.size() - 1), m) )
+					unique.add(m);
+
+			int base = m_buf.position();
+			pad();
+			int n = unique.size();
+			ensure(4 + 8 * n);
+			m_buf.putInt(JB_FOBJECT | n);
+			int entries = m_buf.position();
+			m_buf.position(entries + 8 * n);
+
+			int total = 0;
+			for ( int i = 0; i < 2 * n; ++ i )
+			{
+				Object[] m = unique.get(i % n);
+				int meta;
+				if ( i < n )
+				{
+					byte[] key = (byte[])m[0];
+					ensure(key.length);
+					m_buf.put(key);
+					meta = JENTRY_ISSTRING | key.length;
+				}
+				else
+					meta = value(m[1]);
+				total = checkLength(total + (meta & JENTRY_OFFLENMASK));
+				if ( 0 == i % JB_OFFSET_STRIDE )
+					meta = (meta & JENTRY_TYPEMASK) | total | JENTRY_HAS_OFF;
+				m_buf.putInt(entries + 4 * i, meta);
+			}
+			return JENTRY_ISCONTAINER | checkLength(m_buf.position() - base);
+		}
+
+		/**
+		 * Write a {@code numeric} varlena in the long format with a four-byte
+		 * header, base-10000 digits, leading and trailing zero digits removed.
+		 */
+		private int numeric(BigDecimal v) throws SQLException
+		{
+			int padlen = pad();
+			int signum = v.signum();
+			int scale = v.scale();
+			int dscale = Math.max(scale, 0);
+			if ( dscale > NUMERIC_DSCALE_MASK )
+				throw new SQLDataException(
+					"value scale too large for jsonb numeric", "22003");
+
+			BigInteger u = v.unscaledValue().abs();
+			if ( scale < 0 )
+			{
+				u = u.multiply(BigInteger.TEN.pow(-scale));
+				scale = 0;
+			}
+			int scale4 = (scale + 3) & ~3;
+			u = u.multiply(BigInteger.TEN.pow(scale4 - scale));
+
+			String decimal = u.toString();
+			int nGroups = (decimal.length() + 3) / 4;
+			int firstLength = decimal.length() - 4 * (nGroups - 1);
+			short[] groups = new short[nGroups];
+			groups[0] = Short.parseShort(decimal.substring(0, firstLength));
+			for ( int i = 1; i < nGroups; ++ i )
+			{
+				int at = firstLength + 4 * (i - 1);
+				groups[i] = Short.parseShort(decimal.substring(at, at + 4));
+			}
+
+			int weight = nGroups - 1 - scale4 / 4;
+			int lo = 0;
+			int hi = nGroups;
+			while ( lo < hi  &&  0 == groups[lo] )
+			{
+				++ lo;
+				-- weight;
+			}
+			while ( hi > lo  &&  0 == groups[hi - 1] )
+				-- hi;
+			if ( lo == hi )
+			{
+				weight = 0;
+				signum = 0;
+			}
+			if ( weight > Short.MAX_VALUE  ||  weight < Short.MIN_VALUE )
+				throw new SQLDataException(
+					"value out of range for jsonb numeric", "22003");
+
+			int size = 8 + 2 * (hi - lo);
+			ensure(size);
+			m_buf.putInt(LITTLE_ENDIAN ? size << 2 : size);
+			m_buf.putShort((short)((signum < 0 ? NUMERIC_NEG : 0) | dscale));
+			m_buf.putShort((short)weight);
+			for ( int i = lo; i < hi; ++ i )
+				m_buf.putShort(groups[i]);
+			return JENTRY_ISNUMERIC | checkLength(padlen + size);
+		}
+	}
+
+	/**
+	 * Convert a {@code Jsonb} of some other implementation to a value under
+	 * construction.
+	 */
+	private static Object fromForeign(Jsonb j) throws SQLException
+	{
+		switch ( j.kind() )
+		{
+		case STRING:
+			return j.stringValue();
+		case NUMBER:
+			return j.numberValue();
+		case BOOLEAN:
+			return j.booleanValue();
+		case NULL:
+			return JSON_NULL;
+		case ARRAY:
+			List<Object> elements = new ArrayList<>(j.size());
+			for ( int i = 0, n = j.size(); i < n; ++ i )
+				elements.add(fromForeign(j.get(i)));
+			return elements;
+		default:
+			ObjectNode o = new ObjectNode();
+			for ( String k : j.keys() )
+			{
+				o.keys.add(k);
+				o.values.add(fromForeign(j.get(k)));
+			}
+			return o;
+		}
+	}
+
+	/**
+	 * Implementation of {@link Jsonb.Builder}, assembling a value in Java and
+	 * encoding it when built.
+	 */
+	static final class BuilderImpl implements Jsonb.Builder
+	{
+		private final ArrayDeque<Object> m_open = new ArrayDeque<>();
+		private String m_key;
+		private Object m_root;
+		private boolean m_hasRoot;
+
+		private Jsonb.Builder add(Object v)
+		{
+			Object top = m_open.peek();
+			if ( null == top )
+			{
+				if ( m_hasRoot )
+					throw new IllegalStateException(
+						"jsonb value is already complete");
+				m_root = v;
+				m_hasRoot = true;
+			}
+			else if ( top instanceof ObjectNode )
+			{
+				if ( null == m_key )
+					throw new IllegalStateException(
+						"jsonb object member needs a key first");
+				((ObjectNode)top).keys.add(m_key);
+				((ObjectNode)top).values.add(v);
+				m_key = null;
+			}
+			else
+			{
+				@SuppressWarnings("unchecked")
+				List<Object> elements = (List<Object>)top;
+				elements.add(v);
+			}
+			return this;
+		}
+
+		private void close(Class<?> expected)
+		{
+			if ( ! expected.isInstance(m_open.peek())  ||  null != m_key )
+				throw new IllegalStateException(
+					"jsonb " + (ObjectNode.class == expected
+						? "object" : "array") + " not open to be ended");
+			m_open.pop();
+		}
+
+		@Override
+		public Jsonb.Builder beginObject()
+		{
+			ObjectNode o = new ObjectNode();
+			add(o);
+			m_open.push(o);
+			return this;
+		}
+
+		@Override
+		public Jsonb.Builder endObject()
+		{
+			close(ObjectNode.class);
+			return this;
+		}
+
+		@Override
+		public Jsonb.Builder beginArray()
+		{
+			List<Object> a = new ArrayList<>();
+			add(a);
+			m_open.push(a);
+			return this;
+		}
+
+		@Override
+		public Jsonb.Builder endArray()
+		{
+			close(List.class);
+			return this;
+		}
+
+		@Override
+		public Jsonb.Builder key(String key)
+		{
+			requireNonNull(key);
+			if ( ! (m_open.peek() instanceof ObjectNode)  ||  null != m_key )
+				throw new IllegalStateException(
+					"jsonb key not expected here");
+			m_key = key;
+			return this;
+		}
+
+		@Override
+		public Jsonb.Builder value(String value)
+		{
+			return add(null == value ? JSON_NULL : value);
+		}
+
+		@Override
+		public Jsonb.Builder value(BigDecimal value)
+		{
+			return add(null == value ? JSON_NULL : value);
+		}
+
+		@Override
+		public Jsonb.Builder value(long value)
+		{
+			return add(BigDecimal.valueOf(value));
+		}
+
+		@Override
+		public Jsonb.Builder value(double value)
+		{
+			if ( Double.isNaN(value)  ||  Double.isInfinite(value) )
+				throw new IllegalArgumentException(
+					"jsonb number cannot be " + value);
+			return add(BigDecimal.valueOf(value));
+		}
+
+		@Override
+		public Jsonb.Builder value(boolean value)
+		{
+			return add(value);
+		}
+
+		@Override
+		public Jsonb.Builder nullValue()
+		{
+			return add(JSON_NULL);
+		}
+
+		@Override
+		public Jsonb.Builder value(Jsonb value) throws SQLException
+		{
+			if ( null == value )
+				return add(JSON_NULL);
+			return add(value instanceof JsonbImpl ? value : fromForeign(value));
+		}
+
+		@Override
+		public Jsonb build() throws SQLException
+		{
+			if ( ! m_hasRoot  ||  ! m_open.isEmpty() )
+				throw new IllegalStateException("jsonb value is not complete");
+			return new JsonbImpl(new Heap(new Encoder().root(m_root)));
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import static org.postgresql.pljava.internal.Backend.doInPG;
+
+import java.sql.SQLException;
+
+/**
+ * Access to PostgreSQL large objects through the same server-side descriptors
+ * the SQL functions {@code lo_open}, {@code loread}, and so on, use.
+ *<p>
+ * A descriptor is an {@code int} valid until it is closed or the transaction
+ * ends. The server checks privileges when the object is opened, as for the
+ * SQL functions.
+ */
+public class LargeObjects
+{
+	/** Mode bit for opening a large object to read. */
+	public static final int INV_READ  = 0x00040000;
+	/** Mode bit for opening a large object to write. */
+	public static final int INV_WRITE = 0x00020000;
+
+	private LargeObjects()
+	{
+	}
+
+	/**
+	 * Creates a new, empty large object and returns its Oid.
+	 */
+	public static long create() throws SQLException
+	{
+		return doInPG(LargeObjects::_create);
+	}
+
+	/**
+	 * Opens a large object, returning a descriptor.
+	 * @param oid Oid of the large object.
+	 * @param mode {@link #INV_READ}, {@link #INV_WRITE}, or both.
+	 */
+	public static int open(long oid, int mode) throws SQLException
+	{
+		return doInPG(() -> _open(oid, mode));
+	}
+
+	/**
+	 * Closes a descriptor.
+	 */
+	public static void close(int fd) throws SQLException
+	{
+		doInPG(() -> _close(fd));
+	}
+
+	/**
+	 * Reads up to {@code len} bytes at a given offset into an array, returning
+	 * the number read, which is less than {@code len} only at the end of the
+	 * object.
+	 */
+	public static int read(int fd, long pos, byte[] buf, int off, int len)
+	throws SQLException
+	{
+		if ( off < 0  ||  len < 0  ||  len > buf.length - off )
+			throw new IndexOutOfBoundsException();
+		return doInPG(() -> _read(fd, pos, buf, off, len));
+	}
+
+	/**
+	 * Writes {@code len} bytes from an array at a given offset in the object.
+	 */
+	public static void write(int fd, long pos, byte[] buf, int off, int len)
+	throws SQLException
+	{
+		if ( off < 0  ||  len < 0  ||  len > buf.length - off )
+			throw new IndexOutOfBoundsException();
+		doInPG(() -> _write(fd, pos, buf, off, len));
+	}
+
+	/**
+	 * Returns the length of the object in bytes.
+	 */
+	public static long length(int fd) throws SQLException
+	{
+		return doInPG(() -> _length(fd));
+	}
+
+	/**
+	 * Truncates (or extends with zeros) the object to a given length.
+	 */
+	public static void truncate(int fd, long len) throws SQLException
+	{
+		doInPG(() -> _truncate(fd, len));
+	}
+
+	/**
+	 * Deletes a large object.
+	 */
+	public static void unlink(long oid) throws SQLException
+	{
+		doInPG(() -> _unlink(oid));
+	}
+
+	private static native long _create() throws SQLException;
+	private static native int _open(long oid, int mode) throws SQLException;
+	private static native void _close(int fd) throws SQLException;
+	private static native int _read(
+		int fd, long pos, byte[] buf, int off, int len)
+		throws SQLException;
+	private static native void _write(
+		int fd, long pos, byte[] buf, int off, int len)
+		throws SQLException;
+	private static native long _length(int fd) throws SQLException;
+	private static native void _truncate(int fd, long len) throws SQLException;
+	private static native void _unlink(long oid) throws SQLException;
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.io.InputStream;
+import java.io.Reader;
+
+import java.lang.invoke.MethodHandle;
+import static java.lang.invoke.MethodHandles.lookup;
+import java.lang.invoke.MethodType;
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.reflect.Array;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import java.sql.SQLXML;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.postgresql.pljava.Jsonb;
+import org.postgresql.pljava.SessionCache;
+
+/**
+ * Wraps the method handle of an {@code IMMUTABLE} function declared with the
+ * {@code [memoize=n]} transformation, so that results are remembered, per
+ * backend, in a {@link SessionCache} of {@code n} entries keyed by the
+ * argument values.
+ *<p>
+ * A null result is not remembered; nor is anything when the function throws.
+ * Nor is a result that can be used only once, such as an {@code SQLXML} or
+ * a stream, which is read, or has its native memory adopted, as it is
+ * returned; a function declared to return such a type cannot be memoized, and
+ * one declared more generally simply has such results recomputed.
+ *<p>
+ * Every parameter type must be one whose values are immutable and compare by
+ * value, or an array of such, as the arguments are the key. Any other
+ * argument, such as a {@code ResultSet} or {@code SQLXML}, would compare by
+ * identity, so the key could never be found again, yet would be held in the
+ * cache until evicted.
+ */
+final class Memoizer
+{
+	private static final MethodHandle s_invoke;
+
+	static
+	{
+		try
+		{
+			s_invoke = lookup().findVirtual(Memoizer.class, "invoke",
+				methodType(Object.class, Object[].class));
+		}
+		catch ( ReflectiveOperationException e )
+		{
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * Types of value that can be returned only once.
+	 */
+	private static final List<Class<?>> s_singleUse = List.of(
+		InputStream.class, Jsonb.class, Reader.class, SQLXML.class,
+		VarlenaWrapper.class);
+
+	/**
+	 * Types, besides the primitive ones, whose values are immutable and compare
+	 * by value.
+	 */
+	private static final Set<Class<?>> s_byValue = Set.of(
+		Boolean.class, Byte.class, Character.class, Short.class,
+		Integer.class, Long.class, Float.class, Double.class, String.class,
+		BigDecimal.class, BigInteger.class, LocalDate.class, LocalTime.class,
+		LocalDateTime.class, OffsetTime.class, OffsetDateTime.class);
+
+	private final MethodHandle m_target; // (Object[])Object
+	private final SessionCache<Key,Object> m_cache;
+
+	private Memoizer(MethodHandle target, int entries)
+	{
+		m_target = target;
+		m_cache = new SessionCacheImpl.BuilderImpl<Key,Object>()
+			.maximumSize(entries)
+			.invalidateOn(SessionCache.Invalidation.JAR_REPLACEMENT)
+			.build();
+	}
+
+	/**
+	 * Returns a handle of the same type as {@code target}, remembering up to
+	 * {@code entries} results.
+	 */
+	static MethodHandle memoize(MethodHandle target, int entries)
+	{
+		MethodType mt = target.type();
+		int arity = mt.parameterCount();
+		MethodHandle spread = target
+			.asSpreader(Object[].class, arity)
+			.asType(methodType(Object.class, Object[].class));
+		return s_invoke.bindTo(new Memoizer(spread, entries))
+			.asCollector(Object[].class, arity)
+			.asType(mt);
+	}
+
+	/**
+	 * Whether a value of class {@code c} can be returned only once, and so
+	 * must not be remembered.
+	 */
+	static boolean isSingleUse(Class<?> c)
+	{
+		return s_singleUse.stream().anyMatch(t -> t.isAssignableFrom(c));
+	}
+
+	/**
+	 * Whether values of class {@code c} can serve in a key: a primitive type,
+	 * an immutable type compared by value, or an array of those.
+	 */
+	static boolean comparesByValue(Class<?> c)
+	{
+		while ( c.isArray() )
+			c = c.getComponentType();
+		return c.isPrimitive()  ||  s_byValue.contains(c);
+	}
+
+	private Object invoke(Object[] args) throws Throwable
+	{
+		Key key = new Key(args);
+		Object result = m_cache.get(key);
+		if ( null != result )
+			return result;
+		result = m_target.invokeExact(args);
+		if ( null != result  &&  ! isSingleUse(result.getClass()) )
+			m_cache.put(key, result);
+		return result;
+	}
+
+	/**
+	 * The argument values of one call, compared deeply so that array arguments
+	 * compare by content. Top-level arrays are copied, so the function cannot
+	 * change a key by modifying its argument.
+	 */
+	private static final class Key
+	{
+		private final Object[] m_args;
+		private final int m_hash;
+
+		Key(Object[] args)
+		{
+			m_args = args.clone();
+			for ( int i = 0; i < m_args.length; ++ i )
+			{
+				Object a = m_args[i];
+				if ( null != a  &&  a.getClass().isArray() )
+				{
+					int n = Array.getLength(a);
+					Object copy =
+						Array.newInstance(a.getClass().getComponentType(), n);
+					System.arraycopy(a, 0, copy, 0, n);
+					m_args[i] = copy;
+				}
+			}
+			m_hash = Arrays.deepHashCode(m_args);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return m_hash;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			return other instanceof Key
+				&&  m_hash == ((Key)other).m_hash
+				&&  Arrays.deepEquals(m_args, ((Key)other).m_args);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,30 +15,81 @@ package org.postgresql.pljava.internal;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.IdentityHashMap;
+import java.util.List;
+
 
 import org.postgresql.pljava.ObjectPool;
 import org.postgresql.pljava.PooledObject;
 
+/**
+ * Implementation of {@link ObjectPool}.
+ *<p>
+ * Passive instances are kept in a doubly-linked list, most recently passivated
+ * first, with an identity map from instance to list node so that
+ * {@link #removeInstance removeInstance} need not search. Activation takes
+ * from the head, and eviction for the idle timeout from the tail. All state is
+ * guarded by the pool's monitor, which is never held while calling the
+ * instances' own methods or constructor.
+ */
 class ObjectPoolImpl<T extends PooledObject> implements ObjectPool<T>
 {
+	/*
+	 * Neither limit applies unless set, so a pool keeps every passive instance,
+	 * as it always has.
+	 */
+	private static final int DEFAULT_MAX_IDLE = Integer.MAX_VALUE;
+	private static final long NO_IDLE_TIMEOUT = Long.MAX_VALUE;
+
 	/**
-	 * An InstanceHandle is a link in a single linked list that
-	 * holds on to a ResultSetProvider.
+	 * A node in the list of passive instances.
 	 */
-	private static class PooledObjectHandle<T extends PooledObject>
+	private static class Node<T>
 	{
-		private T m_instance;
-		private PooledObjectHandle<T> m_next;
+		final T m_instance;
+		final long m_passiveSince;
+		Node<T> m_prev;
+		Node<T> m_next;
+
+		Node(T instance, long passiveSince)
+		{
+			m_instance = instance;
+			m_passiveSince = passiveSince;
+		}
 	}
 
-	private static Class[] s_ctorSignature = { ObjectPool.class };
-	private static PooledObjectHandle s_handlePool;
-	private static final IdentityHashMap<Class<?>,ObjectPoolImpl<?>>
-		s_poolCache = new IdentityHashMap<>();
+	private static final Class<?>[] s_ctorSignature = { ObjectPool.class };
+
+	/*
+	 * A ClassValue, rather than a map keyed by Class, so a pool does not keep
+	 * its class (and that class's loader) reachable.
+	 */
+	private static final ClassValue<ObjectPoolImpl<?>> s_poolCache =
+		new ClassValue<ObjectPoolImpl<?>>()
+		{
+			@Override
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			protected ObjectPoolImpl<?> computeValue(Class<?> c)
+			{
+				return new ObjectPoolImpl(c);
+			}
+		};
 
 	private final Constructor<T> m_ctor;
-	private PooledObjectHandle<T> m_providerPool;
+
+	private final IdentityHashMap<T,Node<T>> m_index = new IdentityHashMap<>();
+	private Node<T> m_head; // most recently passivated
+	private Node<T> m_tail; // least recently passivated
+
+	private int m_maxIdle = DEFAULT_MAX_IDLE;
+	private long m_idleTimeoutNanos = NO_IDLE_TIMEOUT;
+
+	private long m_activations;
+	private long m_creations;
+	private long m_passivations;
+	private long m_evictions;
 
 	private ObjectPoolImpl(Class<T> c)
 	{
@@ -67,59 +118,33 @@ class ObjectPoolImpl<T extends PooledObject> implements ObjectPool<T>
 	public static <T extends PooledObject> ObjectPoolImpl<T>
 	getObjectPool(Class<T> cls)
 	{
-		ObjectPoolImpl<T> pool = (ObjectPoolImpl<T>)s_poolCache.get(cls);
-		if(pool == null)
-		{
-			pool = new ObjectPoolImpl(cls);
-			s_poolCache.put(cls, pool);
-		}
-		return pool;
+		return (ObjectPoolImpl<T>)s_poolCache.get(cls);
 	}
 
-	@SuppressWarnings("unchecked")
+	@Override
 	public T activateInstance()
 	throws SQLException
 	{
-		T instance;
-		PooledObjectHandle<T> handle = m_providerPool;
-		if(handle != null)
-		{
-			m_providerPool = handle.m_next;
-			instance = handle.m_instance;
+		T instance = null;
+		List<T> evicted;
 
-			// Return the handle to the unused handle pool.
-			//
-			handle.m_instance = null;
-			handle.m_next = s_handlePool;
-			s_handlePool = handle;
+		synchronized(this)
+		{
+			evicted = evictExpired(System.nanoTime());
+			if(m_head != null)
+				instance = unlink(m_head);
 		}
-		else
+		removeAll(evicted);
+
+		if(instance == null)
 		{
-			try
-			{
-				instance = m_ctor.newInstance(new Object[] { this });
-			}
-			catch(InvocationTargetException e)
-			{
-				Throwable t = e.getTargetException();
-				if(t instanceof SQLException)
-					throw (SQLException)t;
-				if(t instanceof RuntimeException)
-					throw (RuntimeException)t;
-				if(t instanceof Error)
-					throw (Error)t;
-				throw new SQLException(e.getMessage());
-			}
-			catch(RuntimeException e)
-			{
-				throw e;
-			}
-			catch(Exception e)
+			instance = newInstance();
+			synchronized(this)
 			{
-				throw new SQLException("Failed to create an instance of: " +
-					m_ctor.getDeclaringClass() + " :" + e.getMessage());
+				++ m_creations;
 			}
 		}
+
 		try
 		{
 			instance.activate();
@@ -129,9 +154,14 @@ class ObjectPoolImpl<T extends PooledObject> implements ObjectPool<T>
 			instance.remove();
 			throw e;
 		}
+		synchronized(this)
+		{
+			++ m_activations;
+		}
 		return instance;
 	}
 
+	@Override
 	public void passivateInstance(T instance)
 	throws SQLException
 	{
@@ -145,41 +175,242 @@ class ObjectPoolImpl<T extends PooledObject> implements ObjectPool<T>
 			throw e;
 		}
 
-		// Obtain a handle from the pool of handles so that
-		// we have something to wrap the instance in.
-		//
-		@SuppressWarnings("unchecked")
-		PooledObjectHandle<T> handle = (PooledObjectHandle<T>)s_handlePool;
-		if(handle != null)
-			s_handlePool = handle.m_next;
-		else
-			handle = new PooledObjectHandle<>();
+		List<T> evicted;
+		boolean pooled = true;
+		long now = System.nanoTime();
+
+		synchronized(this)
+		{
+			if(m_index.containsKey(instance))
+				return; // passivated twice; already pooled
+			++ m_passivations;
+			evicted = evictExpired(now);
+			if(m_index.size() < m_maxIdle)
+			{
+				Node<T> node = new Node<>(instance, now);
+				node.m_next = m_head;
+				if(m_head != null)
+					m_head.m_prev = node;
+				else
+					m_tail = node;
+				m_head = node;
+				m_index.put(instance, node);
+			}
+			else
+			{
+				pooled = false;
+				++ m_evictions;
+			}
+		}
+		removeAll(evicted);
 
-		handle.m_instance = instance;
-		handle.m_next = m_providerPool;
-		m_providerPool = handle;
+		if(! pooled)
+			instance.remove();
 	}
 
-	@SuppressWarnings("unchecked")
+	@Override
 	public void removeInstance(T instance) throws SQLException
 	{
-		PooledObjectHandle prev = null;
-		for(PooledObjectHandle handle = m_providerPool;
-			handle != null; handle = handle.m_next)
+		synchronized(this)
 		{
-			if(handle.m_instance == instance)
+			Node<T> node = m_index.get(instance);
+			if(node != null)
+				unlink(node);
+		}
+		instance.remove();
+	}
+
+	@Override
+	public synchronized int getMaxIdle()
+	{
+		return m_maxIdle;
+	}
+
+	@Override
+	public void setMaxIdle(int maxIdle)
+	{
+		if(maxIdle < 0)
+			throw new IllegalArgumentException(
+				"ObjectPool maxIdle must not be negative");
+		List<T> evicted = new ArrayList<>();
+		synchronized(this)
+		{
+			m_maxIdle = maxIdle;
+			while(m_index.size() > maxIdle)
 			{
-				if(prev == null)
-					m_providerPool = handle.m_next;
-				else
-					prev.m_next = handle.m_next;
+				evicted.add(unlink(m_tail));
+				++ m_evictions;
+			}
+		}
+		removeAll(evicted);
+	}
 
-				handle.m_instance = null;
-				handle.m_next = s_handlePool;
-				s_handlePool = handle;
-				break;
+	@Override
+	public synchronized Duration getIdleTimeout()
+	{
+		if(NO_IDLE_TIMEOUT == m_idleTimeoutNanos)
+			return null;
+		return Duration.ofNanos(m_idleTimeoutNanos);
+	}
+
+	@Override
+	public void setIdleTimeout(Duration timeout)
+	{
+		long nanos = NO_IDLE_TIMEOUT;
+		if(null != timeout)
+		{
+			if(timeout.isNegative()  ||  timeout.isZero())
+				throw new IllegalArgumentException(
+					"ObjectPool idle timeout must be positive");
+			try
+			{
+				nanos = timeout.toNanos();
+			}
+			catch(ArithmeticException e)
+			{
 			}
 		}
-		instance.remove();
+		List<T> evicted;
+		synchronized(this)
+		{
+			m_idleTimeoutNanos = nanos;
+			evicted = evictExpired(System.nanoTime());
+		}
+		removeAll(evicted);
+	}
+
+	@Override
+	public synchronized Statistics getStatistics()
+	{
+		return new Snapshot(m_activations, m_creations, m_passivations,
+			m_evictions, m_index.size());
+	}
+
+	/**
+	 * Unlink a node from the list and index, returning its instance. Caller
+	 * holds the monitor.
+	 */
+	private T unlink(Node<T> node)
+	{
+		if(node.m_prev != null)
+			node.m_prev.m_next = node.m_next;
+		else
+			m_head = node.m_next;
+		if(node.m_next != null)
+			node.m_next.m_prev = node.m_prev;
+		else
+			m_tail = node.m_prev;
+		node.m_prev = node.m_next = null;
+		m_index.remove(node.m_instance);
+		return node.m_instance;
+	}
+
+	/**
+	 * Unlink instances passive longer than the timeout, returning them (or an
+	 * empty list) so their {@code remove} methods can be called once the
+	 * monitor is released. Caller holds the monitor.
+	 */
+	private List<T> evictExpired(long now)
+	{
+		List<T> evicted = List.of();
+		while(m_tail != null  &&  now - m_tail.m_passiveSince > m_idleTimeoutNanos)
+		{
+			if(evicted.isEmpty())
+				evicted = new ArrayList<>();
+			evicted.add(unlink(m_tail));
+			++ m_evictions;
+		}
+		return evicted;
+	}
+
+	private static <T extends PooledObject> void removeAll(List<T> instances)
+	{
+		for(T instance : instances)
+			instance.remove();
+	}
+
+	private T newInstance() throws SQLException
+	{
+		try
+		{
+			return m_ctor.newInstance(new Object[] { this });
+		}
+		catch(InvocationTargetException e)
+		{
+			Throwable t = e.getTargetException();
+			if(t instanceof SQLException)
+				throw (SQLException)t;
+			if(t instanceof RuntimeException)
+				throw (RuntimeException)t;
+			if(t instanceof Error)
+				throw (Error)t;
+			throw new SQLException(e.getMessage());
+		}
+		catch(RuntimeException e)
+		{
+			throw e;
+		}
+		catch(Exception e)
+		{
+			throw new SQLException("Failed to create an instance of: " +
+				m_ctor.getDeclaringClass() + " :" + e.getMessage());
+		}
+	}
+
+	private static final class Snapshot implements Statistics
+	{
+		private final long m_activations;
+		private final long m_creations;
+		private final long m_passivations;
+		private final long m_evictions;
+		private final int m_idle;
+
+		Snapshot(long activations, long creations, long passivations,
+			long evictions, int idle)
+		{
+			m_activations = activations;
+			m_creations = creations;
+			m_passivations = passivations;
+			m_evictions = evictions;
+			m_idle = idle;
+		}
+
+		@Override
+		public long getActivations()
+		{
+			return m_activations;
+		}
+
+		@Override
+		public long getCreations()
+		{
+			return m_creations;
+		}
+
+		@Override
+		public long getPassivations()
+		{
+			return m_passivations;
+		}
+
+		@Override
+		public long getEvictions()
+		{
+			return m_evictions;
+		}
+
+		@Override
+		public int getIdle()
+		{
+			return m_idle;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("activations=%d creations=%d passivations=%d" +
+				" evictions=%d idle=%d", m_activations, m_creations,
+				m_passivations, m_evictions, m_idle);
+		}
 	}
 }
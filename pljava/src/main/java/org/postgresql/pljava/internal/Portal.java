@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2023 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -155,6 +155,27 @@ public class Portal
 		return fetched;
 	}
 
+	/**
+	 * Performs an <code>SPI_cursor_fetch</code> and returns the fetched rows
+	 * formatted as {@code COPY ... TO} would format them, without the binary
+	 * format's header and trailer.
+	 *<p>
+	 * Text format is converted to UTF-8. The fetched tuples are freed before
+	 * return; the number of them remains available from
+	 * {@link SPI#getProcessed SPI.getProcessed}, if retrieved within the same
+	 * {@code doInPG}.
+	 * @param binary Whether to use {@code COPY}'s binary format.
+	 * @param count Maximum number of rows to fetch.
+	 * @return The formatted rows, or null if no rows were fetched.
+	 * @throws SQLException if the handle to the native structure is stale.
+	 */
+	public byte[] fetchCopyData(boolean binary, long count)
+	throws SQLException
+	{
+		return doInPG(() ->
+			_fetchCopyData(m_state.getPortalPtr(), binary, count));
+	}
+
 	/**
 	 * Returns the value of the <code>atEnd</code> attribute.
 	 * @throws SQLException if the handle to the native structure is stale.
@@ -205,6 +226,10 @@ public class Portal
 	private static native long _fetch(long pointer, boolean forward, long count)
 	throws SQLException;
 
+	private static native byte[] _fetchCopyData(
+		long pointer, boolean binary, long count)
+	throws SQLException;
+
 	private static native void _close(long pointer);
 
 	private static native boolean _isAtEnd(long pointer)
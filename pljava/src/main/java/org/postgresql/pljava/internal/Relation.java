@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -24,6 +24,20 @@ import java.sql.SQLException;
  */
 public class Relation
 {
+	/*
+	 * These values must match their uses in Relation.c. They classify each
+	 * entry in the buffers passed to {@link #formModifiedTuple}.
+	 */
+	public static final byte CHANGE_OBJECT    = 0;
+	public static final byte CHANGE_NULL      = 1;
+	public static final byte CHANGE_BOOLEAN   = 2;
+	public static final byte CHANGE_SHORT     = 3;
+	public static final byte CHANGE_INT       = 4;
+	public static final byte CHANGE_LONG      = 5;
+	public static final byte CHANGE_FLOAT     = 6;
+	public static final byte CHANGE_DOUBLE    = 7;
+	public static final byte CHANGE_TIMESTAMP = 8;
+
 	private TupleDesc m_tupleDesc;
 	private final State m_state;
 
@@ -131,6 +145,44 @@ public class Relation
 				original.getNativePointer(), fieldNumbers, values));
 	}
 
+	/**
+	 * Forms a new tuple by substituting buffered values for selected columns
+	 * of the original, in one {@code heap_modify_tuple} call, returning the
+	 * native pointer to the result without creating any {@code Tuple} object.
+	 *<p>
+	 * The first {@code count} entries of each array describe one change.
+	 * {@code kinds} holds one of the {@code CHANGE_} constants. For the
+	 * primitive kinds, the value is taken from {@code primitives} (with
+	 * {@code float} and {@code double} values as their raw bits, and
+	 * {@code CHANGE_TIMESTAMP} as microseconds since the Java epoch), and
+	 * converted directly when the column type is the natural one for the kind;
+	 * otherwise, the value is boxed and given the usual object coercion. For
+	 * {@code CHANGE_OBJECT}, and as the fallback for {@code CHANGE_TIMESTAMP},
+	 * the value is taken from {@code objects}.
+	 *<p>
+	 * The result is allocated in the current memory context, which the caller
+	 * (the trigger handler) has selected to outlive the call. The original
+	 * {@code Tuple} is not modified.
+	 *
+	 * @param original The tuple that serves as the source.
+	 * @param count Number of changes in the buffers.
+	 * @param fieldNumbers One based indexes of the columns to be replaced.
+	 * @param kinds How to interpret each change.
+	 * @param primitives Unboxed values for the primitive kinds.
+	 * @param objects Values for {@code CHANGE_OBJECT} entries.
+	 * @return Native pointer to the new {@code HeapTuple}.
+	 * @throws SQLException if indexes are out of range or the values illegal.
+	 */
+	public long formModifiedTuple(Tuple original, int count,
+		int[] fieldNumbers, byte[] kinds, long[] primitives, Object[] objects)
+	throws SQLException
+	{
+		return doInPG(() ->
+			_formModifiedTuple(m_state.getRelationPtr(),
+				original.getNativePointer(), count,
+				fieldNumbers, kinds, primitives, objects));
+	}
+
 	private static native String _getName(long pointer)
 	throws SQLException;
 
@@ -142,4 +194,9 @@ public class Relation
 
 	private static native Tuple _modifyTuple(long pointer, long original, int[] fieldNumbers, Object[] values)
 	throws SQLException;
+
+	private static native long _formModifiedTuple(long pointer, long original,
+		int count, int[] fieldNumbers, byte[] kinds, long[] primitives,
+		Object[] objects)
+	throws SQLException;
 }
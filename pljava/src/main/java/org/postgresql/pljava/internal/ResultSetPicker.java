@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -24,15 +24,20 @@ import org.postgresql.pljava.jdbc.SingleRowWriter;
  * a {@code ResultSetHandle}, presenting it as a {@link ResultSetProvider}
  * instead.
  *<p>
- * Note on the current implementation:
- * this class operates by fetching every field of every row of the result set
- * as a Java object via the one-argument {@code getObject}, then storing it into
- * the writable result set supplied by PL/Java. Apart from being rather
- * inefficient, this can involve conversions through legacy types (such as
- * {@code java.sql.Timestamp} when the JSR 310 {@code java.time} conversions are
- * better specified). In cases where that isn't acceptable, the user function
- * should be declared to return {@code ResultSetProvider} and do this work
- * itself.
+ * When the result set comes from a query run by PL/Java's own JDBC driver,
+ * and its columns match the function's result columns in number and type, each
+ * row is passed through as the native tuple the query produced, without its
+ * values being converted to Java objects.
+ *<p>
+ * Otherwise, this class operates by fetching every field of every row of the
+ * result set as a Java object via the one-argument {@code getObject}, then
+ * storing it into the writable result set supplied by PL/Java. Apart from
+ * being rather inefficient, this can involve conversions through legacy types
+ * (such as {@code java.sql.Timestamp} when the JSR 310 {@code java.time}
+ * conversions are better specified). In cases where that isn't acceptable, the
+ * query can be written to produce exactly the function's result types, or the
+ * user function can be declared to return {@code ResultSetProvider} and do this
+ * work itself.
  */
 public class ResultSetPicker implements ResultSetProvider.Large
 {
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -21,13 +21,22 @@ import java.sql.Statement;
 import java.util.HashMap;
 import static java.util.Objects.requireNonNull;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
+import org.postgresql.pljava.Jsonb;
 import org.postgresql.pljava.ObjectPool;
 import org.postgresql.pljava.PooledObject;
 import org.postgresql.pljava.SavepointListener;
+import org.postgresql.pljava.SessionCache;
+import org.postgresql.pljava.SharedStore;
 import org.postgresql.pljava.TransactionListener;
 import org.postgresql.pljava.sqlgen.Lexicals.Identifier;
 
+import org.postgresql.pljava.jdbc.Invocation;
 import org.postgresql.pljava.jdbc.SQLUtils;
 
 import org.postgresql.pljava.elog.ELogHandler;
@@ -148,6 +157,43 @@ public class Session implements org.postgresql.pljava.Session
 		return ObjectPoolImpl.getObjectPool(cls);
 	}
 
+	@Override
+	public <K,V> SessionCache.Builder<K,V> cacheBuilder()
+	{
+		return new SessionCacheImpl.BuilderImpl<>();
+	}
+
+	@Override
+	public SharedStore sharedStore() throws SQLException
+	{
+		return SharedStoreImpl.getInstance();
+	}
+
+	@Override
+	public Jsonb.Builder jsonbBuilder()
+	{
+		return new JsonbImpl.BuilderImpl();
+	}
+
+	@Override
+	public <T> CompletableFuture<T> submitToPG(Callable<T> task)
+	{
+		return Backend.submitToPG(task);
+	}
+
+	@Override
+	public <T> T awaitInPG(Future<T> future)
+	throws InterruptedException, ExecutionException, SQLException
+	{
+		return Backend.awaitInPG(future);
+	}
+
+	@Override
+	public ExecutorService computeExecutor()
+	{
+		return Invocation.current().computeExecutor();
+	}
+
 	@Override
 	public String getUserName()
 	{
@@ -298,12 +344,15 @@ public class Session implements org.postgresql.pljava.Session
 	}
 
 	/**
-	 * Called from native code when the JVM is instantiated.
+	 * Called from native code when the JVM is instantiated or, with lazy
+	 * initialization in a background or parallel worker, just before the
+	 * first PL/Java function is created.
 	 */
 	static void init()
 	throws SQLException
 	{
 		ELogHandler.init();
+		DualState.registerStatistics();
 	}
 
 	private static native boolean _setUser(AclId userId, boolean isLocalChange);
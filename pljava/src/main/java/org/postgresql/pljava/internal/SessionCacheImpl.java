@@ -0,0 +1,545 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.sql.SQLException;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.function.ToLongBiFunction;
+
+import static java.util.Objects.requireNonNull;
+
+import org.postgresql.pljava.SessionCache;
+import org.postgresql.pljava.TransactionListener;
+
+/**
+ * Implementation of {@link SessionCache}.
+ *<p>
+ * Entries are held in a {@code HashMap} and also in an eviction order kept by
+ * an {@link Order Order}: a recency list for LRU, or buckets by use count for
+ * LFU. All state is guarded by the cache's monitor, which is not held while a
+ * {@code Loader} or weigher runs.
+ *<p>
+ * Caches to be cleared at transaction end or on jar replacement are found
+ * through weakly-held sets, so a cache no longer referenced can still be
+ * collected; one {@code TransactionListener} serves all the caches that need
+ * it, registered when the first such cache is built.
+ */
+public class SessionCacheImpl<K,V> implements SessionCache<K,V>
+{
+	static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+	private static final Set<SessionCacheImpl<?,?>> s_xactScoped =
+		Collections.newSetFromMap(new WeakHashMap<>());
+
+	private static final Set<SessionCacheImpl<?,?>> s_jarScoped =
+		Collections.newSetFromMap(new WeakHashMap<>());
+
+	private static boolean s_listening; // guarded by s_xactScoped
+
+	private final Map<K,Entry<K,V>> m_map = new HashMap<>();
+	private final Order<K,V> m_order;
+	private final long m_maxSize;
+	private final long m_maxWeight;
+	private final ToLongBiFunction<? super K, ? super V> m_weigher;
+	private final long m_ttlNanos; // zero for none
+	private long m_weight;
+
+	private long m_hits;
+	private long m_misses;
+	private long m_evictions;
+	private long m_expirations;
+	private long m_invalidations;
+
+	private SessionCacheImpl(BuilderImpl<K,V> b)
+	{
+		m_order = SessionCache.Policy.LFU == b.m_policy
+			? new LFU<>() : new LRU<>();
+		m_maxSize = b.m_maxSize;
+		m_maxWeight = b.m_maxWeight;
+		m_weigher = b.m_weigher;
+		m_ttlNanos = b.m_ttlNanos;
+	}
+
+	/**
+	 * Clears every cache built to be invalidated on jar replacement; called by
+	 * {@code sqlj.replace_jar}.
+	 */
+	public static void jarReplaced()
+	{
+		invalidate(s_jarScoped);
+	}
+
+	private static void invalidate(Set<SessionCacheImpl<?,?>> caches)
+	{
+		List<SessionCacheImpl<?,?>> snapshot;
+		synchronized(caches)
+		{
+			snapshot = new ArrayList<>(caches);
+		}
+		for ( SessionCacheImpl<?,?> c : snapshot )
+			c.invalidateAllFor(true);
+	}
+
+	@Override
+	public synchronized V get(K key)
+	{
+		Entry<K,V> e = m_map.get(requireNonNull(key));
+		if ( null == e )
+		{
+			++ m_misses;
+			return null;
+		}
+		if ( 0 != m_ttlNanos  &&  System.nanoTime() - e.m_written > m_ttlNanos )
+		{
+			remove(e);
+			++ m_expirations;
+			++ m_misses;
+			return null;
+		}
+		++ m_hits;
+		m_order.touch(e);
+		return e.m_value;
+	}
+
+	@Override
+	public V get(K key, Loader<? super K, ? extends V> loader)
+	throws SQLException
+	{
+		V value = get(key);
+		if ( null != value )
+			return value;
+		value = loader.load(key);
+		if ( null != value )
+			put(key, value);
+		return value;
+	}
+
+	@Override
+	public void put(K key, V value)
+	{
+		requireNonNull(key);
+		requireNonNull(value);
+		long weight = null == m_weigher ? 1 : m_weigher.applyAsLong(key, value);
+		if ( weight < 0 )
+			throw new IllegalArgumentException(
+				"SessionCache weigher returned a negative weight");
+
+		synchronized(this)
+		{
+			Entry<K,V> old = m_map.get(key);
+			if ( null != old )
+				remove(old);
+			if ( weight > m_maxWeight )
+				return;
+			Entry<K,V> e = new Entry<>(key, value, weight, System.nanoTime());
+			m_map.put(key, e);
+			m_order.add(e);
+			m_weight += weight;
+			while ( m_map.size() > m_maxSize  ||  m_weight > m_maxWeight )
+			{
+				remove(m_order.victim());
+				++ m_evictions;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void invalidate(K key)
+	{
+		Entry<K,V> e = m_map.get(requireNonNull(key));
+		if ( null != e )
+			remove(e);
+	}
+
+	@Override
+	public void invalidateAll()
+	{
+		invalidateAllFor(false);
+	}
+
+	private synchronized void invalidateAllFor(boolean event)
+	{
+		if ( event )
+			++ m_invalidations;
+		m_map.clear();
+		m_order.clear();
+		m_weight = 0;
+	}
+
+	@Override
+	public synchronized long size()
+	{
+		return m_map.size();
+	}
+
+	@Override
+	public synchronized long weight()
+	{
+		return m_weight;
+	}
+
+	@Override
+	public synchronized Statistics getStatistics()
+	{
+		return new Snapshot(
+			m_hits, m_misses, m_evictions, m_expirations, m_invalidations);
+	}
+
+	/**
+	 * Remove an entry from the map and the order. Caller holds the monitor.
+	 */
+	private void remove(Entry<K,V> e)
+	{
+		m_map.remove(e.m_key);
+		m_order.remove(e);
+		m_weight -= e.m_weight;
+	}
+
+	private static final class Entry<K,V>
+	{
+		final K m_key;
+		final V m_value;
+		final long m_weight;
+		final long m_written;
+		long m_uses;
+		Entry<K,V> m_prev;
+		Entry<K,V> m_next;
+
+		Entry(K key, V value, long weight, long written)
+		{
+			m_key = key;
+			m_value = value;
+			m_weight = weight;
+			m_written = written;
+		}
+	}
+
+	/**
+	 * The eviction order of the entries.
+	 */
+	private abstract static class Order<K,V>
+	{
+		abstract void add(Entry<K,V> e);
+		abstract void touch(Entry<K,V> e);
+		abstract void remove(Entry<K,V> e);
+		abstract Entry<K,V> victim();
+		abstract void clear();
+	}
+
+	/**
+	 * A doubly-linked list, most recently used first.
+	 */
+	private static final class LRU<K,V> extends Order<K,V>
+	{
+		private Entry<K,V> m_head;
+		private Entry<K,V> m_tail;
+
+		@Override
+		void add(Entry<K,V> e)
+		{
+			e.m_prev = null;
+			e.m_next = m_head;
+			if ( null != m_head )
+				m_head.m_prev = e;
+			else
+				m_tail = e;
+			m_head = e;
+		}
+
+		@Override
+		void touch(Entry<K,V> e)
+		{
+			if ( m_head == e )
+				return;
+			remove(e);
+			add(e);
+		}
+
+		@Override
+		void remove(Entry<K,V> e)
+		{
+			if ( null != e.m_prev )
+				e.m_prev.m_next = e.m_next;
+			else
+				m_head = e.m_next;
+			if ( null != e.m_next )
+				e.m_next.m_prev = e.m_prev;
+			else
+				m_tail = e.m_prev;
+			e.m_prev = e.m_next = null;
+		}
+
+		@Override
+		Entry<K,V> victim()
+		{
+			return m_tail;
+		}
+
+		@Override
+		void clear()
+		{
+			m_head = m_tail = null;
+		}
+	}
+
+	/**
+	 * Buckets of entries by use count, each in the order entries reached that
+	 * count.
+	 */
+	private static final class LFU<K,V> extends Order<K,V>
+	{
+		private final TreeMap<Long,LinkedHashSet<Entry<K,V>>> m_buckets =
+			new TreeMap<>();
+
+		@Override
+		void add(Entry<K,V> e)
+		{
+			e.m_uses = 1;
+			m_buckets.computeIfAbsent(1L, k -> new LinkedHashSet<>()).add(e);
+		}
+
+		@Override
+		void touch(Entry<K,V> e)
+		{
+			remove(e);
+			++ e.m_uses;
+			m_buckets.computeIfAbsent(e.m_uses, k -> new LinkedHashSet<>())
+				.add(e);
+		}
+
+		@Override
+		void remove(Entry<K,V> e)
+		{
+			LinkedHashSet<Entry<K,V>> bucket = m_buckets.get(e.m_uses);
+			bucket.remove(e);
+			if ( bucket.isEmpty() )
+				m_buckets.remove(e.m_uses);
+		}
+
+		@Override
+		Entry<K,V> victim()
+		{
+			return m_buckets.firstEntry().getValue().iterator().next();
+		}
+
+		@Override
+		void clear()
+		{
+			m_buckets.clear();
+		}
+	}
+
+	/**
+	 * Clears the transaction-scoped caches at the end of each transaction.
+	 */
+	private static final class XactEnd implements TransactionListener
+	{
+		@Override
+		public void onAbort(org.postgresql.pljava.Session s)
+		{
+			invalidate(s_xactScoped);
+		}
+
+		@Override
+		public void onCommit(org.postgresql.pljava.Session s)
+		{
+			invalidate(s_xactScoped);
+		}
+
+		@Override
+		public void onPrepare(org.postgresql.pljava.Session s)
+		{
+			invalidate(s_xactScoped);
+		}
+
+		@Override
+		public void onParallelCommit(org.postgresql.pljava.Session s)
+		{
+			invalidate(s_xactScoped);
+		}
+
+		@Override
+		public void onParallelAbort(org.postgresql.pljava.Session s)
+		{
+			invalidate(s_xactScoped);
+		}
+	}
+
+	private static final class Snapshot implements Statistics
+	{
+		private final long m_hits;
+		private final long m_misses;
+		private final long m_evictions;
+		private final long m_expirations;
+		private final long m_invalidations;
+
+		Snapshot(long hits, long misses, long evictions, long expirations,
+			long invalidations)
+		{
+			m_hits = hits;
+			m_misses = misses;
+			m_evictions = evictions;
+			m_expirations = expirations;
+			m_invalidations = invalidations;
+		}
+
+		@Override
+		public long getHits()
+		{
+			return m_hits;
+		}
+
+		@Override
+		public long getMisses()
+		{
+			return m_misses;
+		}
+
+		@Override
+		public long getEvictions()
+		{
+			return m_evictions;
+		}
+
+		@Override
+		public long getExpirations()
+		{
+			return m_expirations;
+		}
+
+		@Override
+		public long getInvalidations()
+		{
+			return m_invalidations;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("hits=%d misses=%d evictions=%d" +
+				" expirations=%d invalidations=%d", m_hits, m_misses,
+				m_evictions, m_expirations, m_invalidations);
+		}
+	}
+
+	static final class BuilderImpl<K,V> implements SessionCache.Builder<K,V>
+	{
+		private long m_maxSize = Long.MAX_VALUE;
+		private long m_maxWeight = Long.MAX_VALUE;
+		private ToLongBiFunction<? super K, ? super V> m_weigher;
+		private SessionCache.Policy m_policy = SessionCache.Policy.LRU;
+		private long m_ttlNanos;
+		private final EnumSet<SessionCache.Invalidation> m_events =
+			EnumSet.noneOf(SessionCache.Invalidation.class);
+
+		@Override
+		public BuilderImpl<K,V> maximumSize(long entries)
+		{
+			if ( entries <= 0 )
+				throw new IllegalArgumentException(
+					"SessionCache maximum size must be positive");
+			m_maxSize = entries;
+			return this;
+		}
+
+		@Override
+		public BuilderImpl<K,V> maximumWeight(long weight,
+			ToLongBiFunction<? super K, ? super V> weigher)
+		{
+			if ( weight <= 0 )
+				throw new IllegalArgumentException(
+					"SessionCache maximum weight must be positive");
+			m_maxWeight = weight;
+			m_weigher = requireNonNull(weigher);
+			return this;
+		}
+
+		@Override
+		public BuilderImpl<K,V> policy(SessionCache.Policy policy)
+		{
+			m_policy = requireNonNull(policy);
+			return this;
+		}
+
+		@Override
+		public BuilderImpl<K,V> timeToLive(Duration ttl)
+		{
+			if ( ttl.isNegative()  ||  ttl.isZero() )
+				throw new IllegalArgumentException(
+					"SessionCache time to live must be positive");
+			try
+			{
+				m_ttlNanos = ttl.toNanos();
+			}
+			catch ( ArithmeticException e )
+			{
+				m_ttlNanos = 0; // longer than a backend will live
+			}
+			return this;
+		}
+
+		@Override
+		public BuilderImpl<K,V> invalidateOn(
+			SessionCache.Invalidation... events)
+		{
+			for ( SessionCache.Invalidation event : events )
+				m_events.add(requireNonNull(event));
+			return this;
+		}
+
+		@Override
+		public SessionCacheImpl<K,V> build()
+		{
+			if ( Long.MAX_VALUE == m_maxSize  &&  null == m_weigher )
+				m_maxSize = DEFAULT_MAXIMUM_SIZE;
+
+			SessionCacheImpl<K,V> cache = new SessionCacheImpl<>(this);
+
+			if ( m_events.contains(SessionCache.Invalidation.JAR_REPLACEMENT) )
+				synchronized(s_jarScoped)
+				{
+					s_jarScoped.add(cache);
+				}
+
+			boolean register = false;
+			if ( m_events.contains(SessionCache.Invalidation.TRANSACTION_END) )
+				synchronized(s_xactScoped)
+				{
+					s_xactScoped.add(cache);
+					register = ! s_listening;
+					s_listening = true;
+				}
+
+			/*
+			 * Not while holding s_xactScoped, which the listener will need on
+			 * the PG thread.
+			 */
+			if ( register )
+				XactListener.addListener(new XactEnd());
+
+			return cache;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+
+import static org.postgresql.pljava.internal.Backend.doInPG;
+
+import org.postgresql.pljava.SharedStore;
+
+/**
+ * Implementation of {@link SharedStore} over the shared memory region that
+ * the native code reserves when PL/Java is preloaded.
+ *<p>
+ * The whole arena of keys and values is wrapped once in a direct
+ * {@code ByteBuffer}; a lookup returns the offset, length and version of a
+ * value, and the value is handed out as a read-only slice of that buffer.
+ * Keys are UTF-8 encoded; the native code prefixes the database Oid.
+ */
+public class SharedStoreImpl implements SharedStore
+{
+	private static SharedStoreImpl s_instance;
+
+	private final ByteBuffer m_region;
+
+	private SharedStoreImpl(ByteBuffer region)
+	{
+		m_region = region.asReadOnlyBuffer();
+	}
+
+	static SharedStoreImpl getInstance() throws SQLException
+	{
+		return doInPG(() ->
+		{
+			if ( null == s_instance )
+			{
+				ByteBuffer region = _region();
+				if ( null == region )
+					throw new SQLFeatureNotSupportedException(
+						"PL/Java shared store is not available; it requires " +
+						"PL/Java in shared_preload_libraries and a nonzero " +
+						"pljava.shared_store_size", "0A000");
+				s_instance = new SharedStoreImpl(region);
+			}
+			return s_instance;
+		});
+	}
+
+	@Override
+	public Entry get(String key) throws SQLException
+	{
+		byte[] k = key.getBytes(UTF_8);
+		long[] found = doInPG(() -> _lookup(k));
+		if ( null == found )
+			return null;
+		int offset = (int)found[0];
+		int length = (int)found[1];
+		long version = found[2];
+		ByteBuffer value = m_region.duplicate();
+		value.position(offset).limit(offset + length);
+		ByteBuffer slice = value.slice();
+		return new Entry()
+		{
+			@Override
+			public ByteBuffer value()
+			{
+				return slice.duplicate();
+			}
+
+			@Override
+			public long version()
+			{
+				return version;
+			}
+		};
+	}
+
+	@Override
+	public long put(String key, ByteBuffer value) throws SQLException
+	{
+		byte[] k = key.getBytes(UTF_8);
+		byte[] v = bytes(value);
+		return doInPG(() -> _put(k, v, 0, false));
+	}
+
+	@Override
+	public long replace(String key, ByteBuffer value, long expectedVersion)
+	throws SQLException
+	{
+		if ( expectedVersion < 0 )
+			throw new IllegalArgumentException(
+				"SharedStore version must not be negative");
+		byte[] k = key.getBytes(UTF_8);
+		byte[] v = bytes(value);
+		return doInPG(() -> _put(k, v, expectedVersion, true));
+	}
+
+	@Override
+	public boolean remove(String key) throws SQLException
+	{
+		byte[] k = key.getBytes(UTF_8);
+		return doInPG(() -> _remove(k));
+	}
+
+	@Override
+	public long capacity()
+	{
+		return m_region.capacity();
+	}
+
+	@Override
+	public long used() throws SQLException
+	{
+		return doInPG(SharedStoreImpl::_used);
+	}
+
+	@Override
+	public void clear() throws SQLException
+	{
+		doInPG(SharedStoreImpl::_clear);
+	}
+
+	/**
+	 * The remaining bytes of a buffer, without changing its position.
+	 */
+	private static byte[] bytes(ByteBuffer value)
+	{
+		byte[] v = new byte[value.remaining()];
+		value.duplicate().get(v);
+		return v;
+	}
+
+	private static native ByteBuffer _region() throws SQLException;
+
+	private static native long[] _lookup(byte[] key) throws SQLException;
+
+	private static native long _put(
+		byte[] key, byte[] value, long expected, boolean conditional)
+	throws SQLException;
+
+	private static native boolean _remove(byte[] key) throws SQLException;
+
+	private static native long _used() throws SQLException;
+
+	private static native void _clear() throws SQLException;
+}
@@ -0,0 +1,569 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.internal;
+
+import java.sql.SQLException;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.xml.XMLConstants;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import static javax.xml.stream.XMLStreamConstants.CHARACTERS;
+import static javax.xml.stream.XMLStreamConstants.COMMENT;
+import static javax.xml.stream.XMLStreamConstants.END_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.PROCESSING_INSTRUCTION;
+import static javax.xml.stream.XMLStreamConstants.START_DOCUMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+/**
+ * Base class implementing the tedious parts of a StAX {@code XMLStreamReader}
+ * whose XML content is synthesized on the fly, the pull counterpart of
+ * {@link SyntheticXMLReader}.
+ *<p>
+ * An implementing class supplies {@link #produce()}, which is called only when
+ * the consumer has pulled every event produced so far, and should produce at
+ * least one more with {@link #startElement startElement},
+ * {@link #endElement endElement}, or {@link #characters characters}, or
+ * none when the content is complete. The work of synthesizing the content is
+ * therefore done only as far as the consumer reads, and a consumer skipping
+ * over an element causes nothing to be built for it.
+ *<p>
+ * The elements and attributes have local names only, in no namespace. The
+ * start- and end-document events are synthesized here.
+ */
+public abstract class SyntheticXMLStreamReader implements XMLStreamReader
+{
+	private static final String[] NO_ATTRIBUTES = new String[0];
+
+	private static final Location NO_LOCATION = new Location()
+	{
+		@Override
+		public int getLineNumber()
+		{
+			return -1;
+		}
+
+		@Override
+		public int getColumnNumber()
+		{
+			return -1;
+		}
+
+		@Override
+		public int getCharacterOffset()
+		{
+			return -1;
+		}
+
+		@Override
+		public String getPublicId()
+		{
+			return null;
+		}
+
+		@Override
+		public String getSystemId()
+		{
+			return null;
+		}
+	};
+
+	private static final NamespaceContext NO_NAMESPACES =
+		new NamespaceContext()
+		{
+			@Override
+			public String getNamespaceURI(String prefix)
+			{
+				if ( null == prefix )
+					throw new IllegalArgumentException(
+						"getNamespaceURI(null)");
+				if ( XMLConstants.XML_NS_PREFIX.equals(prefix) )
+					return XMLConstants.XML_NS_URI;
+				if ( XMLConstants.XMLNS_ATTRIBUTE.equals(prefix) )
+					return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+				return XMLConstants.NULL_NS_URI;
+			}
+
+			@Override
+			public String getPrefix(String namespaceURI)
+			{
+				Iterator<String> it = getPrefixes(namespaceURI);
+				return it.hasNext() ? it.next() : null;
+			}
+
+			@Override
+			public Iterator<String> getPrefixes(String namespaceURI)
+			{
+				if ( null == namespaceURI )
+					throw new IllegalArgumentException("getPrefixes(null)");
+				if ( XMLConstants.XML_NS_URI.equals(namespaceURI) )
+					return Collections.singleton(
+						XMLConstants.XML_NS_PREFIX).iterator();
+				if ( XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI) )
+					return Collections.singleton(
+						XMLConstants.XMLNS_ATTRIBUTE).iterator();
+				if ( XMLConstants.NULL_NS_URI.equals(namespaceURI) )
+					return Collections.singleton(
+						XMLConstants.DEFAULT_NS_PREFIX).iterator();
+				return Collections.emptyIterator();
+			}
+		};
+
+	/**
+	 * One parse event: for an element, its name and, if it is a start, its
+	 * attributes as alternating names and values; for characters, the text.
+	 */
+	private static final class Event
+	{
+		final int type;
+		final String name;
+		final String[] attributes;
+		final String text;
+
+		Event(int type, String name, String[] attributes, String text)
+		{
+			this.type = type;
+			this.name = name;
+			this.attributes = attributes;
+			this.text = text;
+		}
+	}
+
+	private static final Event START = new Event(START_DOCUMENT, null, null, null);
+	private static final Event END = new Event(END_DOCUMENT, null, null, null);
+
+	private final ArrayDeque<Event> m_pending = new ArrayDeque<>();
+	private Event m_current = START;
+	private boolean m_exhausted;
+
+	/**
+	 * The workhorse method for an implementing class to supply.
+	 *<p>
+	 * It is called when all events produced so far have been consumed, and
+	 * should produce one or more events, or none if the content is complete.
+	 * It will not be called again once it has produced none.
+	 */
+	protected abstract void produce() throws SQLException;
+
+	/**
+	 * Produce the start of an element with only a local name, and the given
+	 * attributes, as alternating names and values.
+	 */
+	protected final void startElement(String localName, String... attributes)
+	{
+		if ( 0 != attributes.length % 2 )
+			throw new IllegalArgumentException(
+				"attribute names and values unpaired");
+		m_pending.add(new Event(START_ELEMENT, localName,
+			0 == attributes.length ? NO_ATTRIBUTES : attributes, null));
+	}
+
+	/**
+	 * Produce the end of an element with only a local name.
+	 */
+	protected final void endElement(String localName)
+	{
+		m_pending.add(new Event(END_ELEMENT, localName, null, null));
+	}
+
+	/**
+	 * Produce character content.
+	 */
+	protected final void characters(String text)
+	{
+		m_pending.add(new Event(CHARACTERS, null, null, text));
+	}
+
+	@Override
+	public Object getProperty(String name)
+	{
+		if ( null == name )
+			throw new IllegalArgumentException("getProperty(null)");
+		return null;
+	}
+
+	@Override
+	public int next() throws XMLStreamException
+	{
+		if ( END_DOCUMENT == m_current.type )
+			throw new IllegalStateException("next() after END_DOCUMENT");
+
+		if ( m_pending.isEmpty()  &&  ! m_exhausted )
+		{
+			try
+			{
+				produce();
+			}
+			catch ( SQLException e )
+			{
+				m_exhausted = true;
+				throw new XMLStreamException(e.getMessage(), e);
+			}
+			m_exhausted = m_pending.isEmpty();
+		}
+
+		Event e = m_pending.poll();
+		m_current = null == e ? END : e;
+		return m_current.type;
+	}
+
+	@Override
+	public void require(int type, String namespaceURI, String localName)
+	throws XMLStreamException
+	{
+		if ( type != m_current.type )
+			throw new XMLStreamException(
+				"expected event type " + type + ", not " + m_current.type);
+		if ( null != namespaceURI  &&  ! namespaceURI.isEmpty() )
+			throw new XMLStreamException(
+				"expected namespace " + namespaceURI + ", not none");
+		if ( null != localName  &&  ! localName.equals(getLocalName()) )
+			throw new XMLStreamException(
+				"expected local name " + localName + ", not " +
+				getLocalName());
+	}
+
+	@Override
+	public String getElementText() throws XMLStreamException
+	{
+		if ( START_ELEMENT != m_current.type )
+			throw new XMLStreamException(
+				"getElementText() not at START_ELEMENT");
+		StringBuilder sb = new StringBuilder();
+		for ( int type = next(); END_ELEMENT != type; type = next() )
+		{
+			if ( CHARACTERS == type )
+				sb.append(m_current.text);
+			else
+				throw new XMLStreamException(
+					"getElementText() found non-text content");
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public int nextTag() throws XMLStreamException
+	{
+		int type = next();
+		while ( CHARACTERS == type  &&  isWhiteSpace()
+			||  COMMENT == type  ||  PROCESSING_INSTRUCTION == type )
+			type = next();
+		if ( START_ELEMENT != type  &&  END_ELEMENT != type )
+			throw new XMLStreamException(
+				"nextTag() found content other than a tag");
+		return type;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return END_DOCUMENT != m_current.type;
+	}
+
+	@Override
+	public void close()
+	{
+		m_pending.clear();
+		m_exhausted = true;
+	}
+
+	@Override
+	public String getNamespaceURI(String prefix)
+	{
+		return NO_NAMESPACES.getNamespaceURI(prefix);
+	}
+
+	@Override
+	public boolean isStartElement()
+	{
+		return START_ELEMENT == m_current.type;
+	}
+
+	@Override
+	public boolean isEndElement()
+	{
+		return END_ELEMENT == m_current.type;
+	}
+
+	@Override
+	public boolean isCharacters()
+	{
+		return CHARACTERS == m_current.type;
+	}
+
+	@Override
+	public boolean isWhiteSpace()
+	{
+		if ( CHARACTERS != m_current.type )
+			return false;
+		String s = m_current.text;
+		for ( int i = 0; i < s.length(); ++ i )
+			if ( -1 == " \t\r\n".indexOf(s.charAt(i)) )
+				return false;
+		return true;
+	}
+
+	private String[] attributes()
+	{
+		if ( START_ELEMENT != m_current.type )
+			throw new IllegalStateException(
+				"attribute access not at START_ELEMENT");
+		return m_current.attributes;
+	}
+
+	private int attributeIndex(int index)
+	{
+		String[] a = attributes();
+		if ( index < 0  ||  2 * index >= a.length )
+			throw new IndexOutOfBoundsException(
+				"attribute index " + index);
+		return 2 * index;
+	}
+
+	@Override
+	public String getAttributeValue(String namespaceURI, String localName)
+	{
+		if ( null != namespaceURI  &&  ! namespaceURI.isEmpty() )
+			return null;
+		String[] a = attributes();
+		for ( int i = 0; i < a.length; i += 2 )
+			if ( a[i].equals(localName) )
+				return a[i + 1];
+		return null;
+	}
+
+	@Override
+	public int getAttributeCount()
+	{
+		return attributes().length / 2;
+	}
+
+	@Override
+	public QName getAttributeName(int index)
+	{
+		return new QName(getAttributeLocalName(index));
+	}
+
+	@Override
+	public String getAttributeNamespace(int index)
+	{
+		attributeIndex(index);
+		return null;
+	}
+
+	@Override
+	public String getAttributeLocalName(int index)
+	{
+		return attributes()[attributeIndex(index)];
+	}
+
+	@Override
+	public String getAttributePrefix(int index)
+	{
+		attributeIndex(index);
+		return null;
+	}
+
+	@Override
+	public String getAttributeType(int index)
+	{
+		attributeIndex(index);
+		return "CDATA";
+	}
+
+	@Override
+	public String getAttributeValue(int index)
+	{
+		return attributes()[attributeIndex(index) + 1];
+	}
+
+	@Override
+	public boolean isAttributeSpecified(int index)
+	{
+		attributeIndex(index);
+		return true;
+	}
+
+	@Override
+	public int getNamespaceCount()
+	{
+		if ( START_ELEMENT != m_current.type
+			&&  END_ELEMENT != m_current.type )
+			throw new IllegalStateException(
+				"getNamespaceCount() not at START_ELEMENT or END_ELEMENT");
+		return 0;
+	}
+
+	@Override
+	public String getNamespacePrefix(int index)
+	{
+		throw new IndexOutOfBoundsException("namespace index " + index);
+	}
+
+	@Override
+	public String getNamespaceURI(int index)
+	{
+		throw new IndexOutOfBoundsException("namespace index " + index);
+	}
+
+	@Override
+	public NamespaceContext getNamespaceContext()
+	{
+		return NO_NAMESPACES;
+	}
+
+	@Override
+	public int getEventType()
+	{
+		return m_current.type;
+	}
+
+	@Override
+	public String getText()
+	{
+		if ( CHARACTERS != m_current.type )
+			throw new IllegalStateException("getText() not at CHARACTERS");
+		return m_current.text;
+	}
+
+	@Override
+	public char[] getTextCharacters()
+	{
+		return getText().toCharArray();
+	}
+
+	@Override
+	public int getTextCharacters(
+		int sourceStart, char[] target, int targetStart, int length)
+	throws XMLStreamException
+	{
+		String s = getText();
+		if ( sourceStart < 0  ||  sourceStart > s.length() )
+			throw new IndexOutOfBoundsException(
+				"text index " + sourceStart);
+		int n = Math.min(length, s.length() - sourceStart);
+		s.getChars(sourceStart, sourceStart + n, target, targetStart);
+		return n;
+	}
+
+	@Override
+	public int getTextStart()
+	{
+		getText();
+		return 0;
+	}
+
+	@Override
+	public int getTextLength()
+	{
+		return getText().length();
+	}
+
+	@Override
+	public String getEncoding()
+	{
+		return null;
+	}
+
+	@Override
+	public boolean hasText()
+	{
+		return CHARACTERS == m_current.type;
+	}
+
+	@Override
+	public Location getLocation()
+	{
+		return NO_LOCATION;
+	}
+
+	@Override
+	public QName getName()
+	{
+		return new QName(getLocalName());
+	}
+
+	@Override
+	public String getLocalName()
+	{
+		if ( ! hasName() )
+			throw new IllegalStateException(
+				"getLocalName() not at START_ELEMENT or END_ELEMENT");
+		return m_current.name;
+	}
+
+	@Override
+	public boolean hasName()
+	{
+		return START_ELEMENT == m_current.type
+			||  END_ELEMENT == m_current.type;
+	}
+
+	@Override
+	public String getNamespaceURI()
+	{
+		return null;
+	}
+
+	@Override
+	public String getPrefix()
+	{
+		return null;
+	}
+
+	@Override
+	public String getVersion()
+	{
+		return null;
+	}
+
+	@Override
+	public boolean isStandalone()
+	{
+		return false;
+	}
+
+	@Override
+	public boolean standaloneSet()
+	{
+		return false;
+	}
+
+	@Override
+	public String getCharacterEncodingScheme()
+	{
+		return null;
+	}
+
+	@Override
+	public String getPITarget()
+	{
+		return null;
+	}
+
+	@Override
+	public String getPIData()
+	{
+		return null;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -176,16 +176,11 @@ public class TriggerData implements org.postgresql.pljava.TriggerData
 			//
 			return 0;
 
-		if (m_new != null)
+		if (m_new != null  &&  m_new.rowUpdated())
 		{
-			Object[] changes = m_new.getChangeIndexesAndValues();
-			if (changes != null)
-			{
-				Tuple original = (Tuple)changes[0];
-				int[] indexes = (int[])changes[1];
-				Object[] values = (Object[])changes[2];
-				return this.getRelation().modifyTuple(original, indexes, values).getNativePointer();
-			}
+			long modified = m_new.formModifiedTuple(this.getRelation());
+			if (modified != 0)
+				return modified;
 		}
 
 		// Return the original tuple.
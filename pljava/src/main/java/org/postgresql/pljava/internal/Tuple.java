@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -78,6 +78,15 @@ public class Tuple
 		return m_state.getHeapTuplePtr();
 	}
 
+	/**
+	 * Frees the native tuple now, rather than when this object becomes
+	 * unreachable. The tuple cannot be used afterward.
+	 */
+	public void release()
+	{
+		m_state.releaseFromJava();
+	}
+
 	/**
 	 * Obtains a value from the underlying native <code>HeapTuple</code>
 	 * structure.
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -123,6 +123,34 @@ public class TupleDesc
 		return doInPG(() -> _formTuple(this.getNativePointer(), values));
 	}
 
+	/**
+	 * Returns true if tuples described by <var>source</var> can be used, as
+	 * they are, as tuples described by this descriptor: the two have the same
+	 * number of columns, each of the same type, and any typmod this descriptor
+	 * specifies is also specified by <var>source</var>.
+	 */
+	public boolean acceptsTuplesOf(TupleDesc source)
+	throws SQLException
+	{
+		return doInPG(() ->
+			_acceptsTuplesOf(this.getNativePointer(),
+				source.getNativePointer()));
+	}
+
+	/**
+	 * Returns a copy of <var>tuple</var> marked as being of the row type of
+	 * this descriptor, leaving <var>tuple</var> itself unchanged.
+	 *<p>
+	 * The tuple must be described by a descriptor that this one
+	 * {@link #acceptsTuplesOf accepts tuples of}.
+	 */
+	public Tuple relabel(Tuple tuple)
+	throws SQLException
+	{
+		return doInPG(() ->
+			_relabel(this.getNativePointer(), tuple.getNativePointer()));
+	}
+
 	/**
 	 * Returns the number of columns in this tuple descriptor.
 	 */
@@ -163,4 +191,10 @@ public class TupleDesc
 	private static native int _getColumnIndex(long _this, String colName) throws SQLException;
 	private static native Tuple _formTuple(long _this, Object[] values) throws SQLException;
 	private static native Oid _getOid(long _this, int index) throws SQLException;
+
+	private static native boolean _acceptsTuplesOf(long _this, long source)
+	throws SQLException;
+
+	private static native Tuple _relabel(long _this, long tuple)
+	throws SQLException;
 }
@@ -16,11 +16,13 @@ public class TupleTable
 {
 	private final TupleDesc m_tupleDesc;
 	private final Tuple[] m_tuples;
+	private final long m_tupleBytes;
 
-	TupleTable(TupleDesc tupleDesc, Tuple[] tuples)
+	TupleTable(TupleDesc tupleDesc, Tuple[] tuples, long tupleBytes)
 	{
 		m_tupleDesc = tupleDesc;
 		m_tuples = tuples;
+		m_tupleBytes = tupleBytes;
 	}
 
 	public final TupleDesc getTupleDesc()
@@ -36,6 +38,14 @@ public class TupleTable
 		return m_tuples.length;
 	}
 
+	/**
+	 * Returns the total length, in bytes, of the native tuples in this table.
+	 */
+	public final long getTupleBytes()
+	{
+		return m_tupleBytes;
+	}
+
 	/**
 	 * Returns the <code>Tuple</code> at the given index.
 	 * @param position Index of desired slot. First slot has index zero. 
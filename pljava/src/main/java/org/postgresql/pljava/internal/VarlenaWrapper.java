@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2019-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -849,6 +849,15 @@ public interface VarlenaWrapper extends Closeable
 	 * complete and then rethrows the exception, if it threw one. It is possible
 	 * to {@link #cancel} a {@code Verifier}.
 	 *<p>
+	 * The separate thread is what lets {@code verify} read the content as a
+	 * stream while it is still being written: the parsers in the Java runtime
+	 * pull from an {@code InputStream} and cannot be pushed one buffer at a
+	 * time, so a verifier in the writing thread would have to keep every
+	 * buffer until {@code finish}. The filled buffers are not compressed as
+	 * they are passed, either; PostgreSQL compresses a varlena as a whole, so
+	 * separately compressed pieces could not be joined into one, and the
+	 * flattened value is compressed anyway if it is stored.
+	 *<p>
 	 * As an optimization, all those methods are no-ops in the {@code NoOp}
 	 * class; no other thread is used, and no work is done. The {@code Base}
 	 * class, unextended, also serves as a verifier that accepts anything, but
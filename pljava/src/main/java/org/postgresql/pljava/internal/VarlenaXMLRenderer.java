@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2019-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -14,15 +14,23 @@ package org.postgresql.pljava.internal;
 import java.io.IOException;
 
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 
+import java.sql.SQLDataException;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 
+import javax.xml.stream.XMLStreamReader;
+
 /**
  * Class adapting a {@code ByteBufferXMLReader} to a
  * {@code VarlenaWrapper.Input}.
+ *<p>
+ * A subclass may also offer its rendering through StAX, by overriding
+ * {@link #pullReader pullReader}.
  */
 public abstract class VarlenaXMLRenderer
 extends ByteBufferXMLReader implements VarlenaWrapper
@@ -101,6 +109,40 @@ extends ByteBufferXMLReader implements VarlenaWrapper
 		return m_movingBuffer;
 	}
 
+	/**
+	 * Returns a StAX reader that renders the content only as the consumer
+	 * pulls it, as an alternative to using this instance as a SAX
+	 * {@code XMLReader}.
+	 *<p>
+	 * This implementation throws {@code SQLFeatureNotSupportedException}.
+	 */
+	public XMLStreamReader pullReader() throws SQLException
+	{
+		throw new SQLFeatureNotSupportedException(
+			"synthetic SQLXML as StAXSource not yet supported", "0A000");
+	}
+
+	/**
+	 * Decodes the remaining content of the buffer to characters, holding the
+	 * pin only while the native memory is read.
+	 */
+	protected CharBuffer decoded() throws SQLException
+	{
+		pin();
+		try
+		{
+			return m_decoder.decode(buffer());
+		}
+		catch ( CharacterCodingException e )
+		{
+			throw new SQLDataException(e.getMessage(), "22021", e);
+		}
+		finally
+		{
+			unpin();
+		}
+	}
+
 	@Override
 	public void close() throws IOException
 	{
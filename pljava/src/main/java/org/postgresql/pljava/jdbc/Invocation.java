@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -15,9 +15,11 @@ package org.postgresql.pljava.jdbc;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 import org.postgresql.pljava.internal.Backend;
+import org.postgresql.pljava.internal.ComputePool;
 import static org.postgresql.pljava.internal.Backend.doInPG;
 import org.postgresql.pljava.internal.PgSavepoint;
 import org.postgresql.pljava.internal.ServerException; // for javadoc
@@ -112,6 +114,12 @@ public class Invocation
 	 */
 	private PgSavepoint m_savepoint;
 
+	/**
+	 * Executor for parallel computation on behalf of this invocation, created
+	 * when first requested.
+	 */
+	private ExecutorService m_computeExecutor;
+
 	private Invocation(int level)
 	{
 		m_nestingLevel = level;
@@ -141,6 +149,22 @@ public class Invocation
 		m_savepoint = savepoint;
 	}
 
+	/**
+	 * Return the executor for parallel computation on behalf of this
+	 * invocation, creating it if need be.
+	 *<p>
+	 * Its tasks still unfinished when the invocation exits will be cancelled.
+	 */
+	public ExecutorService computeExecutor()
+	{
+		return doInPG(() ->
+		{
+			if ( null == m_computeExecutor )
+				m_computeExecutor = ComputePool.newScope();
+			return m_computeExecutor;
+		});
+	}
+
 	/**
 	 * Called from the backend when the invokation exits. Should
 	 * not be invoked any other way.
@@ -150,6 +174,9 @@ public class Invocation
 	{
 		try
 		{
+			if ( null != m_computeExecutor )
+				m_computeExecutor.shutdownNow();
+			Backend.onInvocationExit(this);
 			if(m_savepoint != null)
 				m_savepoint.onInvocationExit(withError);
 		}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.jdbc;
+
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.sql.Blob;
+import java.sql.SQLException;
+
+import java.util.Arrays;
+
+import org.postgresql.pljava.LargeObject;
+import org.postgresql.pljava.internal.LargeObjects;
+import static org.postgresql.pljava.internal.LargeObjects.INV_READ;
+import static org.postgresql.pljava.internal.LargeObjects.INV_WRITE;
+
+/**
+ * Implementation of {@link Blob} over a PostgreSQL large object, read and
+ * written through a buffer of at most {@link #CHUNK} bytes.
+ */
+class LargeObjectBlob implements Blob, LargeObject
+{
+	static final int CHUNK = 64 * 1024;
+
+	private final long m_oid;
+	private final boolean m_writable;
+	private int m_fd;
+
+	LargeObjectBlob(long oid, boolean writable) throws SQLException
+	{
+		m_oid = oid;
+		m_writable = writable;
+		m_fd = LargeObjects.open(oid, writable ? INV_READ|INV_WRITE : INV_READ);
+	}
+
+	@Override
+	public long getOid()
+	{
+		return m_oid;
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		return LargeObjects.length(fd());
+	}
+
+	@Override
+	public byte[] getBytes(long pos, int length) throws SQLException
+	{
+		checkPosition(pos);
+		if ( length < 0 )
+			throw new SQLException("Blob.getBytes length is negative", "22023");
+		long available = Math.max(0, length() - (pos - 1));
+		byte[] buf = new byte[(int)Math.min(length, available)];
+		int off = 0;
+		while ( off < buf.length )
+		{
+			int n = LargeObjects.read(fd(), pos - 1 + off, buf, off,
+				Math.min(CHUNK, buf.length - off));
+			if ( n <= 0 )
+				break;
+			off += n;
+		}
+		return off == buf.length ? buf : Arrays.copyOf(buf, off);
+	}
+
+	@Override
+	public InputStream getBinaryStream() throws SQLException
+	{
+		return new ChunkedInputStream(0, Long.MAX_VALUE);
+	}
+
+	@Override
+	public InputStream getBinaryStream(long pos, long length)
+	throws SQLException
+	{
+		checkPosition(pos);
+		if ( length < 0  ||  pos - 1 + length > length() )
+			throw new SQLException(
+				"Blob.getBinaryStream range exceeds the Blob", "22023");
+		return new ChunkedInputStream(pos - 1, length);
+	}
+
+	@Override
+	public long position(byte[] pattern, long start) throws SQLException
+	{
+		checkPosition(start);
+		if ( 0 == pattern.length )
+			return start;
+		/*
+		 * Scan chunk by chunk, carrying the last pattern.length - 1 bytes of
+		 * each chunk into the next so a match spanning chunks is found.
+		 */
+		int keep = pattern.length - 1;
+		byte[] buf = new byte[Math.max(CHUNK, 2 * pattern.length)];
+		long bufPos = start - 1; // object offset of buf[0]
+		int have = 0;
+		for ( ;; )
+		{
+			int n = LargeObjects.read(
+				fd(), bufPos + have, buf, have, buf.length - have);
+			have += Math.max(0, n);
+			for ( int i = 0; i + pattern.length <= have; ++ i )
+			{
+				int j = 0;
+				while ( j < pattern.length  &&  buf[i + j] == pattern[j] )
+					++ j;
+				if ( j == pattern.length )
+					return bufPos + i + 1;
+			}
+			if ( n <= 0  ||  have < keep )
+				return -1;
+			System.arraycopy(buf, have - keep, buf, 0, keep);
+			bufPos += have - keep;
+			have = keep;
+		}
+	}
+
+	@Override
+	public long position(Blob pattern, long start) throws SQLException
+	{
+		long len = pattern.length();
+		if ( len > CHUNK )
+			throw new SQLException(
+				"Blob.position pattern longer than " + CHUNK + " bytes",
+				"22023");
+		return position(pattern.getBytes(1, (int)len), start);
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes) throws SQLException
+	{
+		return setBytes(pos, bytes, 0, bytes.length);
+	}
+
+	@Override
+	public int setBytes(long pos, byte[] bytes, int offset, int len)
+	throws SQLException
+	{
+		checkPosition(pos);
+		checkWritable();
+		int done = 0;
+		while ( done < len )
+		{
+			int n = Math.min(CHUNK, len - done);
+			LargeObjects.write(fd(), pos - 1 + done, bytes, offset + done, n);
+			done += n;
+		}
+		return len;
+	}
+
+	@Override
+	public OutputStream setBinaryStream(long pos) throws SQLException
+	{
+		checkPosition(pos);
+		checkWritable();
+		return new ChunkedOutputStream(pos - 1);
+	}
+
+	@Override
+	public void truncate(long len) throws SQLException
+	{
+		checkWritable();
+		if ( len < 0 )
+			throw new SQLException("Blob.truncate length is negative", "22023");
+		LargeObjects.truncate(fd(), len);
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		if ( -1 == m_fd )
+			return;
+		int fd = m_fd;
+		m_fd = -1;
+		LargeObjects.close(fd);
+	}
+
+	int fd() throws SQLException
+	{
+		if ( -1 == m_fd )
+			throw new SQLException("Blob has been freed", "55000");
+		return m_fd;
+	}
+
+	private void checkWritable() throws SQLException
+	{
+		if ( ! m_writable )
+			throw new SQLException("large object not opened for writing",
+				"55000");
+	}
+
+	private static void checkPosition(long pos) throws SQLException
+	{
+		if ( pos < 1 )
+			throw new SQLException("Blob position must be at least 1", "22023");
+	}
+
+	/**
+	 * Reads a range of the object through a buffer of one chunk.
+	 */
+	class ChunkedInputStream extends InputStream
+	{
+		private final byte[] m_buf = new byte[CHUNK];
+		private long m_next;      // object offset of next byte to fetch
+		private long m_remaining; // bytes of the range not yet fetched
+		private int m_pos;
+		private int m_end;
+		private long m_markNext;
+		private long m_markRemaining;
+		private boolean m_marked;
+
+		ChunkedInputStream(long offset, long length)
+		{
+			m_next = offset;
+			m_remaining = length;
+		}
+
+		private boolean fill() throws IOException
+		{
+			if ( m_pos < m_end )
+				return true;
+			if ( 0 == m_remaining )
+				return false;
+			try
+			{
+				int n = LargeObjects.read(fd(), m_next, m_buf, 0,
+					(int)Math.min(CHUNK, m_remaining));
+				if ( n <= 0 )
+				{
+					m_remaining = 0;
+					return false;
+				}
+				m_next += n;
+				m_remaining -= n;
+				m_pos = 0;
+				m_end = n;
+				return true;
+			}
+			catch ( SQLException e )
+			{
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+
+		@Override
+		public int read() throws IOException
+		{
+			return fill() ? m_buf[m_pos++] & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException
+		{
+			if ( 0 == len )
+				return 0;
+			if ( ! fill() )
+				return -1;
+			int n = Math.min(len, m_end - m_pos);
+			System.arraycopy(m_buf, m_pos, b, off, n);
+			m_pos += n;
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException
+		{
+			if ( n <= 0 )
+				return 0;
+			long inBuf = Math.min(n, m_end - m_pos);
+			m_pos += inBuf;
+			long beyond = Math.min(n - inBuf, m_remaining);
+			m_next += beyond;
+			m_remaining -= beyond;
+			return inBuf + beyond;
+		}
+
+		@Override
+		public int available()
+		{
+			return m_end - m_pos;
+		}
+
+		@Override
+		public boolean markSupported()
+		{
+			return true;
+		}
+
+		@Override
+		public void mark(int readLimit)
+		{
+			m_markNext = m_next - (m_end - m_pos);
+			m_markRemaining = m_remaining + (m_end - m_pos);
+			m_marked = true;
+		}
+
+		@Override
+		public void reset() throws IOException
+		{
+			if ( ! m_marked )
+				throw new IOException("mark not set");
+			m_next = m_markNext;
+			m_remaining = m_markRemaining;
+			m_pos = m_end = 0;
+		}
+	}
+
+	/**
+	 * Writes to the object from a given offset through a buffer of one chunk.
+	 */
+	class ChunkedOutputStream extends OutputStream
+	{
+		private final byte[] m_buf = new byte[CHUNK];
+		private long m_next; // object offset where m_buf[0] will be written
+		private int m_len;
+		private boolean m_closed;
+
+		ChunkedOutputStream(long offset)
+		{
+			m_next = offset;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			if ( m_len == CHUNK )
+				flush();
+			m_buf[m_len++] = (byte)b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			while ( len > 0 )
+			{
+				if ( m_len == CHUNK )
+					flush();
+				int n = Math.min(len, CHUNK - m_len);
+				System.arraycopy(b, off, m_buf, m_len, n);
+				m_len += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void flush() throws IOException
+		{
+			if ( m_closed )
+				throw new IOException("stream is closed");
+			if ( 0 == m_len )
+				return;
+			try
+			{
+				LargeObjects.write(fd(), m_next, m_buf, 0, m_len);
+			}
+			catch ( SQLException e )
+			{
+				throw new IOException(e.getMessage(), e);
+			}
+			m_next += m_len;
+			m_len = 0;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			if ( m_closed )
+				return;
+			flush();
+			m_closed = true;
+		}
+	}
+}
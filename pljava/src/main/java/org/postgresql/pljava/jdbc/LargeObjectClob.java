@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.jdbc;
+
+import java.io.FilterReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.sql.Clob;
+import java.sql.SQLException;
+
+import org.postgresql.pljava.LargeObject;
+import org.postgresql.pljava.internal.LargeObjects;
+
+/**
+ * Implementation of {@link Clob} over a PostgreSQL large object holding UTF-8
+ * text, built on {@link LargeObjectBlob}.
+ *<p>
+ * Character positions count UTF-16 code units, as Java strings do. They are
+ * mapped to byte offsets by scanning the UTF-8 bytes a chunk at a time,
+ * counting the bytes that begin a character (twice for a four-byte sequence,
+ * which is a surrogate pair in Java).
+ */
+class LargeObjectClob implements Clob, LargeObject
+{
+	private final LargeObjectBlob m_blob;
+
+	LargeObjectClob(long oid, boolean writable) throws SQLException
+	{
+		m_blob = new LargeObjectBlob(oid, writable);
+	}
+
+	@Override
+	public long getOid()
+	{
+		return m_blob.getOid();
+	}
+
+	@Override
+	public long length() throws SQLException
+	{
+		return scan(Long.MAX_VALUE)[1];
+	}
+
+	@Override
+	public String getSubString(long pos, int length) throws SQLException
+	{
+		checkPosition(pos);
+		if ( length < 0 )
+			throw new SQLException(
+				"Clob.getSubString length is negative", "22023");
+		try ( Reader r = getCharacterStream(pos, Long.MAX_VALUE) )
+		{
+			StringBuilder sb = new StringBuilder(Math.min(length, 8192));
+			char[] buf = new char[Math.min(Math.max(length, 1), 8192)];
+			while ( sb.length() < length )
+			{
+				int n = r.read(buf, 0, Math.min(buf.length, length-sb.length()));
+				if ( -1 == n )
+					break;
+				sb.append(buf, 0, n);
+			}
+			return sb.toString();
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Reader getCharacterStream() throws SQLException
+	{
+		return new InputStreamReader(m_blob.getBinaryStream(), UTF_8);
+	}
+
+	@Override
+	public Reader getCharacterStream(long pos, long length) throws SQLException
+	{
+		checkPosition(pos);
+		if ( length < 0 )
+			throw new SQLException(
+				"Clob.getCharacterStream length is negative", "22023");
+		long offset = byteOffsetOf(pos - 1);
+		Reader r = new InputStreamReader(
+			m_blob.new ChunkedInputStream(offset, Long.MAX_VALUE), UTF_8);
+		return new FilterReader(r)
+		{
+			private long m_left = length;
+
+			@Override
+			public int read() throws IOException
+			{
+				if ( 0 == m_left )
+					return -1;
+				int c = super.read();
+				if ( -1 != c )
+					-- m_left;
+				return c;
+			}
+
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException
+			{
+				if ( 0 == m_left )
+					return -1;
+				int n = super.read(cbuf, off, (int)Math.min(len, m_left));
+				if ( 0 < n )
+					m_left -= n;
+				return n;
+			}
+
+			@Override
+			public long skip(long n) throws IOException
+			{
+				long s = super.skip(Math.min(n, m_left));
+				m_left -= s;
+				return s;
+			}
+		};
+	}
+
+	/**
+	 * Returns the UTF-8 bytes; ASCII content reads the same either way.
+	 */
+	@Override
+	public InputStream getAsciiStream() throws SQLException
+	{
+		return m_blob.getBinaryStream();
+	}
+
+	@Override
+	public long position(String searchstr, long start) throws SQLException
+	{
+		checkPosition(start);
+		long byteStart = byteOffsetOf(start - 1);
+		long found = m_blob.position(searchstr.getBytes(UTF_8), byteStart + 1);
+		if ( -1 == found )
+			return -1;
+		return start + charsIn(byteStart, found - 1);
+	}
+
+	@Override
+	public long position(Clob searchstr, long start) throws SQLException
+	{
+		long len = searchstr.length();
+		if ( len > LargeObjectBlob.CHUNK )
+			throw new SQLException(
+				"Clob.position pattern longer than " + LargeObjectBlob.CHUNK +
+				" characters", "22023");
+		return position(searchstr.getSubString(1, (int)len), start);
+	}
+
+	@Override
+	public int setString(long pos, String str) throws SQLException
+	{
+		return setString(pos, str, 0, str.length());
+	}
+
+	@Override
+	public int setString(long pos, String str, int offset, int len)
+	throws SQLException
+	{
+		try ( Writer w = setCharacterStream(pos) )
+		{
+			w.write(str, offset, len);
+		}
+		catch ( IOException e )
+		{
+			throw new SQLException(e.getMessage(), e);
+		}
+		return len;
+	}
+
+	@Override
+	public OutputStream setAsciiStream(long pos) throws SQLException
+	{
+		checkPosition(pos);
+		return m_blob.setBinaryStream(byteOffsetOf(pos - 1) + 1);
+	}
+
+	@Override
+	public Writer setCharacterStream(long pos) throws SQLException
+	{
+		checkPosition(pos);
+		return new OutputStreamWriter(
+			m_blob.setBinaryStream(byteOffsetOf(pos - 1) + 1), UTF_8);
+	}
+
+	@Override
+	public void truncate(long len) throws SQLException
+	{
+		if ( len < 0 )
+			throw new SQLException("Clob.truncate length is negative", "22023");
+		m_blob.truncate(byteOffsetOf(len));
+	}
+
+	@Override
+	public void free() throws SQLException
+	{
+		m_blob.free();
+	}
+
+	private static void checkPosition(long pos) throws SQLException
+	{
+		if ( pos < 1 )
+			throw new SQLException("Clob position must be at least 1", "22023");
+	}
+
+	/**
+	 * Returns the byte offset at which the character at zero-based index
+	 * {@code chars} begins, or the length in bytes if there are no more
+	 * characters than that.
+	 */
+	private long byteOffsetOf(long chars) throws SQLException
+	{
+		return scan(chars)[0];
+	}
+
+	/**
+	 * Counts the characters in the bytes from {@code from} to {@code to}.
+	 */
+	private long charsIn(long from, long to) throws SQLException
+	{
+		long count = 0;
+		byte[] buf = new byte[LargeObjectBlob.CHUNK];
+		int fd = m_blob.fd();
+		while ( from < to )
+		{
+			int n = LargeObjects.read(fd, from, buf, 0,
+				(int)Math.min(buf.length, to - from));
+			if ( n <= 0 )
+				break;
+			for ( int i = 0; i < n; ++ i )
+				count += unitsBegun(buf[i]);
+			from += n;
+		}
+		return count;
+	}
+
+	/**
+	 * Scans from the start until {@code chars} characters have been passed or
+	 * the end is reached.
+	 * @return the byte offset reached and the characters passed
+	 */
+	private long[] scan(long chars) throws SQLException
+	{
+		long offset = 0;
+		long count = 0;
+		byte[] buf = new byte[LargeObjectBlob.CHUNK];
+		int fd = m_blob.fd();
+		for ( ;; )
+		{
+			int n = LargeObjects.read(fd, offset, buf, 0, buf.length);
+			if ( n <= 0 )
+				return new long[] { offset, count };
+			for ( int i = 0; i < n; ++ i )
+			{
+				int units = unitsBegun(buf[i]);
+				if ( 0 < units  &&  count >= chars )
+					return new long[] { offset + i, count };
+				count += units;
+			}
+			offset += n;
+		}
+	}
+
+	/**
+	 * The number of UTF-16 code units of the character this byte begins, or
+	 * zero for a continuation byte.
+	 */
+	private static int unitsBegun(byte b)
+	{
+		if ( 0x80 == (b & 0xc0) )
+			return 0;
+		return 0xf0 == (b & 0xf8) ? 2 : 1;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2019-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2019-2026 Tada AB and other contributors, as listed below.
  * Portions Copyright (c) 1996-2019, PostgreSQL Global Development Group
  * Portions Copyright (c) 1994, Regents of the University of California
  *
@@ -23,11 +23,16 @@ import java.nio.charset.CharacterCodingException;
 
 import java.sql.SQLException;
 
+import java.util.ArrayDeque;
+
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.xml.sax.SAXException;
 
+import org.postgresql.pljava.internal.SyntheticXMLStreamReader;
 import org.postgresql.pljava.internal.VarlenaWrapper;
 import org.postgresql.pljava.internal.VarlenaXMLRenderer;
 
@@ -36,6 +41,10 @@ import org.postgresql.pljava.internal.VarlenaXMLRenderer;
  * representation of a tree data structure) through the XML API (in, currently,
  * an ad-hoc, schemaless rendering, but one with which some practical use might
  * be made of the information, after a little study).
+ *<p>
+ * The rendering is available through SAX, or through StAX from
+ * {@link #pullReader pullReader}, which tokenizes the tree only as far as the
+ * consumer reads it.
  */
 public class PgNodeTreeAsXML extends VarlenaXMLRenderer
 {
@@ -295,6 +304,234 @@ public class PgNodeTreeAsXML extends VarlenaXMLRenderer
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 *<p>
+	 * The reader produces the same elements as the SAX rendering, except that
+	 * the bytes of a {@code constvalue} arrive as one {@code CHARACTERS}
+	 * event rather than one per byte.
+	 */
+	@Override
+	public XMLStreamReader pullReader() throws SQLException
+	{
+		return new NodeTreeStreamReader();
+	}
+
+	/**
+	 * The StAX rendering: the same grammar as the recursive descent in
+	 * {@code next(ByteBuffer)}, with the recursion kept on an explicit stack,
+	 * so it can stop after each token and resume when more is pulled.
+	 */
+	private class NodeTreeStreamReader extends SyntheticXMLStreamReader
+	{
+		/**
+		 * A list or node still open.
+		 */
+		private final class Open
+		{
+			final String name; // element name; null for an untyped list
+			final boolean typedList;
+			final boolean isCONST;
+			boolean seenMember;
+
+			Open(String name, boolean typedList)
+			{
+				this.name = name;
+				this.typedList = typedList;
+				isCONST = "CONST".equals(name);
+			}
+		}
+
+		private final ArrayDeque<Open> m_open = new ArrayDeque<>();
+		private CharBuffer m_cb;
+		private boolean m_rootDone;
+
+		private String nextToken()
+		{
+			return PgNodeTreeAsXML.this.nextToken(m_cb);
+		}
+
+		@Override
+		protected void produce() throws SQLException
+		{
+			if ( null == m_cb )
+				m_cb = decoded();
+
+			Open open = m_open.peek();
+			String token;
+
+			if ( null == open )
+			{
+				if ( m_rootDone  ||  null == (token = nextToken()) )
+					return;
+				m_rootDone = true;
+				startValue(token);
+				return;
+			}
+
+			if ( null == open.name ) // a list, untyped or typed
+			{
+				if ( null == (token = nextToken()) )
+					throw new SQLException("unterminated List structure");
+				if ( RPAR_TOK == token )
+				{
+					m_open.pop();
+					endElement("list");
+				}
+				else if ( open.typedList )
+				{
+					startElement("v");
+					characters(token);
+					endElement("v");
+				}
+				else
+					startValue(token);
+				return;
+			}
+
+			if ( null == (token = nextToken()) )
+				throw new SQLException("unterminated node structure");
+
+			if ( RBRA_TOK == token )
+			{
+				m_open.pop();
+				if ( open.seenMember )
+					endElement("member");
+				endElement(open.name);
+				return;
+			}
+
+			if ( token.startsWith(":") )
+			{
+				if ( open.seenMember )
+					endElement("member");
+				open.seenMember = true;
+				String name = token.substring(1);
+				if ( open.isCONST  &&  "constvalue".equals(name) )
+					readDatum();
+				else
+					startElement("member", "name", name);
+				return;
+			}
+
+			if ( LBRA_TOK == token  ||  LPAR_TOK == token )
+			{
+				startValue(token);
+				return;
+			}
+
+			if ( ! open.seenMember )
+				throw new SQLException("node value outside member");
+			characters(token);
+		}
+
+		/**
+		 * Begins the value that starts with <var>token</var>: produces all of
+		 * it if it is a scalar, or its start if it is a node or list.
+		 */
+		private void startValue(String token) throws SQLException
+		{
+			NodeTokenType type = NodeTokenType.of(token);
+			switch ( type )
+			{
+			case LEFT_BRACE:
+				token = nextToken();
+				if ( null == token  ||  RBRA_TOK == token )
+					throw new SQLException(
+						"badly formatted node string \"" + token + '"');
+				m_open.push(new Open(token, false));
+				startElement(token);
+				break;
+			case LEFT_PAREN:
+				if ( null == (token = nextToken()) )
+					throw new SQLException("unterminated List structure");
+				String listType =
+					"i".equals(token) ? "int" :
+					"o".equals(token) ? "oid" :
+					"b".equals(token) ? "bit" : /* not in PG source! */
+					null;
+				if ( null != listType )
+				{
+					m_open.push(new Open(null, true));
+					startElement("list", "all", listType);
+				}
+				else if ( RPAR_TOK == token )
+				{
+					startElement("list");
+					endElement("list");
+				}
+				else
+				{
+					m_open.push(new Open(null, false));
+					startElement("list");
+					startValue(token);
+				}
+				break;
+			case RIGHT_PAREN:
+				throw new SQLException("unexpected right parenthesis");
+			case OTHER_TOKEN:
+				if ( token.isEmpty() )
+				{
+					startElement("null");
+					endElement("null");
+				}
+				else
+					throw new SQLException(
+						"unrecognized token: \"" + token + '"');
+				break;
+			case T_Integer:
+			case T_Float:
+				startElement(type.name());
+				characters(token);
+				endElement(type.name());
+				break;
+			case T_String:
+				startElement(type.name());
+				characters(token.substring(1, token.length() - 1));
+				endElement(type.name());
+				break;
+			case T_BitString:
+				startElement(type.name());
+				characters(token.substring(1));
+				endElement(type.name());
+				break;
+			}
+		}
+
+		private void readDatum() throws SQLException
+		{
+			String token = nextToken();
+			if ( null == token )
+				throw new SQLException(
+					"malformed constvalue (expected length)");
+			if ( token.isEmpty() )
+			{
+				startElement("member", "name", "constvalue");
+				return;
+			}
+			startElement("member", "name", "constvalue", "length", token);
+			token = nextToken();
+			if ( ! "[".equals(token) )
+				throw new SQLException("malformed constvalue " +
+					"(expected \"[\" got \"" + token + "\")");
+			StringBuilder sb = new StringBuilder();
+			for (;;)
+			{
+				if ( null == (token = nextToken()) )
+					throw new SQLException("unterminated constvalue");
+				if ( "]".equals(token) )
+					break;
+				int b = Integer.parseInt(token);
+				assert -128 <= b && b < 128 : "constvalue out of range";
+				sb.append(Integer.toHexString(512 + b)
+					.substring(1).toUpperCase());
+			}
+			if ( 0 < sb.length() )
+				characters(sb.toString());
+			// the node's next member or end will add the </member>
+		}
+	}
+
 	String nextToken(CharBuffer cb)
 	{
 		int beg = cb.position();
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.jdbc;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.postgresql.pljava.BulkInserter;
+import org.postgresql.pljava.internal.BulkCopy;
+
+/**
+ * Implementation of {@link BulkInserter} that accumulates rows in
+ * {@code COPY} text format in a growable array, and hands each batch to
+ * {@link BulkCopy#copyIn BulkCopy.copyIn}.
+ *<p>
+ * Values are formatted directly into the array, without intermediate strings
+ * for the integral and character types.
+ */
+class SPIBulkInserter implements BulkInserter
+{
+	static final int DEFAULT_BATCH_SIZE = 1 << 20;
+
+	private static final byte[] NULL_MARK = { '\\', 'N' };
+	private static final byte[] BYTEA_PREFIX = { '\\', '\\', 'x' };
+	private static final byte[] HEX = {
+		'0','1','2','3','4','5','6','7','8','9','a','b','c','d','e','f'
+	};
+
+	private final String m_table;
+	private final String[] m_columns;
+	private int m_batchSize = DEFAULT_BATCH_SIZE;
+	private byte[] m_buf = new byte[8192];
+	private int m_len;
+	private int m_column;
+	private long m_inserted;
+	private boolean m_closed;
+
+	SPIBulkInserter(String table, String[] columns) throws SQLException
+	{
+		if ( null == table  ||  table.isEmpty() )
+			throw new SQLException("BulkInserter requires a table name");
+		if ( null == columns  ||  0 == columns.length )
+			throw new SQLException("BulkInserter requires at least one column");
+		m_table = table;
+		m_columns = columns.clone();
+	}
+
+	@Override
+	public BulkInserter setBatchSize(int bytes) throws SQLException
+	{
+		if ( bytes <= 0 )
+			throw new SQLException("BulkInserter batch size must be positive");
+		m_batchSize = bytes;
+		return this;
+	}
+
+	@Override
+	public BulkInserter putNull() throws SQLException
+	{
+		startValue();
+		append(NULL_MARK);
+		return this;
+	}
+
+	@Override
+	public BulkInserter putBoolean(boolean value) throws SQLException
+	{
+		startValue();
+		append(value ? (byte)'t' : (byte)'f');
+		return this;
+	}
+
+	@Override
+	public BulkInserter putInt(int value) throws SQLException
+	{
+		return putLong(value);
+	}
+
+	@Override
+	public BulkInserter putLong(long value) throws SQLException
+	{
+		startValue();
+		appendDecimal(value);
+		return this;
+	}
+
+	@Override
+	public BulkInserter putFloat(float value) throws SQLException
+	{
+		startValue();
+		appendAscii(Float.toString(value));
+		return this;
+	}
+
+	@Override
+	public BulkInserter putDouble(double value) throws SQLException
+	{
+		startValue();
+		appendAscii(Double.toString(value));
+		return this;
+	}
+
+	@Override
+	public BulkInserter putString(CharSequence value) throws SQLException
+	{
+		if ( null == value )
+			return putNull();
+		startValue();
+		appendEscaped(value);
+		return this;
+	}
+
+	@Override
+	public BulkInserter putBytes(byte[] value) throws SQLException
+	{
+		if ( null == value )
+			return putNull();
+		startValue();
+		ensure(BYTEA_PREFIX.length + 2 * value.length);
+		append(BYTEA_PREFIX);
+		for ( byte b : value )
+		{
+			m_buf[m_len++] = HEX[(b >>> 4) & 0xf];
+			m_buf[m_len++] = HEX[b & 0xf];
+		}
+		return this;
+	}
+
+	@Override
+	public BulkInserter putObject(Object value) throws SQLException
+	{
+		if ( null == value )
+			return putNull();
+		if ( value instanceof Boolean )
+			return putBoolean((Boolean)value);
+		if ( value instanceof Long  ||  value instanceof Integer
+			||  value instanceof Short  ||  value instanceof Byte )
+			return putLong(((Number)value).longValue());
+		if ( value instanceof byte[] )
+			return putBytes((byte[])value);
+		if ( value instanceof CharSequence )
+			return putString((CharSequence)value);
+		return putString(value.toString());
+	}
+
+	@Override
+	public void endRow() throws SQLException
+	{
+		checkOpen();
+		if ( m_column != m_columns.length )
+			throw new SQLException(
+				"BulkInserter row ended after " + m_column + " of " +
+				m_columns.length + " columns");
+		append((byte)'\n');
+		m_column = 0;
+		if ( m_len >= m_batchSize )
+			flush();
+	}
+
+	@Override
+	public long flush() throws SQLException
+	{
+		checkOpen();
+		if ( 0 != m_column )
+			throw new SQLException(
+				"BulkInserter flush attempted in an incomplete row");
+		if ( 0 == m_len )
+			return 0;
+		int length = m_len;
+		m_len = 0;
+		long count = BulkCopy.copyIn(m_table, m_columns, m_buf, length);
+		m_inserted += count;
+		if ( m_buf.length > 2 * m_batchSize  &&  m_buf.length > 8192 )
+			m_buf = new byte[Math.max(8192, m_batchSize)];
+		return count;
+	}
+
+	@Override
+	public long getInsertedCount()
+	{
+		return m_inserted;
+	}
+
+	@Override
+	public void close() throws SQLException
+	{
+		if ( m_closed )
+			return;
+		try
+		{
+			if ( 0 == m_column )
+				flush();
+			else
+				throw new SQLException(
+					"BulkInserter closed in an incomplete row");
+		}
+		finally
+		{
+			m_closed = true;
+			m_buf = null;
+		}
+	}
+
+	private void checkOpen() throws SQLException
+	{
+		if ( m_closed )
+			throw new SQLException("BulkInserter is closed");
+	}
+
+	private void startValue() throws SQLException
+	{
+		checkOpen();
+		if ( m_column == m_columns.length )
+			throw new SQLException(
+				"BulkInserter row has more than " + m_columns.length +
+				" columns");
+		if ( 0 != m_column++ )
+			append((byte)'\t');
+	}
+
+	private void ensure(int more)
+	{
+		if ( m_buf.length - m_len >= more )
+			return;
+		int want = Math.max(m_len + more, m_buf.length * 2);
+		m_buf = Arrays.copyOf(m_buf, want);
+	}
+
+	private void append(byte b)
+	{
+		ensure(1);
+		m_buf[m_len++] = b;
+	}
+
+	private void append(byte[] bs)
+	{
+		ensure(bs.length);
+		System.arraycopy(bs, 0, m_buf, m_len, bs.length);
+		m_len += bs.length;
+	}
+
+	private void appendAscii(String s)
+	{
+		int n = s.length();
+		ensure(n);
+		for ( int i = 0; i < n; ++ i )
+			m_buf[m_len++] = (byte)s.charAt(i);
+	}
+
+	private void appendDecimal(long v)
+	{
+		if ( Long.MIN_VALUE == v )
+		{
+			appendAscii(Long.toString(v));
+			return;
+		}
+		ensure(20);
+		if ( v < 0 )
+		{
+			m_buf[m_len++] = '-';
+			v = -v;
+		}
+		int start = m_len;
+		do
+		{
+			m_buf[m_len++] = (byte)('0' + (int)(v % 10));
+			v /= 10;
+		}
+		while ( 0 != v );
+		for ( int i = start, j = m_len - 1; i < j; ++ i, -- j )
+		{
+			byte t = m_buf[i];
+			m_buf[i] = m_buf[j];
+			m_buf[j] = t;
+		}
+	}
+
+	/*
+	 * Encode as UTF-8, escaping the characters that are special in COPY text
+	 * format. Each char can need at most three bytes (a surrogate pair needs
+	 * four for two chars), or two for the escapes.
+	 */
+	private void appendEscaped(CharSequence s)
+	{
+		int n = s.length();
+		ensure(3 * n);
+		byte[] buf = m_buf;
+		int len = m_len;
+		for ( int i = 0; i < n; ++ i )
+		{
+			char c = s.charAt(i);
+			if ( c < 0x80 )
+			{
+				switch ( c )
+				{
+				case '\\': buf[len++] = '\\'; buf[len++] = '\\'; break;
+				case '\n': buf[len++] = '\\'; buf[len++] = 'n';  break;
+				case '\r': buf[len++] = '\\'; buf[len++] = 'r';  break;
+				case '\t': buf[len++] = '\\'; buf[len++] = 't';  break;
+				default:   buf[len++] = (byte)c;
+				}
+			}
+			else if ( c < 0x800 )
+			{
+				buf[len++] = (byte)(0xc0 | (c >> 6));
+				buf[len++] = (byte)(0x80 | (c & 0x3f));
+			}
+			else if ( Character.isHighSurrogate(c)  &&  i + 1 < n
+				&&  Character.isLowSurrogate(s.charAt(i + 1)) )
+			{
+				int cp = Character.toCodePoint(c, s.charAt(++ i));
+				buf[len++] = (byte)(0xf0 | (cp >> 18));
+				buf[len++] = (byte)(0x80 | ((cp >> 12) & 0x3f));
+				buf[len++] = (byte)(0x80 | ((cp >> 6) & 0x3f));
+				buf[len++] = (byte)(0x80 | (cp & 0x3f));
+			}
+			else if ( Character.isSurrogate(c) )
+				buf[len++] = '?'; // unpaired surrogate, as String.getBytes
+			else
+			{
+				buf[len++] = (byte)(0xe0 | (c >> 12));
+				buf[len++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+				buf[len++] = (byte)(0x80 | (c & 0x3f));
+			}
+		}
+		m_len = len;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -52,6 +52,10 @@ import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
+import org.postgresql.pljava.BulkInserter;
+import org.postgresql.pljava.CopyOut;
+import org.postgresql.pljava.LargeObject;
+import org.postgresql.pljava.internal.LargeObjects;
 import org.postgresql.pljava.internal.Oid;
 import org.postgresql.pljava.internal.PgSavepoint;
 
@@ -68,9 +72,16 @@ import org.postgresql.pljava.internal.PgSavepoint;
  * <li><code>setAutoCommit()</code></li>
  * <li><code>setTransactionIsolation()</code></li>
  * </ul>
+ *<p>
+ * It can be {@link #unwrap unwrapped} as a {@link BulkInserter.Factory}, a
+ * {@link CopyOut.Factory}, or a {@link LargeObject.Factory}.
+ * {@link #createBlob createBlob} and {@link #createClob createClob} return
+ * new {@link LargeObject large objects}.
  * @author Thomas Hallgren
  */
-public class SPIConnection implements Connection
+public class SPIConnection
+implements
+	Connection, BulkInserter.Factory, CopyOut.Factory, LargeObject.Factory
 {
 	/**
 	 * The version number of the currently executing PostgreSQL
@@ -361,6 +372,30 @@ public class SPIConnection implements Connection
 		sp.rollback();
 	}
 
+	/**
+	 * Returns a new {@link BulkInserter} for the named table and columns.
+	 */
+	@Override
+	public BulkInserter newBulkInserter(String table, String... columns)
+	throws SQLException
+	{
+		if(this.isClosed())
+			throw new SQLException("Connection is closed");
+		return new SPIBulkInserter(table, columns);
+	}
+
+	/**
+	 * Returns a {@link CopyOut} stream over the result of a query.
+	 */
+	@Override
+	public CopyOut copyOut(String query, CopyOut.Format format)
+	throws SQLException
+	{
+		if(this.isClosed())
+			throw new SQLException("Connection is closed");
+		return new SPICopyOut(query, format);
+	}
+
 	/**
 	 * Creates a new instance of <code>SPIStatement</code>.
 	 */
@@ -1183,20 +1218,45 @@ public class SPIConnection implements Connection
 			"0A000" );
 	}
 
+	/**
+	 * Creates a new, empty large object, open for writing, as a {@code Blob}.
+	 */
 	@Override
 	public Blob createBlob()
 	throws SQLException
 	{
-		throw new SQLFeatureNotSupportedException( "SPIConnection.createBlob() not implemented yet.",
-			"0A000" );
+		return new LargeObjectBlob(LargeObjects.create(), true);
 	}
 
+	/**
+	 * Creates a new, empty large object, open for writing, as a {@code Clob}.
+	 */
 	@Override
 	public Clob createClob()
 	throws SQLException
 	{
-		throw new SQLFeatureNotSupportedException( "SPIConnection.createClob() not implemented yet.",
-			"0A000" );
+		return new LargeObjectClob(LargeObjects.create(), true);
+	}
+
+	@Override
+	public Blob openBlob(long oid, boolean writable)
+	throws SQLException
+	{
+		return new LargeObjectBlob(oid, writable);
+	}
+
+	@Override
+	public Clob openClob(long oid, boolean writable)
+	throws SQLException
+	{
+		return new LargeObjectClob(oid, writable);
+	}
+
+	@Override
+	public void unlinkLargeObject(long oid)
+	throws SQLException
+	{
+		LargeObjects.unlink(oid);
 	}
 
 	// ************************************************************
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.jdbc;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+
+import java.sql.SQLException;
+
+import static org.postgresql.pljava.internal.Backend.doInPG;
+
+import org.postgresql.pljava.CopyOut;
+import org.postgresql.pljava.internal.ExecutionPlan;
+import org.postgresql.pljava.internal.Portal;
+import org.postgresql.pljava.internal.SPI;
+import org.postgresql.pljava.internal.SPIException;
+
+/**
+ * Implementation of {@link CopyOut} over a cursor, whose rows are fetched and
+ * formatted natively by {@link Portal#fetchCopyData Portal.fetchCopyData}, one
+ * chunk at a time.
+ *<p>
+ * The number of rows fetched per chunk adapts to the observed width of the
+ * rows, aiming for chunks of about {@link #TARGET_CHUNK} bytes.
+ */
+class SPICopyOut implements CopyOut
+{
+	static final int TARGET_CHUNK = 256 * 1024;
+	static final long MIN_ROWS = 16;
+	static final long MAX_ROWS = 100000;
+	static final long INITIAL_ROWS = 1000;
+
+	private static final byte[] BINARY_HEADER = {
+		'P','G','C','O','P','Y','\n',(byte)0xff,'\r','\n',0, // signature
+		0,0,0,0, // flags
+		0,0,0,0  // header extension length
+	};
+	private static final byte[] BINARY_TRAILER = { (byte)0xff, (byte)0xff };
+
+	private final boolean m_binary;
+	private ExecutionPlan m_plan;
+	private Portal m_portal;
+	private byte[] m_chunk;
+	private int m_pos;
+	private long m_fetchRows = INITIAL_ROWS;
+	private long m_rowCount;
+	private boolean m_atEnd;
+	private boolean m_closed;
+
+	SPICopyOut(String query, Format format) throws SQLException
+	{
+		m_binary = Format.BINARY == format;
+		ExecutionPlan plan = ExecutionPlan.prepare(query, null);
+		if ( null == plan )
+			throw new SPIException(SPI.getResult());
+		try
+		{
+			if ( ! plan.isCursorPlan() )
+				throw new SQLException(
+					"CopyOut requires a query that returns rows", "42809");
+			m_portal = plan.cursorOpen(
+				null, null, ExecutionPlan.SPI_READONLY_DEFAULT);
+			m_plan = plan;
+			plan = null;
+		}
+		finally
+		{
+			if ( null != plan )
+				plan.close();
+		}
+		m_chunk = m_binary ? BINARY_HEADER : null;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException
+	{
+		if ( m_closed )
+			throw new ClosedChannelException();
+		if ( ! ensureChunk() )
+			return -1;
+		int n = Math.min(dst.remaining(), m_chunk.length - m_pos);
+		dst.put(m_chunk, m_pos, n);
+		m_pos += n;
+		return n;
+	}
+
+	@Override
+	public boolean isOpen()
+	{
+		return ! m_closed;
+	}
+
+	@Override
+	public void close()
+	{
+		if ( m_closed )
+			return;
+		m_closed = true;
+		m_chunk = null;
+		if ( null != m_portal )
+			m_portal.close();
+		if ( null != m_plan )
+			m_plan.close();
+		m_portal = null;
+		m_plan = null;
+	}
+
+	@Override
+	public long getRowCount()
+	{
+		return m_rowCount;
+	}
+
+	@Override
+	public InputStream asInputStream()
+	{
+		return new InputStream()
+		{
+			@Override
+			public int read() throws IOException
+			{
+				if ( m_closed )
+					throw new ClosedChannelException();
+				if ( ! ensureChunk() )
+					return -1;
+				return m_chunk[m_pos++] & 0xff;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException
+			{
+				return SPICopyOut.this.read(ByteBuffer.wrap(b, off, len));
+			}
+
+			@Override
+			public int available()
+			{
+				return null == m_chunk ? 0 : m_chunk.length - m_pos;
+			}
+
+			@Override
+			public void close()
+			{
+				SPICopyOut.this.close();
+			}
+		};
+	}
+
+	/**
+	 * Makes sure there are unread bytes in {@code m_chunk}, fetching another
+	 * chunk if needed.
+	 * @return false at end of stream
+	 */
+	private boolean ensureChunk() throws IOException
+	{
+		while ( null == m_chunk  ||  m_pos == m_chunk.length )
+		{
+			if ( m_atEnd )
+				return false;
+			m_pos = 0;
+			try
+			{
+				m_chunk = fetchChunk();
+			}
+			catch ( SQLException e )
+			{
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+		return true;
+	}
+
+	private byte[] fetchChunk() throws SQLException
+	{
+		long ask = m_fetchRows;
+		long[] got = new long[1];
+		byte[] chunk = doInPG(() ->
+		{
+			byte[] b = m_portal.fetchCopyData(m_binary, ask);
+			got[0] = SPI.getProcessed();
+			return b;
+		});
+
+		if ( null == chunk  ||  got[0] < ask )
+		{
+			m_atEnd = true;
+			m_portal.close();
+			m_portal = null;
+		}
+
+		if ( null == chunk )
+			return m_binary ? BINARY_TRAILER : null;
+
+		m_rowCount += got[0];
+		long perRow = Math.max(1, chunk.length / got[0]);
+		m_fetchRows =
+			Math.max(MIN_ROWS, Math.min(MAX_ROWS, TARGET_CHUNK / perRow));
+
+		if ( m_atEnd  &&  m_binary )
+		{
+			byte[] withTrailer = new byte[chunk.length + BINARY_TRAILER.length];
+			System.arraycopy(chunk, 0, withTrailer, 0, chunk.length);
+			System.arraycopy(BINARY_TRAILER, 0,
+				withTrailer, chunk.length, BINARY_TRAILER.length);
+			chunk = withTrailer;
+		}
+		return chunk;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2005-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2005-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -23,8 +23,12 @@ import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import static java.util.Arrays.sort;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.postgresql.pljava.internal.AclId;
 import org.postgresql.pljava.internal.Backend;
@@ -54,9 +58,106 @@ public class SPIDatabaseMetaData implements DatabaseMetaData
 
 	private static final int VARHDRSZ = 4; // length for int4
 
-	private int NAMEDATALEN = 0; // length for name datatype
+	/*
+	 * These are fixed when PostgreSQL is built, so are looked up once for all
+	 * instances; a new instance is made by every getMetaData() call.
+	 */
+	private static int NAMEDATALEN = 0; // length for name datatype
+
+	private static int INDEX_MAX_KEYS = 0; // maximum number of keys in an index.
+
+	/**
+	 * Most entries kept in {@link #s_rowCache}.
+	 */
+	private static final int ROW_CACHE_ENTRIES = 256;
+
+	/**
+	 * Rows of earlier results of the methods that keep them, by method and
+	 * arguments, least recently used dropped first; synchronized on itself.
+	 *<p>
+	 * The cache is static, so it lives as long as the backend and is shared by
+	 * every instance, which is to say every {@code getMetaData()} result of the
+	 * one connection a backend has. Nothing in a key identifies the instance or
+	 * the current role; that is sound because the queries whose rows are kept
+	 * read the catalogs without filtering by privilege, and so return the same
+	 * rows whoever asks.
+	 *<p>
+	 * The rows are discarded whenever {@link Backend#getCatalogGeneration}
+	 * reports a relation, namespace, or type to have been invalidated in
+	 * PostgreSQL's caches; that generation is the only sign of staleness
+	 * consulted. Changes that do not cause such invalidation, such as
+	 * {@code COMMENT}, are not seen in {@code REMARKS} until one does. A method
+	 * whose query filters by privilege or by {@code search_path} must not keep
+	 * its rows here without adding what it depends on to its key.
+	 */
+	private static final Map<List<Object>,ArrayList<Object[]>> s_rowCache =
+		new LinkedHashMap<List<Object>,ArrayList<Object[]>>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(
+				Map.Entry<List<Object>,ArrayList<Object[]>> eldest)
+			{
+				return size() > ROW_CACHE_ENTRIES;
+			}
+		};
+
+	private static int s_rowCacheGeneration;
+
+	/**
+	 * Returns a copy of the rows kept for <var>key</var>, or null if there are
+	 * none kept from the catalog generation <var>generation</var>.
+	 */
+	private static ArrayList<Object[]> cachedRows(
+		List<Object> key, int generation)
+	{
+		synchronized ( s_rowCache )
+		{
+			if ( generation != s_rowCacheGeneration )
+			{
+				s_rowCache.clear();
+				s_rowCacheGeneration = generation;
+				return null;
+			}
+			ArrayList<Object[]> rows = s_rowCache.get(key);
+			return null == rows ? null : new ArrayList<>(rows);
+		}
+	}
+
+	/**
+	 * Keeps a copy of <var>rows</var> for <var>key</var>, unless the catalog
+	 * generation has changed from <var>generation</var>, read before the query
+	 * that produced them.
+	 */
+	private static void cacheRows(
+		List<Object> key, int generation, ArrayList<Object[]> rows)
+	{
+		if ( generation != Backend.getCatalogGeneration() )
+			return;
+		synchronized ( s_rowCache )
+		{
+			if ( generation == s_rowCacheGeneration )
+				s_rowCache.put(key, new ArrayList<>(rows));
+		}
+	}
 
-	private int INDEX_MAX_KEYS = 0; // maximum number of keys in an index.
+	/**
+	 * The value to bind for a schema pattern or name: all schemas for null,
+	 * {@code public} for the empty string.
+	 */
+	private static String schemaParameter(String schema, String ifNull)
+	{
+		if ( null == schema )
+			return ifNull;
+		return "".equals(schema) ? "public" : schema;
+	}
+
+	/**
+	 * The value to bind for a name pattern: {@code %} if null or empty.
+	 */
+	private static String patternParameter(String pattern)
+	{
+		return null == pattern || "".equals(pattern) ? "%" : pattern;
+	}
 
 	protected int getMaxIndexKeys() throws SQLException
 	{
@@ -1910,22 +2011,27 @@ public class SPIDatabaseMetaData implements DatabaseMetaData
 				+ "  AND dn.nspname OPERATOR(pg_catalog.=) 'pg_catalog') "
 				+ " WHERE a.attnum OPERATOR(pg_catalog.>) 0"
 				+ " AND NOT a.attisdropped "
-                + " AND " + resolveSchemaPatternCondition(
-                                "n.nspname", schemaPattern);
-
-		if(tableNamePattern != null && !"".equals(tableNamePattern))
-		{
-			sql += " AND c.relname LIKE '" + escapeQuotes(tableNamePattern)
-				+ "' ";
-		}
-		if(columnNamePattern != null && !"".equals(columnNamePattern))
-		{
-			sql += " AND a.attname LIKE '" + escapeQuotes(columnNamePattern)
-				+ "' ";
-		}
-		sql += " ORDER BY nspname,relname,attnum ";
-
-		ResultSet rs = m_connection.createStatement().executeQuery(sql);
+				+ " AND n.nspname LIKE ?"
+				+ " AND c.relname LIKE ?"
+				+ " AND a.attname LIKE ?"
+				+ " ORDER BY nspname,relname,attnum ";
+
+		String schemaParam = schemaParameter(schemaPattern, "%");
+		String tableParam = patternParameter(tableNamePattern);
+		String columnParam = patternParameter(columnNamePattern);
+
+		List<Object> key =
+			Arrays.asList("getColumns", schemaParam, tableParam, columnParam);
+		int generation = Backend.getCatalogGeneration();
+		ArrayList<Object[]> cached = cachedRows(key, generation);
+		if ( null != cached )
+			return createSyntheticResultSet(f, cached);
+
+		PreparedStatement stmt = m_connection.prepareStatement(sql);
+		stmt.setString(1, schemaParam);
+		stmt.setString(2, tableParam);
+		stmt.setString(3, columnParam);
+		ResultSet rs = stmt.executeQuery();
 		while(rs.next())
 		{
 			Object[] tuple = new Object[18];
@@ -2003,7 +2109,9 @@ public class SPIDatabaseMetaData implements DatabaseMetaData
 			v.add(tuple);
 		}
 		rs.close();
+		stmt.close();
 
+		cacheRows(key, generation, v);
 		return createSyntheticResultSet(f, v);
 	}
 
@@ -2460,29 +2568,71 @@ public class SPIDatabaseMetaData implements DatabaseMetaData
 	public java.sql.ResultSet getPrimaryKeys(String catalog, String schema,
 		String table) throws SQLException
 	{
-		String from;
-		String where = "";
-		String select = "SELECT NULL AS TABLE_CAT, n.nspname AS TABLE_SCHEM, ";
-			from = " FROM pg_catalog.pg_namespace n, pg_catalog.pg_class ct, pg_catalog.pg_class ci, pg_catalog.pg_attribute a, pg_catalog.pg_index i ";
-			where = " AND ct.relnamespace OPERATOR(pg_catalog.=) n.oid AND " +
-                resolveSchemaCondition("n.nspname", schema);
+		ResultSetField f[] = new ResultSetField[6];
 
-		String sql = select + " ct.relname AS TABLE_NAME, "
+		f[0] = new ResultSetField("TABLE_CAT", TypeOid.VARCHAR,
+			getMaxNameLength());
+		f[1] = new ResultSetField("TABLE_SCHEM", TypeOid.VARCHAR,
+			getMaxNameLength());
+		f[2] = new ResultSetField("TABLE_NAME", TypeOid.VARCHAR,
+			getMaxNameLength());
+		f[3] = new ResultSetField("COLUMN_NAME", TypeOid.VARCHAR,
+			getMaxNameLength());
+		f[4] = new ResultSetField("KEY_SEQ", TypeOid.INT2, 2);
+		f[5] = new ResultSetField("PK_NAME", TypeOid.VARCHAR,
+			getMaxNameLength());
+
+		/*
+		 * A null parameter matches any schema or table.
+		 */
+		String sql = "SELECT n.nspname AS TABLE_SCHEM, "
+			+ " ct.relname AS TABLE_NAME, "
 			+ " a.attname AS COLUMN_NAME,"
 			+ " a.attnum::pg_catalog.int2 AS KEY_SEQ, "
-			+ " ci.relname AS PK_NAME " + from
+			+ " ci.relname AS PK_NAME "
+			+ " FROM pg_catalog.pg_namespace n, pg_catalog.pg_class ct, pg_catalog.pg_class ci, pg_catalog.pg_attribute a, pg_catalog.pg_index i "
 			+ " WHERE ct.oid OPERATOR(pg_catalog.=) i.indrelid"
 			+ " AND ci.oid OPERATOR(pg_catalog.=) i.indexrelid "
 			+ " AND a.attrelid OPERATOR(pg_catalog.=) ci.oid"
-			+ " AND i.indisprimary ";
-		if(table != null && !"".equals(table))
+			+ " AND i.indisprimary "
+			+ " AND ct.relnamespace OPERATOR(pg_catalog.=) n.oid"
+			+ " AND n.nspname OPERATOR(pg_catalog.=)"
+			+ "  pg_catalog.coalesce(?::pg_catalog.name, n.nspname)"
+			+ " AND ct.relname OPERATOR(pg_catalog.=)"
+			+ "  pg_catalog.coalesce(?::pg_catalog.name, ct.relname)"
+			+ " ORDER BY table_name, pk_name, key_seq";
+
+		String schemaParam = schemaParameter(schema, null);
+		String tableParam = null == table || "".equals(table) ? null : table;
+
+		List<Object> key =
+			Arrays.asList("getPrimaryKeys", schemaParam, tableParam);
+		int generation = Backend.getCatalogGeneration();
+		ArrayList<Object[]> v = cachedRows(key, generation);
+		if ( null != v )
+			return createSyntheticResultSet(f, v);
+
+		v = new ArrayList<>();
+		PreparedStatement stmt = m_connection.prepareStatement(sql);
+		stmt.setString(1, schemaParam);
+		stmt.setString(2, tableParam);
+		ResultSet rs = stmt.executeQuery();
+		while(rs.next())
 		{
-			sql += " AND ct.relname OPERATOR(pg_catalog.=) '"
-				+ escapeQuotes(table) + "' ";
+			Object[] tuple = new Object[6];
+			tuple[0] = null; // Catalog name, not supported
+			tuple[1] = rs.getString(1);
+			tuple[2] = rs.getString(2);
+			tuple[3] = rs.getString(3);
+			tuple[4] = rs.getShort(4);
+			tuple[5] = rs.getString(5);
+			v.add(tuple);
 		}
-		sql += where + " ORDER BY table_name, pk_name, key_seq";
+		rs.close();
+		stmt.close();
 
-        return createMetaDataStatement().executeQuery(sql);
+		cacheRows(key, generation, v);
+		return createSyntheticResultSet(f, v);
 	}
 
 	/**
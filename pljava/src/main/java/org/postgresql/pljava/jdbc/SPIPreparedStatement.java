@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -38,15 +38,20 @@ import java.sql.Types;
 import java.sql.SQLXML;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 
+import org.postgresql.pljava.IsolatedBatch;
 import org.postgresql.pljava.internal.ExecutionPlan;
 import org.postgresql.pljava.internal.Oid;
 
 /**
  * Implementation of {@link PreparedStatement} for the SPI connection.
+ *<p>
+ * It can be {@link #unwrap unwrapped} as an {@link IsolatedBatch}.
  * @author Thomas Hallgren
  */
-public class SPIPreparedStatement extends SPIStatement implements PreparedStatement
+public class SPIPreparedStatement extends SPIStatement
+implements PreparedStatement, IsolatedBatch
 {
 	private final Oid[]    m_typeIds;
 	private final Object[] m_values;
@@ -557,6 +562,122 @@ public class SPIPreparedStatement extends SPIStatement implements PreparedStatem
 		return ret;
 	}
 
+	/**
+	 * Executes the batch with each entry in its own subtransaction.
+	 *<p>
+	 * Consecutive entries with the same parameter types are executed with
+	 * one plan, in one call into native code.
+	 */
+	@Override
+	public IsolatedBatch.Result executeIsolatedBatch()
+	throws SQLException
+	{
+		List<Object> batch = getBatch();
+		int n = batch.size();
+
+		for ( Object entry : batch )
+			for ( int sqlType : (int[])((Object[])entry)[1] )
+				if ( sqlType == Types.NULL )
+					throw new SQLException("Not all parameters have been set");
+
+		long[] counts = new long[n];
+		String[] sqlStates = new String[n];
+		String[] messages = new String[n];
+
+		for ( int start = 0, end; start < n; start = end )
+		{
+			Oid[] typeIds = (Oid[])((Object[])batch.get(start))[2];
+			for ( end = start + 1; end < n; ++ end )
+				if ( ! Arrays.equals(
+					typeIds, (Oid[])((Object[])batch.get(end))[2]) )
+					break;
+
+			if ( ! Arrays.equals(typeIds, m_typeIds) )
+			{
+				if ( m_plan != null )
+				{
+					m_plan.close();
+					m_plan = null;
+				}
+				System.arraycopy(typeIds, 0, m_typeIds, 0, m_typeIds.length);
+			}
+			if ( m_plan == null )
+				m_plan = ExecutionPlan.prepare(m_statement, m_typeIds);
+
+			int len = end - start;
+			Object[][] values = new Object[len][];
+			for ( int i = 0; i < len; ++ i )
+				values[i] = (Object[])((Object[])batch.get(start + i))[0];
+
+			long[] c = new long[len];
+			String[] st = new String[len];
+			String[] msg = new String[len];
+			executePlanIsolated(m_plan, values, c, st, msg);
+			System.arraycopy(c, 0, counts, start, len);
+			System.arraycopy(st, 0, sqlStates, start, len);
+			System.arraycopy(msg, 0, messages, start, len);
+		}
+
+		clearBatch();
+		return new IsolatedResult(counts, sqlStates, messages);
+	}
+
+	private static final class IsolatedResult implements IsolatedBatch.Result
+	{
+		private final long[] m_counts;
+		private final String[] m_sqlStates;
+		private final String[] m_messages;
+		private final int m_failures;
+
+		IsolatedResult(long[] counts, String[] sqlStates, String[] messages)
+		{
+			m_counts = counts;
+			m_sqlStates = sqlStates;
+			m_messages = messages;
+			int failures = 0;
+			for ( String s : sqlStates )
+				if ( null != s )
+					++ failures;
+			m_failures = failures;
+		}
+
+		@Override
+		public int size()
+		{
+			return m_counts.length;
+		}
+
+		@Override
+		public int failures()
+		{
+			return m_failures;
+		}
+
+		@Override
+		public boolean succeeded(int entry)
+		{
+			return null == m_sqlStates[entry];
+		}
+
+		@Override
+		public long updateCount(int entry)
+		{
+			return m_counts[entry];
+		}
+
+		@Override
+		public String sqlState(int entry)
+		{
+			return m_sqlStates[entry];
+		}
+
+		@Override
+		public String message(int entry)
+		{
+			return m_messages[entry];
+		}
+	}
+
 	// ************************************************************
 	// Implementation of JDBC 4 methods. Methods go here if they
 	// don't throw SQLFeatureNotSupportedException; they can be
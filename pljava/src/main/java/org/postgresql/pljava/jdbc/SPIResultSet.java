@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2018 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -27,6 +27,14 @@ import org.postgresql.pljava.internal.TupleDesc;
  * org.postgresql.pljava.internal.Portal Portal}. At present, only
  * forward positioning is implemented. Attempts to use reverse or
  * absolute positioning will fail.
+ *<p>
+ * Rows are fetched from the portal in blocks of {@link #getFetchSize} rows.
+ * If the statement's fetch size is zero, the size of the blocks is adaptive
+ * instead: the first is small, and each following one twice the size of the
+ * one before, as long as a block, at the average width of the rows so far
+ * fetched, stays within a fixed budget of memory. In that mode, the tuples of
+ * each block are also freed as soon as the result set has moved past them,
+ * rather than when they become unreachable.
  *
  * @author Thomas Hallgren
  */
@@ -37,6 +45,27 @@ public class SPIResultSet extends ResultSetBase
 	private final TupleDesc m_tupleDesc;
 	private final long      m_maxRows;
 
+	/**
+	 * Rows fetched in the first block in adaptive mode.
+	 */
+	private static final int ADAPTIVE_FIRST_FETCH = 16;
+
+	/**
+	 * Bytes of tuples a block may hold in adaptive mode.
+	 */
+	private static final long ADAPTIVE_BLOCK_BYTES = 8L << 20;
+
+	private final boolean m_adaptive;
+	private int  m_adaptiveFetch;
+	private long m_rowsFetched;
+	private long m_bytesFetched;
+
+	/**
+	 * In adaptive mode, a block whose rows have all been read, to be freed
+	 * when {@link #next} has moved past the last of them.
+	 */
+	private TupleTable m_consumed;
+
 	private Tuple m_currentRow;
 	private Tuple m_nextRow;
 
@@ -55,6 +84,8 @@ public class SPIResultSet extends ResultSetBase
 		m_tupleDesc = portal.getTupleDesc();
 		m_tableRow = -1;
 		m_open = true;
+		m_adaptive = 0 == this.getFetchSize();
+		m_adaptiveFetch = ADAPTIVE_FIRST_FETCH;
 	}
 
 	@Override
@@ -67,6 +98,7 @@ public class SPIResultSet extends ResultSetBase
 			m_portal.close();
 			m_statement.resultSetClosed(this);
 			m_table      = null;
+			m_consumed   = null;
 			m_tableRow   = -1;
 			m_currentRow = null;
 			m_nextRow    = null;
@@ -86,6 +118,8 @@ public class SPIResultSet extends ResultSetBase
 	{
 		m_currentRow = this.peekNext();
 		m_nextRow = null;
+		if ( null != m_consumed )
+			releaseConsumed();
 		boolean result = (m_currentRow != null);
 		this.setRow(result ? this.getRow() + 1 : -1);
 		return result;
@@ -129,8 +163,8 @@ public class SPIResultSet extends ResultSetBase
 	}
 
 	/**
-	 * Get a(nother) table of {@link #getFetchSize} rows from the
-	 * {@link Portal}.
+	 * Get a(nother) table of {@link #getFetchSize} rows (or, in adaptive mode,
+	 * the current adaptive number) from the {@link Portal}.
 	 */
 	protected final TupleTable getTupleTable()
 	throws SQLException
@@ -142,7 +176,7 @@ public class SPIResultSet extends ResultSetBase
 				return null;
 
 			long mx;
-			int fetchSize = this.getFetchSize();
+			int fetchSize = m_adaptive ? m_adaptiveFetch : this.getFetchSize();
 			if(m_maxRows > 0)
 			{
 				mx = m_maxRows - portal.getPortalPos();
@@ -158,7 +192,11 @@ public class SPIResultSet extends ResultSetBase
 			{
 				long result = portal.fetch(true, mx);
 				if(result > 0)
+				{
 					m_table = SPI.getTupTable(m_tupleDesc);
+					if ( m_adaptive  &&  null != m_table )
+						adapt(m_table);
+				}
 				m_tableRow = -1;
 			}
 			finally
@@ -169,6 +207,36 @@ public class SPIResultSet extends ResultSetBase
 		return m_table;
 	}
 
+	/**
+	 * Sets the size of the next block in adaptive mode: twice the size of the
+	 * last, unless that would exceed the budget at the average row width seen
+	 * so far.
+	 */
+	private void adapt(TupleTable table)
+	{
+		m_rowsFetched += table.getCount();
+		m_bytesFetched += table.getTupleBytes();
+		long width = Math.max(1L, m_bytesFetched / m_rowsFetched);
+		long limit =
+			Math.max(ADAPTIVE_FIRST_FETCH, ADAPTIVE_BLOCK_BYTES / width);
+		m_adaptiveFetch = (int)Math.min(
+			Math.min(2L * m_adaptiveFetch, limit), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Frees the tuples of the consumed block, all but the last, which was the
+	 * current row until the latest {@link #next} and may still be referred to
+	 * (by a {@link SingleRowWriter} that passed it through, for one); that one
+	 * is left to be freed when unreachable.
+	 */
+	private void releaseConsumed()
+	{
+		TupleTable consumed = m_consumed;
+		m_consumed = null;
+		for ( int i = consumed.getCount() - 1 ; i --> 0 ; )
+			consumed.getSlot(i).release();
+	}
+
 	/**
 	 * Return the {@link Tuple} most recently returned by {@link #next}.
 	 */
@@ -180,6 +248,14 @@ public class SPIResultSet extends ResultSetBase
 		return m_currentRow;
 	}
 
+	/**
+	 * Return the {@link TupleDesc} describing the rows.
+	 */
+	final TupleDesc getTupleDesc()
+	{
+		return m_tupleDesc;
+	}
+
 	/**
 	 * Get another {@link Tuple} from the {@link TupleTable}, refreshing the
 	 * table as needed.
@@ -199,6 +275,8 @@ public class SPIResultSet extends ResultSetBase
 			// Current table is exhausted, get the next
 			// one.
 			//
+			if ( m_adaptive )
+				m_consumed = table;
 			m_table = null;
 			table = this.getTupleTable();
 			if(table == null)
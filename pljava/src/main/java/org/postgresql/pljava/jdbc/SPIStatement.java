@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -20,6 +20,8 @@ import java.sql.SQLFeatureNotSupportedException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.postgresql.pljava.internal.ExecutionPlan;
 import org.postgresql.pljava.internal.Portal;
@@ -150,6 +152,29 @@ public class SPIStatement implements Statement, SPIReadOnlyControl
 		return isResultSet;
 	}
 
+	/**
+	 * Execute a plan once for each set of parameter values, each in its own
+	 * subtransaction, recording the outcomes in the arrays supplied.
+	 */
+	protected void executePlanIsolated(ExecutionPlan plan,
+		Object[][] paramValues, long[] counts, String[] sqlStates,
+		String[] messages)
+	throws SQLException
+	{
+		m_updateCount = -1;
+		m_resultSet   = null;
+
+		try
+		{
+			plan.executeIsolated(paramValues, m_readonly_spec, m_maxRows,
+				counts, sqlStates, messages);
+		}
+		finally
+		{
+			SPI.freeTupTable();
+		}
+	}
+
 	/**
 	 * Return of auto generated keys is not yet supported.
 	 * @throws SQLException indicating that this feature is not supported.
@@ -384,9 +409,15 @@ public class SPIStatement implements Statement, SPIReadOnlyControl
 			throw new UnsupportedFeatureException("Non forward fetch direction");
 	}
 
+	/**
+	 * Sets the number of rows a result set fetches at a time; zero makes the
+	 * number adaptive, as described for {@link SPIResultSet}.
+	 */
 	public void setFetchSize(int size)
 	throws SQLException
 	{
+		if ( size < 0 )
+			throw new SQLException("Negative fetch size", "22023");
 		m_fetchSize = size;
 	}
 
@@ -408,6 +439,15 @@ public class SPIStatement implements Statement, SPIReadOnlyControl
 		throw new UnsupportedFeatureException("Statement.setQueryTimeout");
 	}
 
+	/**
+	 * The entries added to the batch, in order.
+	 */
+	List<Object> getBatch()
+	{
+		return (m_batch == null)
+			? Collections.emptyList() : Collections.unmodifiableList(m_batch);
+	}
+
 	/**
 	 * The argument is either a {@code String} containing SQL (if from a
 	 * {@code Statement}, or an {@code Object} array of length three (if from
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2018-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2018-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -1109,9 +1109,7 @@ public abstract class SQLXMLImpl<V extends VarlenaWrapper> implements SQLXML
 				VarlenaXMLRenderer backing)
 			throws SQLException, XMLStreamException, IOException
 			{
-				throw new SQLFeatureNotSupportedException(
-					"synthetic SQLXML as StAXSource not yet supported",
-					"0A000");
+				return new AdjustingStAXSource(backing.pullReader());
 			}
 
 			protected Adjusting.XML.DOMSource toDOMSource(
@@ -5352,6 +5350,7 @@ public abstract class SQLXMLImpl<V extends VarlenaWrapper> implements SQLXML
 	implements Adjusting.XML.StAXSource
 	{
 		private XMLInputFactory m_xif;
+		private XMLStreamReader m_xsr;
 		private InputStream m_is;
 		private Charset m_serverCS;
 		private boolean m_wrapped;
@@ -5366,6 +5365,17 @@ public abstract class SQLXMLImpl<V extends VarlenaWrapper> implements SQLXML
 			m_wrapped = wrapped;
 		}
 
+		/**
+		 * Constructor for a source over a reader that is not parsing, such as
+		 * a synthetic rendering. The adjustments can still be made, but have
+		 * no effect.
+		 */
+		AdjustingStAXSource(XMLStreamReader xsr)
+		{
+			m_xif = XMLInputFactory.newDefaultFactory();
+			m_xsr = xsr;
+		}
+
 		@Override
 		public void setSystemId(String systemId)
 		{
@@ -5398,8 +5408,9 @@ public abstract class SQLXMLImpl<V extends VarlenaWrapper> implements SQLXML
 			StAXSource ss = null;
 			try
 			{
-				XMLStreamReader xsr = m_xif.createXMLStreamReader(
-					m_is, m_serverCS.name());
+				XMLStreamReader xsr = m_xsr;
+				if ( null == xsr )
+					xsr = m_xif.createXMLStreamReader(m_is, m_serverCS.name());
 				if ( m_wrapped )
 					xsr = new StAXUnwrapFilter(xsr);
 				m_xif = null; // too late for any more adjustments
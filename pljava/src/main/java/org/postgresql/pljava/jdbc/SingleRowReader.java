@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2019 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  * Copyright (c) 2010, 2011 PostgreSQL Global Development Group
  *
  * All rights reserved. This program and the accompanying materials
@@ -24,13 +24,34 @@ import org.postgresql.pljava.internal.TupleDesc;
  * A single row, read-only ResultSet, specially made for functions and
  * procedures that takes complex types as arguments (PostgreSQL 7.5
  * and later).
+ *<p>
+ * The tuple is deformed once, on the first read of any column, with the
+ * {@code Datum} and a kind for every column fetched in one native call. A
+ * by-value column of a simple type is then decoded here from its
+ * {@code Datum}; only other columns need a native call when read, and none
+ * needs the tuple walked again to find it.
  *
  * @author Thomas Hallgren
  */
 public class SingleRowReader extends SingleRowResultSet
 {
+	/*
+	 * Kinds of column recorded by _deform. Only a by-value column of one of the
+	 * types BOOL through FLOAT8 is given that kind; all others are OTHER.
+	 */
+	private static final byte KIND_NULL   = 0;
+	private static final byte KIND_OTHER  = 1;
+	private static final byte KIND_BOOL   = 2;
+	private static final byte KIND_INT2   = 3;
+	private static final byte KIND_INT4   = 4;
+	private static final byte KIND_INT8   = 5;
+	private static final byte KIND_FLOAT4 = 6;
+	private static final byte KIND_FLOAT8 = 7;
+
 	private final TupleDesc m_tupleDesc;
 	private final State m_state;
+	private long[] m_datums;
+	private byte[] m_kinds;
 
 	private static class State
 	extends DualState.SingleGuardedLong<SingleRowReader>
@@ -97,9 +118,68 @@ public class SingleRowReader extends SingleRowResultSet
 	protected Object getObjectValue(int columnIndex, Class<?> type)
 	throws SQLException
 	{
+		if ( null == m_kinds )
+			deform();
+
+		int i = columnIndex - 1;
+		long datum = 0;
+		if ( 0 <= i  &&  i < m_kinds.length )
+		{
+			datum = m_datums[i];
+			switch ( m_kinds[i] )
+			{
+			case KIND_NULL:
+				return null;
+			case KIND_BOOL:
+				if ( null == type  ||  Boolean.class == type )
+					return 0 != datum;
+				break;
+			case KIND_INT2:
+				if ( null == type  ||  Short.class == type )
+					return (short)datum;
+				break;
+			case KIND_INT4:
+				if ( null == type  ||  Integer.class == type )
+					return (int)datum;
+				break;
+			case KIND_INT8:
+				if ( null == type  ||  Long.class == type )
+					return datum;
+				break;
+			case KIND_FLOAT4:
+				if ( null == type  ||  Float.class == type )
+					return Float.intBitsToFloat((int)datum);
+				break;
+			case KIND_FLOAT8:
+				if ( null == type  ||  Double.class == type )
+					return Double.longBitsToDouble(datum);
+				break;
+			}
+		}
+
+		/*
+		 * An out-of-range index also arrives here, for the native code to
+		 * report as it always has.
+		 */
+		long d = datum;
 		return doInPG(() -> _getObject(
 				m_state.getHeapTupleHeaderPtr(), m_tupleDesc.getNativePointer(),
-				columnIndex, type));
+				columnIndex, d, type));
+	}
+
+	/**
+	 * Fetch the {@code Datum} and kind of every column at once.
+	 */
+	private void deform() throws SQLException
+	{
+		int natts = m_tupleDesc.size();
+		long[] datums = new long[natts];
+		byte[] kinds = new byte[natts];
+		doInPG(() -> _deform(
+			m_state.getHeapTupleHeaderPtr(), m_tupleDesc.getNativePointer(),
+			datums, kinds));
+		m_datums = datums;
+		m_kinds = kinds;
 	}
 
 	/**
@@ -214,7 +294,12 @@ public class SingleRowReader extends SingleRowResultSet
 		return m_tupleDesc;
 	}
 
+	private static native void _deform(
+		long pointer, long tupleDescPointer, long[] datums, byte[] kinds)
+	throws SQLException;
+
 	private static native Object _getObject(
-		long pointer, long tupleDescPointer, int index, Class<?> type)
+		long pointer, long tupleDescPointer, int index, long datum,
+		Class<?> type)
 	throws SQLException;
 }
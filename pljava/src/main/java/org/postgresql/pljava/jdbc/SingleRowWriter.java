@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  * Copyright (c) 2010, 2011 PostgreSQL Global Development Group
  *
  * All rights reserved. This program and the accompanying materials
@@ -40,6 +40,19 @@ public class SingleRowWriter extends SingleRowResultSet
 	private final Object[] m_values;
 	private Tuple m_tuple;
 
+	/**
+	 * A row of an {@link SPIResultSet} to be returned as it is, instead of a
+	 * tuple formed from {@code m_values}.
+	 */
+	private Tuple m_passThrough;
+
+	/**
+	 * The descriptor of the {@code SPIResultSet} most recently copied from,
+	 * and whether its tuples can be passed through.
+	 */
+	private TupleDesc m_sourceDesc;
+	private boolean m_sourceAccepted;
+
 	/**
 	 * Construct a {@code SingleRowWriter} given a descriptor of the tuple
 	 * structure it should produce.
@@ -61,6 +74,7 @@ public class SingleRowWriter extends SingleRowResultSet
 	{
 		if(columnIndex < 1)
 			throw new SQLException("System columns cannot be obtained from this type of ResultSet");
+		unpass();
 		return m_values[columnIndex - 1];
 	}
 
@@ -72,6 +86,8 @@ public class SingleRowWriter extends SingleRowResultSet
 	public boolean rowUpdated()
 	throws SQLException
 	{
+		if ( null != m_passThrough )
+			return true;
 		int top = m_values.length;
 		while(--top >= 0)
 			if(m_values[top] != null)
@@ -86,6 +102,8 @@ public class SingleRowWriter extends SingleRowResultSet
 		if(columnIndex < 1)
 			throw new SQLException("System columns cannot be updated");
 
+		unpass();
+
 		if(x == null)
 			m_values[columnIndex-1] = x;
 
@@ -112,6 +130,7 @@ public class SingleRowWriter extends SingleRowResultSet
 	throws SQLException
 	{
 		Arrays.fill(m_values, null);
+		m_passThrough = null;
 	}
 
 	/**
@@ -122,17 +141,59 @@ public class SingleRowWriter extends SingleRowResultSet
 	throws SQLException
 	{
 		Arrays.fill(m_values, null);
+		m_passThrough = null;
 		m_tuple = null;	// Feel free to garbage collect...
 	}
 
+	/**
+	 * Copies the current row of <var>rs</var>.
+	 *<p>
+	 * When <var>rs</var> is an {@link SPIResultSet} whose columns match those
+	 * of this writer in number and type, the row's native tuple will be
+	 * returned as it is, without its values being converted to Java objects
+	 * and back.
+	 */
 	public void copyRowFrom(ResultSet rs)
 	throws SQLException
 	{
+		if ( rs instanceof SPIResultSet )
+		{
+			SPIResultSet srs = (SPIResultSet)rs;
+			TupleDesc source = srs.getTupleDesc();
+			if ( source != m_sourceDesc )
+			{
+				m_sourceAccepted = m_tupleDesc.acceptsTuplesOf(source);
+				m_sourceDesc = source;
+			}
+			if ( m_sourceAccepted )
+			{
+				Arrays.fill(m_values, null);
+				m_passThrough = srs.getCurrentRow();
+				return;
+			}
+		}
+
+		m_passThrough = null;
 		int top = m_values.length;
 		for(int idx = 1; idx <= top; ++idx)
 			updateObject(idx, rs.getObject(idx));
 	}
 
+	/**
+	 * If a row is waiting to be passed through, converts its values to Java
+	 * objects in {@code m_values} instead, so they can be read or updated.
+	 */
+	private void unpass()
+	throws SQLException
+	{
+		Tuple t = m_passThrough;
+		if ( null == t )
+			return;
+		m_passThrough = null;
+		for ( int idx = 1; idx <= m_values.length; ++ idx )
+			updateObject(idx, t.getObject(m_sourceDesc, idx, null));
+	}
+
 	/**
 	 * Creates a tuple from the current row values and then cancel all row
 	 * updates to prepare for a new row. This method is called automatically by
@@ -150,6 +211,12 @@ public class SingleRowWriter extends SingleRowResultSet
 		// another tuple. This behavior is connected to the internal behavior
 		// of Set Returning Functions (SRF) in the backend.
 		//
+		if ( null != m_passThrough )
+		{
+			m_tuple = this.getTupleDesc().relabel(m_passThrough);
+			m_passThrough = null;
+			return m_tuple.getNativePointer();
+		}
 		m_tuple = this.getTupleDesc().formTuple(m_values);
 		Arrays.fill(m_values, null);
 		return m_tuple.getNativePointer();
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2020 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  * Copyright (c) 2010, 2011 PostgreSQL Global Development Group
  *
  * All rights reserved. This program and the accompanying materials
@@ -14,21 +14,37 @@
 package org.postgresql.pljava.jdbc;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.sql.Timestamp;
+import java.util.Arrays;
 
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.floorDiv;
+
+import org.postgresql.pljava.internal.Relation;
+import static org.postgresql.pljava.internal.Relation.*;
 import org.postgresql.pljava.internal.Tuple;
 import org.postgresql.pljava.internal.TupleDesc;
 
 /**
  * A single row, updateable ResultSet specially made for triggers. The
  * changes made to this ResultSet are remembered and converted to a
- * SPI_modify_tuple call prior to function return.
+ * {@code heap_modify_tuple} call prior to function return.
+ *<p>
+ * Changes are kept in a {@link ChangeBuffer} of parallel arrays, so the typed
+ * updaters for primitive values ({@code updateInt}, {@code updateLong}, and so
+ * on) and {@code updateTimestamp} record their values without boxing, and
+ * without allocating anything per row once a buffer of the needed width has
+ * been made. A buffer is returned for reuse by the next trigger invocation
+ * once the modified tuple has been formed.
  *
  * @author Thomas Hallgren
  */
 public class TriggerResultSet extends SingleRowResultSet
 {
-	private ArrayList<Object> m_tupleChanges;
+	private ChangeBuffer    m_changes;
 	private final TupleDesc m_tupleDesc;
 	private final Tuple     m_tuple;
 	private final boolean   m_readOnly;
@@ -48,7 +64,7 @@ public class TriggerResultSet extends SingleRowResultSet
 	public void cancelRowUpdates()
 	throws SQLException
 	{
-		m_tupleChanges = null;
+		releaseChanges();
 	}
 
 	/**
@@ -58,7 +74,7 @@ public class TriggerResultSet extends SingleRowResultSet
 	public void close()
 	throws SQLException
 	{
-		m_tupleChanges = null;
+		releaseChanges();
 	}
 
 	/**
@@ -78,7 +94,7 @@ public class TriggerResultSet extends SingleRowResultSet
 	public boolean rowUpdated()
 	throws SQLException
 	{
-		return m_tupleChanges != null;
+		return m_changes != null;
 	}
 
 	/**
@@ -88,56 +104,134 @@ public class TriggerResultSet extends SingleRowResultSet
 	public void updateObject(int columnIndex, Object x)
 	throws SQLException
 	{
-		if(m_readOnly)
-			throw new UnsupportedFeatureException("ResultSet is read-only");
+		if ( null == x )
+		{
+			changeSlot(columnIndex, CHANGE_NULL, 0L, null);
+			return;
+		}
+		TypeBridge<?>.Holder xAlt = TypeBridge.wrap(x);
+		changeSlot(columnIndex, CHANGE_OBJECT, 0L, null == xAlt ? x : xAlt);
+	}
 
-		if(m_tupleChanges == null)
-			m_tupleChanges = new ArrayList<>();
+	/**
+	 * Records the change without boxing.
+	 */
+	@Override
+	public void updateBoolean(int columnIndex, boolean x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_BOOLEAN, x ? 1L : 0L, null);
+	}
 
-		m_tupleChanges.add(columnIndex);
-		m_tupleChanges.add(x);
+	/**
+	 * Records the change without boxing.
+	 */
+	@Override
+	public void updateShort(int columnIndex, short x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_SHORT, x, null);
+	}
+
+	/**
+	 * Records the change without boxing.
+	 */
+	@Override
+	public void updateInt(int columnIndex, int x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_INT, x, null);
 	}
 
-	
 	/**
-	 * Return a 3 element array describing the changes that have been made to
-	 * the contained Tuple. The first element the original Tuple, the second
-	 * an {@code int[]} containing
-	 * the index of each changed value, and the third an {@code Object[]}
-	 * containing the corresponding values.
-	 * 
-	 * @return The 3 element array or <code>null</code> if no change has
-	 * been made.
+	 * Records the change without boxing.
 	 */
-	public Object[] getChangeIndexesAndValues()
-	{
-		ArrayList<Object> changes = m_tupleChanges;
-		if(changes == null)
-			return null;
-
-		int top = changes.size();
-		if(changes.size() == 0)
-			return null;
-
-		top /= 2;
-		int[] indexes = new int[top];
-		Object[] values = new Object[top];
-		int vIdx = 0;
-		for(int idx = 0; idx < top; ++idx)
-		{	
-			indexes[idx] = ((Integer)changes.get(vIdx++)).intValue();
-			Object v = changes.get(vIdx++);
-			TypeBridge<?>.Holder vAlt = TypeBridge.wrap(v);
-			values[idx] = null == vAlt ? v : vAlt;
+	@Override
+	public void updateLong(int columnIndex, long x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_LONG, x, null);
+	}
+
+	/**
+	 * Records the change without boxing.
+	 */
+	@Override
+	public void updateFloat(int columnIndex, float x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_FLOAT, floatToRawIntBits(x), null);
+	}
+
+	/**
+	 * Records the change without boxing.
+	 */
+	@Override
+	public void updateDouble(int columnIndex, double x)
+	throws SQLException
+	{
+		changeSlot(columnIndex, CHANGE_DOUBLE, doubleToRawLongBits(x), null);
+	}
+
+	/**
+	 * Records the change as microseconds since the Java epoch, which the
+	 * native code converts directly for a {@code timestamp} or
+	 * {@code timestamptz} column. The {@code Timestamp} itself is kept as well,
+	 * for columns of any other type.
+	 */
+	@Override
+	public void updateTimestamp(int columnIndex, Timestamp x)
+	throws SQLException
+	{
+		if ( null == x )
+		{
+			changeSlot(columnIndex, CHANGE_NULL, 0L, null);
+			return;
+		}
+		/*
+		 * getNanos() is nonnegative whatever the sign of getTime(), so the
+		 * whole seconds are floored before adding it back.
+		 */
+		long micros = floorDiv(x.getTime(), 1000L) * 1000000L
+			+ x.getNanos() / 1000;
+		changeSlot(columnIndex, CHANGE_TIMESTAMP, micros, x);
+	}
+
+	/**
+	 * Forms the tuple reflecting the changes made to the contained Tuple, and
+	 * releases the change buffer for reuse.
+	 *<p>
+	 * The caller is responsible for the same preconditions as
+	 * {@link Relation#formModifiedTuple Relation.formModifiedTuple}.
+	 *
+	 * @return The native pointer of the modified tuple, or zero if no change
+	 * has been made.
+	 */
+	public long formModifiedTuple(Relation relation)
+	throws SQLException
+	{
+		ChangeBuffer changes = m_changes;
+		if ( null == changes  ||  0 == changes.m_count )
+			return 0L;
+
+		try
+		{
+			return relation.formModifiedTuple(m_tuple, changes.m_count,
+				changes.m_indexes, changes.m_kinds, changes.m_primitives,
+				changes.m_objects);
+		}
+		finally
+		{
+			releaseChanges();
 		}
-		return new Object[] { m_tuple, indexes, values };
 	}
 
 	/**
 	 * If the value has not been changed, forwards to
 	 * {@link Tuple#getObject(TupleDesc,int,Class) Tuple.getObject}, with the
 	 * usual behavior for type coercion; if it has been changed, returns the
-	 * exact object that was supplied with the change.
+	 * exact object that was supplied with the change (or the boxed equivalent
+	 * of a primitive value).
 	 *<p>
 	 * When the caller is the JDBC 4.1 {@link #getObject(int,Class)}, the caller
 	 * will check and complain if the returned object is not of the right class.
@@ -148,13 +242,12 @@ public class TriggerResultSet extends SingleRowResultSet
 	{
 		// Check if this value has been changed.
 		//
-		ArrayList changes = m_tupleChanges;
+		ChangeBuffer changes = m_changes;
 		if(changes != null)
-		{	
-			int top = changes.size();
-			for(int idx = 0; idx < top; idx += 2)
-				if(columnIndex == ((Integer)changes.get(idx)).intValue())
-					return changes.get(idx + 1);
+		{
+			int slot = changes.slotOf(columnIndex);
+			if ( -1 != slot )
+				return changes.valueAt(slot);
 		}
 		return m_tuple.getObject(this.getTupleDesc(), columnIndex, type);
 	}
@@ -165,17 +258,132 @@ public class TriggerResultSet extends SingleRowResultSet
 		return m_tupleDesc;
 	}
 
+	private void changeSlot(int columnIndex, byte kind, long prim, Object obj)
+	throws SQLException
+	{
+		if(m_readOnly)
+			throw new UnsupportedFeatureException("ResultSet is read-only");
+
+		if ( columnIndex < 1  ||  columnIndex > m_tupleDesc.size() )
+			throw new SQLException(
+				"Invalid attribute index \"" + columnIndex + "\"", "07009");
+
+		if(m_changes == null)
+			m_changes = ChangeBuffer.obtain(m_tupleDesc.size());
+
+		m_changes.put(columnIndex, kind, prim, obj);
+	}
+
+	private void releaseChanges()
+	{
+		ChangeBuffer changes = m_changes;
+		m_changes = null;
+		if ( null != changes )
+			ChangeBuffer.recycle(changes);
+	}
+
+	/**
+	 * Parallel arrays recording the changed columns of one row, in order of
+	 * first change, with a per-column map to the slot used.
+	 *<p>
+	 * One spare buffer is retained between uses, so a trigger fired for each
+	 * row of a bulk operation keeps reusing the same arrays.
+	 */
+	static final class ChangeBuffer
+	{
+		private static ChangeBuffer s_spare;
+
+		private int m_count;
+		private final int[] m_slotOf; // one-based column -> slot + 1, or 0
+		private final int[] m_indexes;
+		private final byte[] m_kinds;
+		private final long[] m_primitives;
+		private final Object[] m_objects;
+
+		private ChangeBuffer(int natts)
+		{
+			m_slotOf = new int[natts + 1];
+			m_indexes = new int[natts];
+			m_kinds = new byte[natts];
+			m_primitives = new long[natts];
+			m_objects = new Object[natts];
+		}
+
+		static synchronized ChangeBuffer obtain(int natts)
+		{
+			ChangeBuffer b = s_spare;
+			if ( null != b  &&  b.m_indexes.length >= natts )
+			{
+				s_spare = null;
+				return b;
+			}
+			return new ChangeBuffer(natts);
+		}
+
+		static synchronized void recycle(ChangeBuffer b)
+		{
+			for ( int i = 0; i < b.m_count; ++ i )
+				b.m_slotOf[b.m_indexes[i]] = 0;
+			Arrays.fill(b.m_objects, 0, b.m_count, null);
+			b.m_count = 0;
+			if ( null == s_spare
+				||  s_spare.m_indexes.length < b.m_indexes.length )
+				s_spare = b;
+		}
+
+		int slotOf(int columnIndex)
+		{
+			if ( columnIndex < 1  ||  columnIndex >= m_slotOf.length )
+				return -1;
+			return m_slotOf[columnIndex] - 1;
+		}
+
+		void put(int columnIndex, byte kind, long prim, Object obj)
+		{
+			int slot = m_slotOf[columnIndex] - 1;
+			if ( -1 == slot )
+			{
+				slot = m_count ++;
+				m_slotOf[columnIndex] = slot + 1;
+				m_indexes[slot] = columnIndex;
+			}
+			m_kinds[slot] = kind;
+			m_primitives[slot] = prim;
+			m_objects[slot] = obj;
+		}
+
+		Object valueAt(int slot)
+		{
+			long prim = m_primitives[slot];
+			Object obj = m_objects[slot];
+			switch ( m_kinds[slot] )
+			{
+			case CHANGE_NULL:    return null;
+			case CHANGE_BOOLEAN: return 0L != prim;
+			case CHANGE_SHORT:   return (short)prim;
+			case CHANGE_INT:     return (int)prim;
+			case CHANGE_LONG:    return prim;
+			case CHANGE_FLOAT:   return intBitsToFloat((int)prim);
+			case CHANGE_DOUBLE:  return longBitsToDouble(prim);
+			default:
+				if ( obj instanceof TypeBridge<?>.Holder )
+					return ((TypeBridge<?>.Holder)obj).payload();
+				return obj;
+			}
+		}
+	}
+
 
 	// ************************************************************
 	// Implementation of JDBC 4 methods.
 	// ************************************************************
 
-	
+
 	@Override
 	public boolean isClosed()
 		throws SQLException
 	{
-		return m_tupleChanges == null;
+		return m_changes == null;
 	}
 
 	// ************************************************************
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -14,7 +14,6 @@ package org.postgresql.pljava.management;
 
 import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -30,6 +29,8 @@ import java.nio.ByteBuffer;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharacterCodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.Permission;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -43,8 +44,12 @@ import java.sql.SQLSyntaxErrorException;
 import java.sql.Statement;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import static java.util.Arrays.fill;
 import static java.util.Objects.requireNonNullElse;
+import java.util.Map;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
@@ -67,6 +72,7 @@ import org.postgresql.pljava.internal.AclId;
 import org.postgresql.pljava.internal.Backend;
 import org.postgresql.pljava.internal.Checked;
 import org.postgresql.pljava.internal.Oid;
+import org.postgresql.pljava.internal.SessionCacheImpl;
 import static org.postgresql.pljava.internal.Privilege.doPrivileged;
 import static org.postgresql.pljava.jdbc.SQLUtils.getDefaultConnection;
 import org.postgresql.pljava.sqlj.Loader;
@@ -316,11 +322,12 @@ import static org.postgresql.pljava.annotation.Function.Security.DEFINER;
  *
  * In this (1.5.0) incarnation of the schema, jar_repository and jar_entry are
  * both indexed by SERIAL columns. The replace_jar operation is an UPDATE to
- * jar_repository (so the jar's id is preserved), but deletes and reinserts to
- * jar_entry (so ALL classes get new ids). This makes the entryId sufficient as
- * a class-cache token to ensure old cached versions are recognized as invalid
- * (although at the cost of doing so for *every single class* in a jar even if
- * many are unchanged). It is used that way in the cache-token construction in
+ * jar_repository (so the jar's id is preserved). Entries whose content (by
+ * digest) is unchanged keep their jar_entry rows; changed entries are deleted
+ * and reinserted (so they get new ids), and entries no longer present are
+ * deleted. This makes the entryId sufficient as a class-cache token to ensure
+ * old cached versions are recognized as invalid, while unchanged classes keep
+ * valid tokens. It is used that way in the cache-token construction in
  * o.p.p.sqlj.Loader, which could need to be revisited if this behavior changes.
  */
 @SQLAction(provides="sqlj.tables", install={
@@ -445,8 +452,10 @@ public class Commands
 	 * 
 	 * @param jarId The id used for the foreign key to the jar_repository table
 	 * @param urlString The url to be read
+	 * @param replacing Whether entries already stored for the jar are being
+	 * replaced
 	 */
-	static void addClassImages(int jarId, String urlString)
+	static void addClassImages(int jarId, String urlString, boolean replacing)
 	throws SQLException
 	{
 		try
@@ -499,7 +508,7 @@ public class Commands
 				}, null, least)
 			)
 			{
-				addClassImages(jarId, urlStream, sz[0]);
+				addClassImages(jarId, urlStream, sz[0], replacing);
 			}
 		}
 		catch(URISyntaxException e)
@@ -516,13 +525,24 @@ public class Commands
 
 	/**
 	 * Add class images from an already opened stream.
+	 *<p>
+	 * When <var>replacing</var>, the entries already stored for the jar are
+	 * compared, by a digest of their content, to the new ones. An entry whose
+	 * content is unchanged keeps its row, and so its {@code entryId}, which
+	 * {@link Loader} uses as a class-cache token; an entry that changed is
+	 * deleted and inserted again, getting a new {@code entryId}; an entry
+	 * absent from the new jar is deleted. New and changed entries are inserted
+	 * several rows to a statement.
 	 * @param urlStream An InputStream (opened on what may have been a URL)
 	 * @param sz The expected size of the stream, used as a worst-case
 	 * mark/reset limit. The caller might pass -1 if the URLConnection can't
 	 * determine a size in advance (a generous guess will be made in that case).
+	 * @param replacing Whether entries already stored for the jar are being
+	 * replaced
 	 * @throws SQLException
 	 */
-	static void addClassImages(int jarId, InputStream urlStream, long sz)
+	static void addClassImages(
+		int jarId, InputStream urlStream, long sz, boolean replacing)
 	throws SQLException
 	{
 		try (
@@ -530,6 +550,13 @@ public class Commands
 			PreparedStatement stmt = conn.prepareStatement(
 				"INSERT INTO sqlj.jar_entry(entryName, jarId, entryImage) " +
 				"VALUES (?, ?, ?)");
+			PreparedStatement multiStmt = conn.prepareStatement(
+				"INSERT INTO sqlj.jar_entry(entryName, jarId, entryImage) " +
+				"VALUES " + String.join(", ",
+					Collections.nCopies(ROWS_PER_INSERT, "(?, ?, ?)")));
+			PreparedStatement delStmt = conn.prepareStatement(
+				"DELETE FROM sqlj.jar_entry " +
+				"WHERE entryId OPERATOR(pg_catalog.=) ?");
 			PreparedStatement descIdFetchStmt = conn.prepareStatement(
 				"SELECT entryId FROM sqlj.jar_entry " +
 				"WHERE jarId OPERATOR(pg_catalog.=) ?" +
@@ -539,8 +566,50 @@ public class Commands
 				" VALUES ( ?, ?, ? )");
 		)
 		{
-			byte[] buf = new byte[1024];
-			ByteArrayOutputStream img = new ByteArrayOutputStream();
+			/*
+			 * sha256 is available in SQL from PostgreSQL 11; md5 before that
+			 * serves only to detect changed content, which is all that's asked
+			 * of it here.
+			 */
+			boolean sha = conn.getMetaData().getDatabaseMajorVersion() >= 11;
+			MessageDigest md = getDigest(sha ? "SHA-256" : "MD5");
+
+			Map<String,String> oldDigests = new HashMap<>();
+			Map<String,Integer> oldIds = new HashMap<>();
+			if ( replacing )
+			{
+				try ( PreparedStatement fs = conn.prepareStatement(
+					"SELECT entryName, entryId, " + ( sha
+					? "pg_catalog.encode(pg_catalog.sha256(entryImage), 'hex')"
+					: "pg_catalog.md5(entryImage)" ) +
+					" FROM sqlj.jar_entry" +
+					" WHERE jarId OPERATOR(pg_catalog.=) ?");
+				)
+				{
+					fs.setInt(1, jarId);
+					try ( ResultSet rs = fs.executeQuery() )
+					{
+						while ( rs.next() )
+						{
+							oldIds.put(rs.getString(1), rs.getInt(2));
+							oldDigests.put(rs.getString(1), rs.getString(3));
+						}
+					}
+				}
+
+				/*
+				 * Descriptors are found again below, and rows for unchanged
+				 * entries will not be cascade-deleted, so clear them here.
+				 */
+				try ( PreparedStatement ds = conn.prepareStatement(
+					"DELETE FROM sqlj.jar_descriptor " +
+					"WHERE jarId OPERATOR(pg_catalog.=) ?");
+				)
+				{
+					ds.setInt(1, jarId);
+					ds.executeUpdate();
+				}
+			}
 
 			BufferedInputStream bis = new BufferedInputStream( urlStream);
 			String manifest = rawManifest( bis, sz);
@@ -561,6 +630,10 @@ public class Commands
 				}
 			}
 
+			List<String> pendingNames = new ArrayList<>();
+			List<byte[]> pendingImages = new ArrayList<>();
+			long pendingBytes = 0;
+
 			for(;;)
 			{
 				JarEntry je = jis.getNextJarEntry();
@@ -572,20 +645,41 @@ public class Commands
 
 				String entryName = je.getName();
 
-				int nBytes;
-				img.reset();
-				while((nBytes = jis.read(buf)) > 0)
-					img.write(buf, 0, nBytes);
+				byte[] img = jis.readAllBytes();
 				jis.closeEntry();
 
-				stmt.setString(1, entryName);
-				stmt.setInt(2, jarId);
-				stmt.setBytes(3, img.toByteArray());
-				if(stmt.executeUpdate() != 1)
-					throw new SQLException(
-						"Jar entry insert did not insert 1 row");
+				Integer oldId = oldIds.remove(entryName);
+				if ( null != oldId )
+				{
+					if ( hex(md.digest(img)).equals(oldDigests.get(entryName)) )
+						continue;
+					/* changed: delete now, before it is inserted again */
+					deleteEntry(delStmt, oldId);
+				}
+
+				pendingNames.add(entryName);
+				pendingImages.add(img);
+				pendingBytes += img.length;
+
+				if ( pendingNames.size() == ROWS_PER_INSERT )
+				{
+					insertEntries(multiStmt, ROWS_PER_INSERT, jarId,
+						pendingNames, pendingImages);
+					pendingBytes = 0;
+				}
+				else if ( pendingBytes >= PENDING_BYTES )
+				{
+					insertEntries(
+						stmt, 1, jarId, pendingNames, pendingImages);
+					pendingBytes = 0;
+				}
 			}
 
+			insertEntries(stmt, 1, jarId, pendingNames, pendingImages);
+
+			for ( int oldId : oldIds.values() )
+				deleteEntry(delStmt, oldId);
+
 			Matcher ddr = ddrSection.matcher( null != manifest ? manifest : "");
 			Matcher continuations = mfCont.matcher( "");
 			for ( int ordinal = 0; ddr.find(); ++ ordinal )
@@ -621,6 +715,75 @@ public class Commands
 		}
 	}
 
+	/**
+	 * Number of rows written by each multi-row insert into
+	 * {@code sqlj.jar_entry}.
+	 */
+	private static final int ROWS_PER_INSERT = 16;
+
+	/**
+	 * Size in bytes of entry images held for insertion, beyond which they are
+	 * written without waiting for a full multi-row insert.
+	 */
+	private static final long PENDING_BYTES = 8L << 20;
+
+	/**
+	 * Inserts the pending entries, using a statement that inserts
+	 * <var>perStatement</var> rows at a time, and clears the lists.
+	 */
+	private static void insertEntries(
+		PreparedStatement stmt, int perStatement, int jarId,
+		List<String> names, List<byte[]> images)
+	throws SQLException
+	{
+		int n = names.size();
+		for ( int i = 0; i < n; i += perStatement )
+		{
+			for ( int j = 0; j < perStatement; ++ j )
+			{
+				stmt.setString(3*j + 1, names.get(i + j));
+				stmt.setInt(3*j + 2, jarId);
+				stmt.setBytes(3*j + 3, images.get(i + j));
+			}
+			if ( stmt.executeUpdate() != perStatement )
+				throw new SQLException("Jar entry insert did not insert " +
+					perStatement + " row" + (1 == perStatement ? "" : "s"));
+		}
+		names.clear();
+		images.clear();
+	}
+
+	private static void deleteEntry(PreparedStatement delStmt, int entryId)
+	throws SQLException
+	{
+		delStmt.setInt(1, entryId);
+		if ( delStmt.executeUpdate() != 1 )
+			throw new SQLException("Jar entry delete did not delete 1 row");
+	}
+
+	private static MessageDigest getDigest(String algorithm)
+	throws SQLException
+	{
+		try
+		{
+			return MessageDigest.getInstance(algorithm);
+		}
+		catch ( NoSuchAlgorithmException e )
+		{
+			throw new SQLException(
+				"digest algorithm " + algorithm + " not available", "XX000", e);
+		}
+	}
+
+	private static String hex(byte[] bytes)
+	{
+		StringBuilder sb = new StringBuilder(2 * bytes.length);
+		for ( byte b : bytes )
+			sb.append(Character.forDigit((b >> 4) & 0xf, 16))
+				.append(Character.forDigit(b & 0xf, 16));
+		return sb.toString();
+	}
+
 	private final static Pattern ddrSection = Pattern.compile(
 	    "(?<=[\\r\\n])Name: ((?:.|(?:\\r\\n?+|\\n) )++)(?:\\r\\n?+|\\n)" +
 		"(?:[^\\r\\n]++(?:\\r\\n?+|\\n)(?![\\r\\n]))*" +
@@ -1466,11 +1629,11 @@ public class Commands
 			throw new SQLException("Unable to obtain id of '" + jarName + "'");
 
 		if(image == null)
-			addClassImages(jarId, urlString);
+			addClassImages(jarId, urlString, false);
 		else
 		{
 			InputStream imageStream = new ByteArrayInputStream(image);
-			addClassImages(jarId, imageStream, image.length);
+			addClassImages(jarId, imageStream, image.length, false);
 		}
 		Loader.clearSchemaLoaders();
 		if(!deploy)
@@ -1523,23 +1686,16 @@ public class Commands
 					"Jar repository update did not update 1 row");
 		}
 
-		try ( PreparedStatement stmt = getDefaultConnection().prepareStatement(
-			"DELETE FROM sqlj.jar_entry WHERE jarId OPERATOR(pg_catalog.=) ?");
-		)
-		{
-			stmt.setInt(1, jarId);
-			stmt.executeUpdate();
-		}
-
 		if(image == null)
-			addClassImages(jarId, urlString);
+			addClassImages(jarId, urlString, true);
 		else
 		{
 			InputStream imageStream = new ByteArrayInputStream(image);
-			addClassImages(jarId, imageStream, image.length);
+			addClassImages(jarId, imageStream, image.length, true);
 		}
 
 		Loader.clearSchemaLoaders();
+		SessionCacheImpl.jarReplaced();
 
 		if(!redeploy)
 			return;
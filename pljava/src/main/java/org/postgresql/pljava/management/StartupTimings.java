@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2026 Tada AB and other contributors, as listed below.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the The BSD 3-Clause License
+ * which accompanies this distribution, and is available at
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Contributors:
+ *   Tada AB
+ *   Chapman Flack
+ */
+package org.postgresql.pljava.management;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.postgresql.pljava.ResultSetProvider;
+import org.postgresql.pljava.annotation.Function;
+import static org.postgresql.pljava.annotation.Function.Effects.VOLATILE;
+import static org.postgresql.pljava.annotation.Function.Parallel.SAFE;
+
+import org.postgresql.pljava.internal.Backend;
+import static org.postgresql.pljava.internal.Backend.*;
+
+/**
+ * Implementation of {@code sqlj.startup_timings()}, reporting how long each
+ * phase of PL/Java's startup took in the current backend.
+ *<p>
+ * The phases are {@code jvm_create} (creating the Java VM),
+ * {@code module_init} (loading PL/Java's own classes and registering native
+ * methods), {@code session_init} (logging configuration and management beans,
+ * which {@code pljava.lazy_worker_init} can defer in a worker process),
+ * {@code policy} (system properties and the security policy), and
+ * {@code first_class_load} (creating the first PL/Java function, which loads
+ * its class). A phase not yet completed in the backend has a null duration.
+ *<p>
+ * The function is {@code PARALLEL SAFE}, so it reports on whichever process
+ * runs it, including a parallel worker.
+ */
+public class StartupTimings implements ResultSetProvider.Large
+{
+	private static final String[] PHASE_NAMES = new String[STARTUP_PHASES];
+
+	static
+	{
+		PHASE_NAMES[STARTUP_JVM_CREATE]       = "jvm_create";
+		PHASE_NAMES[STARTUP_MODULE_INIT]      = "module_init";
+		PHASE_NAMES[STARTUP_SESSION_INIT]     = "session_init";
+		PHASE_NAMES[STARTUP_POLICY]           = "policy";
+		PHASE_NAMES[STARTUP_FIRST_CLASS_LOAD] = "first_class_load";
+	}
+
+	private final long[] m_micros;
+
+	private StartupTimings(long[] micros)
+	{
+		m_micros = micros;
+	}
+
+	/**
+	 * Returns one row per startup phase, with its duration in microseconds.
+	 */
+	@Function(
+		schema = "sqlj", name = "startup_timings",
+		effects = VOLATILE, parallel = SAFE,
+		out = { "phase pg_catalog.text", "microseconds pg_catalog.int8" }
+	)
+	public static ResultSetProvider startupTimings()
+	{
+		return new StartupTimings(Backend.startupTimings());
+	}
+
+	@Override
+	public boolean assignRowValues(ResultSet receiver, long currentRow)
+	throws SQLException
+	{
+		if ( currentRow >= m_micros.length )
+			return false;
+
+		int phase = (int)currentRow;
+		receiver.updateString(1, PHASE_NAMES[phase]);
+		if ( 0 <= m_micros[phase] )
+			receiver.updateLong(2, m_micros[phase]);
+		else
+			receiver.updateNull(2);
+		return true;
+	}
+
+	@Override
+	public void close()
+	{
+	}
+}
@@ -16,16 +16,61 @@ import java.net.URLStreamHandler;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 
+import org.postgresql.pljava.internal.Backend;
+import org.postgresql.pljava.internal.VarlenaWrapper;
 import org.postgresql.pljava.jdbc.SQLUtils;
 
 /**
+ * Handler for the URLs, naming jar entries by their {@code entryId}, that
+ * {@link Loader} returns for resources.
+ *<p>
+ * The contents of entries read are kept in a cache, shared by all loaders,
+ * least recently used entries being dropped to keep its size within
+ * {@code pljava.resource_cache_size}. As an {@code entryId} is given to
+ * an entry when it is stored, and a new one whenever its content is changed
+ * by {@code replace_jar}, a cached content cannot be stale; the cache is
+ * nonetheless cleared along with the loaders, to free the memory of entries
+ * that may no longer be used.
+ *<p>
+ * An entry larger than a quarter of the cache size is not cached. Its stream
+ * reads the detoasted value in place, without a copy into the Java heap, and
+ * can only be read during the transaction in which it was opened. When the
+ * cache size is zero, every entry is read from the database, as a copy, each
+ * time it is opened.
+ *
  * @author Thomas Hallgren
  */
 class EntryStreamHandler extends URLStreamHandler
 {
 	private static EntryStreamHandler s_instance;
 
+	/**
+	 * Cached entries by {@code entryId}, in order of access, least recent
+	 * first; synchronized on itself.
+	 */
+	private static final LinkedHashMap<Integer,CachedEntry> s_cache =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Total bytes of the contents in {@code s_cache}.
+	 */
+	private static long s_cachedBytes;
+
+	private static final class CachedEntry
+	{
+		final String name;
+		final byte[] image;
+
+		CachedEntry(String name, byte[] image)
+		{
+			this.name = name;
+			this.image = image;
+		}
+	}
+
 	protected URLConnection openConnection(URL u)
 	throws IOException
 	{
@@ -44,11 +89,52 @@ class EntryStreamHandler extends URLStreamHandler
 		return s_instance;
 	}
 
+	/**
+	 * Empties the cache of entry contents.
+	 */
+	static void clearCache()
+	{
+		synchronized ( s_cache )
+		{
+			s_cache.clear();
+			s_cachedBytes = 0;
+		}
+	}
+
+	private static CachedEntry cached(int entryId)
+	{
+		synchronized ( s_cache )
+		{
+			return s_cache.get(entryId);
+		}
+	}
+
+	/**
+	 * Adds an entry to the cache, dropping least recently used entries as
+	 * needed to stay within <var>limit</var> bytes.
+	 */
+	private static void cache(int entryId, CachedEntry entry, long limit)
+	{
+		synchronized ( s_cache )
+		{
+			if ( null != s_cache.putIfAbsent(entryId, entry) )
+				return;
+			s_cachedBytes += entry.image.length;
+			Iterator<CachedEntry> it = s_cache.values().iterator();
+			while ( s_cachedBytes > limit  &&  it.hasNext() )
+			{
+				s_cachedBytes -= it.next().image.length;
+				it.remove();
+			}
+		}
+	}
+
 	class EntryConnection extends URLConnection
 	{
 		private final int m_entryId;
 		private String m_entryName;
 		private byte[] m_image;
+		private VarlenaWrapper.Input m_largeImage;
 
 		protected EntryConnection(URL entryURL)
 		{
@@ -57,7 +143,8 @@ class EntryStreamHandler extends URLStreamHandler
 		}
 
 		/**
-		 * Executes the prepared statement that will fetch an image based on
+		 * Obtains the image from the cache if it is there, otherwise executes
+		 * the prepared statement that will fetch it based on
 		 * the entryId denoted by the URL of this connection.
 		 * If connect has been called already, subsequent calls are ignored.
 		 */
@@ -67,20 +154,42 @@ class EntryStreamHandler extends URLStreamHandler
 			if(connected)
 				return;
 
+			CachedEntry entry = cached(m_entryId);
+			if ( null != entry )
+			{
+				m_entryName = entry.name;
+				m_image = entry.image;
+				connected = true;
+				return;
+			}
+
+			long limit = 1024L * Backend.getResourceCacheSize();
+
 			PreparedStatement stmt = null;
     		ResultSet rs = null;
 	    	try
 			{
 
 				stmt = SQLUtils.getDefaultConnection().prepareStatement(
-					"SELECT entryName, entryImage FROM sqlj.jar_entry " +
+					"SELECT entryName, pg_catalog.octet_length(entryImage), " +
+					"entryImage FROM sqlj.jar_entry " +
 					"WHERE entryId OPERATOR(pg_catalog.=) ?");
 				stmt.setInt(1, m_entryId);
 	    		rs = stmt.executeQuery();
 				if(rs.next())
 				{
 					m_entryName = rs.getString(1);
-					m_image = rs.getBytes(2);
+					if ( 0 == limit )
+						m_image = rs.getBytes(3);
+					else if ( rs.getLong(2) > limit / 4 )
+						m_largeImage =
+							rs.getObject(3, VarlenaWrapper.Input.class);
+					else
+					{
+						m_image = rs.getBytes(3);
+						cache(m_entryId,
+							new CachedEntry(m_entryName, m_image), limit);
+					}
 					connected = true;
 				}
 				else
@@ -98,14 +207,18 @@ class EntryStreamHandler extends URLStreamHandler
 		}
 
 		/**
-		 * Creates a new {@link java.io.ByteArrayInputStream} for the image that
-		 * was obtained during {@link #connect}.
+		 * Creates a new input stream for the image that was obtained during
+		 * {@link #connect}: a {@link java.io.ByteArrayInputStream} over the
+		 * (possibly cached) image, or, for a large one, a stream reading it in
+		 * place.
 		 * @return the created input stream.
 		 */
 	    public InputStream getInputStream()
 	    throws IOException
 		{
 	    	this.connect();
+			if ( null != m_largeImage )
+				return m_largeImage.new Stream();
 			return new ByteArrayInputStream(m_image);
 	    }
 
@@ -121,5 +234,3 @@ class EntryStreamHandler extends URLStreamHandler
 		}
 	}
 }
-
-
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2004-2025 Tada AB and other contributors, as listed below.
+ * Copyright (c) 2004-2026 Tada AB and other contributors, as listed below.
  *
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the The BSD 3-Clause License
@@ -36,17 +36,18 @@ import java.sql.SQLData;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import static java.util.stream.Collectors.groupingBy;
-
 import org.postgresql.pljava.sqlgen.Lexicals.Identifier;
 
 import org.postgresql.pljava.internal.Backend;
@@ -132,6 +133,181 @@ public class Loader extends ClassLoader
 			return entryURL(m_entryIds[m_top++]);
 		}
 	}
+
+	/**
+	 * Immutable index from entry name to the integer surrogate keys of the jar
+	 * entries of that name, in the order of jars on a loader's jar path, and
+	 * to the position of the jar holding each on that path.
+	 *<p>
+	 * The names are held once each, in a sorted array searched by binary
+	 * search, and the keys and jar positions in flat {@code int} arrays, with
+	 * an array of offsets giving where the entries for each name begin. No
+	 * per-entry objects are kept.
+	 */
+	static final class EntryIndex
+	{
+		private final String[] m_names;
+		private final int[] m_starts;
+		private final int[] m_entryIds;
+		private final int[] m_jars;
+
+		private EntryIndex(
+			String[] names, int[] starts, int[] entryIds, int[] jars)
+		{
+			m_names = names;
+			m_starts = starts;
+			m_entryIds = entryIds;
+			m_jars = jars;
+		}
+
+		/**
+		 * Position of <var>name</var> in the index, or a negative value if
+		 * it is not there.
+		 */
+		int find(String name)
+		{
+			return Arrays.binarySearch(m_names, name);
+		}
+
+		/**
+		 * Key of the entry found at <var>position</var> in the first jar on the
+		 * path that has one.
+		 */
+		int firstEntryId(int position)
+		{
+			return m_entryIds[m_starts[position]];
+		}
+
+		/**
+		 * Position on the jar path of the jar holding
+		 * {@link #firstEntryId firstEntryId(position)}.
+		 */
+		int firstJar(int position)
+		{
+			return m_jars[m_starts[position]];
+		}
+
+		/**
+		 * Keys of all entries found at <var>position</var>, in jar path order.
+		 */
+		int[] entryIds(int position)
+		{
+			return Arrays.copyOfRange(
+				m_entryIds, m_starts[position], m_starts[position + 1]);
+		}
+
+		/**
+		 * All entry names in the index, in sorted order.
+		 */
+		List<String> names()
+		{
+			return Collections.unmodifiableList(Arrays.asList(m_names));
+		}
+
+		/**
+		 * Accumulates entries in the order they are read, which is the reverse
+		 * of jar path order, then builds the index.
+		 */
+		static final class Builder
+		{
+			private final ArrayList<String> m_names = new ArrayList<>();
+			private int[] m_entryIds = new int [ 64 ];
+			private int[] m_jars = new int [ 64 ];
+
+			void add(String name, int entryId, int jar)
+			{
+				int n = m_names.size();
+				if ( n == m_entryIds.length )
+				{
+					m_entryIds = Arrays.copyOf(m_entryIds, 2 * n);
+					m_jars = Arrays.copyOf(m_jars, 2 * n);
+				}
+				m_names.add(name);
+				m_entryIds[n] = entryId;
+				m_jars[n] = jar;
+			}
+
+			boolean isEmpty()
+			{
+				return m_names.isEmpty();
+			}
+
+			EntryIndex build()
+			{
+				int n = m_names.size();
+				String[] read = m_names.toArray(new String[n]);
+
+				/*
+				 * A permutation of the rows, ordered by name, stably, so rows
+				 * of the same name stay in the order read.
+				 */
+				int[] order = new int [ n ];
+				for ( int i = 0; i < n; ++ i )
+					order[i] = i;
+				sortByName(read, order, new int [ n ], 0, n);
+
+				String[] names = new String [ n ];
+				int[] starts = new int [ n + 1 ];
+				int[] entryIds = new int [ n ];
+				int[] jars = new int [ n ];
+				int unique = 0;
+
+				for ( int i = 0, end; i < n; i = end )
+				{
+					String name = read[order[i]];
+					for ( end = i + 1; end < n; ++ end )
+						if ( ! name.equals(read[order[end]]) )
+							break;
+					names[unique] = name;
+					starts[unique++] = i;
+
+					/*
+					 * Latest read first, as the jars were read lowest priority
+					 * first.
+					 */
+					for ( int j = i; j < end; ++ j )
+					{
+						int k = order[end - 1 - (j - i)];
+						entryIds[j] = m_entryIds[k];
+						jars[j] = m_jars[k];
+					}
+				}
+				starts[unique] = n;
+
+				return new EntryIndex(
+					Arrays.copyOf(names, unique),
+					Arrays.copyOf(starts, unique + 1), entryIds, jars);
+			}
+
+			/**
+			 * Stable merge sort of {@code order[from..to)}, indices into
+			 * <var>names</var>, by the names they index, using <var>tmp</var>
+			 * as scratch space; keeps the indices as {@code int}s rather than
+			 * boxing one object per entry to sort with a comparator.
+			 */
+			private static void sortByName(
+				String[] names, int[] order, int[] tmp, int from, int to)
+			{
+				if ( to - from < 2 )
+					return;
+				int mid = (from + to) >>> 1;
+				sortByName(names, order, tmp, from, mid);
+				sortByName(names, order, tmp, mid, to);
+				if ( names[order[mid - 1]].compareTo(names[order[mid]]) <= 0 )
+					return;
+				System.arraycopy(order, from, tmp, from, to - from);
+				for ( int i = from, a = from, b = mid; i < to; ++ i )
+				{
+					if ( b >= to  ||  a < mid
+						&&  names[tmp[a]].compareTo(names[tmp[b]]) <= 0 )
+						order[i] = tmp[a++];
+					else
+						order[i] = tmp[b++];
+				}
+			}
+		}
+	}
+
 	public static final Identifier.Simple PUBLIC_SCHEMA =
 		Identifier.Simple.fromCatalog("public");
 
@@ -152,6 +328,7 @@ public class Loader extends ClassLoader
 	{
 		s_schemaLoaders.clear();
 		s_typeMap.clear();
+		EntryStreamHandler.clearCache();
 		Backend.clearFunctionCache();
 	}
 
@@ -196,16 +373,16 @@ public class Loader extends ClassLoader
 			return loader;
 
 		/*
-		 * Under-construction map from an entry name to an array of integer
-		 * surrogate keys for entries with matching names in jars on the path.
+		 * Under-construction index from an entry name to the integer surrogate
+		 * keys for entries with matching names in jars on the path.
 		 */
-		Map<String,int[]> classImages = new HashMap<>();
+		EntryIndex.Builder classImages = new EntryIndex.Builder();
 
 		/*
-		 * Under-construction map from an integer entry key to a
-		 * CodeSource representing the jar it belongs to.
+		 * CodeSources representing the jars, in the order read (the reverse
+		 * of their order on the path).
 		 */
-		Map<Integer,CodeSource> codeSources = new HashMap<>();
+		List<CodeSource> codeSources = new ArrayList<>();
 
 		Connection conn = getDefaultConnection();
 		try (
@@ -232,28 +409,15 @@ public class Loader extends ClassLoader
 				while(rs.next())
 				{
 					URL jarUrl = new URI("sqlj", rs.getString(2), null).toURL();
-					CodeSource cs = new CodeSource(jarUrl, (CodeSigner[])null);
+					int jar = codeSources.size();
+					codeSources.add(
+						new CodeSource(jarUrl, (CodeSigner[])null));
 
 					inner.setInt(1, rs.getInt(1));
 					try ( ResultSet rs2 = inner.executeQuery() )
 					{
 						while(rs2.next())
-						{
-							int entryId = rs2.getInt(1);
-							String entryName = rs2.getString(2);
-							codeSources.put(entryId, cs);
-							int[] oldEntry = classImages.get(entryName);
-							if(oldEntry == null)
-								classImages.put(entryName, new int[] { entryId });
-							else
-							{
-								int last = oldEntry.length;
-								int[] newEntry = new int[last + 1];
-								newEntry[0] = entryId;
-								System.arraycopy(oldEntry, 0, newEntry, 1, last);
-								classImages.put(entryName, newEntry);
-							}
-						}
+							classImages.add(rs2.getString(2), rs2.getInt(1), jar);
 					}
 				}
 			}
@@ -264,7 +428,7 @@ public class Loader extends ClassLoader
 		}
 
 		ClassLoader parent = ClassLoader.getSystemClassLoader();
-		if(classImages.size() == 0)
+		if(classImages.isEmpty())
 			//
 			// No classpath defined for the schema. Default to
 			// classpath of public schema or to the system classloader if the
@@ -275,14 +439,65 @@ public class Loader extends ClassLoader
 		else
 		{
 			String name = "schema:" + schema.nonFolded();
+			EntryIndex index = classImages.build();
+			CodeSource[] sources = codeSources.toArray(new CodeSource[0]);
 			loader = doPrivileged(() ->
-				new Loader(classImages, codeSources, parent, name));
+				new Loader(index, sources, parent, name));
 		}
 
 		s_schemaLoaders.put(schema, loader);
 		return loader;
 	}
 
+	/**
+	 * Loads, without initializing, the class named <var>className</var> with
+	 * the loader for <var>schema</var>, or every class in the jars on that
+	 * schema's class path if <var>className</var> is {@code *}.
+	 *<p>
+	 * Used to warm up a new session by reading and defining classes before
+	 * a function needs them. A class that cannot be loaded is skipped when
+	 * loading every class, as a jar may well contain classes whose dependencies
+	 * are not present.
+	 * @return the number of classes loaded
+	 * @throws ClassNotFoundException if a single named class cannot be found
+	 */
+	public static int preload(Identifier.Simple schema, String className)
+	throws SQLException, ClassNotFoundException
+	{
+		ClassLoader loader = getSchemaLoader(schema);
+
+		if ( ! "*".equals(className) )
+		{
+			Class.forName(className, false, loader);
+			return 1;
+		}
+
+		if ( ! (loader instanceof Loader) )
+			return 0;
+
+		int loaded = 0;
+		for ( String entryName : ((Loader)loader).m_index.names() )
+		{
+			if ( ! entryName.endsWith(".class")
+				||  entryName.startsWith("META-INF/")
+				||  entryName.endsWith("-info.class") )
+				continue;
+			String name = entryName
+				.substring(0, entryName.length() - ".class".length())
+				.replace('/', '.');
+			try
+			{
+				Class.forName(name, false, loader);
+				++ loaded;
+			}
+			catch ( ClassNotFoundException | LinkageError e )
+			{
+				s_logger.fine("preload of " + name + " skipped: " + e);
+			}
+		}
+		return loaded;
+	}
+
 	/**
 	 * Returns the SQL type {@link Oid} to Java {@link Class} map that contains the
 	 * Java UDT mappings for the given <code>schema</code>.
@@ -371,12 +586,16 @@ public class Loader extends ClassLoader
 	}
 
 	/**
-	 * Map from name of entry (resource or expanded class name) to an array of
-	 * the integer surrogate keys for jar entries, in the order of jars on this
+	 * Index from name of entry (resource or expanded class name) to the
+	 * integer surrogate keys for jar entries, in the order of jars on this
 	 * loader's jar path that contain entries matching the name.
 	 */
-	private final Map<String,int[]> m_entries;
-	private final Map<Integer,ProtectionDomain> m_domains;
+	private final EntryIndex m_index;
+
+	/**
+	 * Protection domain for each jar, by its position in {@code m_index}.
+	 */
+	private final ProtectionDomain[] m_domains;
 
 	/**
 	 * Private constructor used only to create the "sentinel" (non-)loader.
@@ -386,36 +605,31 @@ public class Loader extends ClassLoader
 	 */
 	private Loader()
 	{
-		m_entries  = null;
+		m_index    = null;
 		m_domains  = null;
 		m_j9Helper = null;
 	}
 
 	/**
 	 * Create a new Loader.
-	 * @param entries
+	 * @param index
+	 * @param sources CodeSource of each jar, by its position in index
 	 * @param parent
 	 */
 	Loader(
-		Map<String,int[]> entries,
-		Map<Integer,CodeSource> sources, ClassLoader parent, String name)
+		EntryIndex index,
+		CodeSource[] sources, ClassLoader parent, String name)
 	{
 		super(name, parent);
-		m_entries = entries;
+		m_index = index;
 		m_j9Helper = ifJ9getHelper(); // null if not under OpenJ9 with sharing
 
 		Principal[] noPrincipals = new Principal[0];
 
-		m_domains = new HashMap<>();
-
-		sources.entrySet().stream()
-			.collect(groupingBy(Map.Entry::getValue))
-			.entrySet().stream().forEach(e ->
-			{
-				ProtectionDomain pd = new ProtectionDomain(
-					e.getKey(), null /* no permissions */, this, noPrincipals);
-				e.getValue().forEach(ee -> m_domains.put(ee.getKey(), pd));
-			});
+		m_domains = new ProtectionDomain [ sources.length ];
+		for ( int i = 0; i < sources.length; ++ i )
+			m_domains[i] = new ProtectionDomain(
+				sources[i], null /* no permissions */, this, noPrincipals);
 	}
 
 	@Override
@@ -423,10 +637,11 @@ public class Loader extends ClassLoader
 	throws ClassNotFoundException
 	{
 		String path = name.replace('.', '/').concat(".class");
-		int[] entryId = m_entries.get(path);
-		if(entryId != null)
+		int position = m_index.find(path);
+		if(position >= 0)
 		{
-			ProtectionDomain pd = m_domains.get(entryId[0]);
+			int entryId = m_index.firstEntryId(position);
+			ProtectionDomain pd = m_domains[m_index.firstJar(position)];
 
 			/*
 			 * Check early whether running on OpenJ9 JVM and the shared cache
@@ -438,7 +653,7 @@ public class Loader extends ClassLoader
 			 *
 			 * ifJ9findSharedClass can only return a byte[], a String, or null.
 			 */
-			Object o = ifJ9findSharedClass(name, entryId[0]);
+			Object o = ifJ9findSharedClass(name, entryId);
 			if ( o instanceof byte[] )
 			{
 				byte[] img = (byte[]) o;
@@ -463,7 +678,7 @@ public class Loader extends ClassLoader
 								"SELECT entryImage FROM sqlj.jar_entry " +
 								"WHERE entryId OPERATOR(pg_catalog.=) ?");
 						s.unwrap(SPIReadOnlyControl.class).clearReadOnly();
-						s.setInt(1, entryId[0]);
+						s.setInt(1, entryId);
 						return s;
 					})).get();
 				ResultSet rs = stmt.executeQuery();
@@ -493,21 +708,20 @@ public class Loader extends ClassLoader
 	@Override
 	protected URL findResource(String name)
 	{
-		int[] entryIds = m_entries.get(name);
-		if(entryIds == null)
+		int position = m_index.find(name);
+		if(position < 0)
 			return null;
 		
-		return entryURL(entryIds[0]);
+		return entryURL(m_index.firstEntryId(position));
 	}
 
 	@Override
 	protected Enumeration<URL> findResources(String name)
     throws IOException
 	{
-		int[] entryIds = m_entries.get(name);
-		if(entryIds == null)
-			entryIds = new int[0];
-		return new EntryEnumeration(entryIds);
+		int position = m_index.find(name);
+		return new EntryEnumeration(
+			position < 0 ? new int[0] : m_index.entryIds(position));
 	}
 
 	/*